@@ -0,0 +1,230 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.impl;
+
+import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.EventHandler;
+import com.tc.async.api.EventHandlerException;
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.Sink;
+import com.tc.logging.DefaultLoggerProvider;
+import com.tc.util.concurrent.QueueFactory;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the time from adding a context to a stage's sink until the stage's handler has run it.
+ *
+ * The throughput benchmarks add a batch of contexts and wait for the whole batch to be handled, the latency benchmarks
+ * add one context at a time.  The number of worker threads in the stage is set by queueCount and the number of threads
+ * adding contexts by the JMH -t option.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class StageBenchmark {
+  private static final int BATCH = 1000;
+  // keyed contexts are spread over this many keys, enough for each of the queues to have work
+  private static final int KEYS = 64;
+
+  @Param({"1", "4", "16"})
+  public int queueCount;
+
+  @Param({"1024"})
+  public int queueSize;
+
+  private StageImpl<Event> stage;
+  private Sink<Event> sink;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.stage = new StageImpl<Event>(new DefaultLoggerProvider(), "benchmark", new CompletingHandler(), queueCount,
+        new ThreadGroup("benchmark"), new QueueFactory<ContextWrapper<Event>>(), queueSize);
+    this.stage.start(null);
+    this.sink = this.stage.getSink();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.stage.destroy();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(BATCH)
+  public void singleThreadedThroughput() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(BATCH);
+    for (int x = 0; x < BATCH; x++) {
+      this.sink.addSingleThreaded(new Event(done));
+    }
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(BATCH)
+  public void keyedThroughput() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(BATCH);
+    int base = ThreadLocalRandom.current().nextInt(KEYS);
+    for (int x = 0; x < BATCH; x++) {
+      this.sink.addMultiThreaded(new MultiThreadedEvent(done, (base + x) % KEYS, false));
+    }
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(BATCH)
+  public void unkeyedThroughput() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(BATCH);
+    for (int x = 0; x < BATCH; x++) {
+      this.sink.addMultiThreaded(new MultiThreadedEvent(done, null, false));
+    }
+    done.await();
+  }
+
+  /**
+   * Keyed contexts with every batch ending in a flush, which must pass through every queue of the stage.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @OperationsPerInvocation(BATCH)
+  public void flushingThroughput() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(BATCH);
+    int base = ThreadLocalRandom.current().nextInt(KEYS);
+    for (int x = 0; x < BATCH - 1; x++) {
+      this.sink.addMultiThreaded(new MultiThreadedEvent(done, (base + x) % KEYS, false));
+    }
+    this.sink.addMultiThreaded(new MultiThreadedEvent(done, null, true));
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void singleThreadedLatency() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    this.sink.addSingleThreaded(new Event(done));
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void keyedLatency() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    this.sink.addMultiThreaded(new MultiThreadedEvent(done, ThreadLocalRandom.current().nextInt(KEYS), false));
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void unkeyedLatency() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    this.sink.addMultiThreaded(new MultiThreadedEvent(done, null, false));
+    done.await();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void flushLatency() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    this.sink.addMultiThreaded(new MultiThreadedEvent(done, null, true));
+    done.await();
+  }
+
+  static class Event {
+    private final CountDownLatch done;
+
+    Event(CountDownLatch done) {
+      this.done = done;
+    }
+
+    void handled() {
+      this.done.countDown();
+    }
+  }
+
+  static class MultiThreadedEvent extends Event implements MultiThreadedEventContext {
+    private final Object key;
+    private final boolean flush;
+
+    MultiThreadedEvent(CountDownLatch done, Object key, boolean flush) {
+      super(done);
+      this.key = key;
+      this.flush = flush;
+    }
+
+    @Override
+    public Object getSchedulingKey() {
+      return this.key;
+    }
+
+    @Override
+    public boolean flush() {
+      return this.flush;
+    }
+  }
+
+  private static class CompletingHandler implements EventHandler<Event> {
+    @Override
+    public void handleEvent(Event context) throws EventHandlerException {
+      context.handled();
+    }
+
+    @Override
+    public void handleEvents(Collection<Event> contexts) throws EventHandlerException {
+      for (Event context : contexts) {
+        context.handled();
+      }
+    }
+
+    @Override
+    public void initializeContext(ConfigurationContext context) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+  }
+}
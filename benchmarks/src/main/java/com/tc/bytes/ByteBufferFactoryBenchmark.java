@@ -0,0 +1,73 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.bytes;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * The cost of getting the fixed size buffers for a message from TCByteBufferFactory and giving them back, with and
+ * without pooling.  Pooling is fixed when the factory is loaded so each variant runs in its own fork.  Run with -prof gc
+ * to see the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ByteBufferFactoryBenchmark {
+
+  @Param({"1024", "4096", "65536"})
+  public int length;
+
+  @Param({"false", "true"})
+  public boolean direct;
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dcom.tc.tc.bytebuffer.pooling.enabled=true")
+  public int pooled() {
+    return getAndReturn();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dcom.tc.tc.bytebuffer.pooling.enabled=false")
+  public int unpooled() {
+    return getAndReturn();
+  }
+
+  private int getAndReturn() {
+    TCByteBuffer[] buffers = TCByteBufferFactory.getFixedSizedInstancesForLength(direct, length);
+    int capacity = 0;
+    for (TCByteBuffer buffer : buffers) {
+      capacity += buffer.capacity();
+    }
+    TCByteBufferFactory.returnBuffers(buffers);
+    return capacity;
+  }
+}
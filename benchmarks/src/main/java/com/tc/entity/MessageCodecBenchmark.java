@@ -0,0 +1,154 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.entity;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.io.TCByteBufferInputStream;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.l2.msg.ReplicationMessage;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.MessageMonitor;
+import com.tc.net.protocol.tcm.NullMessageMonitor;
+import com.tc.net.protocol.tcm.TCMessageHeader;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.net.protocol.tcm.UnknownNameException;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.session.SessionID;
+import com.tc.object.tx.TransactionID;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * The cost of encoding and decoding the messages on the request path: the client's entity request and the message the
+ * active replicates to its passives.  Run with -prof gc to see the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MessageCodecBenchmark {
+  private static final MessageMonitor MONITOR = new NullMessageMonitor();
+
+  @Param({"16", "1024", "16384"})
+  public int payloadSize;
+
+  private final ClientID client = new ClientID(1);
+  private final EntityDescriptor descriptor = new EntityDescriptor(new EntityID("org.terracotta.entity.BenchmarkEntity", "benchmark"), new ClientInstanceID(1), 1);
+  private byte[] payload;
+  private long transaction = 0;
+
+  private TCMessageHeader entityHeader;
+  private byte[] entityMessage;
+  private byte[] replicationMessage;
+
+  @Setup
+  public void setUp() {
+    this.payload = new byte[payloadSize];
+    NetworkVoltronEntityMessageImpl message = newEntityMessage();
+    message.dehydrate();
+    this.entityHeader = (TCMessageHeader)message.getHeader();
+    this.entityMessage = toBytes(message.getPayload());
+
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    newReplicationMessage().serializeTo(out);
+    out.close();
+    this.replicationMessage = toBytes(out.toArray());
+  }
+
+  @Benchmark
+  public int dehydrateEntityMessage() {
+    NetworkVoltronEntityMessageImpl message = newEntityMessage();
+    message.dehydrate();
+    int length = message.getTotalLength();
+    // give the buffers back the way the comms layer does once the message is written
+    message.recycle();
+    return length;
+  }
+
+  @Benchmark
+  public NetworkVoltronEntityMessageImpl hydrateEntityMessage() throws IOException, UnknownNameException {
+    NetworkVoltronEntityMessageImpl message = new NetworkVoltronEntityMessageImpl(SessionID.NULL_ID, MONITOR, null,
+        this.entityHeader, new TCByteBuffer[] { TCByteBufferFactory.wrap(this.entityMessage) });
+    message.hydrate();
+    return message;
+  }
+
+  @Benchmark
+  public int serializeReplicationMessage() {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    newReplicationMessage().serializeTo(out);
+    out.close();
+    int length = out.getBytesWritten();
+    out.recycle();
+    return length;
+  }
+
+  @Benchmark
+  public ReplicationMessage deserializeReplicationMessage() throws IOException {
+    ReplicationMessage message = new ReplicationMessage();
+    message.deserializeFrom(new TCByteBufferInputStream(TCByteBufferFactory.wrap(this.replicationMessage)));
+    return message;
+  }
+
+  private NetworkVoltronEntityMessageImpl newEntityMessage() {
+    NetworkVoltronEntityMessageImpl message = new NetworkVoltronEntityMessageImpl(new SessionID(0), MONITOR,
+        new TCByteBufferOutputStream(4, 4096, false), null, TCMessageType.VOLTRON_ENTITY_MESSAGE);
+    TransactionID tid = new TransactionID(++this.transaction);
+    message.setContents(this.client, tid, this.descriptor, VoltronEntityMessage.Type.INVOKE_ACTION, true, this.payload, tid);
+    return message;
+  }
+
+  private ReplicationMessage newReplicationMessage() {
+    TransactionID tid = new TransactionID(++this.transaction);
+    return ReplicationMessage.createReplicatedMessage(this.descriptor, this.client, tid, tid,
+        ReplicationMessage.ReplicationType.INVOKE_ACTION, this.payload, 1);
+  }
+
+  private static byte[] toBytes(TCByteBuffer[] buffers) {
+    int length = 0;
+    for (TCByteBuffer buffer : buffers) {
+      length += buffer.remaining();
+    }
+    byte[] data = new byte[length];
+    int offset = 0;
+    for (TCByteBuffer buffer : buffers) {
+      int remaining = buffer.remaining();
+      buffer.duplicate().get(data, offset, remaining);
+      offset += remaining;
+    }
+    return data;
+  }
+}
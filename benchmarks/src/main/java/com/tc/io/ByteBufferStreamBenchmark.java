@@ -0,0 +1,166 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.io;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * The cost of writing and reading the primitives messages are built from with TCByteBufferOutputStream and
+ * TCByteBufferInputStream.  Run with -prof gc to see the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ByteBufferStreamBenchmark {
+  // roughly the fields of a small entity message
+  private static final int FIELDS = 16;
+
+  @Param({"16", "1024", "16384"})
+  public int payloadSize;
+
+  private byte[] payload;
+  private String string;
+  private byte[] primitives;
+  private byte[] strings;
+  private byte[] bytes;
+
+  @Setup
+  public void setUp() {
+    this.payload = new byte[payloadSize];
+    this.string = "org.terracotta.entity.BenchmarkEntity:" + payloadSize;
+    this.primitives = encode(this::writePrimitives);
+    this.strings = encode(this::writeStrings);
+    this.bytes = encode(this::writeBytes);
+  }
+
+  @Benchmark
+  public int writePrimitives() {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    writePrimitives(out);
+    return finish(out);
+  }
+
+  @Benchmark
+  public long readPrimitives() throws IOException {
+    TCByteBufferInputStream in = new TCByteBufferInputStream(TCByteBufferFactory.wrap(this.primitives));
+    long sum = 0;
+    for (int x = 0; x < FIELDS; x++) {
+      sum += in.readLong();
+      sum += in.readInt();
+      sum += in.readByte();
+      sum += in.readBoolean() ? 1 : 0;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int writeStrings() {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    writeStrings(out);
+    return finish(out);
+  }
+
+  @Benchmark
+  public void readStrings(Blackhole bh) throws IOException {
+    TCByteBufferInputStream in = new TCByteBufferInputStream(TCByteBufferFactory.wrap(this.strings));
+    for (int x = 0; x < FIELDS; x++) {
+      bh.consume(in.readString());
+    }
+  }
+
+  @Benchmark
+  public int writeBytes() {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    writeBytes(out);
+    return finish(out);
+  }
+
+  @Benchmark
+  public byte[] readBytes() throws IOException {
+    TCByteBufferInputStream in = new TCByteBufferInputStream(TCByteBufferFactory.wrap(this.bytes));
+    byte[] data = new byte[in.readInt()];
+    in.readFully(data);
+    return data;
+  }
+
+  private void writePrimitives(TCByteBufferOutputStream out) {
+    for (int x = 0; x < FIELDS; x++) {
+      out.writeLong(x);
+      out.writeInt(x);
+      out.writeByte(x);
+      out.writeBoolean((x & 1) == 0);
+    }
+  }
+
+  private void writeStrings(TCByteBufferOutputStream out) {
+    for (int x = 0; x < FIELDS; x++) {
+      out.writeString(this.string);
+    }
+  }
+
+  private void writeBytes(TCByteBufferOutputStream out) {
+    out.writeInt(this.payload.length);
+    out.write(this.payload);
+  }
+
+  private static int finish(TCByteBufferOutputStream out) {
+    out.close();
+    int written = out.getBytesWritten();
+    // give the blocks back the way a sent message does
+    out.recycle();
+    return written;
+  }
+
+  private static byte[] encode(Writer writer) {
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream(4, 4096, false);
+    writer.write(out);
+    out.close();
+    byte[] data = new byte[out.getBytesWritten()];
+    int offset = 0;
+    for (TCByteBuffer buffer : out.toArray()) {
+      int length = buffer.limit();
+      buffer.get(data, offset, length);
+      offset += length;
+    }
+    return data;
+  }
+
+  private interface Writer {
+    void write(TCByteBufferOutputStream out);
+  }
+}
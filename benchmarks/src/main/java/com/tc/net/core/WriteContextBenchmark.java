@@ -0,0 +1,91 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.core;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * The cost of packing up a message's buffers into direct buffers before they are written to the socket, against
+ * gathering views over the message's own buffers, see TCConnectionImpl.WriteContext.  The message is spread over
+ * several heap buffers as it is after being encoded and the packed up buffers are recycled once "written", as the
+ * connection does.  Run with -prof gc to see the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class WriteContextBenchmark {
+
+  @Param({"64", "1024", "16384"})
+  public int messageSize;
+
+  // the header, the encoded fields and the payload
+  @Param({"3"})
+  public int bufferCount;
+
+  private TCByteBuffer[] message;
+
+  @Setup
+  public void setUp() {
+    this.message = new TCByteBuffer[bufferCount];
+    int remaining = messageSize;
+    for (int x = 0; x < bufferCount; x++) {
+      int size = (x == bufferCount - 1) ? remaining : messageSize / bufferCount;
+      this.message[x] = TCByteBufferFactory.wrap(new byte[size]);
+      remaining -= size;
+    }
+  }
+
+  @Benchmark
+  public int packUpMessage() {
+    TCByteBuffer[] packed = TCConnectionImpl.WriteContext.getPackedUpMessage(this.message);
+    int length = 0;
+    for (TCByteBuffer buffer : packed) {
+      length += buffer.limit();
+      buffer.recycle();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public int gatherMessage() {
+    TCByteBuffer[] gathered = TCConnectionImpl.WriteContext.getGatheredMessage(this.message);
+    int length = 0;
+    for (TCByteBuffer buffer : gathered) {
+      length += buffer.limit();
+    }
+    return length;
+  }
+}
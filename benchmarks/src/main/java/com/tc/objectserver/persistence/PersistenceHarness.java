@@ -0,0 +1,203 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.terracotta.persistence.IPersistentStorage;
+
+
+/**
+ * Runs each of the {@link PlatformWorkload}s against each of the {@link StorageEngine}s and reports, per pair, the
+ * operations per second, the latency percentiles of a single operation, the bytes written to disk per operation,
+ * the size of the store and the time taken to recover the store after a simulated crash.
+ *
+ * The operations are run from a single thread as the platform persistors are driven from the server's stages.  The
+ * bytes written are the <code>write_bytes</code> of <code>/proc/self/io</code>, the bytes sent to the storage layer rather
+ * than every byte passed to a write call, and are only reported on Linux.
+ */
+public class PersistenceHarness {
+  private static final Path PROC_IO = Paths.get("/proc/self/io");
+
+  private final Set<StorageEngine> engines = EnumSet.allOf(StorageEngine.class);
+  private final Set<PlatformWorkload> workloads = EnumSet.allOf(PlatformWorkload.class);
+  private int ops = 20000;
+  private int warmup = 2000;
+  private File directory;
+
+  public static void main(String[] args) throws Exception {
+    PersistenceHarness harness = new PersistenceHarness();
+    try {
+      harness.parse(args);
+    } catch (IllegalArgumentException bad) {
+      System.err.println(bad.getMessage());
+      System.err.println("usage: PersistenceHarness [--engines flat-file,in-memory] [--workloads transaction-order,entity-journal,client-churn]"
+          + " [--ops n] [--warmup n] [--dir path]");
+      System.exit(1);
+    }
+    harness.run();
+  }
+
+  private void parse(String[] args) {
+    if (args.length % 2 != 0) {
+      throw new IllegalArgumentException("options are given as --name value pairs");
+    }
+    for (int x = 0; x < args.length; x += 2) {
+      String value = args[x + 1];
+      switch (args[x]) {
+        case "--engines":
+          engines.clear();
+          for (String name : value.split(",")) {
+            engines.add(StorageEngine.valueOf(constant(name)));
+          }
+          break;
+        case "--workloads":
+          workloads.clear();
+          for (String name : value.split(",")) {
+            workloads.add(PlatformWorkload.valueOf(constant(name)));
+          }
+          break;
+        case "--ops":
+          ops = Integer.parseInt(value);
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(value);
+          break;
+        case "--dir":
+          directory = new File(value);
+          break;
+        default:
+          throw new IllegalArgumentException("unknown option " + args[x]);
+      }
+    }
+  }
+
+  private void run() throws Exception {
+    File root = (directory != null) ? directory : Files.createTempDirectory("persistence-harness").toFile();
+    System.out.printf("%d operations after %d of warm up in %s%n", ops, warmup, root.getAbsolutePath());
+    System.out.printf("%-10s %-18s %10s %10s %10s %10s %10s %12s %13s%n", "engine", "workload", "ops/s", "p50 (us)",
+        "p99 (us)", "max (us)", "bytes/op", "store bytes", "recovery (ms)");
+    for (StorageEngine engine : engines) {
+      for (PlatformWorkload workload : workloads) {
+        run(engine, workload, new File(root, name(engine) + "-" + name(workload)));
+      }
+    }
+  }
+
+  private void run(StorageEngine engine, PlatformWorkload workload, File dir) throws Exception {
+    if (!dir.mkdirs()) {
+      throw new IOException("unable to create " + dir + ", it may be left from an earlier run");
+    }
+    IPersistentStorage storage = engine.create(dir);
+    PlatformWorkload.Operation operation = workload.prepare(storage);
+    long op = 0;
+    for (; op < warmup; op++) {
+      operation.run(op);
+    }
+
+    Histogram latencies = new Histogram(3);
+    long writtenBefore = bytesWritten();
+    long start = System.nanoTime();
+    for (int x = 0; x < ops; x++, op++) {
+      long begin = System.nanoTime();
+      operation.run(op);
+      latencies.recordValue(System.nanoTime() - begin);
+    }
+    long elapsed = System.nanoTime() - start;
+    long writtenAfter = bytesWritten();
+    long storeBytes = size(dir);
+
+    String recovery = "n/a";
+    if (engine.isDurable()) {
+//  copy the store while it is still open, which is all that a crash at this point would leave behind
+      File crashed = new File(dir.getParentFile(), dir.getName() + "-crashed");
+      copy(dir, crashed);
+      long begin = System.nanoTime();
+      IPersistentStorage recovered = engine.open(crashed);
+      PlatformWorkload.recover(recovered);
+      recovery = String.format("%.1f", (System.nanoTime() - begin) / (double)TimeUnit.MILLISECONDS.toNanos(1));
+      recovered.close();
+    }
+    storage.close();
+
+    String bytesPerOp = (writtenBefore < 0 || writtenAfter < 0) ? "n/a" : String.format("%.0f", (writtenAfter - writtenBefore) / (double)ops);
+    System.out.printf("%-10s %-18s %10.0f %10.1f %10.1f %10.1f %10s %12d %13s%n", name(engine), name(workload),
+        ops / (elapsed / (double)TimeUnit.SECONDS.toNanos(1)), latencies.getValueAtPercentile(50) / 1000.0,
+        latencies.getValueAtPercentile(99) / 1000.0, latencies.getMaxValue() / 1000.0, bytesPerOp, storeBytes, recovery);
+  }
+
+  /**
+   * The bytes this process has caused to be written to storage so far, or -1 if the platform does not report it.
+   */
+  private static long bytesWritten() {
+    try {
+      for (String line : Files.readAllLines(PROC_IO, StandardCharsets.US_ASCII)) {
+        if (line.startsWith("write_bytes:")) {
+          return Long.parseLong(line.substring("write_bytes:".length()).trim());
+        }
+      }
+    } catch (IOException | NumberFormatException unavailable) {
+//  not Linux
+    }
+    return -1;
+  }
+
+  private static long size(File dir) throws IOException {
+    try (Stream<Path> files = Files.walk(dir.toPath())) {
+      return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+    }
+  }
+
+  private static void copy(File from, File to) throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(from.toPath())) {
+      files.forEach(paths::add);
+    }
+    for (Path path : paths) {
+      Path target = to.toPath().resolve(from.toPath().relativize(path));
+      if (Files.isDirectory(path)) {
+        Files.createDirectories(target);
+      } else {
+        Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+  }
+
+  private static String constant(String name) {
+    return name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+  }
+
+  private static String name(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.ChannelID;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+import com.tc.util.sequence.MutableSequence;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.terracotta.persistence.IPersistentStorage;
+
+
+/**
+ * The sequences of storage updates made by the platform persistors on a running server.
+ */
+public enum PlatformWorkload {
+  /**
+   * Every invoke received by the active orders itself with {@link TransactionOrderPersistor}.  The clients each keep
+   * a window of transactions in flight so the oldest of each client's transactions are pruned as new ones arrive.
+   */
+  TRANSACTION_ORDER {
+    @Override
+    public Operation prepare(IPersistentStorage storage) {
+      TransactionOrderPersistor persistor = new TransactionOrderPersistor(storage);
+      return (op) -> {
+        long tid = op / CLIENTS + 1;
+        persistor.updateWithNewMessage(new ClientID(op % CLIENTS), new TransactionID(tid), new TransactionID(oldest(tid)));
+      };
+    }
+  },
+  /**
+   * Entities created and destroyed by the clients, each recorded in the entity map and in the client's journal by
+   * {@link EntityPersistor}.
+   */
+  ENTITY_JOURNAL {
+    @Override
+    public Operation prepare(IPersistentStorage storage) {
+      EntityPersistor persistor = new EntityPersistor(storage);
+      byte[] configuration = new byte[CONFIGURATION_SIZE];
+      return (op) -> {
+        ClientID client = new ClientID(op % CLIENTS);
+        long tid = op / CLIENTS + 1;
+        int slot = (int)(op % (2 * ENTITIES));
+        if (slot < ENTITIES) {
+          persistor.entityCreated(client, tid, oldest(tid), entity(slot), 1, persistor.getNextConsumerID(), true, configuration);
+        } else {
+          persistor.entityDestroyed(client, tid, oldest(tid), entity(slot - ENTITIES));
+        }
+      };
+    }
+  },
+  /**
+   * Clients connecting and disconnecting.  Each connection takes an id from the sequence and is recorded by
+   * {@link ClientStatePersistor}.  Once the cluster is full the oldest client disconnects and the platform drops
+   * everything it was tracking for it.
+   */
+  CLIENT_CHURN {
+    @Override
+    public Operation prepare(IPersistentStorage storage) {
+      ClientStatePersistor clients = new ClientStatePersistor(new SequenceManager(storage), storage);
+      EntityPersistor entities = new EntityPersistor(storage);
+      TransactionOrderPersistor transactions = new TransactionOrderPersistor(storage);
+      MutableSequence sequence = clients.getConnectionIDSequence();
+      Deque<ChannelID> connected = new ArrayDeque<>();
+      return (op) -> {
+        ChannelID id = new ChannelID(sequence.next());
+        clients.saveClientState(id);
+        connected.addLast(id);
+        if (connected.size() > CONNECTED_CLIENTS) {
+          ChannelID gone = connected.removeFirst();
+          clients.deleteClientState(gone);
+          entities.removeTrackingForClient(new ClientID(gone.toLong()));
+          transactions.removeTrackingForClient(new ClientID(gone.toLong()));
+        }
+      };
+    }
+  };
+
+  private static final int CLIENTS = 16;
+  private static final int IN_FLIGHT = 64;
+  private static final int ENTITIES = 256;
+  private static final int CONFIGURATION_SIZE = 256;
+  private static final int CONNECTED_CLIENTS = 256;
+
+  /**
+   * One step of the workload.  The steps of a workload are numbered from 0 and must be run in order.
+   */
+  public interface Operation {
+    void run(long op) throws Exception;
+  }
+
+  /**
+   * Creates the persistors of the workload over the storage.
+   */
+  public abstract Operation prepare(IPersistentStorage storage);
+
+  /**
+   * Loads everything the server would read from the storage when it restarts.
+   */
+  public static void recover(IPersistentStorage storage) {
+    ClientStatePersistor clients = new ClientStatePersistor(new SequenceManager(storage), storage);
+    clients.loadClientIDs();
+    new EntityPersistor(storage).loadEntityData();
+    new TransactionOrderPersistor(storage).getGlobalOrder();
+  }
+
+  private static long oldest(long tid) {
+    return Math.max(1, tid - IN_FLIGHT);
+  }
+
+  private static EntityID entity(int slot) {
+    return new EntityID("com.tc.benchmark.Entity", "entity-" + slot);
+  }
+}
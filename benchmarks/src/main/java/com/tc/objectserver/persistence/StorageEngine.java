@@ -0,0 +1,79 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.terracotta.persistence.IPersistentStorage;
+
+
+/**
+ * The storage engines compared by the {@link PersistenceHarness}.  A new engine is added here with the way to create
+ * a fresh store in a directory and, if it is durable, the way to open the store left behind in a directory.
+ */
+public enum StorageEngine {
+  FLAT_FILE(true) {
+    @Override
+    public IPersistentStorage create(File directory) throws IOException {
+      IPersistentStorage storage = new FlatFilePersistentStorage(new File(directory, STORE_NAME));
+      storage.create();
+      return storage;
+    }
+
+    @Override
+    public IPersistentStorage open(File directory) throws IOException {
+      IPersistentStorage storage = new FlatFilePersistentStorage(new File(directory, STORE_NAME));
+      storage.open();
+      return storage;
+    }
+  },
+  IN_MEMORY(false) {
+    @Override
+    public IPersistentStorage create(File directory) throws IOException {
+      IPersistentStorage storage = new NullPlatformPersistentStorage();
+      storage.create();
+      return storage;
+    }
+
+    @Override
+    public IPersistentStorage open(File directory) throws IOException {
+      throw new UnsupportedOperationException("nothing survives a crash of " + this);
+    }
+  };
+
+  private static final String STORE_NAME = "platform.dat";
+
+  private final boolean durable;
+
+  StorageEngine(boolean durable) {
+    this.durable = durable;
+  }
+
+  public boolean isDurable() {
+    return durable;
+  }
+
+  public abstract IPersistentStorage create(File directory) throws IOException;
+
+  /**
+   * Opens the store found in the directory, as the server does when it restarts.
+   */
+  public abstract IPersistentStorage open(File directory) throws IOException;
+}
@@ -20,7 +20,9 @@ package com.tc.async.impl;
 
 import com.tc.async.api.EventHandler;
 import com.tc.async.api.EventHandlerException;
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.async.api.Sink;
 import com.tc.async.api.Source;
 import com.tc.async.api.SpecializedEventContext;
@@ -31,7 +33,9 @@ import com.tc.logging.TCLoggerProvider;
 import com.tc.stats.Stats;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.QueueFactory;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -39,9 +43,21 @@ import java.util.concurrent.atomic.AtomicInteger;
  * This StageQueueImpl represents the sink and gives a handle to the source. We are internally justun using a queue
  * since our queues are locally processed. This class can be replaced with a distributed queue to enable processing
  * across process boundaries.
+ * <p>
+ * Each internal queue has a lane per {@link EventPriority}.  Contexts are DATA unless they implement
+ * {@link PrioritizedEventContext}, and the higher lanes are served first without starving the lower ones.  A context
+ * never goes ahead of one with the same scheduling key, so events for one key are still handled in order.
  */
 public class StageQueueImpl<EC> implements Sink<EC> {
 
+  // queued on the data lane to wake a worker for a context put on a higher lane, never handed out
+  private static final ContextWrapper<Object> WAKEUP = new ContextWrapper<Object>() {
+    @Override
+    public void runWithHandler(EventHandler<Object> handler) {
+      throw new AssertionError("wakeup handed out");
+    }
+  };
+
   private final String            stageName;
   private final TCLogger          logger;
   private final SourceQueueImpl<ContextWrapper<EC>>[] sourceQueues;
@@ -70,18 +86,22 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     createWorkerQueues(queueCount, queueFactory, queueSize, stageName);
   }
 
+  @SuppressWarnings("unchecked")
   private void createWorkerQueues(int queueCount, QueueFactory<ContextWrapper<EC>> queueFactory, int queueSize, String stage) {
     StageQueueStatsCollector statsCollector = new NullStageQueueStatsCollector(stage);
     BlockingQueue<ContextWrapper<EC>> q = null;
+    ContextWrapper<EC> wakeup = (ContextWrapper<EC>) (ContextWrapper<?>) WAKEUP;
 
     if (queueSize != Integer.MAX_VALUE) {
       queueSize = (int) Math.ceil(((double) queueSize) / queueCount);
     }
     Assert.eval(queueSize > 0);
+    // one slot over for the single wakeup a queue can hold, so that it never takes room from real work
+    int dataQueueSize = (queueSize == Integer.MAX_VALUE) ? queueSize : queueSize + 1;
 
     for (int i = 0; i < queueCount; i++) {
-      q = queueFactory.createInstance(queueSize);
-      this.sourceQueues[i] = new SourceQueueImpl<ContextWrapper<EC>>(q, String.valueOf(queueCount), statsCollector);
+      q = queueFactory.createInstance(dataQueueSize);
+      this.sourceQueues[i] = new SourceQueueImpl<ContextWrapper<EC>>(q, wakeup, queueSize, String.valueOf(queueCount), statsCollector);
     }
   }
 
@@ -106,11 +126,12 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     }
 
     boolean interrupted = Thread.interrupted();
-    ContextWrapper<EC> wrapper = new HandledContext<EC>(context);
+    ContextWrapper<EC> wrapper = new HandledContext<EC>(context, schedulingKeyOf(context));
+    EventPriority priority = priorityOf(context);
     try {
       while (true) {
         try {
-          this.sourceQueues[0].put(wrapper);
+          this.sourceQueues[0].put(wrapper, priority);
           break;
         } catch (InterruptedException e) {
           this.logger.debug("StageQueue Add: " + e);
@@ -139,11 +160,13 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     boolean interrupted = Thread.interrupted();
     MultiThreadedEventContext cxt = (MultiThreadedEventContext)context;
     int index = getSourceQueueFor(cxt);
-    ContextWrapper<EC> wrapper = (cxt.flush()) ? new FlushingHandledContext(context, index) : new HandledContext<EC>(context);
+    ContextWrapper<EC> wrapper = (cxt.flush()) ? new FlushingHandledContext(context, index) : new HandledContext<EC>(context, cxt.getSchedulingKey());
+    // a flush has to pass through every queue behind what is already there
+    EventPriority priority = (cxt.flush()) ? EventPriority.DATA : priorityOf(context);
     try {
       while (true) {
         try {
-          this.sourceQueues[index].put(wrapper);
+          this.sourceQueues[index].put(wrapper, priority);
           break;
         } catch (InterruptedException e) {
           this.logger.debug("StageQueue Add: " + e);
@@ -165,10 +188,11 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     ContextWrapper<EC> wrapper = new DirectExecuteContext<EC>(specialized);
     boolean interrupted = Thread.interrupted();
     int index = getSourceQueueFor(specialized);
+    EventPriority priority = priorityOf(specialized);
     try {
       while (true) {
         try {
-          this.sourceQueues[index].put(wrapper);
+          this.sourceQueues[index].put(wrapper, priority);
           break;
         } catch (InterruptedException e) {
           this.logger.debug("StageQueue Add: " + e);
@@ -217,6 +241,18 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     }
   }
 
+  private static Object schedulingKeyOf(Object context) {
+    if (context instanceof MultiThreadedEventContext) {
+      return ((MultiThreadedEventContext) context).getSchedulingKey();
+    }
+    return (context instanceof PrioritizedEventContext) ? ((PrioritizedEventContext) context).getSchedulingKey() : null;
+  }
+
+  private static EventPriority priorityOf(Object context) {
+    return (context instanceof PrioritizedEventContext) ? ((PrioritizedEventContext) context).getEventPriority()
+        : EventPriority.DATA;
+  }
+
   private int hashCodeToArrayIndex(int hashcode, int arrayLength) {
     return Math.abs(hashcode % arrayLength);
   }
@@ -311,13 +347,30 @@ public class StageQueueImpl<EC> implements Sink<EC> {
   }
 
   private static final class SourceQueueImpl<W> implements Source<W> {
+    // a lane with work is served regardless once higher lanes have been served this many times ahead of it
+    private static final int STARVATION_LIMIT = 16;
+    private static final int DATA_LANE = EventPriority.DATA.ordinal();
 
     private final BlockingQueue<W> queue;
+    private final W                           wakeup;
+    // the lanes above DATA, indexed by priority.  DATA contexts go straight on the queue
+    private final BlockingQueue<W>[]          lanes;
+    private final int[]                       passedOver;
+    private final AtomicInteger               queuedWakeups = new AtomicInteger();
+    private volatile boolean                  lanesUsed = false;
     private final String                      sourceName;
     private volatile StageQueueStatsCollector statsCollector;
 
-    public SourceQueueImpl(BlockingQueue<W> queue, String sourceName, StageQueueStatsCollector statsCollector) {
+    @SuppressWarnings("unchecked")
+    public SourceQueueImpl(BlockingQueue<W> queue, W wakeup, int laneSize, String sourceName, StageQueueStatsCollector statsCollector) {
+      Assert.assertEquals(EventPriority.values().length - 1, DATA_LANE);
       this.queue = queue;
+      this.wakeup = wakeup;
+      this.lanes = new BlockingQueue[DATA_LANE];
+      for (int i = 0; i < DATA_LANE; i++) {
+        this.lanes[i] = new LinkedBlockingQueue<W>(laneSize);
+      }
+      this.passedOver = new int[DATA_LANE + 1];
       this.sourceName = sourceName;
       this.statsCollector = statsCollector;
     }
@@ -345,25 +398,131 @@ public class StageQueueImpl<EC> implements Sink<EC> {
 
     @Override
     public boolean isEmpty() {
-      return this.queue.isEmpty();
+      return this.queue.size() <= this.queuedWakeups.get() && lanesEmpty();
     }
 
     @Override
     public W poll(long timeout) throws InterruptedException {
-      W rv = this.queue.poll(timeout, TimeUnit.MILLISECONDS);
-      if (rv != null) {
-        this.statsCollector.contextRemoved();
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+      while (true) {
+        W rv = (this.lanesUsed) ? pollLanes() : null;
+        if (rv == null) {
+          rv = this.queue.poll(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+          if (rv == this.wakeup) {
+            // something went on a higher lane, go and look
+            this.queuedWakeups.decrementAndGet();
+            continue;
+          }
+        }
+        if (rv != null) {
+          this.statsCollector.contextRemoved();
+        }
+        return rv;
+      }
+    }
+
+    // takes from the highest lane with work, unless a lower one has been passed over too often
+    private synchronized W pollLanes() {
+      int lane = -1;
+      for (int i = DATA_LANE; i >= 0 && lane < 0; i--) {
+        if (this.passedOver[i] >= STARVATION_LIMIT && hasWork(i)) {
+          lane = i;
+        }
+      }
+      for (int i = 0; i <= DATA_LANE && lane < 0; i++) {
+        if (hasWork(i)) {
+          lane = i;
+        }
+      }
+      if (lane < 0) {
+        return null;
+      }
+      this.passedOver[lane] = 0;
+      for (int i = lane + 1; i <= DATA_LANE; i++) {
+        if (hasWork(i)) {
+          this.passedOver[i]++;
+        }
+      }
+      if (lane < DATA_LANE) {
+        return this.lanes[lane].poll();
+      }
+      W rv = this.queue.poll();
+      while (rv == this.wakeup) {
+        this.queuedWakeups.decrementAndGet();
+        rv = this.queue.poll();
       }
       return rv;
     }
 
+    private boolean hasWork(int lane) {
+      return (lane < DATA_LANE) ? !this.lanes[lane].isEmpty() : this.queue.size() > this.queuedWakeups.get();
+    }
+
+    private boolean lanesEmpty() {
+      for (Queue<W> lane : this.lanes) {
+        if (!lane.isEmpty()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     public void put(W context) throws InterruptedException {
       this.queue.put(context);
       this.statsCollector.contextAdded();
     }
 
+    public void put(W context, EventPriority priority) throws InterruptedException {
+      int lane = laneFor(keyOf(context), priority.ordinal());
+      if (DATA_LANE == lane) {
+        put(context);
+        return;
+      }
+      this.lanesUsed = true;
+      this.lanes[lane].put(context);
+      this.statsCollector.contextAdded();
+      // wake the worker if it is waiting on the data lane.  One wakeup is enough as a queue has a single worker, and if
+      // the data lane is full the worker is not waiting
+      if (this.queuedWakeups.compareAndSet(0, 1) && !this.queue.offer(this.wakeup)) {
+        this.queuedWakeups.decrementAndGet();
+      }
+    }
+
+    // the lane a context goes on, never ahead of a context with the same key.  A null key means no ordering
+    private int laneFor(Object key, int lane) {
+      if (key == null || lane == DATA_LANE) {
+        return lane;
+      }
+      if (holdsKey(this.queue, key)) {
+        return DATA_LANE;
+      }
+      for (int i = DATA_LANE - 1; i > lane; i--) {
+        if (holdsKey(this.lanes[i], key)) {
+          return i;
+        }
+      }
+      return lane;
+    }
+
+    private static boolean holdsKey(Queue<?> queue, Object key) {
+      for (Object queued : queue) {
+        if (key.equals(keyOf(queued))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static Object keyOf(Object wrapper) {
+      return (wrapper instanceof KeyedContextWrapper) ? ((KeyedContextWrapper<?>) wrapper).getSchedulingKey() : null;
+    }
+
     public int size() {
-      return this.queue.size();
+      int size = this.queue.size() - this.queuedWakeups.get();
+      for (Queue<W> lane : this.lanes) {
+        size += lane.size();
+      }
+      return Math.max(0, size);
     }
 
     @Override
@@ -481,7 +640,12 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     }
   }
   
-  private static class DirectExecuteContext<EC> implements ContextWrapper<EC> {
+  // remembers the scheduling key of the context so that a prioritized context can tell what it would be overtaking
+  private interface KeyedContextWrapper<EC> extends ContextWrapper<EC> {
+    Object getSchedulingKey();
+  }
+
+  private static class DirectExecuteContext<EC> implements KeyedContextWrapper<EC> {
     private final SpecializedEventContext context;
     public DirectExecuteContext(SpecializedEventContext context) {
       this.context = context;
@@ -490,18 +654,30 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     public void runWithHandler(EventHandler<EC> handler) throws EventHandlerException {
       this.context.execute();
     }
+
+    @Override
+    public Object getSchedulingKey() {
+      return this.context.getSchedulingKey();
+    }
   }
   
-  private static class HandledContext<EC> implements ContextWrapper<EC> {
+  private static class HandledContext<EC> implements KeyedContextWrapper<EC> {
     private final EC context;
-    public HandledContext(EC context) {
+    private final Object schedulingKey;
+    public HandledContext(EC context, Object schedulingKey) {
       this.context = context;
+      this.schedulingKey = schedulingKey;
     }
     @Override
     public void runWithHandler(EventHandler<EC> handler) throws EventHandlerException {
       handler.handleEvent(this.context);
     }
 
+    @Override
+    public Object getSchedulingKey() {
+      return this.schedulingKey;
+    }
+
     @Override
     public boolean equals(Object obj) {
       if (context.getClass().isInstance(obj)) {
@@ -511,7 +687,7 @@ public class StageQueueImpl<EC> implements Sink<EC> {
     }
   }
   
-  private class FlushingHandledContext<T extends EC> implements ContextWrapper<EC> {
+  private class FlushingHandledContext<T extends EC> implements KeyedContextWrapper<EC> {
     private final EC context;
     private final int offset;
     private int executionCount = 0;
@@ -520,6 +696,11 @@ public class StageQueueImpl<EC> implements Sink<EC> {
       this.offset = offset;
     }
     
+    @Override
+    public Object getSchedulingKey() {
+      return ((MultiThreadedEventContext) this.context).getSchedulingKey();
+    }
+
     @Override
     public void runWithHandler(EventHandler<EC> handler) throws EventHandlerException {
       if (++executionCount == sourceQueues.length) {
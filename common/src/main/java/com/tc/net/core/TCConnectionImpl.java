@@ -98,12 +98,16 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   private final SetOnceRef<TCSocketAddress>     localSocketAddress          = new SetOnceRef<TCSocketAddress>();
   private final SetOnceRef<TCSocketAddress>     remoteSocketAddress         = new SetOnceRef<TCSocketAddress>();
   private final SocketParams                    socketParams;
+  private volatile boolean                      payloadChecksums            = false;
   private final AtomicLong                      totalRead                   = new AtomicLong(0);
   private final AtomicLong                      totalWrite                  = new AtomicLong(0);
   private final ArrayList<WriteContext>         writeContexts               = new ArrayList<WriteContext>();
   private final Object                          pipeSocketWriteInterestLock = new Object();
   private boolean                               hasPipeSocketWriteInterest  = false;
   private int                                   writeBufferSize             = 0;
+  // bytes of the messages in writeMessages, guarded by writeMessages
+  private long                                  queuedBytes                 = 0;
+  private volatile OutboundLimits               outboundLimits              = OutboundLimits.DEFAULT;
 
   private static final boolean                  MSG_GROUPING_ENABLED        = TCPropertiesImpl
                                                                                 .getProperties()
@@ -115,7 +119,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   private static final boolean                  MESSSAGE_PACKUP             = TCPropertiesImpl
                                                                                 .getProperties()
                                                                                 .getBoolean(TCPropertiesConsts.TC_MESSAGE_PACKUP_ENABLED,
-                                                                                            true);
+                                                                                            false);
   private final Object                          readerLock                  = new Object();
   private final Object                          writerLock                  = new Object();
 
@@ -180,6 +184,9 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     } finally {
       synchronized (this.writeMessages) {
         this.writeMessages.clear();
+        this.queuedBytes = 0;
+        // release any senders waiting for space
+        this.writeMessages.notifyAll();
       }
     }
     try {
@@ -385,6 +392,8 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       if (this.closed.isSet()) { return; }
       messagesToWrite = this.writeMessages.toArray(new TCNetworkMessage[this.writeMessages.size()]);
       this.writeMessages.clear();
+      this.queuedBytes = 0;
+      this.writeMessages.notifyAll();
     }
 
     int batchSize = 0;
@@ -442,7 +451,11 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   }
 
   private int getRealMessgeSize(int length) {
-    return TCByteBufferFactory.getTotalBufferSizeNeededForMessageSize(length);
+    if (MESSSAGE_PACKUP) {
+      return TCByteBufferFactory.getTotalBufferSizeNeededForMessageSize(length);
+    }
+    // gathered writes only add the group's length and protocol prefix to the message itself
+    return length + WireProtocolGroupMessageImpl.GROUP_PREFIX_LENGTH;
   }
 
   private int doReadFromBufferInternal() {
@@ -558,15 +571,32 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
                   + bytesToWrite + " bytes");
     }
 
-    // TODO: outgoing queue should not be unbounded size!
     final boolean newData;
     final int msgCount;
 
     synchronized (this.writeMessages) {
       if (this.closed.isSet()) { return; }
-      this.writeMessages.addLast(message);
-      msgCount = this.writeMessages.size();
-      newData = (msgCount == 1);
+      final OutboundAdmission admission = admitToOutboundQueue(message, bytesToWrite);
+      if (admission == OutboundAdmission.DROP) {
+        if (debug) {
+          logger.debug("Outbound queue full, dropped " + message.getClass().getName() + " on " + this);
+        }
+        return;
+      } else if (admission == OutboundAdmission.CLOSE) {
+        msgCount = -1;
+        newData = false;
+      } else {
+        this.writeMessages.addLast(message);
+        this.queuedBytes += bytesToWrite;
+        msgCount = this.writeMessages.size();
+        newData = (msgCount == 1);
+      }
+    }
+
+    if (msgCount < 0) {
+      logger.warn("Outbound queue of " + this + " is full, closing the connection");
+      asynchClose();
+      return;
     }
 
     if (debug) {
@@ -593,6 +623,86 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
   }
 
+  private boolean isOutboundQueueFull(long bytesToWrite) {
+    return this.outboundLimits.isFull(this.writeMessages.size(), this.queuedBytes, bytesToWrite);
+  }
+
+  /**
+   * Decides what to do with a message sent to this connection. Never waits, the sender may be holding locks of the
+   * layers above that the comm threads need. Must be called holding the writeMessages lock.
+   */
+  private OutboundAdmission admitToOutboundQueue(TCNetworkMessage message, long bytesToWrite) {
+    if (!isOutboundQueueFull(bytesToWrite)) { return OutboundAdmission.QUEUE; }
+    switch (this.outboundLimits.policy) {
+      case BLOCK:
+        // senders wait in waitForOutboundSpace() before they get here, anything else (protocol acks, probes and
+        // sends from the comm threads) goes over the limit rather than wait
+        return OutboundAdmission.QUEUE;
+      case SHED:
+        if (isExpendable(message)) { return OutboundAdmission.DROP; }
+        return OutboundAdmission.CLOSE;
+      case DISCONNECT:
+      default:
+        return OutboundAdmission.CLOSE;
+    }
+  }
+
+  @Override
+  public boolean waitForOutboundSpace() {
+    final OutboundLimits limits = this.outboundLimits;
+    // the comm threads drain this queue so they must never wait on it
+    if (limits.policy != OutboundPolicy.BLOCK || Thread.currentThread() instanceof CoreNIOServices.CommThread) { return !isClosed(); }
+    boolean timedOut = false;
+    boolean interrupted = false;
+    synchronized (this.writeMessages) {
+      final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.blockTimeoutMillis);
+      while (!this.closed.isSet() && isOutboundQueueFull(0)) {
+        final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+          timedOut = true;
+          break;
+        }
+        try {
+          this.writeMessages.wait(remaining);
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (timedOut) {
+      logger.warn("Outbound queue of " + this + " did not drain in " + limits.blockTimeoutMillis + "ms, closing the connection");
+      asynchClose();
+    }
+    return !isClosed();
+  }
+
+  void setOutboundLimits(OutboundLimits limits) {
+    this.outboundLimits = limits;
+  }
+
+  private static boolean isExpendable(TCNetworkMessage message) {
+    // a peer which is not reading will fail its health check whether or not the probe is queued
+    return message instanceof WireProtocolMessage
+           && ((WireProtocolMessage) message).getWireProtocolHeader().getProtocol() == WireProtocolHeader.PROTOCOL_HEALTHCHECK_PROBES;
+  }
+
+  @Override
+  public int getOutboundQueueMessages() {
+    synchronized (this.writeMessages) {
+      return this.writeMessages.size();
+    }
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    synchronized (this.writeMessages) {
+      return this.queuedBytes;
+    }
+  }
+
   @Override
   public final void asynchClose() {
     if (this.closed.attemptSet()) {
@@ -841,7 +951,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
         (messages.size() > 0) && (messages.size() <= WireProtocolHeader.MAX_MESSAGE_COUNT));
     if (messages.size() == 1) { return buildWireProtocolMessage(messages.get(0)); }
 
-    final TCNetworkMessage message = WireProtocolGroupMessageImpl.wrapMessages(messages, this);
+    final TCNetworkMessage message = WireProtocolGroupMessageImpl.wrapMessages(messages, this, payloadChecksums);
     Assert.eval(message.getSentCallback() == null);
 
     final Runnable[] callbacks = new Runnable[messages.size()];
@@ -867,7 +977,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     Assert.eval(!(message instanceof WireProtocolMessage));
     final TCNetworkMessage payload = message;
 
-    message = WireProtocolMessageImpl.wrapMessage(message, this);
+    message = WireProtocolMessageImpl.wrapMessage(message, this, payloadChecksums);
     Assert.eval(message.getSentCallback() == null);
 
     final Runnable callback = payload.getSentCallback();
@@ -889,6 +999,9 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     hdr.setDestinationAddress(getRemoteAddress().getAddressBytes());
     hdr.setDestinationPort(getRemoteAddress().getPort());
     hdr.setMessageCount(messageCount);
+    if (hdr.hasPayloadChecksum()) {
+      hdr.computePayloadChecksum(message.getPayload());
+    }
     hdr.computeChecksum();
     return message;
   }
@@ -939,6 +1052,62 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
   }
 
+  /**
+   * What happens to a message sent to a connection whose outbound queue is full.
+   */
+  enum OutboundPolicy {
+    // senders wait upstream of the protocol locks for the queue to drain, closing the connection if it does not
+    // within the block timeout
+    BLOCK,
+    // drop expendable messages, close the connection for any other
+    SHED,
+    // close the connection
+    DISCONNECT;
+
+    static OutboundPolicy forName(String name) {
+      if (name == null) { return DISCONNECT; }
+      try {
+        return valueOf(name.trim().toUpperCase());
+      } catch (IllegalArgumentException iae) {
+        logger.warn("Unknown " + TCPropertiesConsts.NET_CORE_OUTBOUND_FULL_POLICY + " '" + name + "', using " + DISCONNECT);
+        return DISCONNECT;
+      }
+    }
+  }
+
+  /**
+   * Limits on the outbound queue of a connection, by default those of the net.core.outbound properties.
+   */
+  static final class OutboundLimits {
+    static final OutboundLimits DEFAULT = new OutboundLimits(TCPropertiesImpl.getProperties()
+        .getLong(TCPropertiesConsts.NET_CORE_OUTBOUND_MAX_BYTES, 0), TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.NET_CORE_OUTBOUND_MAX_MESSAGES, 0), OutboundPolicy.forName(TCPropertiesImpl
+        .getProperties().getProperty(TCPropertiesConsts.NET_CORE_OUTBOUND_FULL_POLICY, true)), TCPropertiesImpl
+        .getProperties().getLong(TCPropertiesConsts.NET_CORE_OUTBOUND_BLOCK_TIMEOUT, 30000));
+
+    final long           maxBytes;
+    final int            maxMessages;
+    final OutboundPolicy policy;
+    final long           blockTimeoutMillis;
+
+    OutboundLimits(long maxBytes, int maxMessages, OutboundPolicy policy, long blockTimeoutMillis) {
+      this.maxBytes = maxBytes;
+      this.maxMessages = maxMessages;
+      this.policy = policy;
+      this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    boolean isFull(int queuedMessages, long queuedBytes, long bytesToWrite) {
+      if (maxMessages > 0 && queuedMessages >= maxMessages) { return true; }
+      // a single message larger than the limit is always let through an empty queue
+      return maxBytes > 0 && queuedBytes > 0 && queuedBytes + bytesToWrite > maxBytes;
+    }
+  }
+
+  private enum OutboundAdmission {
+    QUEUE, DROP, CLOSE
+  }
+
   protected static class WriteContext {
     private final TCNetworkMessage message;
     private int                    index = 0;
@@ -951,7 +1120,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       if (MESSSAGE_PACKUP) {
         this.entireMessageData = getPackedUpMessage(message.getEntireMessageData());
       } else {
-        this.entireMessageData = getClonedMessage(message.getEntireMessageData());
+        this.entireMessageData = getGatheredMessage(message.getEntireMessageData());
       }
 
     }
@@ -977,13 +1146,18 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       this.message.wasSent();
     }
 
-    private static TCByteBuffer[] getClonedMessage(TCByteBuffer[] sourceMessageByteBuffers) {
+    /**
+     * Gathers the message's own buffers for writing without copying them. Like the packed up copy each view covers the
+     * whole of its buffer, and has its own position so writing doesn't disturb the message. The buffer manager copies
+     * the bytes into its send buffer anyway.
+     */
+    protected static TCByteBuffer[] getGatheredMessage(TCByteBuffer[] sourceMessageByteBuffers) {
       final TCByteBuffer[] msgData = sourceMessageByteBuffers;
-      TCByteBuffer[] clonedMessageData = new TCByteBuffer[msgData.length];
+      TCByteBuffer[] gatheredMessageData = new TCByteBuffer[msgData.length];
       for (int i = 0; i < msgData.length; i++) {
-        clonedMessageData[i] = msgData[i].duplicate().asReadOnlyBuffer();
+        gatheredMessageData[i] = msgData[i].duplicate().rewind();
       }
-      return clonedMessageData;
+      return gatheredMessageData;
     }
 
     /**
@@ -1053,4 +1227,9 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     return this.transportEstablished.get();
   }
 
+  @Override
+  public void setPayloadChecksums(boolean enabled) {
+    this.payloadChecksums = enabled;
+  }
+
 }
@@ -92,4 +92,8 @@ public interface NetworkLayer {
 
   public TCSocketAddress getLocalAddress();
 
+  public int getOutboundQueueMessages();
+
+  public long getOutboundQueueBytes();
+
 }
@@ -23,8 +23,9 @@ import com.tc.net.protocol.transport.MessageTransportListener;
 import com.tc.net.protocol.transport.RestoreConnectionCallback;
 import com.tc.util.Assert;
 import com.tc.util.DebugUtil;
+import com.tc.util.concurrent.HashedWheelTimer;
 
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 public class OOOReconnectionTimeout implements MessageTransportListener, RestoreConnectionCallback {
 
@@ -63,7 +64,8 @@ public class OOOReconnectionTimeout implements MessageTransportListener, Restore
       oooLayer.notifyTransportDisconnected(transport, forcedDisconnect);
       // schedule timer task
       this.timeoutTimerTask = new TimeoutTimerTask(transport, this);
-      oooLayer.getRestoreConnectTimer().schedule(this.timeoutTimerTask, timeoutMillis);
+      this.timeoutTimerTask.timeout = oooLayer.getRestoreConnectTimer().newTimeout(this.timeoutTimerTask, timeoutMillis,
+                                                                                  TimeUnit.MILLISECONDS);
     }
   }
 
@@ -82,7 +84,7 @@ public class OOOReconnectionTimeout implements MessageTransportListener, Restore
   }
 
   private void cancelTimerTask() {
-    this.timeoutTimerTask.cancel();
+    this.timeoutTimerTask.timeout.cancel();
     this.timeoutTimerTask = null;
   }
 
@@ -95,12 +97,12 @@ public class OOOReconnectionTimeout implements MessageTransportListener, Restore
     }
   }
 
-  static class TimeoutTimerTask extends TimerTask {
+  static class TimeoutTimerTask implements Runnable {
     private final MessageTransport          transport;
     private final RestoreConnectionCallback rcc;
+    private HashedWheelTimer.Timeout        timeout;
 
     public TimeoutTimerTask(MessageTransport transport, RestoreConnectionCallback rcc) {
-      super();
       this.transport = transport;
       this.rcc = rcc;
     }
@@ -0,0 +1,47 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.delivery;
+
+import com.tc.util.concurrent.HashedWheelTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer wheel shared by every once and only once layer in the VM. It is created and started the first time a timeout
+ * is needed and runs on a daemon thread.
+ */
+final class OOOTimer {
+  static final String THREAD_NAME = "OOO Timer";
+
+  private OOOTimer() {
+    // static holder
+  }
+
+  static HashedWheelTimer get() {
+    return Holder.TIMER;
+  }
+
+  private static class Holder {
+    static final HashedWheelTimer TIMER = new HashedWheelTimer(THREAD_NAME, 10, TimeUnit.MILLISECONDS, 512);
+
+    static {
+      TIMER.start();
+    }
+  }
+}
@@ -20,8 +20,7 @@ package com.tc.net.protocol.delivery;
 
 import com.tc.net.protocol.transport.MessageTransport;
 import com.tc.net.protocol.transport.MessageTransportListener;
-
-import java.util.Timer;
+import com.tc.util.concurrent.HashedWheelTimer;
 
 /**
  * This is not a very interesting interface. It's here to allow testing of the once and only once network stack harness
@@ -34,7 +33,7 @@ public interface OnceAndOnlyOnceProtocolNetworkLayer extends MessageTransport, M
 
   void connectionRestoreFailed();
 
-  Timer getRestoreConnectTimer();
+  HashedWheelTimer getRestoreConnectTimer();
 
   boolean isClosed();
 
@@ -19,8 +19,7 @@
 package com.tc.net.protocol.delivery;
 
 import com.tc.properties.ReconnectConfig;
-
-import java.util.Timer;
+import com.tc.util.concurrent.HashedWheelTimer;
 
 /**
  * Creates new instances of OnceAndOnlyOnceProtocolNetworkLayers. This is used so that a mock one may be injected into
@@ -28,8 +27,9 @@ import java.util.Timer;
  */
 public class OnceAndOnlyOnceProtocolNetworkLayerFactoryImpl implements OnceAndOnlyOnceProtocolNetworkLayerFactory {
 
-  public static final String RESTORE_TIMERTHREAD_NAME = "OOO Connection Restore Timer";
-  private Timer              restoreConnectTimer      = null;
+  // restore timeouts share the timer wheel of the other OOO timeouts
+  public static final String RESTORE_TIMERTHREAD_NAME = OOOTimer.THREAD_NAME;
+  private HashedWheelTimer   restoreConnectTimer      = null;
 
   @Override
   public synchronized OnceAndOnlyOnceProtocolNetworkLayer createNewClientInstance(ReconnectConfig reconnectConfig) {
@@ -42,7 +42,7 @@ public class OnceAndOnlyOnceProtocolNetworkLayerFactoryImpl implements OnceAndOn
   public synchronized OnceAndOnlyOnceProtocolNetworkLayer createNewServerInstance(ReconnectConfig reconnectConfig) {
     // ooo connection restore timers are needed only for servers
     if (restoreConnectTimer == null) {
-      restoreConnectTimer = new Timer(RESTORE_TIMERTHREAD_NAME, true);
+      restoreConnectTimer = OOOTimer.get();
     }
 
     OOOProtocolMessageFactory messageFactory = new OOOProtocolMessageFactory();
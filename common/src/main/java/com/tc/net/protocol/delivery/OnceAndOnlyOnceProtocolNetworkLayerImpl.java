@@ -31,8 +31,10 @@ import com.tc.net.protocol.TCNetworkMessage;
 import com.tc.net.protocol.TCProtocolException;
 import com.tc.net.protocol.tcm.MessageChannelInternal;
 import com.tc.net.protocol.transport.AbstractMessageTransport;
+import com.tc.net.protocol.transport.CompressionPolicy;
 import com.tc.net.protocol.transport.ConnectionID;
 import com.tc.net.protocol.transport.MessageTransport;
+import com.tc.net.protocol.transport.PayloadCodec;
 import com.tc.net.protocol.transport.WireProtocolMessage;
 import com.tc.properties.ReconnectConfig;
 import com.tc.util.Assert;
@@ -40,10 +42,10 @@ import com.tc.util.CallStackTrace;
 import com.tc.util.DebugUtil;
 import com.tc.util.TCTimeoutException;
 import com.tc.util.UUID;
+import com.tc.util.concurrent.HashedWheelTimer;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
-import java.util.Timer;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -64,7 +66,7 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
   private final boolean                    isClient;
   private final String                     debugId;
   private UUID                             sessionId        = UUID.NULL_ID;
-  private final Timer                      restoreConnectTimer;
+  private final HashedWheelTimer           restoreConnectTimer;
   private static final boolean             debug            = Boolean.getBoolean("ooo.logging.enabled");
 
   public OnceAndOnlyOnceProtocolNetworkLayerImpl(OOOProtocolMessageFactory messageFactory,
@@ -76,7 +78,7 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
   public OnceAndOnlyOnceProtocolNetworkLayerImpl(OOOProtocolMessageFactory messageFactory,
                                                  OOOProtocolMessageParser messageParser,
                                                  ReconnectConfig reconnectConfig, boolean isClient,
-                                                 Timer restoreConnectTimer) {
+                                                 HashedWheelTimer restoreConnectTimer) {
     super(TCLogging.getLogger(OnceAndOnlyOnceProtocolNetworkLayerImpl.class));
     this.messageFactory = messageFactory;
     this.messageParser = messageParser;
@@ -124,6 +126,8 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
 
   @Override
   public void send(TCNetworkMessage message) {
+    // back-pressure is applied here, the send state machine is also entered by the comm thread to process acks
+    waitForOutboundSpace();
     delivery.send(message);
   }
 
@@ -490,6 +494,24 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
     return sendLayer.getRemoteAddress();
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    return sendLayer.getOutboundQueueMessages();
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    return sendLayer.getOutboundQueueBytes();
+  }
+
+  @Override
+  public void waitForOutboundSpace() {
+    MessageTransport transport = this.sendLayer;
+    if (transport != null) {
+      transport.waitForOutboundSpace();
+    }
+  }
+
   @Override
   public void receiveTransportMessage(WireProtocolMessage message) {
     throw new AssertionError("Must not call!");
@@ -507,7 +529,7 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
   }
 
   @Override
-  public Timer getRestoreConnectTimer() {
+  public HashedWheelTimer getRestoreConnectTimer() {
     Assert.assertNotNull(this.restoreConnectTimer);
     return this.restoreConnectTimer;
   }
@@ -567,6 +589,11 @@ public class OnceAndOnlyOnceProtocolNetworkLayerImpl extends AbstractMessageTran
     throw new AssertionError();
   }
 
+  @Override
+  public void setPayloadCompression(CompressionPolicy policy, PayloadCodec codec) {
+    throw new AssertionError();
+  }
+
   // for testing
   public NetworkLayer getSendLayer() {
     return this.sendLayer;
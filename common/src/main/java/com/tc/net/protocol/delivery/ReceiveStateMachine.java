@@ -19,25 +19,37 @@
 package com.tc.net.protocol.delivery;
 
 import com.tc.properties.ReconnectConfig;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import com.tc.util.DebugUtil;
 import com.tc.util.UUID;
+import com.tc.util.concurrent.HashedWheelTimer;
+
+import java.util.concurrent.TimeUnit;
 
 /**
- * State Machine handling message receive for OOO
+ * State Machine handling message receive for OOO. Acks ride on the data messages sent back to the peer whenever there
+ * are any (see {@link #ackSequence()}). A standalone ack is sent once maxDelayedAcks messages are unacked or, when
+ * traffic is one way, once the delayed ack timeout passes.
  */
 public class ReceiveStateMachine extends AbstractStateMachine {
   private final State                      MESSAGE_WAIT_STATE = new MessageWaitState();
+
   private final int                        maxDelayedAcks;
+  private final long                       delayedAckMillis;
   private final String                     debugId;
   private final OOOProtocolMessageDelivery delivery;
   private static final boolean             debug              = false;
 
   private volatile long                    received           = -1;
   private volatile long                    lastAcked          = -1;
+  private DelayedAckTask                   delayedAck         = null;
 
   public ReceiveStateMachine(OOOProtocolMessageDelivery delivery, ReconnectConfig reconnectConfig, boolean isClient) {
     maxDelayedAcks = reconnectConfig.getMaxDelayAcks();
+    delayedAckMillis = TCPropertiesImpl.getProperties()
+        .getLong(TCPropertiesConsts.NET_CORE_OOO_DELAYED_ACK_TIMEOUT, 0);
     this.debugId = (isClient) ? "CLIENT" : "SERVER";
     this.delivery = delivery;
   }
@@ -101,6 +113,28 @@ public class ReceiveStateMachine extends AbstractStateMachine {
       if (!sendAck(next)) {
         debugLog("Failed to send ack:" + next);
       }
+    } else if (delayedAckMillis > 0 && delayedAck == null) {
+      delayedAck = new DelayedAckTask();
+      delayedAck.timeout = OOOTimer.get().newTimeout(delayedAck, delayedAckMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private synchronized void flushDelayedAck(DelayedAckTask task) {
+    if (delayedAck != task) {
+      // reset since this was scheduled
+      return;
+    }
+    delayedAck = null;
+    // nothing to do if the ack went out on a data message in the meantime
+    if (received > lastAcked && !sendAck(received)) {
+      debugLog("Failed to send delayed ack:" + received);
+    }
+  }
+
+  private void cancelDelayedAck() {
+    if (delayedAck != null) {
+      delayedAck.timeout.cancel();
+      delayedAck = null;
     }
   }
 
@@ -124,6 +158,7 @@ public class ReceiveStateMachine extends AbstractStateMachine {
 
   @Override
   public synchronized void reset() {
+    cancelDelayedAck();
     received = -1;
     lastAcked = -1;
   }
@@ -142,4 +177,13 @@ public class ReceiveStateMachine extends AbstractStateMachine {
   synchronized boolean isClean() {
     return ((received == -1) && (lastAcked == -1));
   }
+
+  private class DelayedAckTask implements Runnable {
+    private HashedWheelTimer.Timeout timeout;
+
+    @Override
+    public void run() {
+      flushDelayedAck(this);
+    }
+  }
 }
@@ -22,16 +22,19 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.protocol.TCNetworkMessage;
 import com.tc.properties.ReconnectConfig;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import com.tc.util.DebugUtil;
 import com.tc.util.Util;
 
-import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.ArrayDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * State Machine handling message send for OOO
+ * State Machine handling message send for OOO. The send window starts at the configured size. When adaptive, it
+ * grows by one message each time the sender stalls on a full window and an ack frees it, up to the configured
+ * maximum, and is halved, but never below the configured size, when outstanding messages have to be resent.
  */
 public class SendStateMachine extends AbstractStateMachine {
   private final int                        sendQueueCap;
@@ -42,8 +45,11 @@ public class SendStateMachine extends AbstractStateMachine {
   final State                              PAUSED_STATE          = new PausedState();
 
   private final OOOProtocolMessageDelivery delivery;
-  private final LinkedList<OOOProtocolMessage> outstandingMsgs       = new LinkedList<OOOProtocolMessage>();
-  private final int                        sendWindow;
+  private final ArrayDeque<OOOProtocolMessage> outstandingMsgs   = new ArrayDeque<OOOProtocolMessage>();
+  private final int                        minSendWindow;
+  private final int                        maxSendWindow;
+  private int                              sendWindow;
+  private boolean                          windowStalled         = false;
   private final boolean                    isClient;
   private final String                     debugId;
 
@@ -59,6 +65,13 @@ public class SendStateMachine extends AbstractStateMachine {
     this.delivery = delivery;
     // set sendWindow from tc.properties if exist. 0 to disable window send.
     sendWindow = reconnectConfig.getSendWindow();
+    minSendWindow = sendWindow;
+    if (sendWindow > 0 && TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, false)) {
+      maxSendWindow = Math.max(sendWindow, TCPropertiesImpl.getProperties()
+          .getInt(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, sendWindow));
+    } else {
+      maxSendWindow = sendWindow;
+    }
     int queueCap = reconnectConfig.getSendQueueCapacity();
     this.sendQueueCap = (queueCap == 0) ? Integer.MAX_VALUE : queueCap;
     this.sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(this.sendQueueCap);
@@ -89,8 +102,8 @@ public class SendStateMachine extends AbstractStateMachine {
 
   @Override
   public String toString() {
-    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt + "; Sent: " + sent
-           + "; Acked: " + acked + "; " + super.toString();
+    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt + "; SendWindow: "
+           + sendWindow + "; Sent: " + sent + "; Acked: " + acked + "; " + super.toString();
   }
 
   @Override
@@ -140,6 +153,7 @@ public class SendStateMachine extends AbstractStateMachine {
       if (outstandingCnt > 0) {
         // resend those not acked
         resendOutstandings();
+        shrinkWindow();
         if (outstandingCnt >= sendWindow) {
           switchToState(SENDWINDOW_FULL_STATE);
         } else {
@@ -175,6 +189,7 @@ public class SendStateMachine extends AbstractStateMachine {
       } else {
         sendMoreIfAvailable();
         if ((sendWindow > 0) && (outstandingCnt >= sendWindow)) {
+          windowStalled = true;
           switchToState(SENDWINDOW_FULL_STATE);
         }
       }
@@ -205,11 +220,23 @@ public class SendStateMachine extends AbstractStateMachine {
         }
       }
 
+      boolean progressed = ackedSeq > acked;
       while (ackedSeq > acked) {
         ++acked;
         removeMessage();
       }
 
+      if (progressed && windowStalled) {
+        // the window filled up before the peer acked, if there is more waiting to go out the window was too small
+        if (!sendQueue.isEmpty()) {
+          growWindow();
+        }
+        windowStalled = false;
+      } else if (progressed && outstandingCnt == 0 && sendQueue.isEmpty()) {
+        // everything is acked and nothing is waiting, give back what the last burst grew
+        shrinkWindow();
+      }
+
       if (outstandingCnt < sendWindow) {
         switchToState(MESSAGE_WAIT_STATE);
       } else {
@@ -270,14 +297,23 @@ public class SendStateMachine extends AbstractStateMachine {
     return (opm);
   }
 
-  private void resendOutstandings() { 
-    ListIterator<OOOProtocolMessage> it = outstandingMsgs.listIterator(0);
-    while (it.hasNext()) {
-      OOOProtocolMessage msg = it.next();
+  private void resendOutstandings() {
+    for (OOOProtocolMessage msg : outstandingMsgs) {
       delivery.sendMessage(msg);
     }
   }
 
+  private void growWindow() {
+    if (sendWindow < maxSendWindow) {
+      sendWindow++;
+    }
+  }
+
+  private void shrinkWindow() {
+    windowStalled = false;
+    sendWindow = Math.max(minSendWindow, sendWindow / 2);
+  }
+
   private void removeMessage() {
     OOOProtocolMessage msg = outstandingMsgs.removeFirst();
     msg.reallyDoRecycleOnWrite();
@@ -294,6 +330,8 @@ public class SendStateMachine extends AbstractStateMachine {
     // purge out outstanding sends
     outstandingCnt = 0;
     outstandingMsgs.clear();
+    sendWindow = minSendWindow;
+    windowStalled = false;
 
     LinkedBlockingQueue<TCNetworkMessage> tmpQ = sendQueue;
     sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(sendQueueCap);
@@ -328,4 +366,9 @@ public class SendStateMachine extends AbstractStateMachine {
     return (sendQueue.isEmpty() && outstandingMsgs.isEmpty());
   }
 
+  // for testing purpose only
+  synchronized int getSendWindow() {
+    return sendWindow;
+  }
+
 }
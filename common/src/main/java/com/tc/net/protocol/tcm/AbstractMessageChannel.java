@@ -251,6 +251,18 @@ abstract class AbstractMessageChannel implements MessageChannelInternal {
     }
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    NetworkLayer sendLyr = this.sendLayer;
+    return (sendLyr != null ? sendLyr.getOutboundQueueMessages() : 0);
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    NetworkLayer sendLyr = this.sendLayer;
+    return (sendLyr != null ? sendLyr.getOutboundQueueBytes() : 0);
+  }
+
   @Override
   public TCSocketAddress getRemoteAddress() {
     NetworkLayer sendLyr = this.sendLayer;
@@ -37,6 +37,8 @@ import com.tc.net.core.TCListener;
 import com.tc.net.core.security.TCSecurityManager;
 import com.tc.net.protocol.NetworkStackHarness;
 import com.tc.net.protocol.NetworkStackHarnessFactory;
+import com.tc.net.protocol.transport.CompressionPolicy;
+import com.tc.net.protocol.transport.CompressionStats;
 import com.tc.net.protocol.transport.ConnectionHealthChecker;
 import com.tc.net.protocol.transport.ConnectionHealthCheckerEchoImpl;
 import com.tc.net.protocol.transport.ConnectionHealthCheckerImpl;
@@ -63,6 +65,8 @@ import com.tc.net.protocol.transport.WireProtocolAdaptorFactoryImpl;
 import com.tc.net.protocol.transport.WireProtocolMessageSink;
 import com.tc.object.session.NullSessionManager;
 import com.tc.object.session.SessionProvider;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.SetOnceFlag;
 
@@ -110,6 +114,8 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
   private final TransportHandshakeErrorHandler                                 handshakeErrHandler;
   private final String                                                         commsMgrName;
   private final TCSecurityManager                                              securityManager;
+  private final CompressionPolicy                                              compressionPolicy;
+  private final boolean                                                        payloadChecksums;
 
   /**
    * Create a communications manager. This implies that one or more network handling threads will be started on your
@@ -201,6 +207,12 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
     this.messageTypeFactoryMapping.putAll(messageTypeFactoryMapping);
     this.reconnectionRejectedHandler = reconnectionRejectedHandler;
     this.securityManager = securityManager;
+    this.compressionPolicy = CompressionPolicy
+        .fromProperties(COMMSMGR_GROUPS.equals(commsMgrName) ? TCPropertiesConsts.NETCORE_COMPRESSION_GROUP_CATEGORY
+            : TCPropertiesConsts.NETCORE_COMPRESSION_CLIENT_CATEGORY);
+    this.payloadChecksums = TCPropertiesImpl.getProperties()
+        .getBoolean(COMMSMGR_GROUPS.equals(commsMgrName) ? TCPropertiesConsts.NET_CORE_CHECKSUM_GROUP_PAYLOAD
+            : TCPropertiesConsts.NET_CORE_CHECKSUM_CLIENT_PAYLOAD);
 
     Assert.assertNotNull(commsMgrName);
     if (null == connMgr) {
@@ -225,6 +237,13 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
     return this.connectionManager;
   }
 
+  /**
+   * Payload compression counters for all the transports of this comms manager.
+   */
+  public CompressionStats getCompressionStats() {
+    return this.compressionPolicy.getStats();
+  }
+
   @Override
   public boolean isInShutdown() {
     return shutdown.isSet();
@@ -305,7 +324,9 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
                                                                                      maxReconnectTries, timeout,
                                                                                      callbackPort, handshakeErrHandler,
                                                                                      reconnectionRejectedHandler,
-                                                                                     securityManager);
+                                                                                     securityManager,
+                                                                                     compressionPolicy,
+                                                                                     payloadChecksums);
     NetworkStackHarness stackHarness = this.stackHarnessFactory.createClientHarness(transportFactory, rv,
                                                                                     new MessageTransportListener[0]);
     stackHarness.finalizeStack();
@@ -413,7 +434,8 @@ public class CommunicationsManagerImpl implements CommunicationsManager {
                                                                 this.connectionPolicy,
                                                                 new WireProtocolAdaptorFactoryImpl(),
                                                                 wireProtocolMessageSink, licenseLock,
-                                                                this.commsMgrName, this.securityManager);
+                                                                this.commsMgrName, this.securityManager,
+                                                                this.compressionPolicy, this.payloadChecksums);
     return connectionManager.createListener(addr, stackProvider, Constants.DEFAULT_ACCEPT_QUEUE_DEPTH, resueAddr);
   }
 
@@ -18,17 +18,25 @@
  */
 package com.tc.net.protocol.tcm;
 
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.async.api.Sink;
 
-public class HydrateContext<T> implements MultiThreadedEventContext {
+public class HydrateContext<T> implements MultiThreadedEventContext, PrioritizedEventContext {
 
   private final Sink<T>      destSink;
   private final TCMessage message;
+  private final EventPriority priority;
 
   public HydrateContext(TCMessage message, Sink<T> destSink) {
+    this(message, destSink, EventPriority.DATA);
+  }
+
+  public HydrateContext(TCMessage message, Sink<T> destSink, EventPriority priority) {
     this.message = message;
     this.destSink = destSink;
+    this.priority = priority;
   }
 
   public Sink<T> getDestSink() {
@@ -44,6 +52,11 @@ public class HydrateContext<T> implements MultiThreadedEventContext {
     return message.getSourceNodeID();
   }
   
+  @Override
+  public EventPriority getEventPriority() {
+    return priority;
+  }
+
   @Override
   public boolean flush() {
 //  hydrate operations are independent and don't need a flush
@@ -24,11 +24,13 @@ import com.tc.net.core.TCConnectionManager;
 import com.tc.net.core.security.TCSecurityManager;
 import com.tc.net.protocol.transport.ClientConnectionEstablisher;
 import com.tc.net.protocol.transport.ClientMessageTransport;
+import com.tc.net.protocol.transport.CompressionPolicy;
 import com.tc.net.protocol.transport.ConnectionHealthChecker;
 import com.tc.net.protocol.transport.ConnectionID;
 import com.tc.net.protocol.transport.MessageTransport;
 import com.tc.net.protocol.transport.MessageTransportFactory;
 import com.tc.net.protocol.transport.MessageTransportListener;
+import com.tc.net.protocol.transport.PayloadCodec;
 import com.tc.net.protocol.transport.ReconnectionRejectedHandler;
 import com.tc.net.protocol.transport.TransportHandshakeErrorHandler;
 import com.tc.net.protocol.transport.TransportHandshakeMessageFactory;
@@ -48,6 +50,8 @@ public class MessageTransportFactoryImpl implements MessageTransportFactory {
   private final TransportHandshakeErrorHandler   defaultHandshakeErrorHandler;
   private final ReconnectionRejectedHandler      reconnectionRejectedHandler;
   private final TCSecurityManager                securityManager;
+  private final CompressionPolicy                compressionPolicy;
+  private final boolean                          payloadChecksums;
 
   public MessageTransportFactoryImpl(TransportHandshakeMessageFactory transportMessageFactory,
                                      ConnectionHealthChecker connectionHealthChecker,
@@ -56,7 +60,8 @@ public class MessageTransportFactoryImpl implements MessageTransportFactory {
                                      int timeout, int callbackPort,
                                      TransportHandshakeErrorHandler defaultHandshakeErrorHandler,
                                      ReconnectionRejectedHandler reconnectionRejectedBehaviour,
-                                     TCSecurityManager securityManager) {
+                                     TCSecurityManager securityManager, CompressionPolicy compressionPolicy,
+                                     boolean payloadChecksums) {
     this.transportMessageFactory = transportMessageFactory;
     this.connectionHealthChecker = connectionHealthChecker;
     this.connectionMgr = connectionManager;
@@ -67,6 +72,8 @@ public class MessageTransportFactoryImpl implements MessageTransportFactory {
     this.defaultHandshakeErrorHandler = defaultHandshakeErrorHandler;
     this.reconnectionRejectedHandler = reconnectionRejectedBehaviour;
     this.securityManager = securityManager;
+    this.compressionPolicy = compressionPolicy;
+    this.payloadChecksums = payloadChecksums;
   }
 
   @Override
@@ -80,6 +87,9 @@ public class MessageTransportFactoryImpl implements MessageTransportFactory {
                                                               defaultHandshakeErrorHandler, transportMessageFactory,
                                                               new WireProtocolAdaptorFactoryImpl(), callbackport);
     cmt.addTransportListener(connectionHealthChecker);
+    // the codec itself is chosen by the server in the handshake
+    cmt.setPayloadCompression(compressionPolicy, PayloadCodec.NONE);
+    cmt.setPayloadChecksumRequested(payloadChecksums);
     return cmt;
   }
 
@@ -213,6 +213,16 @@ public class MockMessageChannel implements MessageChannelInternal {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    return 0;
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    return 0;
+  }
+
   @Override
   public TCSocketAddress getRemoteAddress() {
     throw new UnsupportedOperationException();
@@ -18,6 +18,7 @@
  */
 package com.tc.net.protocol.tcm;
 
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.Sink;
 
 /**
@@ -31,6 +32,11 @@ public interface TCMessageRouter extends TCMessageSink {
 
   public void routeMessageType(TCMessageType protocol, Sink destSink, Sink hydrateSink);
 
+  /**
+   * Routes the message type as above, with its hydration queued at the given priority on the hydrate stage.
+   */
+  public void routeMessageType(TCMessageType protocol, Sink destSink, Sink hydrateSink, EventPriority hydratePriority);
+
   public void unrouteMessageType(TCMessageType protocol);
 
 }
@@ -18,6 +18,7 @@
  */
 package com.tc.net.protocol.tcm;
 
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.Sink;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
@@ -76,7 +77,12 @@ public class TCMessageRouterImpl implements TCMessageRouter {
 
   @Override
   public void routeMessageType(TCMessageType messageType, Sink destSink, Sink hydrateSink) {
-    routeMessageType(messageType, new TCMessageSinkToSedaSink(destSink, hydrateSink));
+    routeMessageType(messageType, destSink, hydrateSink, EventPriority.DATA);
+  }
+
+  @Override
+  public void routeMessageType(TCMessageType messageType, Sink destSink, Sink hydrateSink, EventPriority hydratePriority) {
+    routeMessageType(messageType, new TCMessageSinkToSedaSink(destSink, hydrateSink, hydratePriority));
   }
 
   @Override
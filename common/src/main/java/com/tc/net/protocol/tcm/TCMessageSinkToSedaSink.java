@@ -18,21 +18,24 @@
  */
 package com.tc.net.protocol.tcm;
 
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.Sink;
 
 class TCMessageSinkToSedaSink implements TCMessageSink {
   private final Sink<TCMessage> destSink;
   private final Sink<HydrateContext> hydrateSink;
+  private final EventPriority priority;
   
 
-  public TCMessageSinkToSedaSink(Sink<TCMessage> destSink, Sink<HydrateContext> hydrateSink) {
+  public TCMessageSinkToSedaSink(Sink<TCMessage> destSink, Sink<HydrateContext> hydrateSink, EventPriority priority) {
     this.destSink = destSink;
     this.hydrateSink = hydrateSink;
+    this.priority = priority;
   }
 
   @Override
   public void putMessage(TCMessage message) {    
-    HydrateContext context = new HydrateContext(message, destSink);
+    HydrateContext context = new HydrateContext(message, destSink, priority);
     hydrateSink.addMultiThreaded(context);
   }
   
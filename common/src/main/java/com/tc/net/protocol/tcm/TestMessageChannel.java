@@ -167,6 +167,16 @@ public class TestMessageChannel implements MessageChannel {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    return 0;
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    return 0;
+  }
+
   @Override
   public TCSocketAddress getRemoteAddress() {
     throw new UnsupportedOperationException();
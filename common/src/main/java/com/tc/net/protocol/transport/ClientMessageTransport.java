@@ -63,6 +63,7 @@ public class ClientMessageTransport extends MessageTransportBase {
   private final int                         callbackPort;
   private final TCSecurityManager           securityManager;
   private final ConnectionAddressProvider   addressProvider;
+  private volatile boolean                  payloadChecksumRequested           = false;
 
   public ClientMessageTransport(ClientConnectionEstablisher clientConnectionEstablisher,
                                 TransportHandshakeErrorHandler handshakeErrorHandler,
@@ -232,6 +233,8 @@ public class ClientMessageTransport extends MessageTransportBase {
         Assert.eval(!ConnectionID.NULL_ID.equals(this.connectionId));
         Assert.assertNotNull(this.waitForSynAckResult);
       }
+      setPayloadCompression(getCompressionPolicy(), synAck.getPayloadCodec());
+      getConnection().setPayloadChecksums(synAck.isPayloadChecksumEnabled());
       getConnection().setTransportEstablished();
       this.waitForSynAckResult.set(synAck);
       setRemoteCallbackPort(synAck.getCallbackPort());
@@ -299,7 +302,9 @@ public class ClientMessageTransport extends MessageTransportBase {
                                                                   connectionInfo.getPort()));
       }
       TransportHandshakeMessage syn = this.messageFactory.createSyn(this.connectionId, getConnection(),
-                                                                    stackLayerFlags, this.callbackPort);
+                                                                    stackLayerFlags, this.callbackPort,
+                                                                    getCompressionPolicy().advertise(),
+                                                                    this.payloadChecksumRequested);
       // send syn message
       try {
         this.sendToConnection(syn);
@@ -430,6 +435,13 @@ public class ClientMessageTransport extends MessageTransportBase {
     return this.connectionEstablisher;
   }
 
+  /**
+   * Ask the server, in the next handshake, for payload checksums on the connection.
+   */
+  public void setPayloadChecksumRequested(boolean requested) {
+    this.payloadChecksumRequested = requested;
+  }
+
   // method used for testing
   public void switchLoggerForTesting(ConnectionIdLogger tmpLogger) {
     this.logger = tmpLogger;
@@ -0,0 +1,119 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Which payload codecs a comms manager offers, in order of preference, and how big a message has to be before it is
+ * worth compressing. One policy is shared by all the transports of a comms manager and collects their stats.
+ */
+public class CompressionPolicy {
+  private static final TCLogger         logger    = TCLogging.getLogger(CompressionPolicy.class);
+
+  private static final String           CODECS    = "codecs";
+  private static final String           THRESHOLD = "threshold";
+
+  public static final CompressionPolicy DISABLED  = new CompressionPolicy(Collections.<PayloadCodec> emptyList(),
+                                                                          Integer.MAX_VALUE);
+
+  private final List<PayloadCodec>      codecs;
+  private final int                     threshold;
+  private final CompressionStats        stats     = new CompressionStats();
+
+  public CompressionPolicy(List<PayloadCodec> codecs, int threshold) {
+    this.codecs = Collections.unmodifiableList(new ArrayList<PayloadCodec>(codecs));
+    this.threshold = threshold;
+  }
+
+  /**
+   * Reads {@code codecs} and {@code threshold} from the given tc.properties category.
+   */
+  public static CompressionPolicy fromProperties(String category) {
+    TCProperties props = TCPropertiesImpl.getProperties().getPropertiesFor(category);
+    String names = props.getProperty(CODECS, true);
+    List<PayloadCodec> codecs = new ArrayList<PayloadCodec>();
+    if (names != null) {
+      for (String name : names.split(",")) {
+        name = name.trim();
+        if (name.length() == 0) continue;
+        try {
+          PayloadCodec codec = PayloadCodec.valueOf(name.toUpperCase(Locale.ENGLISH));
+          if (codec != PayloadCodec.NONE && !codecs.contains(codec)) {
+            codecs.add(codec);
+          }
+        } catch (IllegalArgumentException e) {
+          logger.warn("Ignoring unknown payload codec '" + name + "' in " + category + "." + CODECS);
+        }
+      }
+    }
+    return codecs.isEmpty() ? DISABLED : new CompressionPolicy(codecs, props.getInt(THRESHOLD));
+  }
+
+  /**
+   * @return the mask of codecs to advertise in a SYN
+   */
+  public int advertise() {
+    int mask = 0;
+    for (PayloadCodec codec : codecs) {
+      mask |= codec.mask();
+    }
+    return mask;
+  }
+
+  /**
+   * @return our most preferred codec the peer can also decode, {@link PayloadCodec#NONE} if there is none
+   */
+  public PayloadCodec negotiate(int peerCodecs) {
+    for (PayloadCodec codec : codecs) {
+      if ((peerCodecs & codec.mask()) != 0) { return codec; }
+    }
+    return PayloadCodec.NONE;
+  }
+
+  /**
+   * @return {@code message} compressed with {@code codec} if it is big enough and shrinks, otherwise {@code message}
+   */
+  public TCNetworkMessage compress(TCNetworkMessage message, PayloadCodec codec) {
+    if (codec == PayloadCodec.NONE) { return message; }
+    if (!message.isSealed()) {
+      message.seal();
+    }
+    if (message.getTotalLength() < threshold) { return message; }
+    return CompressedNetworkMessage.compress(message, codec, stats);
+  }
+
+  public CompressionStats getStats() {
+    return stats;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionPolicy[codecs=" + codecs + ", threshold=" + threshold + "]";
+  }
+}
@@ -57,6 +57,16 @@ public interface MessageTransport extends NetworkLayer {
 
   public int getRemoteCallbackPort();
 
+  /**
+   * Compress outgoing payloads with {@code codec}, as agreed in the handshake, under the thresholds of {@code policy}.
+   */
+  public void setPayloadCompression(CompressionPolicy policy, PayloadCodec codec);
+
   public void initConnectionID(ConnectionID cid);
 
+  /**
+   * Waits while the outbound queue of the connection is full, see {@link TCConnection#waitForOutboundSpace()}.
+   */
+  public void waitForOutboundSpace();
+
 }
@@ -28,6 +28,7 @@ import com.tc.net.core.event.TCConnectionEventListener;
 import com.tc.net.protocol.IllegalReconnectException;
 import com.tc.net.protocol.NetworkLayer;
 import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.net.protocol.TCProtocolException;
 import com.tc.net.protocol.tcm.ChannelID;
 import com.tc.util.Assert;
 import java.io.IOException;
@@ -54,6 +55,8 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
   private boolean                                  allowConnectionReplace = false;
   private volatile ConnectionHealthCheckerContext  healthCheckerContext   = new ConnectionHealthCheckerContextDummyImpl();
   private int                                      remoteCallbackPort     = TransportHandshakeMessage.NO_CALLBACK_PORT;
+  private volatile CompressionPolicy               compressionPolicy      = CompressionPolicy.DISABLED;
+  private volatile PayloadCodec                    payloadCodec           = PayloadCodec.NONE;
 
   protected MessageTransportBase(MessageTransportState initialState,
                                  TransportHandshakeErrorHandler handshakeErrorHandler,
@@ -79,6 +82,20 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
     return healthCheckerContext;
   }
 
+  @Override
+  public synchronized void setPayloadCompression(CompressionPolicy policy, PayloadCodec codec) {
+    this.compressionPolicy = policy;
+    this.payloadCodec = codec;
+  }
+
+  protected CompressionPolicy getCompressionPolicy() {
+    return compressionPolicy;
+  }
+
+  public PayloadCodec getPayloadCodec() {
+    return payloadCodec;
+  }
+
   @Override
   public final ConnectionID getConnectionId() {
     return this.connectionId;
@@ -125,7 +142,17 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
         throw new AssertionError("Wrong HealthChecker Probe message from: " + message.getSource());
       }
     }
-    this.receiveLayer.receive(message.getPayload());
+    TCByteBuffer[] payload = message.getPayload();
+    if (message.getMessageProtocol() == WireProtocolHeader.PROTOCOL_COMPRESSED) {
+      try {
+        payload = CompressedNetworkMessage.decompress(payload, this.compressionPolicy.getStats());
+      } catch (TCProtocolException e) {
+        getLogger().error("Closing " + message.getSource() + " after receiving a corrupt compressed message", e);
+        message.getSource().asynchClose();
+        return;
+      }
+    }
+    this.receiveLayer.receive(payload);
     message.getWireProtocolHeader().recycle();
   }
 
@@ -180,7 +207,7 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
   @Override
   public final void send(TCNetworkMessage message) throws IOException {
     if (status.isEstablished()) {
-      sendToConnection(message);
+      sendToConnection(this.compressionPolicy.compress(message, this.payloadCodec));
     } else {
       throw new IOException("connection not established");
     }
@@ -330,6 +357,26 @@ abstract class MessageTransportBase extends AbstractMessageTransport implements
     return (connection != null ? this.connection.getLocalAddress() : null);
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    TCConnection conn = this.connection;
+    return (conn != null ? conn.getOutboundQueueMessages() : 0);
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    TCConnection conn = this.connection;
+    return (conn != null ? conn.getOutboundQueueBytes() : 0);
+  }
+
+  @Override
+  public void waitForOutboundSpace() {
+    TCConnection conn = this.connection;
+    if (conn != null) {
+      conn.waitForOutboundSpace();
+    }
+  }
+
   protected void setConnection(TCConnection conn) {
     TCConnection old = this.connection;
     this.connection = conn;
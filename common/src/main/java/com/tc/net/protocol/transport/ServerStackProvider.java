@@ -62,6 +62,8 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
   private final List<MessageTransportListener>   transportListeners = new ArrayList<MessageTransportListener>();
   private final ReentrantLock                    licenseLock;
   private final String                           commsMgrName;
+  private final CompressionPolicy                compressionPolicy;
+  private final boolean                          payloadChecksums;
 
   // used only in test
   public ServerStackProvider(Set<ConnectionID> initialConnectionIDs, NetworkStackHarnessFactory harnessFactory,
@@ -72,7 +74,7 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
                              WireProtocolAdaptorFactory wireProtocolAdaptorFactory, ReentrantLock licenseLock) {
     this(initialConnectionIDs, harnessFactory, channelFactory, messageTransportFactory,
          handshakeMessageFactory, connectionIdFactory, connectionPolicy, wireProtocolAdaptorFactory, null, licenseLock,
-         CommunicationsManager.COMMSMGR_SERVER, null);
+         CommunicationsManager.COMMSMGR_SERVER, null, CompressionPolicy.DISABLED, false);
   }
 
   public ServerStackProvider(Set<ConnectionID>  initialConnectionIDs, NetworkStackHarnessFactory harnessFactory,
@@ -82,7 +84,8 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
                              ConnectionIDFactory connectionIdFactory, ConnectionPolicy connectionPolicy,
                              WireProtocolAdaptorFactory wireProtocolAdaptorFactory,
                              WireProtocolMessageSink wireProtoMsgSink, ReentrantLock licenseLock,
-                             String commsMgrName, TCSecurityManager securityManager) {
+                             String commsMgrName, TCSecurityManager securityManager,
+                             CompressionPolicy compressionPolicy, boolean payloadChecksums) {
     this.messageTransportFactory = messageTransportFactory;
     this.connectionPolicy = connectionPolicy;
     this.wireProtocolAdaptorFactory = wireProtocolAdaptorFactory;
@@ -97,6 +100,8 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
     Assert.assertNotNull(licenseLock);
     this.licenseLock = licenseLock;
     this.commsMgrName = commsMgrName;
+    this.compressionPolicy = compressionPolicy;
+    this.payloadChecksums = payloadChecksums;
     for (final Object initialConnectionID : initialConnectionIDs) {
       ConnectionID connectionID = (ConnectionID)initialConnectionID;
       logger.info("Preparing comms stack for previously connected client: " + connectionID);
@@ -233,6 +238,8 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
     private volatile boolean                     isSynReceived    = false;
     private volatile boolean                     isHandshakeError = false;
     private volatile MessageTransport            transport;
+    private volatile PayloadCodec                payloadCodec     = PayloadCodec.NONE;
+    private volatile boolean                     payloadChecksum  = false;
 
     private MessageSink(TransportHandshakeErrorHandler handshakeErrorHandler, String commsMgrName) {
       this.handshakeErrorHandler = handshakeErrorHandler;
@@ -336,6 +343,9 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
       }
 
       this.transport.setRemoteCallbackPort(syn.getCallbackPort());
+      this.payloadCodec = compressionPolicy.negotiate(syn.getCompressionCodecs());
+      // either side asking is enough, integrity wins over the CPU it costs
+      this.payloadChecksum = payloadChecksums || syn.isPayloadChecksumRequested();
       // now check that the client side stack and server side stack are both in sync
       short clientStackLayerFlags = syn.getStackLayerFlags();
       short serverStackLayerFlags = this.transport.getCommunicationStackFlags(this.transport);
@@ -403,7 +413,10 @@ public class ServerStackProvider implements NetworkStackProvider, MessageTranspo
       } else {
         int callbackPort = source.getLocalAddress().getPort();
         synAck = handshakeMessageFactory.createSynAck(connectionId, source, isMaxConnectionsReached, maxConnections,
-                                                      callbackPort);
+                                                      callbackPort, payloadCodec, payloadChecksum);
+        // takes effect once the client ACKs and the transport is established
+        transport.setPayloadCompression(compressionPolicy, payloadCodec);
+        source.setPayloadChecksums(payloadChecksum);
       }
       sendMessage(synAck);
     }
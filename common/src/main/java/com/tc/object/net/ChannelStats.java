@@ -41,4 +41,11 @@ public interface ChannelStats {
 
   public void notifyTransactionAckedFrom(NodeID nodeID);
 
+  /**
+   * Messages queued for the channel which have not yet been written to the network
+   */
+  public int getOutboundQueueMessages(MessageChannel channel);
+
+  public long getOutboundQueueBytes(MessageChannel channel);
+
 }
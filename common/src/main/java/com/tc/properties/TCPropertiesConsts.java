@@ -92,6 +92,74 @@ public interface TCPropertiesConsts {
   public static final String L2_NHA_DIRTYDB_ROLLING                                         = "l2.nha.dirtydb.rolling";
   public static final String L2_NHA_AUTORESTART                                             = "l2.nha.autoRestart";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Passive Resync
+   * Description : A restarted passive which retains its persistent state can be brought current by replaying the
+   *               tail of the active's replication log instead of a full passive sync
+   * enabled          - If true, the active keeps a bounded log of replicated messages for passive resync
+   * log.maxMessages  - Maximum number of replicated messages retained in the log
+   * log.maxBytes     - Maximum number of payload bytes retained in the log
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_PASSIVE_RESYNC_ENABLED                                      = "l2.passive.resync.enabled";
+  public static final String L2_PASSIVE_RESYNC_LOG_MAX_MESSAGES                             = "l2.passive.resync.log.maxMessages";
+  public static final String L2_PASSIVE_RESYNC_LOG_MAX_BYTES                                = "l2.passive.resync.log.maxBytes";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Restart
+   * Description : How entities in persistent storage are reloaded when a restartable server starts
+   * lazyEntityLoad   - If true, entities are only registered at startup and each server entity is constructed on its
+   *                    management key ahead of its first request, or by the warm-up
+   * warmup           - If true, entities which have not been constructed when the server becomes active are queued for
+   *                    construction behind the requests already waiting
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_RESTART_LAZY_ENTITY_LOAD                                    = "l2.restart.lazyEntityLoad";
+  public static final String L2_RESTART_WARMUP                                              = "l2.restart.warmup";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Platform Monitoring
+   * Description : How changes to the platform monitoring tree are published to the monitoring service
+   * async.enabled          - If true, changes are queued and applied in batches by a background thread
+   * async.batchDelayMillis - How long the background thread waits for more changes to batch with the first
+   * async.maxQueued        - Most changes left waiting for the background thread, past it callers apply them
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_MONITORING_ASYNC_ENABLED                                    = "l2.monitoring.async.enabled";
+  public static final String L2_MONITORING_ASYNC_BATCH_DELAY_MILLIS                         = "l2.monitoring.async.batchDelayMillis";
+  public static final String L2_MONITORING_ASYNC_MAX_QUEUED                                 = "l2.monitoring.async.maxQueued";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Early Reconnect Service
+   * Description : Serving the clients which have reconnected to a new active before the reconnect window closes
+   * earlyService.enabled - If true, fetches and releases are replicated so the passives know which entities each client
+   *                        uses and, after a failover, only the entities used by clients which have not yet reconnected
+   *                        wait for the reconnect window.  Must be the same on every server of the stripe
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_RECONNECT_EARLY_SERVICE_ENABLED                             = "l2.reconnect.earlyService.enabled";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Admission Control
+   * Description : Shedding client invokes, with a server busy failure, instead of blocking the comms threads when the
+   *               voltron message stage is backed up
+   * enabled                  - If true, invokes are checked against the limits below as they arrive
+   * client.maxQueued         - Max invokes from one client waiting for the stage, 0 for no limit
+   * entity.maxQueued         - Max invokes for one entity waiting for the stage, 0 for no limit
+   * queueDelay.maxMillis     - Once invokes wait longer than this for the stage, clients with more than their share
+   *                            of the queue are shed, 0 for no limit
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_ADMISSION_ENABLED                                           = "l2.admission.enabled";
+  public static final String L2_ADMISSION_CLIENT_MAX_QUEUED                                 = "l2.admission.client.maxQueued";
+  public static final String L2_ADMISSION_ENTITY_MAX_QUEUED                                 = "l2.admission.entity.maxQueued";
+  public static final String L2_ADMISSION_QUEUE_DELAY_MAX_MILLIS                            = "l2.admission.queueDelay.maxMillis";
+
   /*********************************************************************************************************************
    * <code>
    * Section : Misc L2 Properties
@@ -170,11 +238,17 @@ public interface TCPropertiesConsts {
    * Section : Common Logging properties for both L1 and L2
    * Description : Logging attributes that can be overridden.
    * maxBackups       - The maximum number of backup log files to keep maxLogFileSize - The maximum size of a log file in megabytes
+   * async.enabled    - If true, the server log file and JMX appenders are written from their own threads
+   * async.bufferSize - The number of log events held for each asynchronous appender
+   * async.overflowPolicy - What to do with an event when the buffer is full: block, discard or discard_below_warn
    * </code>
    ********************************************************************************************************************/
   public static final String LOGGING_MAXBACKUPS                                             = "logging.maxBackups";
   public static final String LOGGING_MAX_LOGFILE_SIZE                                       = "logging.maxLogFileSize";
   public static final String LOGGING_LONG_GC_THRESHOLD                                      = "logging.longgc.threshold";
+  public static final String LOGGING_ASYNC_ENABLED                                          = "logging.async.enabled";
+  public static final String LOGGING_ASYNC_BUFFER_SIZE                                      = "logging.async.bufferSize";
+  public static final String LOGGING_ASYNC_OVERFLOW_POLICY                                  = "logging.async.overflowPolicy";
 
   /*********************************************************************************************************************
    * <code>
@@ -185,6 +259,10 @@ public interface TCPropertiesConsts {
    * bytebuffer.pooling.enabled           : Enable/disable tc byte buffer pooling
    * bytebuffer.common.pool.maxcount      : Max size of pool for tc byte buffer
    * bytebuffer.threadlocal.pool.maxcount : Thread pool size
+   * messages.grouping.enabled            : Group queued messages into a single wire message
+   * messages.grouping.maxSizeKiloBytes   : Max size of a group of messages
+   * messages.packup.enabled              : Copy outgoing messages into pooled direct buffers instead of writing
+   *                                        gathered views of the message buffers
    * </code>
    ********************************************************************************************************************/
   public static final String TC_STAGE_MONITOR_ENABLED                                       = "tc.stage.monitor.enabled";
@@ -221,11 +299,18 @@ public interface TCPropertiesConsts {
    * Description       : This section contains the defaults for the client lock manager for the L1
    * striped.count     : striping count for l1 lock manager
    * timeout.interval  : time after which an unused lock will be a candidate for lock GC
+   * batch.enabled     : coalesce lock requests from all threads into batch messages
+   * batch.flushInterval : time in millis a request may wait for more to join its batch, a request made when nothing
+   *                       has been sent for this long goes straight away
+   * batch.maxSize     : number of requests after which a batch is sent straight away
    * </code>
    ********************************************************************************************************************/
   public static final String L1_LOCKMANAGER_STRIPED_COUNT                                   = "l1.lockmanager.striped.count";
   public static final String L1_LOCKMANAGER_TIMEOUT_INTERVAL                                = "l1.lockmanager.timeout.interval";
   public static final String L1_LOCKMANAGER_PINNING_ENABLED                                 = "l1.lockmanager.pinning.enabled";
+  public static final String L1_LOCKMANAGER_BATCH_ENABLED                                   = "l1.lockmanager.batch.enabled";
+  public static final String L1_LOCKMANAGER_BATCH_FLUSH_INTERVAL                            = "l1.lockmanager.batch.flushInterval";
+  public static final String L1_LOCKMANAGER_BATCH_MAX_SIZE                                  = "l1.lockmanager.batch.maxSize";
 
   /*********************************************************************************************************************
    * <code>
@@ -250,6 +335,16 @@ public interface TCPropertiesConsts {
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_ENABLED                            = "l2.lockmanager.greedy.lease.enabled";
   public static final String L2_LOCKMANAGER_GREEDY_LEASE_LEASETIME_INMILLS                  = "l2.lockmanager.greedy.lease.leaseTimeInMillis";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L2 Timer Wheel
+   * tickMillis : Granularity of lock wait/tryLock and group handshake timeouts
+   * size       : Number of slots in the timer wheel, rounded up to a power of two
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_TIMER_WHEEL_TICK_MILLIS                                     = "l2.timer.wheel.tickMillis";
+  public static final String L2_TIMER_WHEEL_SIZE                                            = "l2.timer.wheel.size";
+
   /*********************************************************************************************************************
    * <code>
    * Section : TCP Settings
@@ -260,6 +355,67 @@ public interface TCPropertiesConsts {
   public static final String NET_CORE_KEEPALIVE                                             = "net.core.keepalive";
   public static final String NET_CORE_TCP_NO_DELAY                                          = "net.core.tcpnodelay";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Outbound Queue
+   * Description : Limits on the data a connection may hold waiting to be written to its socket
+   * maxBytes           : Maximum bytes queued on a connection, 0 for no limit
+   * maxMessages        : Maximum messages queued on a connection, 0 for no limit
+   * fullPolicy         : What happens to a message sent to a full queue
+   *                      BLOCK - senders wait, ahead of the protocol locks, for the queue to drain
+   *                      SHED - expendable messages (health checker probes) are dropped, others close it
+   *                      DISCONNECT - the connection is closed
+   *                      Under BLOCK comm threads never wait, what they send goes over the limit
+   * blockTimeoutMillis : How long a BLOCK sender waits on a full queue before the connection is closed
+   * </code>
+   ********************************************************************************************************************/
+  public static final String NET_CORE_OUTBOUND_MAX_BYTES                                    = "net.core.outbound.maxBytes";
+  public static final String NET_CORE_OUTBOUND_MAX_MESSAGES                                 = "net.core.outbound.maxMessages";
+  public static final String NET_CORE_OUTBOUND_FULL_POLICY                                  = "net.core.outbound.fullPolicy";
+  public static final String NET_CORE_OUTBOUND_BLOCK_TIMEOUT                                = "net.core.outbound.blockTimeoutMillis";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Once And Only Once Acks
+   * Description : Acks are carried on data messages going back to the sender whenever there are any
+   * delayedAck.timeoutMillis : Time after which received messages are acked on their own when there has been no
+   *                            message to carry the ack, 0 (the default) to only ack every maxDelayedAcks messages
+   * sendWindow.adaptive      : If true, the send window grows from the configured sendWindow while the peer keeps up
+   *                            and halves back towards it whenever everything sent has been acked or after a reconnect
+   * sendWindow.max           : Largest send window an adaptive window may grow to
+   * </code>
+   ********************************************************************************************************************/
+  public static final String NET_CORE_OOO_DELAYED_ACK_TIMEOUT                               = "net.core.ooo.delayedAck.timeoutMillis";
+  public static final String NET_CORE_OOO_ADAPTIVE_WINDOW                                   = "net.core.ooo.sendWindow.adaptive";
+  public static final String NET_CORE_OOO_MAX_SEND_WINDOW                                   = "net.core.ooo.sendWindow.max";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Payload Compression { client->server and server->client, server->server (HA) }
+   * Description : Messages at or above the threshold are compressed with the first codec in the local list that the
+   *               peer also supports. The server picks the codec for each connection during the transport handshake.
+   * codecs    : Comma separated codecs in order of preference, one of deflate, lz; empty (the default) to disable
+   *             compression, for example lz for clients and deflate,lz for the group
+   * threshold : Smallest message (in bytes) worth compressing
+   * </code>
+   ********************************************************************************************************************/
+  public static final String NET_CORE_COMPRESSION_CLIENT_CODECS                             = "net.core.compression.client.codecs";
+  public static final String NET_CORE_COMPRESSION_CLIENT_THRESHOLD                          = "net.core.compression.client.threshold";
+  public static final String NET_CORE_COMPRESSION_GROUP_CODECS                              = "net.core.compression.group.codecs";
+  public static final String NET_CORE_COMPRESSION_GROUP_THRESHOLD                           = "net.core.compression.group.threshold";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Payload Checksums { client->server and server->client, server->server (HA) }
+   * Description : Wire headers always carry a CRC32C of the header. If either end of a connection asks for it during
+   *               the transport handshake, every message also carries a CRC32C of its payload, checked on receipt.
+   * client.payload : Ask for payload checksums on client connections
+   * group.payload  : Ask for payload checksums between servers
+   * </code>
+   ********************************************************************************************************************/
+  public static final String NET_CORE_CHECKSUM_CLIENT_PAYLOAD                               = "net.core.checksum.client.payload";
+  public static final String NET_CORE_CHECKSUM_GROUP_PAYLOAD                                = "net.core.checksum.group.payload";
+
   /*********************************************************************************************************************
    * <code>
    *  Section : HealthChecker { server->client, server->server (HA), client->server }
@@ -409,5 +565,7 @@ public interface TCPropertiesConsts {
   public static final String  L1_LOCK_MANAGER_CATEGORY                                      = "l1.lockmanager";
   public static final String  LOGGING_CATEGORY                                              = "logging";
   public static final String  NETCORE_CATEGORY                                              = "net.core";
+  public static final String  NETCORE_COMPRESSION_CLIENT_CATEGORY                           = "net.core.compression.client";
+  public static final String  NETCORE_COMPRESSION_GROUP_CATEGORY                            = "net.core.compression.group";
 
 }
@@ -0,0 +1,369 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.util.concurrent;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel for large numbers of short-lived, mostly cancelled timeouts such as lock waits and handshake
+ * deadlines. Scheduling and cancelling are O(1) and never block; all expiry happens in bulk, once per tick, on a single
+ * dedicated thread. Timeouts therefore fire with tick granularity and their tasks must not block. The thread parks
+ * while there is nothing pending and picks the ticks back up when the next timeout is scheduled.
+ * <p>
+ * Timeouts may be scheduled before {@link #start()}. Their deadlines still count from the moment they were scheduled,
+ * but none of them fires until the timer has been started.
+ */
+public class HashedWheelTimer {
+  private static final TCLogger            logger        = TCLogging.getLogger(HashedWheelTimer.class);
+
+  private static final int                 ST_INIT       = 0;
+  private static final int                 ST_STARTED    = 1;
+  private static final int                 ST_STOPPED    = 2;
+
+  private static final int                 TO_PENDING    = 0;
+  private static final int                 TO_CANCELLED  = 1;
+  private static final int                 TO_EXPIRED    = 2;
+
+  private static final int                 MAX_WHEEL_SIZE = 1 << 30;
+
+  private final String                     name;
+  private final long                       tickNanos;
+  private final int                        mask;
+  private final Bucket[]                   wheel;
+  private final long                       startNanos;
+  private final Thread                     worker;
+  private final AtomicInteger              state         = new AtomicInteger(ST_INIT);
+  private final Queue<TimeoutImpl>         scheduled     = new ConcurrentLinkedQueue<>();
+  private final Queue<TimeoutImpl>         cancelled     = new ConcurrentLinkedQueue<>();
+  private final AtomicLong                 pendingCount  = new AtomicLong();
+  private final AtomicLong                 expiredCount  = new AtomicLong();
+  private volatile boolean                 idle          = false;
+
+  // only touched by the worker thread
+  private long                             tick;
+
+  public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    if (tickDuration <= 0) { throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration); }
+    if (ticksPerWheel <= 0 || ticksPerWheel > MAX_WHEEL_SIZE) {
+      throw new IllegalArgumentException("ticksPerWheel must be in (0, " + MAX_WHEEL_SIZE + "]: " + ticksPerWheel);
+    }
+    int size = Integer.highestOneBit(ticksPerWheel);
+    if (size < ticksPerWheel) {
+      size <<= 1;
+    }
+    this.tickNanos = unit.toNanos(tickDuration);
+    if (this.tickNanos >= Long.MAX_VALUE / size) {
+      throw new IllegalArgumentException("tickDuration too long for a wheel of " + size + " ticks");
+    }
+    this.name = name;
+    this.mask = size - 1;
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.startNanos = System.nanoTime();
+    this.worker = new Thread(new Worker(), name);
+    this.worker.setDaemon(true);
+  }
+
+  /**
+   * Starts the expiry thread. Calling this on a running timer does nothing.
+   */
+  public void start() {
+    if (state.compareAndSet(ST_INIT, ST_STARTED)) {
+      worker.start();
+    } else if (state.get() == ST_STOPPED) { throw new IllegalStateException(name + " has already been stopped"); }
+  }
+
+  /**
+   * Stops the expiry thread. Timeouts that have not fired yet are dropped without running.
+   */
+  public void stop() {
+    if (state.getAndSet(ST_STOPPED) != ST_STARTED) { return; }
+    worker.interrupt();
+    if (Thread.currentThread() == worker) { return; }
+    boolean interrupted = false;
+    while (worker.isAlive()) {
+      try {
+        worker.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Schedules {@code task} to run on the expiry thread once {@code delay} has elapsed. Delays too long to represent
+   * are treated as never expiring.
+   *
+   * @throws IllegalArgumentException if the delay is negative
+   * @throws IllegalStateException if the timer has been stopped
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    if (task == null) { throw new NullPointerException("task"); }
+    if (delay < 0) { throw new IllegalArgumentException("Negative delay: " + delay); }
+    if (state.get() == ST_STOPPED) { throw new IllegalStateException(name + " has already been stopped"); }
+
+    long deadline = System.nanoTime() - startNanos + unit.toNanos(delay);
+    if (deadline < 0) {
+      // overflowed, this will never fire within the lifetime of the timer
+      deadline = Long.MAX_VALUE;
+    }
+    TimeoutImpl timeout = new TimeoutImpl(task, deadline);
+    pendingCount.incrementAndGet();
+    scheduled.add(timeout);
+    if (idle) {
+      LockSupport.unpark(worker);
+    }
+    return timeout;
+  }
+
+  /**
+   * @return number of timeouts that have been scheduled but have neither fired nor been cancelled
+   */
+  public long getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * @return number of timeouts that have fired since this timer was created
+   */
+  public long getExpiredCount() {
+    return expiredCount.get();
+  }
+
+  public long getTickDuration(TimeUnit unit) {
+    return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public int getWheelSize() {
+    return wheel.length;
+  }
+
+  // for testing purpose only
+  boolean isIdle() {
+    return idle;
+  }
+
+  @Override
+  public String toString() {
+    return "HashedWheelTimer[" + name + ", tick=" + tickNanos + "ns, wheel=" + wheel.length + ", pending="
+           + pendingCount.get() + "]";
+  }
+
+  /**
+   * Handle on a scheduled task.
+   */
+  public interface Timeout {
+    /**
+     * @return true if this call prevented the task from running, false if it already ran or was already cancelled
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+  }
+
+  private long elapsed() {
+    return System.nanoTime() - startNanos;
+  }
+
+  private class Worker implements Runnable {
+    @Override
+    public void run() {
+      tick = elapsed() / tickNanos;
+      while (state.get() == ST_STARTED) {
+        long deadline = waitForNextTick();
+        if (deadline < 0) {
+          break;
+        }
+        removeCancelled();
+        transferScheduled();
+        wheel[(int) (tick & mask)].expire(deadline);
+        tick++;
+        if (pendingCount.get() == 0) {
+          parkWhileIdle();
+        }
+      }
+    }
+
+    /**
+     * Parks until a timeout is scheduled or the timer is stopped, then skips the ticks that passed in the meantime.
+     */
+    private void parkWhileIdle() {
+      // set before re-checking the count so a concurrent newTimeout either is seen here or sees idle and unparks
+      idle = true;
+      while (pendingCount.get() == 0 && state.get() == ST_STARTED) {
+        LockSupport.park(this);
+      }
+      idle = false;
+      tick = Math.max(tick, elapsed() / tickNanos);
+    }
+
+    /**
+     * Sleeps until the end of the current tick and returns the elapsed time, or -1 if the timer was stopped.
+     */
+    private long waitForNextTick() {
+      long target = tickNanos * (tick + 1);
+      while (true) {
+        long now = elapsed();
+        long sleepNanos = target - now;
+        if (sleepNanos <= 0) { return now; }
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          if (state.get() != ST_STARTED) { return -1; }
+        }
+      }
+    }
+
+    private void removeCancelled() {
+      TimeoutImpl timeout;
+      while ((timeout = cancelled.poll()) != null) {
+        if (timeout.bucket != null) {
+          timeout.bucket.remove(timeout);
+        }
+      }
+    }
+
+    private void transferScheduled() {
+      TimeoutImpl timeout;
+      while ((timeout = scheduled.poll()) != null) {
+        if (timeout.isCancelled()) {
+          continue;
+        }
+        long calculated = timeout.deadline / tickNanos;
+        timeout.remainingRounds = (calculated - tick) / wheel.length;
+        // anything already overdue goes in the current bucket and fires on this tick
+        long ticks = Math.max(calculated, tick);
+        wheel[(int) (ticks & mask)].add(timeout);
+      }
+    }
+  }
+
+  private final class TimeoutImpl implements Timeout {
+    private final Runnable      task;
+    private final long          deadline;
+    private final AtomicInteger timeoutState = new AtomicInteger(TO_PENDING);
+
+    // only touched by the worker thread
+    private long                remainingRounds;
+    private Bucket              bucket;
+    private TimeoutImpl         next;
+    private TimeoutImpl         prev;
+
+    TimeoutImpl(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (!timeoutState.compareAndSet(TO_PENDING, TO_CANCELLED)) { return false; }
+      pendingCount.decrementAndGet();
+      cancelled.add(this);
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return timeoutState.get() == TO_CANCELLED;
+    }
+
+    @Override
+    public boolean isExpired() {
+      return timeoutState.get() == TO_EXPIRED;
+    }
+
+    void expire() {
+      if (!timeoutState.compareAndSet(TO_PENDING, TO_EXPIRED)) { return; }
+      pendingCount.decrementAndGet();
+      expiredCount.incrementAndGet();
+      try {
+        task.run();
+      } catch (Throwable t) {
+        logger.error("Error running timeout task " + task + " on " + name, t);
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of timeouts hashed to one slot of the wheel. Only accessed by the worker thread.
+   */
+  private static final class Bucket {
+    private TimeoutImpl head;
+    private TimeoutImpl tail;
+
+    void add(TimeoutImpl timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void expire(long deadline) {
+      TimeoutImpl timeout = head;
+      while (timeout != null) {
+        TimeoutImpl next = timeout.next;
+        if (timeout.isCancelled()) {
+          remove(timeout);
+        } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+          remove(timeout);
+          timeout.expire();
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    void remove(TimeoutImpl timeout) {
+      if (timeout.bucket != this) { return; }
+      if (timeout.prev != null) {
+        timeout.prev.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      } else {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+}
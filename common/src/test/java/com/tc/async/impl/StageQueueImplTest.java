@@ -18,7 +18,10 @@
  */
 package com.tc.async.impl;
 
+import com.tc.async.api.EventHandler;
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.logging.DefaultLoggerProvider;
 import com.tc.logging.TCLoggerProvider;
 import com.tc.util.concurrent.QueueFactory;
@@ -26,6 +29,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -33,9 +37,12 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.invocation.InvocationOnMock;
@@ -133,4 +140,144 @@ public class StageQueueImplTest {
 //  tests specific implementation.  test expectation
     assertEquals(cxts.get(rand % cxts.size()).poll(), context1);
   }
+
+  @Test
+  public void testPriorityLanes() throws Exception {
+    QueueFactory<ContextWrapper<Object>> factory = mock(QueueFactory.class);
+    when(factory.createInstance(Matchers.anyInt())).thenAnswer(new Answer<BlockingQueue<Object>>() {
+      @Override
+      public BlockingQueue<Object> answer(InvocationOnMock invocation) throws Throwable {
+        return new LinkedBlockingQueue<Object>((Integer)invocation.getArguments()[0]);
+      }
+    });
+    StageQueueImpl<Object> instance = new StageQueueImpl<Object>(1, factory, new DefaultLoggerProvider(), "mock", 16);
+    // fill the data lane, a control context must still get in and be handled first
+    for (int x=0;x<16;x++) {
+      instance.addSingleThreaded("data" + x);
+    }
+    PrioritizedEventContext control = mock(PrioritizedEventContext.class);
+    when(control.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    instance.addSingleThreaded(control);
+    assertEquals(17, instance.size());
+
+    EventHandler<Object> handler = mock(EventHandler.class);
+    instance.getSource(0).poll(0).runWithHandler(handler);
+    verify(handler).handleEvent(control);
+    reset(handler);
+    instance.getSource(0).poll(0).runWithHandler(handler);
+    verify(handler).handleEvent("data0");
+  }
+
+  @Test
+  public void testPriorityLanesDoNotStarve() throws Exception {
+    QueueFactory<ContextWrapper<Object>> factory = mock(QueueFactory.class);
+    when(factory.createInstance(Matchers.anyInt())).thenAnswer(new Answer<BlockingQueue<Object>>() {
+      @Override
+      public BlockingQueue<Object> answer(InvocationOnMock invocation) throws Throwable {
+        return new LinkedBlockingQueue<Object>((Integer)invocation.getArguments()[0]);
+      }
+    });
+    StageQueueImpl<Object> instance = new StageQueueImpl<Object>(1, factory, new DefaultLoggerProvider(), "mock", 1024);
+    instance.addSingleThreaded("data");
+    PrioritizedEventContext control = mock(PrioritizedEventContext.class);
+    when(control.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    for (int x=0;x<100;x++) {
+      instance.addSingleThreaded(control);
+    }
+    EventHandler<Object> handler = mock(EventHandler.class);
+    // the data context is passed over a bounded number of times
+    for (int x=0;x<20;x++) {
+      instance.getSource(0).poll(0).runWithHandler(handler);
+    }
+    verify(handler).handleEvent("data");
+    while (instance.getSource(0).poll(0) != null) {
+      // drain
+    }
+    assertTrue(instance.getSource(0).isEmpty());
+    assertEquals(0, instance.size());
+  }
+
+  @Test
+  public void testPrioritizedContextKeepsKeyOrder() throws Exception {
+    StageQueueImpl<Object> instance = new StageQueueImpl<Object>(1, linkedQueueFactory(), new DefaultLoggerProvider(), "mock", 16);
+    MultiThreadedEventContext data = mock(MultiThreadedEventContext.class);
+    when(data.getSchedulingKey()).thenReturn("a");
+    instance.addMultiThreaded(data);
+    // same key as the queued data, stays behind it
+    PrioritizedEventContext sameKey = mock(PrioritizedEventContext.class);
+    when(sameKey.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    when(sameKey.getSchedulingKey()).thenReturn("a");
+    instance.addSingleThreaded(sameKey);
+    // different key, goes ahead
+    PrioritizedEventContext otherKey = mock(PrioritizedEventContext.class);
+    when(otherKey.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    when(otherKey.getSchedulingKey()).thenReturn("b");
+    instance.addSingleThreaded(otherKey);
+
+    EventHandler<Object> handler = mock(EventHandler.class);
+    for (int x=0;x<3;x++) {
+      instance.getSource(0).poll(0).runWithHandler(handler);
+    }
+    InOrder order = inOrder(handler);
+    order.verify(handler).handleEvent(otherKey);
+    order.verify(handler).handleEvent(data);
+    order.verify(handler).handleEvent(sameKey);
+  }
+
+  @Test
+  public void testWakeupTakesNoDataCapacity() throws Exception {
+    final List<BlockingQueue<Object>> queues = new ArrayList<BlockingQueue<Object>>();
+    QueueFactory<ContextWrapper<Object>> factory = mock(QueueFactory.class);
+    when(factory.createInstance(Matchers.anyInt())).thenAnswer(new Answer<BlockingQueue<Object>>() {
+      @Override
+      public BlockingQueue<Object> answer(InvocationOnMock invocation) throws Throwable {
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>((Integer)invocation.getArguments()[0]);
+        queues.add(queue);
+        return queue;
+      }
+    });
+    StageQueueImpl<Object> instance = new StageQueueImpl<Object>(1, factory, new DefaultLoggerProvider(), "mock", 16);
+    PrioritizedEventContext control = mock(PrioritizedEventContext.class);
+    when(control.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    instance.addSingleThreaded(control);
+    instance.addSingleThreaded(control);
+    // a single wakeup, in the slot kept for it
+    assertEquals(1, queues.get(0).size());
+    assertEquals(16, queues.get(0).remainingCapacity());
+    assertEquals(2, instance.size());
+  }
+
+  @Test
+  public void testPriorityLanesAreBounded() throws Exception {
+    final StageQueueImpl<Object> instance = new StageQueueImpl<Object>(1, linkedQueueFactory(), new DefaultLoggerProvider(), "mock", 4);
+    final PrioritizedEventContext control = mock(PrioritizedEventContext.class);
+    when(control.getEventPriority()).thenReturn(EventPriority.CONTROL);
+    for (int x=0;x<4;x++) {
+      instance.addSingleThreaded(control);
+    }
+    Thread blocked = new Thread() {
+      @Override
+      public void run() {
+        instance.addSingleThreaded(control);
+      }
+    };
+    blocked.start();
+    blocked.join(500);
+    assertTrue(blocked.isAlive());
+    assertEquals(4, instance.size());
+    assertNotNull(instance.getSource(0).poll(0));
+    blocked.join();
+    assertEquals(4, instance.size());
+  }
+
+  private static QueueFactory<ContextWrapper<Object>> linkedQueueFactory() {
+    QueueFactory<ContextWrapper<Object>> factory = mock(QueueFactory.class);
+    when(factory.createInstance(Matchers.anyInt())).thenAnswer(new Answer<BlockingQueue<Object>>() {
+      @Override
+      public BlockingQueue<Object> answer(InvocationOnMock invocation) throws Throwable {
+        return new LinkedBlockingQueue<Object>((Integer)invocation.getArguments()[0]);
+      }
+    });
+    return factory;
+  }
 }
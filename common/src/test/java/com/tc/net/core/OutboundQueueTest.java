@@ -0,0 +1,152 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.core;
+
+import com.tc.net.core.TCConnectionImpl.OutboundLimits;
+import com.tc.net.core.TCConnectionImpl.OutboundPolicy;
+import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.net.protocol.TCProtocolAdaptor;
+import com.tc.net.protocol.transport.WireProtocolHeader;
+import com.tc.net.protocol.transport.WireProtocolMessage;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OutboundQueueTest extends TestCase {
+
+  public void testLimits() {
+    OutboundLimits byCount = new OutboundLimits(0, 2, OutboundPolicy.DISCONNECT, 0);
+    assertFalse(byCount.isFull(1, 1000000, 1000000));
+    assertTrue(byCount.isFull(2, 0, 0));
+
+    OutboundLimits byBytes = new OutboundLimits(100, 0, OutboundPolicy.DISCONNECT, 0);
+    assertFalse(byBytes.isFull(1, 60, 40));
+    assertTrue(byBytes.isFull(1, 60, 41));
+    // an oversized message still goes through an empty queue
+    assertFalse(byBytes.isFull(0, 0, 1000));
+
+    OutboundLimits unlimited = new OutboundLimits(0, 0, OutboundPolicy.DISCONNECT, 0);
+    assertFalse(unlimited.isFull(Integer.MAX_VALUE, Long.MAX_VALUE, 1));
+  }
+
+  public void testUnknownPolicyDisconnects() {
+    assertEquals(OutboundPolicy.DISCONNECT, OutboundPolicy.forName("nonsense"));
+    assertEquals(OutboundPolicy.DISCONNECT, OutboundPolicy.forName(null));
+    assertEquals(OutboundPolicy.SHED, OutboundPolicy.forName(" shed "));
+  }
+
+  public void testDisconnectClosesTheConnection() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 2, OutboundPolicy.DISCONNECT, 0));
+    conn.putMessage(message(10));
+    conn.putMessage(message(10));
+    assertEquals(2, conn.getOutboundQueueMessages());
+    assertEquals(20, conn.getOutboundQueueBytes());
+    conn.putMessage(message(10));
+    assertTrue(conn.isClosed());
+    assertEquals(0, conn.getOutboundQueueMessages());
+  }
+
+  public void testShedDropsProbesOnly() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 1, OutboundPolicy.SHED, 0));
+    conn.putMessage(message(10));
+    conn.putMessage(probe());
+    assertFalse(conn.isClosed());
+    assertEquals(1, conn.getOutboundQueueMessages());
+    conn.putMessage(message(10));
+    assertTrue(conn.isClosed());
+  }
+
+  public void testBlockNeverWaitsInPut() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 1, OutboundPolicy.BLOCK, 60000));
+    long start = System.nanoTime();
+    conn.putMessage(message(10));
+    conn.putMessage(message(10));
+    conn.putMessage(message(10));
+    assertTrue(System.nanoTime() - start < 10000000000L);
+    assertFalse(conn.isClosed());
+    assertEquals(3, conn.getOutboundQueueMessages());
+  }
+
+  public void testBlockWaitTimesOutAndCloses() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 1, OutboundPolicy.BLOCK, 100));
+    conn.putMessage(message(10));
+    long start = System.nanoTime();
+    assertFalse(conn.waitForOutboundSpace());
+    assertTrue(System.nanoTime() - start >= 90000000L);
+    assertTrue(conn.isClosed());
+  }
+
+  public void testBlockWaitReturnsWithSpace() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 2, OutboundPolicy.BLOCK, 60000));
+    conn.putMessage(message(10));
+    assertTrue(conn.waitForOutboundSpace());
+  }
+
+  public void testBlockWaitReleasedByClose() throws Exception {
+    final TCConnectionImpl conn = createConnection(new OutboundLimits(0, 1, OutboundPolicy.BLOCK, 60000));
+    conn.putMessage(message(10));
+    final AtomicBoolean result = new AtomicBoolean(true);
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        result.set(conn.waitForOutboundSpace());
+      }
+    };
+    waiter.start();
+    Thread.sleep(100);
+    assertTrue(waiter.isAlive());
+    conn.asynchClose();
+    waiter.join(10000);
+    assertFalse(waiter.isAlive());
+    assertFalse(result.get());
+  }
+
+  public void testOtherPoliciesNeverWait() {
+    TCConnectionImpl conn = createConnection(new OutboundLimits(0, 1, OutboundPolicy.DISCONNECT, 60000));
+    conn.putMessage(message(10));
+    assertTrue(conn.waitForOutboundSpace());
+  }
+
+  private static TCConnectionImpl createConnection(OutboundLimits limits) {
+    TCConnectionImpl conn = new TCConnectionImpl(null, mock(TCProtocolAdaptor.class), null,
+                                                 mock(TCConnectionManagerImpl.class), mock(CoreNIOServices.class),
+                                                 new SocketParams(), null);
+    conn.setOutboundLimits(limits);
+    return conn;
+  }
+
+  private static TCNetworkMessage message(int length) {
+    TCNetworkMessage msg = mock(TCNetworkMessage.class);
+    when(msg.getTotalLength()).thenReturn(length);
+    return msg;
+  }
+
+  private static TCNetworkMessage probe() {
+    WireProtocolHeader header = new WireProtocolHeader();
+    header.setProtocol(WireProtocolHeader.PROTOCOL_HEALTHCHECK_PROBES);
+    WireProtocolMessage msg = mock(WireProtocolMessage.class);
+    when(msg.getWireProtocolHeader()).thenReturn(header);
+    when(msg.getTotalLength()).thenReturn(10);
+    return msg;
+  }
+}
@@ -78,6 +78,36 @@ public class PackedMessageTest extends TCTestCase {
     System.out.println("Done with test");
   }
 
+  public void testGatheredMessage() {
+    long seed = System.currentTimeMillis();
+    System.out.println("Starting test with seed: " + seed);
+    Random random = new Random(seed);
+
+    final int numInputByteBuffers = MIN_NUM_INPUT_BYTE_BUFFERS + random.nextInt(MAX_NUM_INPUT_BYTE_BUFFERS);
+    SameSequenceGenerator payloadGenerator = new SameSequenceGenerator(seed);
+
+    TCByteBuffer[] inputs = generateInputByteBuffers(numInputByteBuffers, payloadGenerator, random);
+    randomizePositions(inputs, random);
+    int[] positions = new int[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      positions[i] = inputs[i].position();
+    }
+    payloadGenerator.reset();
+
+    TCByteBuffer[] gatheredBuffers = TCConnectionImpl.WriteContext.getGatheredMessage(inputs);
+    Assert.assertEquals(inputs.length, gatheredBuffers.length);
+    for (int i = 0; i < gatheredBuffers.length; i++) {
+      TCByteBuffer buf = gatheredBuffers[i];
+      // a view over the original bytes, not a copy
+      Assert.assertSame(inputs[i].array(), buf.array());
+      while (buf.hasRemaining()) {
+        Assert.assertEquals(payloadGenerator.nextByte(), buf.get());
+      }
+      // writing the view leaves the message alone
+      Assert.assertEquals(positions[i], inputs[i].position());
+    }
+  }
+
   private void randomizePositions(TCByteBuffer[] inputs, Random random) {
     System.out.println("Randomizing positions...");
     int count = 1;
@@ -22,6 +22,9 @@ import com.tc.net.protocol.TCNetworkMessage;
 import com.tc.net.protocol.tcm.NullMessageMonitor;
 import com.tc.net.protocol.tcm.msgs.PingMessage;
 import com.tc.properties.L1ReconnectConfigImpl;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.test.TCTestCase;
 
 import java.util.concurrent.BlockingQueue;
@@ -58,4 +61,29 @@ public class ReceiveStateMachineTest extends TCTestCase {
     assertEquals(received, delivery.receivedMessageCount);
     assertTrue(receiveQueue.poll() == null);
   }
+
+  public void testDelayedAck() throws Exception {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    String timeout = props.getProperty(TCPropertiesConsts.NET_CORE_OOO_DELAYED_ACK_TIMEOUT, true);
+    props.setProperty(TCPropertiesConsts.NET_CORE_OOO_DELAYED_ACK_TIMEOUT, "10");
+    try {
+      TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+      ReceiveStateMachine rsm = new ReceiveStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 100, 16, 32), true);
+      rsm.start();
+
+      TestProtocolMessage tpm = new TestProtocolMessage(new PingMessage(new NullMessageMonitor()), 0, -1);
+      tpm.isSend = true;
+      rsm.execute(tpm);
+
+      // far fewer than maxDelayedAcks received, the ack goes out once the timeout passes
+      long deadline = System.currentTimeMillis() + 30000;
+      while (!delivery.sentAck && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(delivery.sentAck);
+      assertEquals(0, delivery.ackCount);
+    } finally {
+      props.setProperty(TCPropertiesConsts.NET_CORE_OOO_DELAYED_ACK_TIMEOUT, timeout);
+    }
+  }
 }
@@ -24,6 +24,9 @@ import com.tc.net.protocol.tcm.NullMessageMonitor;
 import com.tc.net.protocol.tcm.msgs.PingMessage;
 import com.tc.properties.L1ReconnectConfigImpl;
 import com.tc.properties.ReconnectConfig;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.test.TCTestCase;
 import com.tc.util.UUID;
 
@@ -103,4 +106,101 @@ public class SendStateMachineTest extends TCTestCase {
     assertEquals(4, delivery.msg.getSent());
 
   }
+
+  public void testAdaptiveWindow() throws Exception {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    String adaptive = props.getProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, true);
+    String max = props.getProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, true);
+    props.setProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, "true");
+    props.setProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, "8");
+    try {
+      TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+      final UUID sessionId = UUID.getUUID();
+      SendStateMachine ssm = new SendStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 100, 2, 4), true);
+      ssm.start();
+      ssm.resume();
+
+      TestProtocolMessage handshake = new TestProtocolMessage(null, 0, -1);
+      handshake.isHandshakeReplyOk = true;
+      handshake.setSessionId(sessionId);
+      ssm.execute(handshake);
+
+      MessageMonitor monitor = new NullMessageMonitor();
+      for (int i = 0; i < 10; i++) {
+        ssm.put(new PingMessage(monitor));
+      }
+      ssm.execute(null);
+      // msgs 0 to 3 fill the window
+      assertEquals(3, delivery.msg.getSent());
+      assertEquals(4, ssm.getSendWindow());
+
+      TestProtocolMessage ack = new TestProtocolMessage(null, -1, 0);
+      ack.isAck = true;
+      ack.setSessionId(sessionId);
+      ssm.execute(ack);
+      // the stall grew the window by one
+      assertEquals(5, ssm.getSendWindow());
+      assertEquals(5, delivery.msg.getSent());
+
+      // resending after a reconnect backs the window off, but not below the configured size
+      ssm.pause();
+      ssm.resume();
+      TestProtocolMessage reconnect = new TestProtocolMessage(null, 0, 0);
+      reconnect.isHandshakeReplyOk = true;
+      reconnect.setSessionId(sessionId);
+      ssm.execute(reconnect);
+      assertEquals(4, ssm.getSendWindow());
+    } finally {
+      props.setProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, adaptive);
+      props.setProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, max);
+    }
+  }
+
+  public void testAdaptiveWindowShrinksWhenIdle() throws Exception {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    String adaptive = props.getProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, true);
+    String max = props.getProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, true);
+    props.setProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, "true");
+    props.setProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, "8");
+    try {
+      TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+      final UUID sessionId = UUID.getUUID();
+      SendStateMachine ssm = new SendStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 100, 2, 4), true);
+      ssm.start();
+      ssm.resume();
+
+      TestProtocolMessage handshake = new TestProtocolMessage(null, 0, -1);
+      handshake.isHandshakeReplyOk = true;
+      handshake.setSessionId(sessionId);
+      ssm.execute(handshake);
+
+      MessageMonitor monitor = new NullMessageMonitor();
+      for (int i = 0; i < 10; i++) {
+        ssm.put(new PingMessage(monitor));
+      }
+      ssm.execute(null);
+      assertEquals(3, delivery.msg.getSent());
+
+      // two stalls with more queued grow the window to 6, which is enough to send the rest
+      ssm.execute(ack(sessionId, 0));
+      assertEquals(5, delivery.msg.getSent());
+      ssm.execute(ack(sessionId, 5));
+      assertEquals(6, ssm.getSendWindow());
+      assertEquals(9, delivery.msg.getSent());
+
+      // once everything is acked and nothing is waiting the window halves, but not below the configured size
+      ssm.execute(ack(sessionId, 9));
+      assertEquals(4, ssm.getSendWindow());
+    } finally {
+      props.setProperty(TCPropertiesConsts.NET_CORE_OOO_ADAPTIVE_WINDOW, adaptive);
+      props.setProperty(TCPropertiesConsts.NET_CORE_OOO_MAX_SEND_WINDOW, max);
+    }
+  }
+
+  private static TestProtocolMessage ack(UUID sessionId, long seq) {
+    TestProtocolMessage ack = new TestProtocolMessage(null, -1, seq);
+    ack.isAck = true;
+    ack.setSessionId(sessionId);
+    return ack;
+  }
 }
@@ -0,0 +1,166 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.util.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.tc.util.concurrent.HashedWheelTimer.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HashedWheelTimerTest {
+
+  private final HashedWheelTimer timer = new HashedWheelTimer("test timer", 10, TimeUnit.MILLISECONDS, 8);
+
+  @After
+  public void tearDown() {
+    timer.stop();
+  }
+
+  @Test
+  public void testWheelSizeRoundedToPowerOfTwo() {
+    assertEquals(8, timer.getWheelSize());
+    assertEquals(16, new HashedWheelTimer("t", 1, TimeUnit.MILLISECONDS, 9).getWheelSize());
+  }
+
+  @Test
+  public void testTimeoutFires() throws Exception {
+    timer.start();
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    Timeout timeout = timer.newTimeout(latch::countDown, 50, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    assertTrue(timeout.isExpired());
+    assertFalse(timeout.cancel());
+    assertEquals(0, timer.getPendingCount());
+    assertEquals(1, timer.getExpiredCount());
+  }
+
+  @Test
+  public void testTimeoutsLongerThanOneRotation() throws Exception {
+    timer.start();
+    CountDownLatch latch = new CountDownLatch(3);
+    // the wheel covers 80ms, so these wrap around it at least once
+    timer.newTimeout(latch::countDown, 90, TimeUnit.MILLISECONDS);
+    timer.newTimeout(latch::countDown, 170, TimeUnit.MILLISECONDS);
+    timer.newTimeout(latch::countDown, 250, TimeUnit.MILLISECONDS);
+    assertEquals(3, timer.getPendingCount());
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(0, timer.getPendingCount());
+  }
+
+  @Test
+  public void testCancelledTimeoutDoesNotFire() throws Exception {
+    timer.start();
+    AtomicInteger fired = new AtomicInteger();
+    Timeout timeout = timer.newTimeout(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+    assertEquals(1, timer.getPendingCount());
+    assertTrue(timeout.cancel());
+    assertFalse(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    assertEquals(0, timer.getPendingCount());
+
+    CountDownLatch latch = new CountDownLatch(1);
+    timer.newTimeout(latch::countDown, 60, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(0, fired.get());
+    assertEquals(1, timer.getExpiredCount());
+  }
+
+  @Test
+  public void testTimeoutsHeldUntilStarted() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    Timeout timeout = timer.newTimeout(latch::countDown, 10, TimeUnit.MILLISECONDS);
+    assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+    assertFalse(timeout.isExpired());
+
+    timer.start();
+    // already overdue, so it fires on the first tick
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFailingTaskDoesNotStopTimer() throws Exception {
+    timer.start();
+    timer.newTimeout(() -> {
+      throw new RuntimeException("expected");
+    }, 10, TimeUnit.MILLISECONDS);
+    CountDownLatch latch = new CountDownLatch(1);
+    timer.newTimeout(latch::countDown, 40, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testStop() throws Exception {
+    timer.start();
+    AtomicInteger fired = new AtomicInteger();
+    timer.newTimeout(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+    timer.stop();
+    Thread.sleep(100);
+    assertEquals(0, fired.get());
+    try {
+      timer.newTimeout(fired::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testParksWhileIdle() throws Exception {
+    timer.start();
+    waitForIdle();
+
+    CountDownLatch latch = new CountDownLatch(1);
+    long start = System.nanoTime();
+    timer.newTimeout(latch::countDown, 30, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+    waitForIdle();
+
+    // cancelling the only pending timeout lets it park again without the timeout firing
+    AtomicInteger fired = new AtomicInteger();
+    timer.newTimeout(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS).cancel();
+    waitForIdle();
+    Thread.sleep(60);
+    assertEquals(0, fired.get());
+  }
+
+  private void waitForIdle() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!timer.isIdle()) {
+      assertTrue(System.nanoTime() < deadline);
+      Thread.sleep(5);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeDelay() {
+    timer.newTimeout(() -> {}, -1, TimeUnit.MILLISECONDS);
+  }
+}
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> implements ClientLock {
   private static long                 NULL_AWARD_ID = -1;
@@ -53,6 +54,11 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   private static final int            BLOCKING_LOCK = Integer.MIN_VALUE;
 
+  private static final AtomicReferenceFieldUpdater<ClientLockImpl, ThinHold> THIN_UPDATER = AtomicReferenceFieldUpdater
+                                                                                               .newUpdater(ClientLockImpl.class,
+                                                                                                           ThinHold.class,
+                                                                                                           "thin");
+
   private final LockID                lock;
 
   /*
@@ -67,12 +73,21 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   private long                        awardId       = NULL_AWARD_ID;
 
+  /*
+   * Uncontended holds on a greedily held lock. While the lock is greedy and the state list is empty a single thread can
+   * lock and unlock at READ or WRITE with a CAS on this word, without entering the monitor or walking the list. Every
+   * monitor region that looks at hold state calls inflate() first, which disables the fast path and turns these holds
+   * back into LockHold nodes. Only the monitor holder moves the word out of (or back into) DISABLED.
+   */
+  private volatile ThinHold           thin          = ThinHold.DISABLED;
+
   public ClientLockImpl(LockID lock) {
     this.lock = lock;
   }
 
   @Override
   public synchronized void cleanup() {
+    inflate();
     notifyAll();
     for (final Iterator<LockStateNode> it = iterator(); it.hasNext();) {
       LockStateNode lockState = it.next();
@@ -100,6 +115,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public void lock(RemoteLockManager remote,
                    ThreadID thread, LockLevel level) throws GarbageLockException {
     markUsed();
+    if (tryAcquireThin(thread, level)) { return; }
     if (!tryAcquireLocally(remote, thread, level).isSuccess()) {
       acquireQueued(remote, thread, level);
     }
@@ -116,6 +132,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       throw new InterruptedException();
     }
+    if (tryAcquireThin(thread, level)) { return; }
     if (!tryAcquireLocally(remote, thread, level).isSuccess()) {
       acquireQueuedInterruptibly(remote, thread, level);
     }
@@ -130,6 +147,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public boolean tryLock(RemoteLockManager remote,
                          ThreadID thread, LockLevel level) throws GarbageLockException {
     markUsed();
+    if (tryAcquireThin(thread, level)) { return true; }
     final LockAcquireResult result = tryAcquireLocally(remote, thread, level);
     if (result.isKnownResult()) {
       return result.isSuccess();
@@ -153,7 +171,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       throw new InterruptedException();
     }
-    return tryAcquireLocally(remote, thread, level).isSuccess()
+    return tryAcquireThin(thread, level) || tryAcquireLocally(remote, thread, level).isSuccess()
            || acquireQueuedTimeout(remote, thread, level, timeout);
   }
 
@@ -163,6 +181,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public void unlock(RemoteLockManager remote, ThreadID thread, LockLevel level) {
     markUsed();
+    if (releaseThin(thread, level)) { return; }
     if (release(remote, thread, level)) {
       unparkFirstQueuedAcquire();
     }
@@ -192,6 +211,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     final Collection<LockWaiter> waiters = new ArrayList<LockWaiter>();
 
     synchronized (this) {
+      inflate();
       if (!isLockedBy(thread, WRITE_LEVELS)) { throw new IllegalMonitorStateException(); }
 
       if (this.greediness.isFree()) {
@@ -250,6 +270,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     try {
       boolean flush;
       synchronized (this) {
+        inflate();
         flush = flushOnUnlockAll(thread);
         if (!flush) {
           waiter = releaseAllAndPushWaiter(remote, thread, waitObject, timeout);
@@ -267,6 +288,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
           remote.flush(this.lock);
 
           synchronized (this) {
+            inflate();
             if (flushLevel.equals(this.greediness.getFlushLevel())) {
               waiter = releaseAllAndPushWaiter(remote, thread, waitObject, timeout);
               break;
@@ -365,6 +387,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized Collection<ClientServerExchangeLockContext> getStateSnapshot(ClientID client) {
+    inflate();
     final Collection<ClientServerExchangeLockContext> contexts = new ArrayList<ClientServerExchangeLockContext>();
 
     switch (this.greediness) {
@@ -412,6 +435,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized boolean isLocked(LockLevel level) {
+    if (this.thin.holds(level)) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level))) { return true; }
     }
@@ -420,6 +444,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized boolean isLockedBy(ThreadID thread, LockLevel level) {
+    final ThinHold t = this.thin;
+    if (t.isOwnedBy(thread) && ((level == null) || t.holds(level))) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level) || (level == null))
           && s.getOwner().equals(thread)) { return true; }
@@ -428,6 +454,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   }
 
   public synchronized boolean isLockedBy(ThreadID thread, Set<LockLevel> levels) {
+    final ThinHold t = this.thin;
+    if (t.isOwnedBy(thread) && levels.contains(t.level)) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && s.getOwner().equals(thread) && levels.contains(((LockHold) s).getLockLevel())) { return true; }
     }
@@ -436,7 +464,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized int holdCount(LockLevel level) {
-    int holders = 0;
+    final ThinHold t = this.thin;
+    int holders = t.holds(level) ? t.count : 0;
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && ((LockHold) s).getLockLevel().equals(level)) {
         holders++;
@@ -515,6 +544,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public synchronized boolean recall(RemoteLockManager remote, ServerLockLevel interest, int lease,
                                      boolean batch) {
+    inflate();
     // transition the greediness state
     this.greediness = this.greediness.recalled(this, lease, interest);
 
@@ -554,6 +584,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       throws GarbageLockException {
     if (ThreadID.VM_ID.equals(thread)) {
       synchronized (this) {
+        inflate();
         this.setAwardID(lockAwardID);
         this.greediness = this.greediness.awarded(level);
       }
@@ -561,6 +592,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     } else {
       PendingLockHold acquire;
       synchronized (this) {
+        inflate();
         this.setAwardID(lockAwardID);
         acquire = getQueuedAcquire(thread, level);
         if (acquire == null) {
@@ -646,6 +678,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       return result;
     } else {
       synchronized (this) {
+        inflate();
         if (!node.canDelegate()) {
           // no server delegation - just return local result
           return result;
@@ -682,6 +715,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
         remote.flush(lock);
         synchronized (this) {
+          inflate();
           if (flushLevel.equals(this.greediness.getFlushLevel())) {
             if (this.greediness.isRecalled() && canRecallNow()) {
               this.greediness = recallCommit(remote, false);
@@ -707,6 +741,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (level == LockLevel.CONCURRENT) { return LockAcquireResult.SHARED_SUCCESS; }
 
     synchronized (this) {
+      inflate();
       LockAcquireResult result = tryAcquireUsingThreadState(remote, thread, level);
       boolean interrupted = false;
       while (result.isWaitingForFlush()) {
@@ -761,6 +796,47 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     return LockAcquireResult.UNKNOWN;
   }
 
+  /*
+   * Lock-free acquire of an uncontended greedy lock - fails if the fast path is disabled or held by another thread
+   */
+  private boolean tryAcquireThin(ThreadID thread, LockLevel level) {
+    for (;;) {
+      final ThinHold current = this.thin;
+      final ThinHold next = current.acquire(thread, level);
+      if (next == null) {
+        return false;
+      } else if (THIN_UPDATER.compareAndSet(this, current, next)) { return true; }
+    }
+  }
+
+  /*
+   * Lock-free release of a hold taken by tryAcquireThin - fails if the hold has since been inflated into the list
+   */
+  private boolean releaseThin(ThreadID thread, LockLevel level) {
+    for (;;) {
+      final ThinHold current = this.thin;
+      final ThinHold next = current.release(thread, level);
+      if (next == null) {
+        return false;
+      } else if (THIN_UPDATER.compareAndSet(this, current, next)) { return true; }
+    }
+  }
+
+  /*
+   * Disable the fast path and move any holds taken through it into the list. Must be called holding the monitor.
+   */
+  private void inflate() {
+    ThinHold current;
+    do {
+      current = this.thin;
+      if (current == ThinHold.DISABLED) { return; }
+    } while (!THIN_UPDATER.compareAndSet(this, current, ThinHold.DISABLED));
+
+    for (int i = 0; i < current.count; i++) {
+      addFirst(new LockHold(current.owner, current.level));
+    }
+  }
+
   private boolean isFlushInProgress() {
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).isFlushInProgress())) { return true; }
@@ -780,6 +856,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
     LockHold unlock = null;
     synchronized (this) {
+      inflate();
       for (final Iterator<LockStateNode> it = iterator(); it.hasNext();) {
         final LockStateNode s = it.next();
         if (s instanceof LockHold) {
@@ -797,6 +874,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     }
 
     synchronized (this) {
+      inflate();
       final ServerLockLevel flushLevel = greediness.getFlushLevel();
       // only one unlock callback is added for flushing the lock
       if (flushOnUnlock(unlock) && !isFlushInProgress()) {
@@ -836,6 +914,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       remoteUnlock(remote, unlock);
     } else if (this.greediness.isRecalled() && canRecallNow()) {
       this.greediness = recallCommit(remote, false);
+    } else if (this.greediness.isGreedy() && isEmpty()) {
+      // nothing left locally - let uncontended holds bypass the monitor until someone needs it again
+      this.thin = (this.greediness == ClientGreediness.GREEDY_WRITE) ? ThinHold.READ_WRITE : ThinHold.READ_ONLY;
     }
 
     // this is wrong - but shouldn't break anything
@@ -1049,6 +1130,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   }
 
   private synchronized void abortAndRemove(RemoteLockManager remote, PendingLockHold node) {
+    inflate();
     node = (PendingLockHold) remove(node);
     if (node != null && node.isAwarded()) {
       resetPinIfNecessary();
@@ -1146,6 +1228,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     @Override
     public void transactionsForLockFlushed(LockID id) {
       synchronized (ClientLockImpl.this) {
+        inflate();
         if (expectedFlushLevel.equals(greediness.getFlushLevel())) {
           releaseOnFlush();
         } else {
@@ -1180,6 +1263,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     @Override
     public void transactionsForLockFlushed(LockID id) {
       synchronized (ClientLockImpl.this) {
+        inflate();
         if (greediness.isRecallInProgress()) {
           ServerLockLevel flushLevel = greediness.getFlushLevel();
           if (expectedFlushLevel.equals(flushLevel)) {
@@ -1238,6 +1322,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
    */
   @Override
   public synchronized boolean tryMarkAsGarbage(RemoteLockManager remote) {
+    inflate();
     if (this.pinned == 0 && isEmpty() && this.gcCycleCount > 0) {
       this.greediness = this.greediness.markAsGarbage();
       if (this.greediness.isGarbage()) {
@@ -1259,6 +1344,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized void initializeHandshake(ClientID client, ClientHandshakeMessage message) {
+    inflate();
     final Collection<ClientServerExchangeLockContext> contexts = getFilteredStateSnapshot(client, true);
 
     for (final LockStateNode node : this) {
@@ -1335,6 +1421,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     sb.append("ClientLockImpl : ").append(this.lock).append('\n');
     sb.append("GC Cycle Count : ").append(this.gcCycleCount).append('\n');
     sb.append("Greediness : ").append(this.greediness).append('\n');
+    sb.append("Fast Path : ").append(this.thin).append('\n');
     sb.append("State:").append('\n');
     for (final LockStateNode s : this) {
       sb.append('\t').append(s).append('\n');
@@ -1357,4 +1444,75 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   synchronized final void setAwardID(long awardId) {
     this.awardId = awardId;
   }
+
+  /**
+   * Immutable snapshot of the holds taken on the fast path: a single owner holding one level some number of times.
+   */
+  static final class ThinHold {
+    static final ThinHold   DISABLED   = new ThinHold(null, null, 0, false);
+    static final ThinHold   READ_ONLY  = new ThinHold(null, null, 0, false);
+    static final ThinHold   READ_WRITE = new ThinHold(null, null, 0, true);
+
+    private final ThreadID  owner;
+    private final LockLevel level;
+    private final int       count;
+    private final boolean   writeAllowed;
+
+    private ThinHold(ThreadID owner, LockLevel level, int count, boolean writeAllowed) {
+      this.owner = owner;
+      this.level = level;
+      this.count = count;
+      this.writeAllowed = writeAllowed;
+    }
+
+    ThinHold acquire(ThreadID thread, LockLevel lvl) {
+      if (this == DISABLED) {
+        return null;
+      } else if (this.owner == null) {
+        switch (lvl) {
+          case READ:
+            return new ThinHold(thread, lvl, 1, this.writeAllowed);
+          case WRITE:
+            return this.writeAllowed ? new ThinHold(thread, lvl, 1, true) : null;
+          //$CASES-OMITTED$
+          default:
+            // sync writes must flush on unlock and concurrent locks are never tracked
+            return null;
+        }
+      } else if (this.level == lvl && this.count < Integer.MAX_VALUE && this.owner.equals(thread)) {
+        return new ThinHold(this.owner, this.level, this.count + 1, this.writeAllowed);
+      } else {
+        return null;
+      }
+    }
+
+    ThinHold release(ThreadID thread, LockLevel lvl) {
+      if (this.level != lvl || !isOwnedBy(thread)) {
+        return null;
+      } else if (this.count == 1) {
+        return this.writeAllowed ? READ_WRITE : READ_ONLY;
+      } else {
+        return new ThinHold(this.owner, this.level, this.count - 1, this.writeAllowed);
+      }
+    }
+
+    boolean isOwnedBy(ThreadID thread) {
+      return (this.owner != null) && this.owner.equals(thread);
+    }
+
+    boolean holds(LockLevel lvl) {
+      return (this.owner != null) && (this.level == lvl);
+    }
+
+    @Override
+    public String toString() {
+      if (this == DISABLED) {
+        return "disabled";
+      } else if (this.owner == null) {
+        return this.writeAllowed ? "free (read/write)" : "free (read)";
+      } else {
+        return this.owner + " holds " + this.level + " x" + this.count;
+      }
+    }
+  }
 }
@@ -23,12 +23,18 @@ import com.tc.logging.TCLogging;
 import com.tc.net.ClientID;
 import com.tc.object.ClientIDProvider;
 import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessage.RequestType;
 import com.tc.object.msg.LockRequestMessageFactory;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -44,8 +50,16 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
   private final ClientIDProvider               clientIdProvider;
 
   private final Queue<RecallBatchContext>      queue                       = new LinkedList<RecallBatchContext>();
+  // guarded by queue
+  private final List<BatchedLockRequest>       batch                       = new ArrayList<BatchedLockRequest>();
   private boolean                              shutdown;
 
+  private final boolean                        batchRequests;
+  private final int                            maxBatchSize;
+  private final long                           flushInterval;
+  // guarded by queue
+  private long                                 lastBatchSent;
+
   private final Timer                          batchRecallTimer;
   private ScheduledFuture<?>                   batchRecallTask;
 
@@ -53,8 +67,31 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
   public RemoteLockManagerImpl(ClientIDProvider clientIdProvider,
                                LockRequestMessageFactory messageFactory,
                                TaskRunner taskRunner) {
+    this(clientIdProvider, messageFactory, taskRunner, TCPropertiesImpl.getProperties());
+  }
+
+  private RemoteLockManagerImpl(ClientIDProvider clientIdProvider, LockRequestMessageFactory messageFactory,
+                                TaskRunner taskRunner, TCProperties props) {
+    this(clientIdProvider, messageFactory, taskRunner,
+         props.getBoolean(TCPropertiesConsts.L1_LOCKMANAGER_BATCH_ENABLED),
+         props.getInt(TCPropertiesConsts.L1_LOCKMANAGER_BATCH_MAX_SIZE),
+         props.getLong(TCPropertiesConsts.L1_LOCKMANAGER_BATCH_FLUSH_INTERVAL));
+  }
+
+  /**
+   * With {@code batchRequests} every request is queued and sent in a single batch message once {@code flushInterval}
+   * millis have passed or {@code maxBatchSize} requests have queued up, whichever comes first. A request made when no
+   * batch has been sent for {@code flushInterval} millis goes straight away, so an idle client never waits. Requests
+   * that expect an immediate answer (wait, query, interrupt) and unbatched recall commits flush the batch they join.
+   */
+  public RemoteLockManagerImpl(ClientIDProvider clientIdProvider, LockRequestMessageFactory messageFactory,
+                               TaskRunner taskRunner, boolean batchRequests, int maxBatchSize, long flushInterval) {
     this.messageFactory = messageFactory;
     this.clientIdProvider = clientIdProvider;
+    this.batchRequests = batchRequests;
+    this.maxBatchSize = maxBatchSize;
+    this.flushInterval = flushInterval;
+    this.lastBatchSent = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(flushInterval);
     this.batchRecallTimer = taskRunner.newTimer("Batch Recall Timer");
   }
 
@@ -62,6 +99,7 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
   public void cleanup() {
     synchronized (queue) {
       queue.clear();
+      batch.clear();
     }
   }
 
@@ -82,6 +120,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void interrupt(LockID lock, ThreadID thread) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.INTERRUPT_WAIT, lock, thread, null, -1), true);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -91,6 +133,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void lock(LockID lock, ThreadID thread, ServerLockLevel level) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.LOCK, lock, thread, level, -1), false);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -100,6 +146,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void query(LockID lock, ThreadID thread) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.QUERY, lock, thread, null, -1), true);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -109,6 +159,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void tryLock(LockID lock, ThreadID thread, ServerLockLevel level, long timeout) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.TRY_LOCK, lock, thread, level, timeout), false);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -118,6 +172,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void unlock(LockID lock, ThreadID thread, ServerLockLevel level) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.UNLOCK, lock, thread, level, -1), false);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -127,6 +185,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void wait(LockID lock, ThreadID thread, long waitTime) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.WAIT, lock, thread, null, waitTime), true);
+      return;
+    }
     sendPendingRecallCommits();
 
     final LockRequestMessage msg = createMessage();
@@ -147,6 +209,10 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
 
   @Override
   public void recallCommit(LockID lock, Collection<ClientServerExchangeLockContext> lockState, boolean batch) {
+    if (batchRequests) {
+      addToBatch(new BatchedLockRequest(RequestType.RECALL_COMMIT, lock, ThreadID.VM_ID, null, -1, lockState), !batch);
+      return;
+    }
     if (!batch) {
       recallCommit(lock, lockState);
       return;
@@ -168,6 +234,21 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
     }
   }
 
+  private void addToBatch(BatchedLockRequest request, boolean flushNow) {
+    synchronized (queue) {
+      batch.add(request);
+      // nothing has gone out recently so there is nothing to batch with, send it straight away
+      boolean idle = batch.size() == 1 && System.nanoTime() - lastBatchSent >= TimeUnit.MILLISECONDS.toNanos(flushInterval);
+      if (flushNow || idle || batch.size() >= maxBatchSize) {
+        sendPendingRecallCommits();
+        return;
+      }
+      if (batchRecallTask == null && !shutdown) {
+        batchRecallTask = batchRecallTimer.schedule(new BatchRecallCommitsTask(), flushInterval, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
   @Override
   public void shutdown() {
     synchronized (queue) {
@@ -198,6 +279,17 @@ public class RemoteLockManagerImpl implements RemoteLockManager {
   }
 
   private void sendBatchedRequestsImmediately() {
+    if (!batch.isEmpty()) {
+      LockRequestMessage lrm = createMessage();
+      lrm.initializeBatch();
+      for (final BatchedLockRequest request : batch) {
+        lrm.addBatchedRequest(request);
+      }
+      batch.clear();
+      lastBatchSent = System.nanoTime();
+      sendMessage(lrm);
+    }
+
     if (queue.size() == 0) { return; }
     // create a message and send it to the server
     LockRequestMessage lrm = createMessage();
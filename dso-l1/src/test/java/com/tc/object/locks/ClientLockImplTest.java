@@ -0,0 +1,110 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.locks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tc.exception.TCLockUpgradeNotSupportedError;
+import com.tc.net.ClientID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClientLockImplTest {
+
+  private final LockID      lockID = new StringLockID("test-lock");
+  private final ThreadID    t1     = new ThreadID(1);
+  private final ThreadID    t2     = new ThreadID(2);
+
+  private RemoteLockManager remote;
+  private ClientLockImpl    lock;
+
+  @Before
+  public void setUp() throws Exception {
+    remote = mock(RemoteLockManager.class);
+    when(remote.getClientID()).thenReturn(new ClientID(1));
+    lock = new ClientLockImpl(lockID);
+    lock.award(remote, ThreadID.VM_ID, ServerLockLevel.WRITE, 1);
+    // first local acquire goes through the list, releasing it enables the fast path
+    lock.lock(remote, t1, LockLevel.WRITE);
+    lock.unlock(remote, t1, LockLevel.WRITE);
+  }
+
+  @Test
+  public void testReentrantFastPathHolds() throws Exception {
+    lock.lock(remote, t1, LockLevel.WRITE);
+    lock.lock(remote, t1, LockLevel.WRITE);
+
+    assertTrue(lock.toString().contains("holds WRITE x2"));
+    assertTrue(lock.isLockedBy(t1, LockLevel.WRITE));
+    assertTrue(lock.isLocked(LockLevel.WRITE));
+    assertFalse(lock.isLockedBy(t2, LockLevel.WRITE));
+    assertEquals(2, lock.holdCount(LockLevel.WRITE));
+
+    lock.unlock(remote, t1, LockLevel.WRITE);
+    lock.unlock(remote, t1, LockLevel.WRITE);
+    assertFalse(lock.isLocked(LockLevel.WRITE));
+    verify(remote, never()).unlock(any(LockID.class), any(ThreadID.class), any(ServerLockLevel.class));
+  }
+
+  @Test
+  public void testContendedAcquireInflatesFastPath() throws Exception {
+    lock.lock(remote, t1, LockLevel.WRITE);
+    assertFalse(lock.tryLock(remote, t2, LockLevel.WRITE));
+    assertTrue(lock.toString().contains("Fast Path : disabled"));
+    assertEquals(1, lock.holdCount(LockLevel.WRITE));
+
+    lock.unlock(remote, t1, LockLevel.WRITE);
+    assertTrue(lock.tryLock(remote, t2, LockLevel.WRITE));
+    lock.unlock(remote, t2, LockLevel.WRITE);
+  }
+
+  @Test(expected = IllegalMonitorStateException.class)
+  public void testUnlockByNonOwner() throws Exception {
+    lock.lock(remote, t1, LockLevel.WRITE);
+    lock.unlock(remote, t2, LockLevel.WRITE);
+  }
+
+  @Test(expected = TCLockUpgradeNotSupportedError.class)
+  public void testUpgradeFromFastPathReadHold() throws Exception {
+    lock.lock(remote, t1, LockLevel.READ);
+    lock.lock(remote, t1, LockLevel.WRITE);
+  }
+
+  @Test
+  public void testRecallWaitsForFastPathHold() throws Exception {
+    when(remote.asyncFlush(any(LockID.class), any(LockFlushCallback.class))).thenReturn(true);
+    lock.lock(remote, t1, LockLevel.WRITE);
+    assertFalse(lock.recall(remote, ServerLockLevel.WRITE, 0, false));
+    verify(remote, never()).recallCommit(eq(lockID), anyCollection(), anyBoolean());
+
+    lock.unlock(remote, t1, LockLevel.WRITE);
+    verify(remote).recallCommit(eq(lockID), anyCollection(), anyBoolean());
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.locks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.tc.object.ClientIDProvider;
+import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessageFactory;
+import com.tc.util.concurrent.TaskRunner;
+import com.tc.util.concurrent.Timer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RemoteLockManagerImplTest {
+
+  private final LockID             a        = new StringLockID("a");
+  private final LockID             b        = new StringLockID("b");
+  private final ThreadID           t1       = new ThreadID(1);
+
+  private final List<LockRequestMessage> messages = new ArrayList<LockRequestMessage>();
+  private LockRequestMessageFactory factory;
+  private TaskRunner               taskRunner;
+  private Timer                    timer;
+
+  @Before
+  public void setUp() throws Exception {
+    factory = mock(LockRequestMessageFactory.class);
+    when(factory.newLockRequestMessage()).thenAnswer(invocation -> {
+      LockRequestMessage msg = mock(LockRequestMessage.class);
+      when(msg.send()).thenReturn(true);
+      messages.add(msg);
+      return msg;
+    });
+    timer = mock(Timer.class);
+    doReturn(mock(ScheduledFuture.class)).when(timer).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    taskRunner = mock(TaskRunner.class);
+    when(taskRunner.newTimer(any(String.class))).thenReturn(timer);
+  }
+
+  @Test
+  public void testUnbatchedRequestsAreSentStraightAway() throws Exception {
+    RemoteLockManagerImpl remote = createManager(false, 1000, 60000);
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+    remote.unlock(a, t1, ServerLockLevel.WRITE);
+
+    assertEquals(2, messages.size());
+    verify(messages.get(0)).initializeLock(a, t1, ServerLockLevel.WRITE);
+    verify(messages.get(0)).send();
+    verify(messages.get(1)).initializeUnlock(a, t1, ServerLockLevel.WRITE);
+    verify(timer, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testIdleRequestIsNotDelayed() throws Exception {
+    RemoteLockManagerImpl remote = createManager(true, 1000, 60000);
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+
+    // nothing was sent before it so there is nothing to batch with
+    assertEquals(1, messages.size());
+    verify(messages.get(0)).initializeBatch();
+    verify(messages.get(0)).addBatchedRequest(any(BatchedLockRequest.class));
+    verify(messages.get(0)).send();
+    verify(timer, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testBusyRequestsAreBatchedUntilTheTimerFires() throws Exception {
+    RemoteLockManagerImpl remote = createManager(true, 1000, 60000);
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+    remote.unlock(a, t1, ServerLockLevel.WRITE);
+    remote.lock(b, t1, ServerLockLevel.READ);
+    assertEquals(1, messages.size());
+
+    ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+    verify(timer).schedule(task.capture(), eq(60000L), eq(TimeUnit.MILLISECONDS));
+    task.getValue().run();
+
+    assertEquals(2, messages.size());
+    LockRequestMessage batch = messages.get(1);
+    ArgumentCaptor<BatchedLockRequest> requests = ArgumentCaptor.forClass(BatchedLockRequest.class);
+    InOrder inOrder = inOrder(batch);
+    inOrder.verify(batch).initializeBatch();
+    inOrder.verify(batch, times(2)).addBatchedRequest(requests.capture());
+    inOrder.verify(batch).send();
+    assertEquals(LockRequestMessage.RequestType.UNLOCK, requests.getAllValues().get(0).getRequestType());
+    assertEquals(b, requests.getAllValues().get(1).getLockID());
+  }
+
+  @Test
+  public void testFullBatchIsSent() throws Exception {
+    RemoteLockManagerImpl remote = createManager(true, 2, 60000);
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+    remote.lock(b, t1, ServerLockLevel.WRITE);
+    assertEquals(1, messages.size());
+    remote.unlock(b, t1, ServerLockLevel.WRITE);
+    assertEquals(2, messages.size());
+    verify(messages.get(1)).send();
+  }
+
+  @Test
+  public void testWaitAndUnbatchedRecallCommitFlush() throws Exception {
+    RemoteLockManagerImpl remote = createManager(true, 1000, 60000);
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+    remote.lock(b, t1, ServerLockLevel.WRITE);
+    remote.wait(b, t1, 500);
+    assertEquals(2, messages.size());
+    verify(messages.get(1)).send();
+
+    remote.lock(a, t1, ServerLockLevel.WRITE);
+    remote.recallCommit(a, Collections.<ClientServerExchangeLockContext>emptyList(), false);
+    assertEquals(3, messages.size());
+    verify(messages.get(2)).send();
+  }
+
+  private RemoteLockManagerImpl createManager(boolean batch, int maxSize, long flushInterval) {
+    return new RemoteLockManagerImpl(mock(ClientIDProvider.class), factory, taskRunner, batch, maxSize, flushInterval);
+  }
+}
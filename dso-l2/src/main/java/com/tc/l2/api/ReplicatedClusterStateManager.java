@@ -20,6 +20,7 @@ package com.tc.l2.api;
 
 import com.tc.net.NodeID;
 import com.tc.net.groups.GroupException;
+import com.tc.net.protocol.transport.ConnectionIDFactoryListener;
 import com.tc.util.State;
 
 public interface ReplicatedClusterStateManager {
@@ -34,4 +35,10 @@ public interface ReplicatedClusterStateManager {
 
   public Iterable<NodeID> getPassives();
 
+  /**
+   * Registers a listener for the connections created and destroyed on the active, as replicated to this passive.  The
+   * listener is called before the active is told that the change was applied.
+   */
+  public void registerForReplicatedConnectionEvents(ConnectionIDFactoryListener listener);
+
 }
@@ -44,6 +44,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ReplicatedClusterStateManagerImpl implements ReplicatedClusterStateManager, GroupMessageListener<ClusterStateMessage>,
     ConnectionIDFactoryListener, PrettyPrintable {
@@ -58,6 +60,7 @@ public class ReplicatedClusterStateManagerImpl implements ReplicatedClusterState
   private boolean               isActive = false;
 
   private final Collection<NodeID>    others = new HashSet<>();
+  private final List<ConnectionIDFactoryListener> replicatedConnectionListeners = new CopyOnWriteArrayList<>();
 
   public ReplicatedClusterStateManagerImpl(GroupManager<AbstractGroupMessage> groupManager, StateManager stateManager,
                                            ClusterState clusterState, ConnectionIDFactory factory,
@@ -184,6 +187,7 @@ public class ReplicatedClusterStateManagerImpl implements ReplicatedClusterState
       msg.initState(state);
       state.syncSequenceState();
       sendChannelLifeCycleEventsIfNecessary(msg);
+      notifyReplicatedConnectionListeners(msg);
       sendOKResponse(fromNode, msg);
     }
   }
@@ -205,6 +209,21 @@ public class ReplicatedClusterStateManagerImpl implements ReplicatedClusterState
     }
   }
 
+  private void notifyReplicatedConnectionListeners(ClusterStateMessage msg) {
+    for (ConnectionIDFactoryListener listener : replicatedConnectionListeners) {
+      if (msg.getType() == ClusterStateMessage.NEW_CONNECTION_CREATED) {
+        listener.connectionIDCreated(msg.getConnectionID());
+      } else if (msg.getType() == ClusterStateMessage.CONNECTION_DESTROYED) {
+        listener.connectionIDDestroyed(msg.getConnectionID());
+      }
+    }
+  }
+
+  @Override
+  public void registerForReplicatedConnectionEvents(ConnectionIDFactoryListener listener) {
+    replicatedConnectionListeners.add(listener);
+  }
+
   private void sendOKResponse(NodeID fromNode, ClusterStateMessage msg) {
     try {
       groupManager.sendTo(fromNode, ClusterStateMessage.createOKResponse(msg));
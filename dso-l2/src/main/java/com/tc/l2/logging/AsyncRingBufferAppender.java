@@ -0,0 +1,252 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.l2.logging;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link Appender} which hands its events to another appender on a dedicated writer thread, so that the threads
+ * which log never wait on file I/O or on the lock of the real appender.
+ * <p>
+ * Events are held in a ring buffer allocated up front.  Only the parts of an event which depend on the logging thread
+ * (its name, NDC and MDC) are captured when it is appended; the message is rendered by the writer thread.  What
+ * happens when the buffer is full is decided by the {@link OverflowPolicy}.  Closing the appender, or shutting down the
+ * JVM, drains the buffer before the real appender is closed.
+ */
+public class AsyncRingBufferAppender extends AppenderSkeleton {
+
+  public enum OverflowPolicy {
+    /** wait for the writer to make room */
+    BLOCK,
+    /** drop the event */
+    DISCARD,
+    /** drop events below WARN, wait for the writer to make room for the others */
+    DISCARD_BELOW_WARN
+  }
+
+  private static final long IDLE_PARK_NANOS  = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long FULL_PARK_NANOS  = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final long DRAIN_TIMEOUT    = TimeUnit.SECONDS.toMillis(10);
+
+  private final Appender       target;
+  private final OverflowPolicy policy;
+  private final LoggingEvent[] slots;
+  //  the sequence of each slot tells whether it is free to be claimed by a producer or ready to be read by the writer
+  private final AtomicLongArray sequences;
+  private final int            mask;
+  private final AtomicLong     head             = new AtomicLong();
+  //  only touched by the writer thread
+  private long                 tail             = 0;
+  private final AtomicLong     discarded        = new AtomicLong();
+  private final Thread         writer;
+  private final Thread         shutdownHook;
+  private volatile boolean     running          = true;
+  private volatile boolean     writerIdle       = false;
+
+  public AsyncRingBufferAppender(Appender target, int capacity, OverflowPolicy policy) {
+    if (capacity < 1) { throw new IllegalArgumentException("capacity must be positive: " + capacity); }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.target = target;
+    this.policy = policy;
+    this.slots = new LoggingEvent[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+    this.writer = new Thread(new Writer(), "logging writer - " + target.getName());
+    this.writer.setDaemon(true);
+    this.writer.start();
+    this.shutdownHook = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        drain();
+      }
+    }, "logging writer drain - " + target.getName());
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  public int getCapacity() {
+    return slots.length;
+  }
+
+  /**
+   * The number of events dropped since the writer last reported them.
+   */
+  public long getDiscardedCount() {
+    return discarded.get();
+  }
+
+  /**
+   * Overridden since the doAppend of {@link AppenderSkeleton} is synchronized, which would put every logging thread
+   * back behind one lock.
+   */
+  @Override
+  public void doAppend(LoggingEvent event) {
+    if (closed || !isAsSevereAsThreshold(event.getLevel())) { return; }
+    for (Filter filter = getFilter(); filter != null; filter = filter.getNext()) {
+      int decision = filter.decide(event);
+      if (decision == Filter.DENY) {
+        return;
+      } else if (decision == Filter.ACCEPT) {
+        break;
+      }
+    }
+    append(event);
+  }
+
+  @Override
+  protected void append(LoggingEvent event) {
+    if (Thread.currentThread() == writer || !running) {
+      //  logging from the real appender, or after the writer has stopped, can't wait on the writer
+      target.doAppend(event);
+      return;
+    }
+    // capture what would change once this thread moves on
+    event.getThreadName();
+    event.getNDC();
+    event.getMDCCopy();
+    while (!offer(event)) {
+      if (policy == OverflowPolicy.DISCARD
+          || (policy == OverflowPolicy.DISCARD_BELOW_WARN && !event.getLevel().isGreaterOrEqual(Level.WARN))) {
+        discarded.incrementAndGet();
+        return;
+      }
+      if (!running) {
+        target.doAppend(event);
+        return;
+      }
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(this, FULL_PARK_NANOS);
+    }
+    if (writerIdle) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  private boolean offer(LoggingEvent event) {
+    while (true) {
+      long position = head.get();
+      int index = (int) (position & mask);
+      long available = sequences.get(index) - position;
+      if (available == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          slots[index] = event;
+          sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (available < 0) {
+        // the writer has not yet read the event a full lap ago
+        return false;
+      }
+      // another producer claimed this position first
+    }
+  }
+
+  private LoggingEvent poll() {
+    int index = (int) (tail & mask);
+    if (sequences.get(index) != tail + 1) { return null; }
+    LoggingEvent event = slots[index];
+    slots[index] = null;
+    sequences.set(index, tail + slots.length);
+    tail += 1;
+    return event;
+  }
+
+  /**
+   * Stops the writer once everything appended so far has been written.
+   */
+  private void drain() {
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(DRAIN_TIMEOUT);
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean requiresLayout() {
+    return false;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) { return; }
+      closed = true;
+    }
+    drain();
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException shuttingDown) {
+      // this is the drain on shutdown
+    }
+    target.close();
+  }
+
+  private class Writer implements Runnable {
+    @Override
+    public void run() {
+      while (true) {
+        LoggingEvent event = poll();
+        if (event != null) {
+          target.doAppend(event);
+          continue;
+        }
+        reportDiscarded();
+        if (!running) {
+          // producers which saw running before it was cleared may still be publishing
+          if ((event = poll()) == null) {
+            break;
+          }
+          target.doAppend(event);
+          continue;
+        }
+        writerIdle = true;
+        if (sequences.get((int) (tail & mask)) != tail + 1) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        writerIdle = false;
+      }
+    }
+
+    private void reportDiscarded() {
+      long count = discarded.getAndSet(0);
+      if (count > 0) {
+        target.doAppend(new LoggingEvent(AsyncRingBufferAppender.class.getName(), Logger.getLogger(AsyncRingBufferAppender.class),
+                                         Level.WARN, count + " log messages were discarded because the logging buffer was full", null));
+      }
+    }
+  }
+}
@@ -34,7 +34,7 @@ public class JMXLogging {
       jmxAppender = new JMXAppender();
       jmxAppender.setLayout(new PatternLayout(TCLoggingLog4J.FILE_AND_JMX_PATTERN));
       jmxAppender.setName("JMX appender");
-      ((TCLoggingLog4J)service).addToAllLoggers(jmxAppender);
+      TCLoggingLog4J.addToAllLoggers(TCLoggingLog4J.asynchronous(jmxAppender));
     }
   }
   
@@ -55,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 
@@ -74,6 +75,10 @@ public class TCLoggingLog4J implements TCLoggingService {
   private static final int          DEFAULT_MAX_LOG_FILE_SIZE          = 512;
   private static final String       MAX_BACKUPS_PROPERTY               = "maxBackups";
   private static final int          DEFAULT_MAX_BACKUPS                = 20;
+  private static final String       ASYNC_ENABLED_PROPERTY             = "async.enabled";
+  private static final String       ASYNC_BUFFER_SIZE_PROPERTY         = "async.bufferSize";
+  private static final int          DEFAULT_ASYNC_BUFFER_SIZE          = 8192;
+  private static final String       ASYNC_OVERFLOW_POLICY_PROPERTY     = "async.overflowPolicy";
   private static final String       LOG4J_CUSTOM_FILENAME              = ".tc.custom.log4j.properties";
   public static final String        LOG4J_PROPERTIES_FILENAME          = ".tc.dev.log4j.properties";
 
@@ -428,7 +433,7 @@ public class TCLoggingLog4J implements TCLoggingService {
 
         // Note: order of operations is very important here. We start the new appender before we close and remove the
         // old one so that you don't drop any log records.
-        Appender oldFileAppender = delegateFileAppender.setDelegate(newFileAppender);
+        Appender oldFileAppender = delegateFileAppender.setDelegate(asynchronous(newFileAppender));
 
         if (oldFileAppender != null) {
           oldFileAppender.close();
@@ -455,6 +460,28 @@ public class TCLoggingLog4J implements TCLoggingService {
     writeSystemProperties();
   }
 
+  /**
+   * Puts the appender behind a ring buffer written from its own thread when asynchronous logging is enabled.
+   */
+  static Appender asynchronous(Appender appender) {
+    TCProperties props = TCPropertiesImpl.getProperties().getPropertiesFor(TCPropertiesConsts.LOGGING_CATEGORY);
+    if (!props.getBoolean(ASYNC_ENABLED_PROPERTY, false)) { return appender; }
+    String policy = props.getProperty(ASYNC_OVERFLOW_POLICY_PROPERTY, true);
+    AsyncRingBufferAppender.OverflowPolicy overflowPolicy = AsyncRingBufferAppender.OverflowPolicy.BLOCK;
+    if (policy != null) {
+      try {
+        overflowPolicy = AsyncRingBufferAppender.OverflowPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException unknown) {
+        reportLoggingError("Unknown " + TCPropertiesConsts.LOGGING_ASYNC_OVERFLOW_POLICY + " '" + policy + "', using '"
+                           + overflowPolicy.name().toLowerCase(Locale.ROOT) + "'.", null);
+      }
+    }
+    int bufferSize = props.getInt(ASYNC_BUFFER_SIZE_PROPERTY, DEFAULT_ASYNC_BUFFER_SIZE);
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(appender, bufferSize, overflowPolicy);
+    async.setName(appender.getName());
+    return async;
+  }
+
   @Override
   public TCLogger getDumpLogger() {
     return new TCLoggerImpl(DUMP_LOGGER_NAME);
@@ -18,6 +18,7 @@
  */
 package com.tc.net.groups;
 
+import com.tc.async.api.EventPriority;
 import com.tc.async.api.Sink;
 import com.tc.async.api.Stage;
 import com.tc.async.api.StageManager;
@@ -89,6 +90,8 @@ import com.tc.util.Assert;
 import com.tc.util.ProductInfo;
 import com.tc.util.TCTimeoutException;
 import com.tc.util.UUID;
+import com.tc.util.concurrent.HashedWheelTimer;
+import com.tc.util.concurrent.HashedWheelTimer.Timeout;
 import com.tc.util.sequence.Sequence;
 import com.tc.util.sequence.SimpleSequence;
 import com.tc.util.version.Version;
@@ -108,10 +111,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
@@ -134,9 +136,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
   private final ConcurrentHashMap<MessageChannel, ServerID> channelToNodeID             = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<ServerID, TCGroupMember>  members                     = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, TCGroupMember>    nodenameToMembers           = new ConcurrentHashMap<>();
-  private final Timer                                       handshakeTimer              = new Timer(
-                                                                                                    "TC Group Manager Handshake timer",
-                                                                                                    true);
+  private final HashedWheelTimer                            handshakeTimer              = newHandshakeTimer();
   private final Set<NodeID>                                 zappedSet                   = Collections
                                                                                             .synchronizedSet(new HashSet<NodeID>());
   private final StageManager                                stageManager;
@@ -231,6 +231,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
 
     TCProperties tcProperties = TCPropertiesImpl.getProperties();
 
+    handshakeTimer.start();
     createTCGroupManagerStages();
     final NetworkStackHarnessFactory networkStackHarnessFactory = getNetworkStackHarnessFactory();
 
@@ -284,7 +285,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
     messageRouter.routeMessageType(TCMessageType.GROUP_WRAPPER_MESSAGE, receiveGroupMessageStage.getSink(),
                                    hydrateStage.getSink());
     messageRouter.routeMessageType(TCMessageType.GROUP_HANDSHAKE_MESSAGE, handshakeMessageStage.getSink(),
-                                   hydrateStage.getSink());
+                                   hydrateStage.getSink(), EventPriority.LIFECYCLE);
   }
 
   /*
@@ -363,6 +364,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
     }
     membersClear();
     channelToNodeID.clear();
+    handshakeTimer.stop();
   }
 
   public boolean isStopped() {
@@ -682,7 +684,14 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
     return discover;
   }
 
-  public Timer getHandshakeTimer() {
+  private static HashedWheelTimer newHandshakeTimer() {
+    TCProperties props = TCPropertiesImpl.getProperties();
+    return new HashedWheelTimer("TC Group Manager Handshake timer",
+                                props.getLong(TCPropertiesConsts.L2_TIMER_WHEEL_TICK_MILLIS), TimeUnit.MILLISECONDS,
+                                props.getInt(TCPropertiesConsts.L2_TIMER_WHEEL_SIZE));
+  }
+
+  public HashedWheelTimer getHandshakeTimer() {
     return (handshakeTimer);
   }
 
@@ -1023,7 +1032,7 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
 
     private HandshakeState           current;
     private ServerID                 peerNodeID;
-    private TimerTask                timerTask;
+    private Timeout                  timerTask;
     private TCGroupMember            member;
     private boolean                  stateTransitionInProgress;
 
@@ -1113,16 +1122,8 @@ public class TCGroupManagerImpl implements GroupManager<AbstractGroupMessage>, C
     }
 
     private synchronized void setTimerTask(long timeout) {
-      TimerTask task = new TimerTask() {
-        @Override
-        public void run() {
-          handshakeTimeout();
-        }
-      };
-      timerTask = task;
-      Timer timer = manager.getHandshakeTimer();
-      timer.purge();
-      timer.schedule(task, timeout);
+      if (manager.isStopped()) { return; }
+      timerTask = manager.getHandshakeTimer().newTimeout(this::handshakeTimeout, timeout, TimeUnit.MILLISECONDS);
     }
 
     private synchronized void cancelTimerTask() {
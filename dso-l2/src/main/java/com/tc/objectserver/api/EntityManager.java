@@ -69,6 +69,8 @@ public interface EntityManager extends StateDumpable, MessageCodecSupplier {
    * that information in.  In the case of "createEntity", a create request is handled by the entity, right after it is
    * created whereas this call is stand-alone and the entity is ready for use immediately.
    * 
+   * When restart is configured for lazy entity load, the entity is only registered here and constructed on first use.
+   * 
    * @param id id of the entity to create
    * @param recordedVersion the version of the entity's implementation from before the restart
    * @param consumerID the unique consumerID this entity uses when interacting with services
@@ -73,6 +73,18 @@ public interface ManagedEntity extends StateDumpable {
   void sync(NodeID passive);
   
   void loadEntity(byte[] configuration);
+
+  /**
+   * Records an existing entity without constructing it.  The entity is constructed on its management key ahead of its
+   * first request, or when {@link #warmUp()} asks for it.
+   */
+  void loadEntityLazily(byte[] configuration);
+
+  /**
+   * Asks for an entity whose load was deferred by {@link #loadEntityLazily(byte[])} to be constructed, without waiting
+   * for it.  Does nothing if the entity has already been constructed.
+   */
+  void warmUp();
   
   void promoteEntity();
     
@@ -58,6 +58,10 @@ public enum ServerEntityAction {
    * Reload the active entity with the new supplied configuration.
    */
   RECONFIGURE_ENTITY,  
+  /**
+   * An internally-created action releasing all the references a departed client holds on an entity.
+   */
+  DISCONNECT_CLIENT,
   // ***** Messages specific to received passive synchronization data below this point *****
   /**
    * Messages related to the synchronization of a specific entity instance follow.
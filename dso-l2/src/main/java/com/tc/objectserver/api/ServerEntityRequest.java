@@ -49,4 +49,8 @@ public interface ServerEntityRequest {
  * @return the passives that this request needs to be replicated to
  */  
   Set<NodeID> replicateTo(Set<NodeID> passives);
+/**
+ * @return true if this request is replicated to every passive whenever there are passives to replicate to
+ */
+  boolean requiresReplication();
 }
@@ -118,4 +118,12 @@ public interface ITopologyEventCollector {
    * @param id The unique identifier for this entity.
    */
   public void clientDidReleaseEntity(ClientID client, EntityID id);
+
+  /**
+   * Called when all the fetches a departed client held on a specific entity have been released at once.
+   * 
+   * @param client The client.
+   * @param id The unique identifier for this entity.
+   */
+  public void clientDidReleaseAllReferences(ClientID client, EntityID id);
 }
@@ -42,6 +42,8 @@ import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.objectserver.handshakemanager.ClientHandshakeMonitoringInfo;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.server.TCServerMain;
 import com.tc.util.Assert;
 import com.tc.util.State;
@@ -58,12 +60,13 @@ import org.terracotta.monitoring.ServerState;
  */
 public class ManagementTopologyEventCollector implements ITopologyEventCollector {
   // Note that serviceInterface may be null if there isn't an IMonitoringProducer service registered.
-  private final IMonitoringProducer serviceInterface;
+  private final MonitoringEventPublisher serviceInterface;
   private final Set<ClientID> connectedClients;
   private final Set<EntityID> entities;
   private final Map<NodeID, PlatformServer> servers;
   private final Map<FetchTuple, Integer> fetchPairCounts;
-  private final Map<ClientID, Collection<EntityDescriptor>> incomingReleases;
+  // the entities each departed client still has to release before it is removed from the monitoring tree
+  private final Map<ClientID, Set<EntityID>> incomingReleases;
   private boolean isActiveState;
     
   private final ServerID thisNode;
@@ -72,7 +75,10 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
 
   public ManagementTopologyEventCollector(ServerID self, IMonitoringProducer serviceInterface) {
     this.thisNode = self;
-    this.serviceInterface = serviceInterface;
+    this.serviceInterface = (null != serviceInterface) ? new MonitoringEventPublisher(serviceInterface,
+        TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_MONITORING_ASYNC_ENABLED, false),
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_MONITORING_ASYNC_BATCH_DELAY_MILLIS, 5),
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_MONITORING_ASYNC_MAX_QUEUED, 10000)) : null;
     this.connectedClients = new HashSet<ClientID>();
     this.entities = new HashSet<EntityID>();
     this.fetchPairCounts = new HashMap<FetchTuple, Integer>();
@@ -163,6 +169,24 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
     }
   }
 
+  /**
+   * Waits until all of the changes made so far have been applied to the monitoring service.
+   */
+  public void flushMonitoring() throws InterruptedException {
+    if (null != this.serviceInterface) {
+      this.serviceInterface.flush();
+    }
+  }
+
+  /**
+   * Applies the outstanding changes and stops publishing in the background.
+   */
+  public void shutdown() throws InterruptedException {
+    if (null != this.serviceInterface) {
+      this.serviceInterface.shutdown();
+    }
+  }
+
   private String[] makeServerPath(ServerID node, String...slot) {
     String[] path = Arrays.copyOf(PlatformMonitoringConstants.SERVERS_PATH, PlatformMonitoringConstants.SERVERS_PATH.length + 1 + slot.length);
     path[PlatformMonitoringConstants.SERVERS_PATH.length] = serverIdentifierForService(node);
@@ -271,30 +295,49 @@ public class ManagementTopologyEventCollector implements ITopologyEventCollector
     }
     
     // Remove it from the monitoring interface.
+    removeFetchNode(client, id);
+    
+    if (count <= 0) {
+      releasedAllOf(client, id);
+    }
+  }
+
+  @Override
+  public synchronized void clientDidReleaseAllReferences(ClientID client, EntityID id) {
+    // The client may have already released each of its fetches on its own before it disconnected.
+    this.fetchPairCounts.remove(new FetchTuple(client, id));
+    removeFetchNode(client, id);
+    releasedAllOf(client, id);
+  }
+
+  public synchronized void expectedReleases(ClientID cid, Collection<EntityDescriptor> releases) {
+    if (null != serviceInterface && !releases.isEmpty()) {
+      Set<EntityID> entities = new HashSet<>();
+      for (EntityDescriptor descriptor : releases) {
+        entities.add(descriptor.getEntityID());
+      }
+      incomingReleases.put(cid, entities);
+    }
+  }
+
+  private void removeFetchNode(ClientID client, EntityID id) {
     if (null != this.serviceInterface) {
       String clientIdentifier = clientIdentifierForService(client);
       String entityIdentifier = entityIdentifierForService(id);
       String fetchIdentifier = fetchIdentifierForService(clientIdentifier, entityIdentifier);
       this.serviceInterface.removeNode(PlatformMonitoringConstants.FETCHED_PATH, fetchIdentifier);
     }
-    
-    if (incomingReleases.containsKey(client)) {
-      Collection<EntityDescriptor> expected = incomingReleases.get(client);
-      Assert.assertTrue(expected.removeIf(des->des.getEntityID().equals(id)));
-      if (expected.isEmpty()) {
-        incomingReleases.remove(client);
-        // Remove it from the monitoring interface.
-        if (null != this.serviceInterface) {
-          String nodeName = clientIdentifierForService(client);
-          this.serviceInterface.removeNode(PlatformMonitoringConstants.CLIENTS_PATH, nodeName);
-        }
-      }
-    }    
   }
-  
-  public synchronized void expectedReleases(ClientID cid, Collection<EntityDescriptor> releases) {
-    if (null != serviceInterface && !releases.isEmpty()) {
-      incomingReleases.put(cid, releases);
+
+  private void releasedAllOf(ClientID client, EntityID id) {
+    Set<EntityID> expected = incomingReleases.get(client);
+    if (expected != null && expected.remove(id) && expected.isEmpty()) {
+      incomingReleases.remove(client);
+      // Remove it from the monitoring interface.
+      if (null != this.serviceInterface) {
+        String nodeName = clientIdentifierForService(client);
+        this.serviceInterface.removeNode(PlatformMonitoringConstants.CLIENTS_PATH, nodeName);
+      }
     }
   }
   
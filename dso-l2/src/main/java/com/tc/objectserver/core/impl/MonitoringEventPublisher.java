@@ -0,0 +1,275 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.core.impl;
+
+import org.terracotta.monitoring.IMonitoringProducer;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Applies the changes to the platform monitoring tree on behalf of the ManagementTopologyEventCollector.  When running
+ * asynchronously, changes are put on a lock-free queue by the caller and applied to the monitoring service in batches by
+ * a background thread so that monitoring never adds latency to the requests which produce the changes.  If the queue
+ * holds more than maxQueued changes, the caller applies the backlog itself.
+ *
+ * Within a batch, repeated changes to a node are merged into one:  a node added and then removed is only removed and a 
+ * node removed and then added again is replaced.  Changes are only merged when no change to an ancestor or descendant 
+ * of the node came between them, so the tree is always built and torn down in the order the changes were made.
+ */
+public class MonitoringEventPublisher {
+  private static final TCLogger LOGGER = TCLogging.getLogger(MonitoringEventPublisher.class);
+
+  private final IMonitoringProducer producer;
+  private final long batchDelayMillis;
+  private final long maxQueued;
+  private final ConcurrentLinkedQueue<Update> updates = new ConcurrentLinkedQueue<>();
+  private final AtomicLong queued = new AtomicLong();
+  private final Thread publisher;
+  // held while a batch is taken off the queue and applied
+  private final Object applyLock = new Object();
+  private volatile long applied = 0;
+  private volatile boolean sleeping = false;
+  private volatile boolean stopped = false;
+
+  /**
+   * @param producer the monitoring service
+   * @param async true if changes are applied by a background thread, false if they are applied by the caller
+   * @param batchDelayMillis how long the background thread waits, once woken, for more changes to batch with the first
+   * @param maxQueued how many changes may wait for the background thread before callers apply them
+   */
+  public MonitoringEventPublisher(IMonitoringProducer producer, boolean async, long batchDelayMillis, long maxQueued) {
+    this.producer = producer;
+    this.batchDelayMillis = batchDelayMillis;
+    this.maxQueued = maxQueued;
+    if (async) {
+      this.publisher = new Thread(this::publish, "Monitoring Event Publisher");
+      this.publisher.setDaemon(true);
+      this.publisher.start();
+    } else {
+      this.publisher = null;
+    }
+  }
+
+  public void addNode(String[] parents, String name, Serializable value) {
+    submit(new Update(parents, name, value, false));
+  }
+
+  public void removeNode(String[] parents, String name) {
+    submit(new Update(parents, name, null, true));
+  }
+
+  /**
+   * Waits until every change submitted before the call has been applied to the monitoring service.
+   */
+  public void flush() throws InterruptedException {
+    long target = queued.get();
+    synchronized (this) {
+      while (applied < target) {
+        this.wait();
+      }
+    }
+  }
+
+  /**
+   * Applies what is queued and stops the background thread.  Changes submitted afterwards are applied by the caller.
+   */
+  public void shutdown() throws InterruptedException {
+    stopped = true;
+    if (publisher != null) {
+      LockSupport.unpark(publisher);
+      publisher.join();
+      synchronized (applyLock) {
+        applyBatch();
+      }
+    }
+  }
+
+  private void submit(Update update) {
+    if (publisher == null) {
+      apply(update);
+    } else if (stopped) {
+      synchronized (applyLock) {
+        applyBatch();
+        apply(update);
+      }
+    } else {
+      long backlog = queued.incrementAndGet() - applied;
+      updates.offer(update);
+      if (backlog > maxQueued || stopped) {
+        // the publisher is falling behind, help it rather than let the queue grow
+        synchronized (applyLock) {
+          applyBatch();
+        }
+      } else if (sleeping) {
+        LockSupport.unpark(publisher);
+      }
+    }
+  }
+
+  private void publish() {
+    while (!stopped) {
+      if (updates.isEmpty()) {
+        sleeping = true;
+        // check again so a change offered just before sleeping was set isn't missed
+        if (updates.isEmpty() && !stopped) {
+          LockSupport.park(this);
+        }
+        sleeping = false;
+        continue;
+      }
+      if (batchDelayMillis > 0) {
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(batchDelayMillis));
+      }
+      synchronized (applyLock) {
+        applyBatch();
+      }
+    }
+    synchronized (applyLock) {
+      applyBatch();
+    }
+  }
+
+  /**
+   * Takes everything off the queue and applies it.  Must hold the applyLock.
+   */
+  private void applyBatch() {
+    List<Update> batch = new ArrayList<>();
+    // the position in the batch of the last change to each node
+    Map<NodeKey, Integer> last = new HashMap<>();
+    long count = 0;
+    Update next = updates.poll();
+    while (next != null) {
+      count += 1;
+      NodeKey key = new NodeKey(next.parents, next.name);
+      Integer index = last.get(key);
+      if (index != null && !changedRelative(batch, index + 1, key)) {
+        Update previous = batch.get(index);
+        if (!next.remove && (previous.remove || previous.replace)) {
+          next.replace = true;
+        }
+        batch.set(index, next);
+      } else {
+        last.put(key, batch.size());
+        batch.add(next);
+      }
+      next = updates.poll();
+    }
+    for (Update update : batch) {
+      apply(update);
+    }
+    if (count > 0) {
+      synchronized (this) {
+        applied += count;
+        this.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * @return true if any change in the batch from {@code start} on is to an ancestor or a descendant of the node
+   */
+  private static boolean changedRelative(List<Update> batch, int start, NodeKey key) {
+    for (int x = start; x < batch.size(); x++) {
+      Update other = batch.get(x);
+      if (isAncestor(other.parents, other.name, key.parents) || isAncestor(key.parents, key.name, other.parents)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isAncestor(String[] parents, String name, String[] descendantParents) {
+    if (descendantParents.length <= parents.length) {
+      return false;
+    }
+    for (int x = 0; x < parents.length; x++) {
+      if (!parents[x].equals(descendantParents[x])) {
+        return false;
+      }
+    }
+    return name.equals(descendantParents[parents.length]);
+  }
+
+  private void apply(Update update) {
+    try {
+      if (update.remove || update.replace) {
+        producer.removeNode(update.parents, update.name);
+      }
+      if (!update.remove) {
+        producer.addNode(update.parents, update.name, update.value);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("failed to update monitoring node " + Arrays.toString(update.parents) + " " + update.name, e);
+    }
+  }
+
+  private static class Update {
+    private final String[] parents;
+    private final String name;
+    private final Serializable value;
+    private final boolean remove;
+    // set when an add follows a remove of the same node in the batch
+    private boolean replace;
+
+    private Update(String[] parents, String name, Serializable value, boolean remove) {
+      this.parents = parents;
+      this.name = name;
+      this.value = value;
+      this.remove = remove;
+    }
+  }
+
+  private static class NodeKey {
+    private final String[] parents;
+    private final String name;
+
+    private NodeKey(String[] parents, String name) {
+      this.parents = parents;
+      this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(parents) ^ (name.hashCode() << 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      boolean isEqual = false;
+      if (obj instanceof NodeKey) {
+        NodeKey other = (NodeKey) obj;
+        isEqual = Arrays.equals(this.parents, other.parents)
+            && this.name.equals(other.name);
+      }
+      return isEqual;
+    }
+  }
+}
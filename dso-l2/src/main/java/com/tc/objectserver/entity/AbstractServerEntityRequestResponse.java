@@ -86,6 +86,11 @@ public abstract class AbstractServerEntityRequestResponse implements ServerEntit
     return requiresReplication ? current : Collections.emptySet();
   }
 
+  @Override
+  public boolean requiresReplication() {
+    return requiresReplication;
+  }
+
   @Override
   public ClientID getNodeID() {
     return src;
@@ -125,6 +130,7 @@ public abstract class AbstractServerEntityRequestResponse implements ServerEntit
         case CREATE_ENTITY:
         case DESTROY_ENTITY:
         case RELEASE_ENTITY:
+        case DISCONNECT_CLIENT:
         case FETCH_ENTITY:
           // In these cases, we just return an empty success to acknowledge that they completed.
           actionResponse.setSuccess(transaction, new byte[0], alsoRetire);
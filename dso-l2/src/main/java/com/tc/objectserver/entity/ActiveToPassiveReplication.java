@@ -19,6 +19,7 @@
 package com.tc.objectserver.entity;
 
 import com.tc.async.api.Sink;
+import com.tc.io.TCByteBufferOutputStream;
 import com.tc.l2.msg.PassiveSyncMessage;
 import com.tc.l2.msg.ReplicationEnvelope;
 import com.tc.l2.msg.ReplicationMessage;
@@ -32,19 +33,20 @@ import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.handler.ReplicationSender;
 import com.tc.objectserver.persistence.EntityPersistor;
+import com.tc.objectserver.persistence.PersistentRecordCodec;
 import com.tc.util.Assert;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.Collections;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
 
 /**
@@ -65,12 +67,14 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
   private final Sink<ReplicationEnvelope> replicate;
   private final Executor passiveSyncPool = Executors.newCachedThreadPool();
   private final EntityPersistor persistor;
+  private final ReplicationLog log;
 
-  public ActiveToPassiveReplication(Iterable<NodeID> passives, Iterable<ManagedEntity> entities, EntityPersistor persistor, Sink<ReplicationEnvelope> replicate) {
+  public ActiveToPassiveReplication(Iterable<NodeID> passives, Iterable<ManagedEntity> entities, EntityPersistor persistor, ReplicationLog log, Sink<ReplicationEnvelope> replicate) {
     this.entities = entities;
     this.replicate = replicate;
     this.passives = passives;
     this.persistor = persistor;
+    this.log = log;
   }
   
   @Override
@@ -117,6 +121,48 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
     logger.info("Starting sync to " + newNode);
     executePassiveSync(newNode);
   }
+  /**
+   * Brings a restarted passive which retained its persistent state up to date by replaying the 
+   * replication log from the last position it applied.
+   * 
+   * @param newNode the restarted passive
+   * @param epoch the epoch of the replication log the passive last applied from
+   * @param lastApplied the last log sequence the passive applied
+   * @return false if the log does not cover the position of the passive and a full sync is required
+   */
+  public boolean startPassiveResync(NodeID newNode, String epoch, long lastApplied) {
+    Assert.assertTrue(activated);
+    if (!log.covers(epoch, lastApplied)) {
+      logger.info("Unable to resync " + newNode + " from " + epoch + "/" + lastApplied + ", replication log is at " + log.getEpoch() + "/" + log.getLastSequence());
+      return false;
+    }
+//  prime outside of the log monitor, replication of new messages must not wait on the sender
+    if (!prime(newNode)) {
+      Assert.assertTrue("passive node unable to prime and not in the list of passives", passiveNodes.contains(newNode));
+    }
+//  hold the log while the tail is queued so no message is missed or repeated before the 
+//  passive is added to the set of nodes being replicated to
+    synchronized (log) {
+      List<ReplicationMessage> tail = log.tailFrom(epoch, lastApplied);
+      if (tail == null) {
+//  truncated while priming, the passive is zapped and its ordering flushed when it leaves
+        logger.info("Unable to resync " + newNode + " from " + epoch + "/" + lastApplied + ", replication log is at " + log.getEpoch() + "/" + log.getLastSequence());
+        return false;
+      }
+      logger.info("Starting resync to " + newNode + " replaying " + tail.size() + " messages after " + lastApplied);
+      for (ReplicationMessage msg : tail) {
+        replicate.addSingleThreaded(msg.target(newNode));
+      }
+      passiveNodes.add(newNode);
+      return true;
+    }
+  }
+  
+  @Override
+  public boolean keepsReplicationLog() {
+    return log.isEnabled();
+  }
+  
   /**
    * Using an executor service here to sync multiple passives at once
    * @param groups
@@ -129,7 +175,7 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
         // start passive sync message
         logger.debug("starting sync for " + newNode);
         try {
-          replicateMessage(PassiveSyncMessage.createStartSyncMessage(), Collections.singleton(newNode)).waitForCompleted();
+          replicateMessage(PassiveSyncMessage.createStartSyncMessage(), current -> Collections.singleton(newNode)).waitForCompleted();
           for (ManagedEntity entity : entities) {
             logger.debug("starting sync for entity " + newNode + "/" + entity.getID());
             entity.sync(newNode);
@@ -137,7 +183,7 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
           }
       //  passive sync done message.  causes passive to go into passive standby mode
           logger.debug("ending sync " + newNode);
-          replicateMessage(PassiveSyncMessage.createEndSyncMessage(replicateEntityPersistor()), Collections.singleton(newNode)).waitForCompleted();
+          replicateMessage(PassiveSyncMessage.createEndSyncMessage(replicateEntityPersistor()), current -> Collections.singleton(newNode)).waitForCompleted();
         } catch (InterruptedException e) {
           throw new AssertionError("error during passive sync", e);
         }
@@ -146,12 +192,10 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
   }
   
   private byte[] replicateEntityPersistor() {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream();
     try {
-      ObjectOutputStream data = new ObjectOutputStream(out);
-      persistor.serialize(data);
-      data.close();
-      return out.toByteArray();
+      persistor.serialize(out);
+      return PersistentRecordCodec.toBytes(out);
     } catch (IOException ioe) {
       
     }
@@ -191,20 +235,24 @@ public class ActiveToPassiveReplication implements PassiveReplicationBroker, Gro
   }
 
   @Override
-  public ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Set<NodeID> all) {
-    Set<NodeID> copy = new HashSet<>(all); 
+  public ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Function<Set<NodeID>, Set<NodeID>> replicateTo) {
+//  the log position and the set of passives are captured together, see startPassiveResync
+    synchronized (log) {
+      log.append(msg);
+      Set<NodeID> copy = new HashSet<>(replicateTo.apply(passives())); 
 // don't replicate to a passive that is no longer there
-    copy.retainAll(passives());
-    ActivePassiveAckWaiter waiter = new ActivePassiveAckWaiter(copy);
-    if (!copy.isEmpty()) {
-      waiters.put(msg.getMessageID(), waiter);
-      for (NodeID node : copy) {
-        // This is a normal completion.
-        boolean isNormalComplete = true;
-        replicate.addSingleThreaded(msg.target(node, ()->internalAckCompleted(msg.getMessageID(), node, isNormalComplete)));
+      copy.retainAll(passives());
+      ActivePassiveAckWaiter waiter = new ActivePassiveAckWaiter(copy);
+      if (!copy.isEmpty()) {
+        waiters.put(msg.getMessageID(), waiter);
+        for (NodeID node : copy) {
+          // This is a normal completion.
+          boolean isNormalComplete = true;
+          replicate.addSingleThreaded(msg.target(node, ()->internalAckCompleted(msg.getMessageID(), node, isNormalComplete)));
+        }
       }
+      return waiter;
     }
-    return waiter;
   }
 
   public void removePassive(NodeID nodeID) {
@@ -0,0 +1,200 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.entity.VoltronEntityMessage;
+import com.tc.exception.ServerBusyException;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.object.EntityID;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Decides whether a client invoke may join the voltron message stage's queue.  Invokes which were let in are counted,
+ * per client and per entity, until the stage picks them up and the time they waited is folded into a moving average of
+ * the queueing delay.  An invoke is shed, rather than blocking the comms thread which delivered it, when its client or
+ * entity already has too much queued or, while the queueing delay is over its limit, when its client has more than its
+ * share of the queue.  Clients with little queued keep their latency while a bulk loader is turned away.
+ */
+public class AdmissionController {
+  private static final TCLogger LOGGER = TCLogging.getLogger(AdmissionController.class);
+
+  public static final AdmissionController UNLIMITED = new AdmissionController(false, 0, 0, 0);
+
+  // weight of the newest sample in the moving average of the queueing delay, as a shift
+  private static final int DELAY_AVERAGE_SHIFT = 3;
+
+  private final boolean enabled;
+  private final int maxClientQueued;
+  private final int maxEntityQueued;
+  private final long maxQueueDelayNanos;
+
+  private final Map<VoltronEntityMessage, Admission> admitted = new IdentityHashMap<>();
+  private final Map<ClientID, Integer> clientQueued = new HashMap<>();
+  private final Map<EntityID, Integer> entityQueued = new HashMap<>();
+  private long queueDelayNanos = 0;
+  private long rejected = 0;
+
+  public AdmissionController(boolean enabled, int maxClientQueued, int maxEntityQueued, long maxQueueDelayMillis) {
+    this.enabled = enabled;
+    this.maxClientQueued = maxClientQueued;
+    this.maxEntityQueued = maxEntityQueued;
+    this.maxQueueDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueDelayMillis);
+  }
+
+  /**
+   * Called as a message arrives for the voltron message stage.  Only invokes from clients are ever shed.
+   * 
+   * @return null if the message can be queued, otherwise the failure to send back to the client in its place
+   */
+  public ServerBusyException admit(VoltronEntityMessage message) {
+    if (!enabled || VoltronEntityMessage.Type.INVOKE_ACTION != message.getVoltronType() || message.getSource().isNull()) {
+      return null;
+    }
+    ClientID client = message.getSource();
+    EntityID entity = message.getEntityDescriptor().getEntityID();
+    String reason = null;
+    long retryAfter;
+    synchronized (this) {
+      int forClient = count(clientQueued, client);
+      int forEntity = count(entityQueued, entity);
+      if (maxClientQueued > 0 && forClient >= maxClientQueued) {
+        reason = forClient + " invokes from " + client + " are already queued";
+      } else if (maxEntityQueued > 0 && forEntity >= maxEntityQueued) {
+        reason = forEntity + " invokes for the entity are already queued";
+      } else if (maxQueueDelayNanos > 0 && queueDelayNanos > maxQueueDelayNanos && forClient > fairShare()) {
+        reason = "invokes are waiting " + TimeUnit.NANOSECONDS.toMillis(queueDelayNanos) + "ms to be processed and "
+                 + forClient + " of them are from " + client;
+      }
+      if (reason == null) {
+        clientQueued.put(client, forClient + 1);
+        entityQueued.put(entity, forEntity + 1);
+        admitted.put(message, new Admission(client, entity, System.nanoTime()));
+        return null;
+      }
+      rejected += 1;
+      retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toMillis(queueDelayNanos));
+    }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("shedding " + message.getTransactionID() + " from " + client + ": " + reason);
+    }
+    return new ServerBusyException(entity.getClassName(), entity.getEntityName(), reason, retryAfter);
+  }
+
+  /**
+   * Called by the voltron message stage as it picks up a message, whether or not the message went through admit.
+   */
+  public void dequeued(VoltronEntityMessage message) {
+    if (!enabled) {
+      return;
+    }
+    synchronized (this) {
+      Admission admission = admitted.remove(message);
+      if (admission != null) {
+        decrement(clientQueued, admission.client);
+        decrement(entityQueued, admission.entity);
+        long waited = System.nanoTime() - admission.queuedNanos;
+        queueDelayNanos += (waited - queueDelayNanos) >> DELAY_AVERAGE_SHIFT;
+      }
+    }
+  }
+
+  /**
+   * Forgets every invoke from the client which is still counted.  Called once the client's disconnect is processed, by
+   * which point any invoke it had queued has either been picked up or dropped with the client.
+   */
+  public void clientDisconnected(ClientID client) {
+    if (!enabled) {
+      return;
+    }
+    synchronized (this) {
+      Iterator<Admission> i = admitted.values().iterator();
+      while (i.hasNext()) {
+        Admission admission = i.next();
+        if (admission.client.equals(client)) {
+          i.remove();
+          decrement(entityQueued, admission.entity);
+        }
+      }
+      clientQueued.remove(client);
+    }
+  }
+
+  /**
+   * Forgets every counted invoke.  Called when the voltron message stage is cleared without picking up what it held.
+   */
+  public synchronized void clear() {
+    admitted.clear();
+    clientQueued.clear();
+    entityQueued.clear();
+  }
+
+  public synchronized int getQueued() {
+    return admitted.size();
+  }
+
+  public synchronized long getQueueDelayMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(queueDelayNanos);
+  }
+
+  public synchronized long getRejectedCount() {
+    return rejected;
+  }
+
+  // the number of queued invokes each client would have if they were spread evenly
+  private int fairShare() {
+    return clientQueued.isEmpty() ? 0 : admitted.size() / clientQueued.size();
+  }
+
+  private static <K> int count(Map<K, Integer> counts, K key) {
+    Integer count = counts.get(key);
+    return count == null ? 0 : count;
+  }
+
+  private static <K> void decrement(Map<K, Integer> counts, K key) {
+    Integer count = counts.get(key);
+    if (count == null) {
+      return;
+    }
+    if (count <= 1) {
+      counts.remove(key);
+    } else {
+      counts.put(key, count - 1);
+    }
+  }
+
+  private static class Admission {
+    private final ClientID client;
+    private final EntityID entity;
+    private final long queuedNanos;
+
+    Admission(ClientID client, EntityID entity, long queuedNanos) {
+      this.client = client;
+      this.entity = entity;
+      this.queuedNanos = queuedNanos;
+    }
+  }
+}
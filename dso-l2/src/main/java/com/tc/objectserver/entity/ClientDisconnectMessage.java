@@ -0,0 +1,92 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.entity.VoltronEntityMessage;
+import com.tc.net.ClientID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.tx.TransactionID;
+import java.util.Collection;
+import org.terracotta.entity.EntityMessage;
+
+
+/**
+ * Queued behind the last requests of a client which has disconnected to release, in one operation per entity, all the
+ * references the client still holds.
+ */
+public class ClientDisconnectMessage implements VoltronEntityMessage {
+  private static final byte[] EMPTY_EXTENDED_DATA = new byte[0];
+  private final ClientID clientID;
+  private final Collection<EntityDescriptor> entities;
+
+  /**
+   * @param clientID the departed client
+   * @param entities one of the client's descriptors for each entity it referenced
+   */
+  public ClientDisconnectMessage(ClientID clientID, Collection<EntityDescriptor> entities) {
+    this.clientID = clientID;
+    this.entities = entities;
+  }
+
+  public Collection<EntityDescriptor> getEntities() {
+    return entities;
+  }
+
+  @Override
+  public ClientID getSource() {
+    return clientID;
+  }
+
+  @Override
+  public TransactionID getTransactionID() {
+    return TransactionID.NULL_ID;
+  }
+
+  @Override
+  public EntityDescriptor getEntityDescriptor() {
+    return EntityDescriptor.NULL_ID;
+  }
+
+  @Override
+  public boolean doesRequireReplication() {
+    return false;
+  }
+
+  @Override
+  public Type getVoltronType() {
+    return Type.DISCONNECT_CLIENT;
+  }
+
+  @Override
+  public byte[] getExtendedData() {
+    return EMPTY_EXTENDED_DATA;
+  }
+
+  @Override
+  public TransactionID getOldestTransactionOnClient() {
+    // The client is gone and can't end up in a reconnect scenario so it no longer requires persistent ordering.
+    return null;
+  }
+
+  @Override
+  public EntityMessage getEntityMessage() {
+    // There is no message instance for this type.
+    return null;
+  }
+}
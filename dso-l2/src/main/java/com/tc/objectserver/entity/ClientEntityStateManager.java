@@ -22,6 +22,7 @@ import com.tc.net.ClientID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
 import com.tc.object.net.DSOChannelManagerEventListener;
+import java.util.List;
 
 
 /**
@@ -55,4 +56,13 @@ public interface ClientEntityStateManager extends DSOChannelManagerEventListener
    * @return true if there are no references
    */
   public boolean verifyNoReferences(EntityID entityDescriptor);
+
+  /**
+   * Lists the references clientID currently holds to the entity.
+   * 
+   * @param clientID The client.
+   * @param entityID The entity.
+   * @return the descriptors of each of the references, empty if there are none
+   */
+  public List<EntityDescriptor> getReferences(ClientID clientID, EntityID entityID);
 }
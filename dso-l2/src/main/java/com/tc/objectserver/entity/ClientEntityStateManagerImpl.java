@@ -19,9 +19,6 @@
 package com.tc.objectserver.entity;
 
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import com.tc.async.api.Sink;
 import com.tc.async.api.StageManager;
 import com.tc.entity.VoltronEntityMessage;
@@ -31,17 +28,24 @@ import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
 import com.tc.object.net.DSOChannelManagerEventListener;
-import com.tc.object.tx.TransactionID;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.core.impl.ManagementTopologyEventCollector;
 import com.tc.util.Assert;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.terracotta.entity.EntityMessage;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 public class ClientEntityStateManagerImpl implements ClientEntityStateManager {
-  private final Multimap<ClientID, EntityDescriptor> clientStates = Multimaps.synchronizedMultimap(HashMultimap.create());
+  // Each client's references, grouped by entity.  A client's references are only changed inside a compute() on its key
+  // so different clients are updated in parallel while the inner maps can be read without locking.
+  private final ConcurrentMap<ClientID, ConcurrentMap<EntityID, Set<EntityDescriptor>>> clientStates = new ConcurrentHashMap<>();
+  // The number of references, over all clients, to each entity which has any.
+  private final ConcurrentMap<EntityID, Integer> entityReferenceCounts = new ConcurrentHashMap<>();
   private final StageManager stageManager;
   private final ManagementTopologyEventCollector collector;
   private final DSOChannelManagerEventListener clientChain;
@@ -54,21 +58,43 @@ public class ClientEntityStateManagerImpl implements ClientEntityStateManager {
 
   @Override
   public void addReference(ClientID clientID, EntityDescriptor entityDescriptor) {
-    boolean didAdd = clientStates.put(clientID, entityDescriptor);
-    // We currently assume that we are being used precisely:  all add/remove calls are expected to have a specific meaning.
-    Assert.assertTrue(didAdd);
+    EntityID entityID = entityDescriptor.getEntityID();
+    clientStates.compute(clientID, (client, references) -> {
+      ConcurrentMap<EntityID, Set<EntityDescriptor>> current = (references != null) ? references : new ConcurrentHashMap<>();
+      boolean didAdd = current.computeIfAbsent(entityID, eid -> ConcurrentHashMap.newKeySet()).add(entityDescriptor);
+      // We currently assume that we are being used precisely:  all add/remove calls are expected to have a specific meaning.
+      Assert.assertTrue(didAdd);
+      return current;
+    });
+    entityReferenceCounts.merge(entityID, 1, Integer::sum);
   }
 
   @Override
   public void removeReference(ClientID clientID, EntityDescriptor entityDescriptor) {
-    boolean didRemove = clientStates.remove(clientID, entityDescriptor);
-    // We currently assume that we are being used precisely:  all add/remove calls are expected to have a specific meaning.
-    Assert.assertTrue(didRemove);
+    EntityID entityID = entityDescriptor.getEntityID();
+    clientStates.compute(clientID, (client, references) -> {
+      Set<EntityDescriptor> forEntity = (references != null) ? references.get(entityID) : null;
+      boolean didRemove = (forEntity != null) && forEntity.remove(entityDescriptor);
+      // We currently assume that we are being used precisely:  all add/remove calls are expected to have a specific meaning.
+      Assert.assertTrue(didRemove);
+      if (forEntity.isEmpty()) {
+        references.remove(entityID);
+      }
+      return references.isEmpty() ? null : references;
+    });
+    entityReferenceCounts.computeIfPresent(entityID, (eid, count) -> (count > 1) ? count - 1 : null);
   }
 
   @Override
   public boolean verifyNoReferences(EntityID eid) {
-    return !clientStates.values().stream().anyMatch((ed)->ed.getEntityID().equals(eid));
+    return !entityReferenceCounts.containsKey(eid);
+  }
+
+  @Override
+  public List<EntityDescriptor> getReferences(ClientID clientID, EntityID entityID) {
+    Map<EntityID, Set<EntityDescriptor>> references = clientStates.get(clientID);
+    Set<EntityDescriptor> forEntity = (references != null) ? references.get(entityID) : null;
+    return (forEntity != null) ? new ArrayList<>(forEntity) : new ArrayList<>();
   }
 
   @Override
@@ -82,69 +108,24 @@ public class ClientEntityStateManagerImpl implements ClientEntityStateManager {
     // We know that this is a remote client so make the down-cast.
     ClientID client = (ClientID) node;
     
-    List<EntityDescriptor> list = new ArrayList(this.clientStates.get(client));
+    List<EntityDescriptor> list = new ArrayList<>();
+    Map<EntityID, Set<EntityDescriptor>> references = this.clientStates.get(client);
+    if (references != null) {
+      for (Set<EntityDescriptor> forEntity : references.values()) {
+        list.addAll(forEntity);
+      }
+    }
     collector.expectedReleases(client, list);
-    Sink<VoltronEntityMessage> remover = stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).getSink();
-    // Note that we will clean these up when the removal request comes through so leave the clientStates unchanged, for now.
+    // One descriptor per entity is enough, each entity releases all of the client's references to it in a single pass.
+    Map<EntityID, EntityDescriptor> entities = new LinkedHashMap<>();
     for (EntityDescriptor oneInstance : list) {
-      remover.addSingleThreaded(new RemovalMessage(client, oneInstance));
+      entities.putIfAbsent(oneInstance.getEntityID(), oneInstance);
     }
-    clientChain.channelRemoved(channel);
-  }
-
-  private static class RemovalMessage implements VoltronEntityMessage {
-    private static final byte[] EMPTY_EXTENDED_DATA = new byte[0];
-    private final ClientID clientID;
-    private final EntityDescriptor entityDescriptor;
-
-    public RemovalMessage(ClientID clientID, EntityDescriptor entityDescriptor) {
-      this.clientID = clientID;
-      this.entityDescriptor = entityDescriptor;
-    }
-
-    @Override
-    public ClientID getSource() {
-      return clientID;
-    }
-
-    @Override
-    public TransactionID getTransactionID() {
-      return TransactionID.NULL_ID;
-    }
-
-    @Override
-    public EntityDescriptor getEntityDescriptor() {
-      return this.entityDescriptor;
-    }
-
-    @Override
-    public boolean doesRequireReplication() {
-      return false;
-    }
-
-    @Override
-    public Type getVoltronType() {
-      return Type.RELEASE_ENTITY;
-    }
-
-    @Override
-    public byte[] getExtendedData() {
-      return EMPTY_EXTENDED_DATA;
-    }
-
-    @Override
-    public TransactionID getOldestTransactionOnClient() {
-      // This message isn't from a "client", in the traditional sense, so there isn't an "oldest transaction".
-      // Since it is a disconnect, that means that this client can't end up in a reconnect scenario.  Therefore, we
-      // will return null, here, and define that to mean that the client is no longer requiring persistent ordering.
-      // Note that it may be worth making this a more explicit case in case other unexpected null cases are found.
-      return null;
-    }
-
-    @Override
-    public EntityMessage getEntityMessage() {
-      // There is no message instance for this type.
-      return null;
+    // Note that we will clean these up when the disconnect comes through so leave the clientStates unchanged, for now.
+    if (!entities.isEmpty()) {
+      Sink<VoltronEntityMessage> remover = stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).getSink();
+      remover.addSingleThreaded(new ClientDisconnectMessage(client, new ArrayList<>(entities.values())));
     }
+    clientChain.channelRemoved(channel);
   }
 }
@@ -30,6 +30,8 @@ import com.tc.object.EntityID;
 import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.services.TerracottaServiceProviderRegistry;
 import com.tc.util.Assert;
 import java.util.ArrayList;
@@ -59,6 +61,8 @@ public class EntityManagerImpl implements EntityManager {
   
   private final RequestProcessor processorPipeline;
   private boolean shouldCreateActiveEntities;
+  private final boolean lazyLoad = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_RESTART_LAZY_ENTITY_LOAD, false);
+  private final boolean warmUp = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_RESTART_WARMUP, true);
 
   public EntityManagerImpl(TerracottaServiceProviderRegistry serviceRegistry, 
       ClientEntityStateManager clientEntityStateManager, ITopologyEventCollector eventCollector, 
@@ -101,6 +105,12 @@ public class EntityManagerImpl implements EntityManager {
     }
 //  only enter active state after all the entities have promoted to active
     processorPipeline.enterActiveState();
+    if (lazyLoad && warmUp) {
+//  each entity still waiting to be constructed is constructed on its own management key, behind any requests already queued
+      for (ManagedEntity entity : this.entities.values()) {
+        entity.warmUp();
+      }
+    }
   }
 
   @Override
@@ -124,7 +134,11 @@ public class EntityManagerImpl implements EntityManager {
     if (entities.putIfAbsent(entityID, temp) != null) {
       throw new IllegalStateException("Double create for entity " + entityID);
     }    
-    temp.loadEntity(configuration);
+    if (lazyLoad) {
+      temp.loadEntityLazily(configuration);
+    } else {
+      temp.loadEntity(configuration);
+    }
   }
 
   @Override
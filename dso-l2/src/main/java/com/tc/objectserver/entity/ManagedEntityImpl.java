@@ -109,6 +109,10 @@ public class ManagedEntityImpl implements ManagedEntity {
   //  it presently holds the config we used when we first created passiveServerEntity (if it isn't null).  It is used
   //  when we promote to an active.
   private byte[] constructorInfo;
+  // the configuration of an existing entity whose construction has been deferred until it is first needed
+  private volatile byte[] pendingLoad;
+  // only touched by the PTH, set once the deferred construction has been put ahead of the entity's requests
+  private boolean constructionScheduled;
 
   ManagedEntityImpl(EntityID id, long version, long consumerID, BiConsumer<EntityID, Long> loopback, InternalServiceRegistry registry, ClientEntityStateManager clientEntityStateManager, ITopologyEventCollector eventCollector,
                     RequestProcessor process, EntityServerService<EntityMessage, EntityResponse> factory,
@@ -158,6 +162,9 @@ public class ManagedEntityImpl implements ManagedEntity {
  */
   @Override
   public SimpleCompletion addRequestMessage(ServerEntityRequest request, MessagePayload data, Consumer<byte[]> completion, Consumer<EntityException> exception) {
+    if (this.pendingLoad != null && !this.constructionScheduled) {
+      scheduleConstruction();
+    }
     ResultCapture resp = createManagedEntityResponse(completion, exception);
     switch (request.getAction()) {
       case NOOP:
@@ -168,6 +175,7 @@ public class ManagedEntityImpl implements ManagedEntity {
       case FETCH_ENTITY:
       case RECONFIGURE_ENTITY:
       case RELEASE_ENTITY:
+      case DISCONNECT_CLIENT:
         processLifecycleEntity(request, data, resp);
         break;
       case INVOKE_ACTION:
@@ -273,6 +281,10 @@ public class ManagedEntityImpl implements ManagedEntity {
         ((StateDumpable) passiveServerEntity).dumpStateTo(stateDumper);
       }
     }
+
+    if (pendingLoad != null) {
+      stateDumper.dumpState("load", "deferred");
+    }
   }
 
   private static interface CodecHelper<R> {
@@ -299,6 +311,9 @@ public class ManagedEntityImpl implements ManagedEntity {
     if (!this.isInActiveState) {
       throw new IllegalStateException("server is not active");
     }
+    if (this.pendingLoad != null) {
+      constructAndWait();
+    }
     Assert.assertNotNull(this.activeServerEntity);
     Lock write = reconnectAccessLock.writeLock();
     try {
@@ -329,6 +344,9 @@ public class ManagedEntityImpl implements ManagedEntity {
         case RELEASE_ENTITY:
           releaseEntity(request, resp);
           break;
+        case DISCONNECT_CLIENT:
+          disconnectClientFromEntity(request, resp);
+          break;
         case RECONFIGURE_ENTITY:
           reconfigureEntity(resp, payload.getRawPayload());
           break;
@@ -652,6 +670,60 @@ public class ManagedEntityImpl implements ManagedEntity {
     this.loadExisting(configuration);
   }
 
+  @Override
+  public void loadEntityLazily(byte[] configuration) {
+    Assert.assertNull(this.activeServerEntity);
+    Assert.assertNull(this.passiveServerEntity);
+    this.constructorInfo = configuration;
+    this.isDestroyed = false;
+    this.pendingLoad = configuration;
+  }
+
+  @Override
+  public void warmUp() {
+    if (this.pendingLoad != null) {
+//  a noop through the PTH puts the construction on this entity's management key like any other first request
+      noopLoopback.accept(id, version);
+    }
+  }
+
+  /**
+   * Puts the deferred construction ahead of the request being added.  It runs on the management key so the entity's
+   * later requests are held back until it is constructed.
+   */
+  private void scheduleConstruction() {
+    EntityDescriptor entityDescriptor = new EntityDescriptor(this.id, ClientInstanceID.NULL_ID, this.version);
+    ServerEntityRequest construct = new ServerEntityRequestImpl(entityDescriptor, ServerEntityAction.NOOP, ClientID.NULL_ID, TransactionID.NULL_ID, TransactionID.NULL_ID, Collections.emptySet());
+    scheduleInOrder(entityDescriptor, construct, new ResultCapture(null, null), MessagePayload.EMPTY, this::completePendingLoad, ConcurrencyStrategy.MANAGEMENT_KEY);
+    this.constructionScheduled = true;
+  }
+
+  /**
+   * Constructs the deferred entity on its management key and waits for it, for callers outside the PTH which need the
+   * entity right away.
+   */
+  private void constructAndWait() {
+    EntityDescriptor entityDescriptor = new EntityDescriptor(this.id, ClientInstanceID.NULL_ID, this.version);
+    BarrierCompletion constructed = new BarrierCompletion();
+    this.executor.scheduleRequest(entityDescriptor, new ServerEntityRequestImpl(entityDescriptor, ServerEntityAction.NOOP, ClientID.NULL_ID, TransactionID.NULL_ID, TransactionID.NULL_ID, Collections.emptySet()), MessagePayload.EMPTY, ()-> {
+        try {
+          completePendingLoad();
+        } finally {
+          constructed.complete();
+        }
+      }, ConcurrencyStrategy.MANAGEMENT_KEY);
+    constructed.waitForCompletion();
+  }
+
+  private synchronized void completePendingLoad() {
+    byte[] configuration = this.pendingLoad;
+    if (configuration != null) {
+      loadExisting(configuration);
+//  only clear once constructed so that no caller can pass through warmUp before the entity exists
+      this.pendingLoad = null;
+    }
+  }
+
   private void getEntity(ServerEntityRequest getEntityRequest, ResultCapture response) {
     if (this.isInActiveState) {
       if (this.isDestroyed) {
@@ -697,6 +769,23 @@ public class ManagedEntityImpl implements ManagedEntity {
     }
   }
   
+  private void disconnectClientFromEntity(ServerEntityRequest request, ResultCapture response) {
+    if (this.isInActiveState) {
+      if (!this.isDestroyed && null != this.activeServerEntity) {
+        ClientID clientID = (ClientID) request.getNodeID();
+        // Every reference the client still holds is released, including any fetched after the disconnect was queued.
+        for (EntityDescriptor entityDescriptor : clientEntityStateManager.getReferences(clientID, this.getID())) {
+          clientEntityStateManager.removeReference(clientID, entityDescriptor);
+          this.activeServerEntity.disconnected(new ClientDescriptorImpl(clientID, entityDescriptor));
+        }
+        this.eventCollector.clientDidReleaseAllReferences(clientID, this.getID());
+      }
+      response.complete();
+    } else {
+      throw new IllegalStateException("DISCONNECT called on passive entity.");
+    }
+  }
+
   private EntityDescriptor getEntityDescriptorForSource(ClientDescriptor sourceDescriptor) {
     // We are in internal code so downcast the descriptor.
     ClientDescriptorImpl rawDescriptor = (ClientDescriptorImpl)sourceDescriptor;
@@ -711,7 +800,10 @@ public class ManagedEntityImpl implements ManagedEntity {
 //  checking destroyed here should be fine.  no other threads should be touching during promote
     if (!this.isDestroyed) {
       this.isInActiveState = true;
-      if (null != this.passiveServerEntity) {
+      if (null != this.pendingLoad) {
+//  never constructed as a passive, it will be constructed directly as an active when first needed
+        logger.debug("deferring promotion of " + this.getID() + " until first use");
+      } else if (null != this.passiveServerEntity) {
         this.activeServerEntity = factory.createActiveEntity(this.registry, this.constructorInfo);
         this.concurrencyStrategy = factory.getConcurrencyStrategy(this.constructorInfo);
         this.activeServerEntity.loadExisting();
@@ -726,6 +818,9 @@ public class ManagedEntityImpl implements ManagedEntity {
   
   @Override
   public void sync(NodeID passive) {
+    if (this.pendingLoad != null) {
+      constructAndWait();
+    }
     try {
   // wait for future is ok, occuring on sync executor thread
       executor.scheduleSync(PassiveSyncMessage.createStartEntityMessage(id, version, constructorInfo, canDelete), passive).waitForCompleted();
@@ -847,6 +942,11 @@ public class ManagedEntityImpl implements ManagedEntity {
       return passive == null ? Collections.emptySet() : Collections.singleton(passive);
     }
 
+    @Override
+    public boolean requiresReplication() {
+      return false;
+    }
+
     @Override
     public ClientDescriptor getSourceDescriptor() {
       return null;
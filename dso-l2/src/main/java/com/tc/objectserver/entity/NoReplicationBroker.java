@@ -23,6 +23,7 @@ import com.tc.net.NodeID;
 import com.tc.util.Assert;
 import java.util.Collections;
 import java.util.Set;
+import java.util.function.Function;
 
 
 /**
@@ -47,7 +48,12 @@ public class NoReplicationBroker implements PassiveReplicationBroker {
   }
 
   @Override
-  public ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Set<NodeID> passives) {
+  public boolean keepsReplicationLog() {
+    return false;
+  }
+
+  @Override
+  public ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Function<Set<NodeID>, Set<NodeID>> replicateTo) {
     return NOOP_WAITER;
   }
 }
@@ -21,10 +21,19 @@ package com.tc.objectserver.entity;
 import com.tc.l2.msg.ReplicationMessage;
 import com.tc.net.NodeID;
 import java.util.Set;
+import java.util.function.Function;
 
 
 public interface PassiveReplicationBroker {
-  ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Set<NodeID> passives);
+/**
+ * @param replicateTo chooses the passives to send the message to from the passives attached when the message is 
+ * ordered for replication
+ */
+  ActivePassiveAckWaiter replicateMessage(ReplicationMessage msg, Function<Set<NodeID>, Set<NodeID>> replicateTo);
   Set<NodeID> passives();
   void enterActiveState();
+/**
+ * @return true if replicated messages are logged for passive resync even when no passives are attached
+ */
+  boolean keepsReplicationLog();
 }
@@ -109,6 +109,17 @@ public class PlatformEntity implements ManagedEntity {
     throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
   }
 
+  @Override
+  public void loadEntityLazily(byte[] configuration) {
+    // The platform entity is created with the server and never loaded from storage.
+    Assert.fail();
+  }
+
+  @Override
+  public void warmUp() {
+    // the platform entity is always constructed
+  }
+
   @Override
   public MessageCodec<?, ?> getCodec() {
     // The platform entity has no codec so calling this means there is an error elsewhere.
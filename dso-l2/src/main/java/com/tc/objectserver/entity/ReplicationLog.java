@@ -0,0 +1,136 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.l2.msg.ReplicationMessage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+
+/**
+ * A bounded, in-memory record of the most recent messages replicated by this active.  Each logged message is
+ * given a sequence in the log.  A passive which restarts with its persistent state intact reports the epoch
+ * and the last sequence it applied and, as long as the log still covers that position, is brought current by
+ * replaying the tail of the log rather than by a full passive sync.
+ *
+ * The epoch identifies the lifetime of this active.  Sequences are only meaningful within the same epoch.
+ */
+public class ReplicationLog {
+//  rough accounting of the fixed cost of holding a message in the log
+  private static final int MESSAGE_OVERHEAD = 128;
+
+  private final String epoch;
+  private final int maxMessages;
+  private final long maxBytes;
+  private final Deque<ReplicationMessage> log = new ArrayDeque<>();
+  private long sequence = 0;
+  private long bytes = 0;
+
+  public ReplicationLog(String epoch, int maxMessages, long maxBytes) {
+    this.epoch = epoch;
+    this.maxMessages = maxMessages;
+    this.maxBytes = maxBytes;
+  }
+
+  public String getEpoch() {
+    return epoch;
+  }
+
+  public boolean isEnabled() {
+    return maxMessages > 0 && maxBytes > 0;
+  }
+
+  public synchronized long getLastSequence() {
+    return sequence;
+  }
+
+  public synchronized int size() {
+    return log.size();
+  }
+
+  /**
+   * Assigns the next log sequence to the message and retains a copy of it.  Messages which are never sent
+   * to a passive are not logged.
+   */
+  public synchronized void append(ReplicationMessage msg) {
+    if (!isEnabled() || msg.getType() != ReplicationMessage.REPLICATE) {
+      return;
+    }
+//  see ReplicationSender, noops without a source are not replicated
+    if (msg.getReplicationType() == ReplicationMessage.ReplicationType.NOOP && msg.getSource().isNull()) {
+      return;
+    }
+    sequence += 1;
+    msg.setLogSequence(sequence);
+//  the replication sender modifies the messages it sends so the log holds its own copy
+    ReplicationMessage copy = copy(msg);
+    log.addLast(copy);
+    bytes += sizeOf(copy);
+    while (log.size() > maxMessages || bytes > maxBytes) {
+      bytes -= sizeOf(log.removeFirst());
+    }
+  }
+
+  /**
+   * Provides copies of all the logged messages which follow the given position.
+   *
+   * @param epoch the epoch the position was recorded in
+   * @param lastApplied the last sequence applied by the passive
+   * @return the messages to replay, in order, or null if the log does not cover the position and
+   * a full passive sync is required
+   */
+  public synchronized List<ReplicationMessage> tailFrom(String epoch, long lastApplied) {
+    if (!covers(epoch, lastApplied)) {
+      return null;
+    }
+    List<ReplicationMessage> tail = new ArrayList<>();
+    for (ReplicationMessage msg : log) {
+      if (msg.getLogSequence() > lastApplied) {
+        tail.add(copy(msg));
+      }
+    }
+    return tail;
+  }
+
+  /**
+   * @return true if every message after the given position is still held in the log
+   */
+  public synchronized boolean covers(String epoch, long lastApplied) {
+    if (!isEnabled() || !this.epoch.equals(epoch) || lastApplied > sequence) {
+      return false;
+    }
+    long first = log.isEmpty() ? sequence + 1 : log.peekFirst().getLogSequence();
+//  otherwise the log has been truncated past this position
+    return lastApplied + 1 >= first;
+  }
+
+  private static ReplicationMessage copy(ReplicationMessage msg) {
+    ReplicationMessage copy = ReplicationMessage.createReplicatedMessage(msg.getEntityDescriptor(), msg.getSource(),
+        msg.getTransactionID(), msg.getOldestTransactionOnClient(), msg.getReplicationType(), msg.getExtendedData(), msg.getConcurrency());
+    copy.setLogSequence(msg.getLogSequence());
+    return copy;
+  }
+
+  private static long sizeOf(ReplicationMessage msg) {
+    byte[] payload = msg.getExtendedData();
+    return MESSAGE_OVERHEAD + (payload == null ? 0 : payload.length);
+  }
+}
@@ -54,7 +54,7 @@ public class RequestProcessor {
   }
 
   public ActivePassiveAckWaiter scheduleSync(PassiveSyncMessage msg, NodeID passive) {
-    return passives.replicateMessage(msg, Collections.singleton(passive));
+    return passives.replicateMessage(msg, current -> Collections.singleton(passive));
   }
   
   public void setReplication(PassiveReplicationBroker passives) {
@@ -66,10 +66,13 @@ public class RequestProcessor {
 //  to happen in the same order.  synchronizing this method enforces that
   public synchronized ActivePassiveAckWaiter scheduleRequest(EntityDescriptor entity, ServerEntityRequest request, MessagePayload payload, Runnable call, int concurrencyKey) {
     // Unless this is a message type we allow to choose its own concurrency key, we will use management (default for all internal operations).
-    Set<NodeID> replicateTo = (isActive && passives != null) ? request.replicateTo(passives.passives()) : Collections.emptySet();
-    ActivePassiveAckWaiter token = (!replicateTo.isEmpty())
+//  with no passives attached the message is still handed to the broker when it is being logged for passive resync.  
+//  the broker picks the passives under the log monitor so a passive being resynced cannot miss the message
+    boolean replicate = isActive && passives != null
+        && ((request.requiresReplication() && passives.keepsReplicationLog()) || !request.replicateTo(passives.passives()).isEmpty());
+    ActivePassiveAckWaiter token = replicate
         ? passives.replicateMessage(createReplicationMessage(entity, request.getNodeID(), request.getAction(), 
-            request.getTransaction(), request.getOldestTransactionOnClient(), payload.getRawPayload(), concurrencyKey), replicateTo)
+            request.getTransaction(), request.getOldestTransactionOnClient(), payload.getRawPayload(), concurrencyKey), request::replicateTo)
         : NoReplicationBroker.NOOP_WAITER;
     EntityRequest entityRequest =  new EntityRequest(entity, call, concurrencyKey, token);
     requestExecution.addMultiThreaded(entityRequest);
@@ -99,6 +102,7 @@ public class RequestProcessor {
         actionCode = ReplicationMessage.ReplicationType.NOOP;
         break;
       case RELEASE_ENTITY:
+      case DISCONNECT_CLIENT:
         actionCode = ReplicationMessage.ReplicationType.NOOP;
         break;
       case REQUEST_SYNC_ENTITY:
@@ -78,4 +78,10 @@ public class ServerEntityRequestImpl implements ServerEntityRequest {
     return replicates;
   }
 
+  @Override
+  public boolean requiresReplication() {
+//  these requests are only ever replicated to the specific set of nodes they were built with
+    return false;
+  }
+
 }
@@ -20,22 +20,33 @@ package com.tc.objectserver.entity;
 
 import com.tc.entity.MessageCodecSupplier;
 import com.tc.async.api.Sink;
+import com.tc.async.api.SpecializedEventContext;
 import com.tc.entity.NetworkVoltronEntityMessage;
 import com.tc.entity.VoltronEntityMessage;
+import com.tc.exception.ServerBusyException;
 import com.tc.net.protocol.tcm.HydrateContext;
+import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.TCMessage;
 import com.tc.net.protocol.tcm.TCMessageSink;
+import com.tc.objectserver.api.ServerEntityAction;
+import com.tc.stats.Stats;
+
+import java.util.Optional;
 
 public class VoltronMessageSink implements TCMessageSink {
   private final Sink<VoltronEntityMessage> destSink;
   private final Sink<HydrateContext> hydrateSink;
   private final MessageCodecSupplier codecSupplier;
+  private final AdmissionController admission;
+  private final Sink<VoltronEntityMessage> admittingSink;
   
 
-  public VoltronMessageSink(Sink<VoltronEntityMessage> destSink, Sink<HydrateContext> hydrateSink, MessageCodecSupplier codecSupplier) {
+  public VoltronMessageSink(Sink<VoltronEntityMessage> destSink, Sink<HydrateContext> hydrateSink, MessageCodecSupplier codecSupplier, AdmissionController admission) {
     this.destSink = destSink;
     this.hydrateSink = hydrateSink;
     this.codecSupplier = codecSupplier;
+    this.admission = admission;
+    this.admittingSink = new AdmittingSink();
   }
 
   @Override
@@ -43,10 +54,90 @@ public class VoltronMessageSink implements TCMessageSink {
     if (message instanceof NetworkVoltronEntityMessage) {
       ((NetworkVoltronEntityMessage)message).setMessageCodecSupplier(codecSupplier);
     }
-    HydrateContext<VoltronEntityMessage> context = new HydrateContext<>(message, destSink);
+//  admission is decided once the message is hydrated, on the hydrate stage, so the comms thread never waits on it
+    HydrateContext<VoltronEntityMessage> context = new HydrateContext<>(message, admittingSink);
     hydrateSink.addMultiThreaded(context);
   }
-  
-    
-  
+
+  private void shed(VoltronEntityMessage message, ServerBusyException busy) {
+//  the invoke never reaches the entity so it is received, failed and retired in one go
+    Optional<MessageChannel> channel = Optional.of(((TCMessage)message).getChannel());
+    ServerEntityRequestResponse response = new ServerEntityRequestResponse(message.getEntityDescriptor(), ServerEntityAction.INVOKE_ACTION, 
+        message.getTransactionID(), message.getOldestTransactionOnClient(), message.getSource(), false, channel, false);
+    response.setAutoRetire();
+    response.received();
+    response.failure(busy);
+  }
+
+  /**
+   * Passes hydrated messages on to the voltron message stage if the admission controller lets them in.
+   */
+  private class AdmittingSink implements Sink<VoltronEntityMessage> {
+    @Override
+    public void addSingleThreaded(VoltronEntityMessage context) {
+      ServerBusyException busy = admission.admit(context);
+      if (busy == null) {
+        destSink.addSingleThreaded(context);
+      } else {
+        shed(context, busy);
+      }
+    }
+
+    @Override
+    public void addMultiThreaded(VoltronEntityMessage context) {
+      ServerBusyException busy = admission.admit(context);
+      if (busy == null) {
+        destSink.addMultiThreaded(context);
+      } else {
+        shed(context, busy);
+      }
+    }
+
+    @Override
+    public void addSpecialized(SpecializedEventContext specialized) {
+      destSink.addSpecialized(specialized);
+    }
+
+    @Override
+    public int size() {
+      return destSink.size();
+    }
+
+    @Override
+    public void clear() {
+      destSink.clear();
+//  nothing that was queued will be picked up, so none of it counts against its client or entity any more
+      admission.clear();
+    }
+
+    @Override
+    public void setClosed(boolean closed) {
+      destSink.setClosed(closed);
+    }
+
+    @Override
+    public void enableStatsCollection(boolean enable) {
+      destSink.enableStatsCollection(enable);
+    }
+
+    @Override
+    public boolean isStatsCollectionEnabled() {
+      return destSink.isStatsCollectionEnabled();
+    }
+
+    @Override
+    public Stats getStats(long frequency) {
+      return destSink.getStats(frequency);
+    }
+
+    @Override
+    public Stats getStatsAndReset(long frequency) {
+      return destSink.getStatsAndReset(frequency);
+    }
+
+    @Override
+    public void resetStats() {
+      destSink.resetStats();
+    }
+  }
 }
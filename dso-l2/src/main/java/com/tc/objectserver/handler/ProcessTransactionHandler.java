@@ -22,6 +22,7 @@ import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventHandlerException;
 import com.tc.async.api.Sink;
+import com.tc.async.api.SpecializedEventContext;
 import com.tc.async.api.Stage;
 import com.tc.entity.ResendVoltronEntityMessage;
 import com.tc.entity.VoltronEntityAppliedResponse;
@@ -44,22 +45,32 @@ import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.api.ManagedEntity;
 import com.tc.objectserver.api.ServerEntityAction;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.entity.AdmissionController;
+import com.tc.objectserver.entity.ClientDisconnectMessage;
 import com.tc.objectserver.entity.MessagePayload;
+import com.tc.objectserver.entity.PlatformEntity;
 import com.tc.objectserver.api.Retiree;
 import com.tc.objectserver.entity.ServerEntityRequestResponse;
 import com.tc.objectserver.persistence.EntityData;
 import com.tc.objectserver.persistence.EntityPersistor;
 import com.tc.objectserver.persistence.TransactionOrderPersistor;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
-import com.tc.util.SparseList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.MessageCodecException;
@@ -76,10 +87,23 @@ public class ProcessTransactionHandler {
   
   private final EntityManager entityManager;
   private final DSOChannelManager dsoChannelManager;
+  private final AdmissionController admission;
   
-  // Data required for handling transaction resends.
-  private SparseList<ResendVoltronEntityMessage> resendReplayList;
-  private List<ResendVoltronEntityMessage> resendNewList;
+  // Fetches and releases are replicated so that the passives know which entities each client uses, see ClientEntityHistory.
+  private static final boolean REPLICATE_REFERENCES = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_RECONNECT_EARLY_SERVICE_ENABLED, false);
+
+  // Data required for handling transaction resends.  The replay order is built from the persisted order when the
+  // first resend arrives.
+  private ResendReplay resendReplay;
+  private boolean resendsProcessed = false;
+
+  // Data required for serving reconnected clients before the reconnect window closes.  gatedEntities is only set while
+  // the window is open, see startEarlyService.
+  private Set<EntityID> gatedEntities;
+  private ResendReplay resendOrder;
+  private final Map<EntityID, EarlyWork> earlyWork = new HashMap<>();
+  private final List<VoltronEntityMessage> deferredUntilStart = new ArrayList<>();
+  private boolean earlyServiceEnding = false;
   
   private Sink<TCMessage> multiSend;
   private ConcurrentHashMap<ClientID, TCMessage> invokeReturn = new ConcurrentHashMap<>();
@@ -110,18 +134,13 @@ public class ProcessTransactionHandler {
 //  resends are processed in this manner so invokes are scheduled by the expected stage thread
 //  see ManagedEntityImpl.scheduleInOrder()
 //  the call always happens and immediately returns if the resends have already been processed
+      admission.dequeued(message);
       processAllResends();
-      ClientID sourceNodeID = message.getSource();
-      EntityDescriptor descriptor = message.getEntityDescriptor();
-      ServerEntityAction action = decodeMessageType(message.getVoltronType());
-      EntityMessage entityMessage = message.getEntityMessage();
-      byte[] extendedData = message.getExtendedData();
-
-      TransactionID transactionID = message.getTransactionID();
-      boolean doesRequireReplication = message.doesRequireReplication();
-      TransactionID oldestTransactionOnClient = message.getOldestTransactionOnClient();
-      
-      ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, new MessagePayload(extendedData, entityMessage), transactionID, doesRequireReplication, oldestTransactionOnClient);
+      if (isForgedDisconnect(message)) {
+        rejectForgedDisconnect(message);
+      } else if (!serveEarly(message)) {
+        handleMessage(message);
+      }
     }
 
     @Override
@@ -143,14 +162,55 @@ public class ProcessTransactionHandler {
     return this.voltronHandler;
   }
 
+  private void handleMessage(VoltronEntityMessage message) {
+    if (VoltronEntityMessage.Type.DISCONNECT_CLIENT == message.getVoltronType()) {
+      disconnectClient(message.getSource(), ((ClientDisconnectMessage)message).getEntities());
+      return;
+    }
+    ClientID sourceNodeID = message.getSource();
+    EntityDescriptor descriptor = message.getEntityDescriptor();
+    ServerEntityAction action = decodeMessageType(message.getVoltronType());
+    EntityMessage entityMessage = message.getEntityMessage();
+    byte[] extendedData = message.getExtendedData();
+
+    TransactionID transactionID = message.getTransactionID();
+    boolean doesRequireReplication = requiresReplication(action, message.doesRequireReplication());
+    TransactionID oldestTransactionOnClient = message.getOldestTransactionOnClient();
+    
+    addMessage(sourceNodeID, descriptor, action, new MessagePayload(extendedData, entityMessage), transactionID, doesRequireReplication, oldestTransactionOnClient);
+  }
+
+  /**
+   * DISCONNECT_CLIENT is only ever queued by the server itself, as a {@link ClientDisconnectMessage}, when a client's
+   * channel goes away.  A client sending the type is refused.
+   */
+  private static boolean isForgedDisconnect(VoltronEntityMessage message) {
+    return VoltronEntityMessage.Type.DISCONNECT_CLIENT == message.getVoltronType() && !(message instanceof ClientDisconnectMessage);
+  }
+
+  private void rejectForgedDisconnect(VoltronEntityMessage message) {
+    LOGGER.warn("refusing a " + message.getVoltronType() + " request from " + message.getSource());
+    EntityID entityID = message.getEntityDescriptor().getEntityID();
+    ServerEntityRequestResponse response = new ServerEntityRequestResponse(EntityDescriptor.NULL_ID, ServerEntityAction.CREATE_ENTITY, message.getTransactionID(), message.getOldestTransactionOnClient(), message.getSource(), false, safeGetChannel(message.getSource()), false);
+    response.received();
+    response.failure(new EntityException(entityID.getClassName(), entityID.getEntityName(), "clients cannot send " + message.getVoltronType(), null) {});
+    response.retired();
+  }
+
+  private static boolean requiresReplication(ServerEntityAction action, boolean requested) {
+    return requested || (REPLICATE_REFERENCES && (ServerEntityAction.FETCH_ENTITY == action || ServerEntityAction.RELEASE_ENTITY == action));
+  }
+
   public ProcessTransactionHandler(EntityPersistor entityPersistor, TransactionOrderPersistor transactionOrderPersistor, DSOChannelManager channelManager, EntityManager entityManager) {
+    this(entityPersistor, transactionOrderPersistor, channelManager, entityManager, AdmissionController.UNLIMITED);
+  }
+
+  public ProcessTransactionHandler(EntityPersistor entityPersistor, TransactionOrderPersistor transactionOrderPersistor, DSOChannelManager channelManager, EntityManager entityManager, AdmissionController admission) {
     this.entityPersistor = entityPersistor;
     this.transactionOrderPersistor = transactionOrderPersistor;
     this.dsoChannelManager = channelManager;
     this.entityManager = entityManager;
-    
-    this.resendReplayList = new SparseList<>();
-    this.resendNewList = new LinkedList<>();
+    this.admission = admission;
   }
   
   public Iterable<ManagedEntity> getEntityList() {
@@ -346,24 +406,77 @@ public class ProcessTransactionHandler {
     }
   }
   
-  public void loadExistingEntities() {
-    for(EntityData.Value entityValue : this.entityPersistor.loadEntityData()) {
-      Assert.assertTrue(entityValue.version > 0);
-      Assert.assertTrue(entityValue.consumerID > 0);
-      EntityID entityID = new EntityID(entityValue.className, entityValue.entityName);
-      try {
-        entityManager.loadExisting(entityID, entityValue.version, entityValue.consumerID, entityValue.canDelete, entityValue.configuration);
-      } catch (EntityException e) {
-        // We aren't expecting to fail loading anything from the existing set.
-        throw new IllegalArgumentException(e);
+  /**
+   * Releases everything a departed client still references.  Each entity releases all of the client's references to it
+   * in a single operation.
+   */
+  private synchronized void disconnectClient(ClientID sourceNodeID, Collection<EntityDescriptor> entities) {
+    // The client is gone so its transaction order and entity journal persistence are discarded once, here.
+    this.transactionOrderPersistor.removeTrackingForClient(sourceNodeID);
+    this.entityPersistor.removeTrackingForClient(sourceNodeID);
+    this.admission.clientDisconnected(sourceNodeID);
+    // Passives hold no client references, they only need to discard the persistence of the client so a single
+    // disconnect is replicated through the platform entity, whether or not any of the client's entities still exist.
+    addDisconnectRequest(new EntityDescriptor(PlatformEntity.PLATFORM_ID, ClientInstanceID.NULL_ID, PlatformEntity.VERSION), sourceNodeID, true);
+    for (EntityDescriptor descriptor : entities) {
+      addDisconnectRequest(descriptor, sourceNodeID, false);
+    }
+  }
+
+  private void addDisconnectRequest(EntityDescriptor descriptor, ClientID sourceNodeID, boolean replicate) {
+    ServerEntityRequestResponse serverEntityRequest = new ServerEntityRequestResponse(descriptor, ServerEntityAction.DISCONNECT_CLIENT, TransactionID.NULL_ID, null, sourceNodeID, replicate, Optional.empty(), false);
+    serverEntityRequest.received();
+    try {
+      Optional<ManagedEntity> entity = entityManager.getEntity(descriptor.getEntityID(), descriptor.getClientSideVersion());
+      if (entity.isPresent()) {
+        serverEntityRequest.setAutoRetire();
+        entity.get().addRequestMessage(serverEntityRequest, MessagePayload.EMPTY, serverEntityRequest::complete, serverEntityRequest::failure);
+      } else {
+        LOGGER.debug("entity not found for disconnect of " + sourceNodeID + " " + descriptor.getEntityID());
+        serverEntityRequest.retired();
       }
+    } catch (EntityException ee) {
+      serverEntityRequest.failure(ee);
+      serverEntityRequest.retired();
+    }
+  }
+
+  public void loadExistingEntities() {
+    long start = System.nanoTime();
+    Collection<EntityData.Value> existing = this.entityPersistor.loadEntityData();
+    long read = System.nanoTime();
+    boolean lazy = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_RESTART_LAZY_ENTITY_LOAD, false);
+//  registration stays on this thread.  with construction deferred only bookkeeping is left and that bookkeeping (service
+//  lookup, service sub-registries, entity codecs) is not safe to race
+    for (EntityData.Value entityValue : existing) {
+      loadExistingEntity(entityValue);
+    }
+    long loaded = System.nanoTime();
+    LOGGER.info("loaded " + existing.size() + " entities in " + TimeUnit.NANOSECONDS.toMillis(loaded - start) + "ms (read: " 
+        + TimeUnit.NANOSECONDS.toMillis(read - start) + "ms, " + (lazy ? "register: " : "construct: ") 
+        + TimeUnit.NANOSECONDS.toMillis(loaded - read) + "ms" + (lazy ? ", construction deferred" : "") + ")");
+  }
+
+  private void loadExistingEntity(EntityData.Value entityValue) {
+    Assert.assertTrue(entityValue.version > 0);
+    Assert.assertTrue(entityValue.consumerID > 0);
+    EntityID entityID = new EntityID(entityValue.className, entityValue.entityName);
+    try {
+      entityManager.loadExisting(entityID, entityValue.version, entityValue.consumerID, entityValue.canDelete, entityValue.configuration);
+    } catch (EntityException e) {
+      // We aren't expecting to fail loading anything from the existing set.
+      throw new IllegalArgumentException(e);
     }
   }
 
-  public void handleResentMessage(ResendVoltronEntityMessage resentMessage) {
+  public synchronized void handleResentMessage(ResendVoltronEntityMessage resentMessage) {
+    if (isForgedDisconnect(resentMessage)) {
+      rejectForgedDisconnect(resentMessage);
+      return;
+    }
     boolean cached = false;
     byte[] result = null;
-    int index = -1;
+    boolean ordered = false;
     try {
       switch (resentMessage.getVoltronType()) {
         case CREATE_ENTITY:
@@ -380,10 +493,11 @@ public class ProcessTransactionHandler {
           break;
         case FETCH_ENTITY:
         case RELEASE_ENTITY:
+        case DISCONNECT_CLIENT:
 //  are not replicated
           break;
         default:
-          index = this.transactionOrderPersistor.getIndexToReplay(resentMessage.getSource(), resentMessage.getTransactionID());
+          ordered = true;
           break;
       }
       if (cached) {
@@ -395,10 +509,12 @@ public class ProcessTransactionHandler {
           response.complete();
         }
         response.retired();
-      } else if (index >= 0) {
-        this.resendReplayList.insert(index, resentMessage);     
+      } else if (this.gatedEntities != null) {
+        holdResend(resentMessage);
+      } else if (ordered) {
+        replayOrder().addOrdered(resentMessage);
       } else {
-        this.resendNewList.add(resentMessage);
+        replayOrder().addUnordered(resentMessage);
       }
     } catch (EntityException ee) {
       ServerEntityRequestResponse response = new ServerEntityRequestResponse(EntityDescriptor.NULL_ID, ServerEntityAction.CREATE_ENTITY, resentMessage.getTransactionID(), resentMessage.getOldestTransactionOnClient(), resentMessage.getSource(), true, safeGetChannel(resentMessage.getSource()), false);
@@ -410,26 +526,28 @@ public class ProcessTransactionHandler {
   
   private void processAllResends() {
  //   TODO:  investigate the need to fold FETCH and RELEASE resends on top of each other
-    if (this.resendReplayList == null && this.resendNewList == null) {
+    if (this.resendsProcessed) {
       return;
     }
+    this.resendsProcessed = true;
     // Clear the transaction order persistor since we are starting fresh.
     this.transactionOrderPersistor.clearAllRecords();
     
-    // Replay all the already-ordered messages.
-    for (ResendVoltronEntityMessage message : this.resendReplayList) {
-      executeResend(message);
-    }
-    this.resendReplayList = null;
-    
-    // Replay all the new messages found during resends.
-    for (ResendVoltronEntityMessage message : this.resendNewList) {
-      executeResend(message);
+    // Replay the already-ordered messages followed by the new messages found during resends.
+    if (this.resendReplay != null) {
+      this.resendReplay.replay(this::executeResend);
+      this.resendReplay = null;
     }
 //  remove tracking for any resent create journal entries
     entityPersistor.removeTrackingForClient(ClientID.NULL_ID);
-    
-    this.resendNewList = null;
+  }
+
+  // Should be called with the handler locked and before the transaction order persistor is cleared
+  private ResendReplay replayOrder() {
+    if (this.resendReplay == null) {
+      this.resendReplay = new ResendReplay(this.transactionOrderPersistor.getGlobalOrder());
+    }
+    return this.resendReplay;
   }
 
   private Optional<MessageChannel> safeGetChannel(NodeID id) {
@@ -450,12 +568,158 @@ public class ProcessTransactionHandler {
     byte[] extendedData = message.getExtendedData();
 
     TransactionID transactionID = message.getTransactionID();
-    boolean doesRequireReplication = message.doesRequireReplication();
+    boolean doesRequireReplication = requiresReplication(action, message.doesRequireReplication());
     TransactionID oldestTransactionOnClient = message.getOldestTransactionOnClient();
     
     ProcessTransactionHandler.this.addMessage(sourceNodeID, descriptor, action, new MessagePayload(extendedData, entityMessage), transactionID, doesRequireReplication, oldestTransactionOnClient);
   }
 
+  /**
+   * Starts serving the clients which have already reconnected while the reconnect window is still open.  Requests and
+   * resends for the gated entities, those which might still be waiting for a client which has not reconnected, are held
+   * back until the entity is no longer gated.  Everything else is handled as soon as it arrives.
+   * 
+   * Since resends now arrive while the transaction order is being recorded again, their order is taken from the replay
+   * order built before the records are cleared and resends are only ordered relative to the other resends for the same
+   * entity.
+   */
+  public synchronized void startEarlyService(Set<EntityID> gated) {
+    Assert.assertNull(this.gatedEntities);
+    this.resendOrder = replayOrder();
+    this.resendReplay = null;
+    this.resendsProcessed = true;
+    // Clear the transaction order persistor since the resends are recorded again as they are replayed.
+    this.transactionOrderPersistor.clearAllRecords();
+    this.gatedEntities = gated;
+    this.resendOrder.replay(this::holdResend);
+  }
+
+  /**
+   * Called as clients reconnect with the entities which are still gated.  What was held for the others is released by
+   * the release event from {@link #getEarlyWorkRelease()}.
+   */
+  public synchronized void updateEarlyService(Set<EntityID> gated) {
+    Assert.assertNotNull(this.gatedEntities);
+    this.gatedEntities = gated;
+  }
+
+  /**
+   * Called once the reconnect window closes.  Everything still held back is handled once the release event from
+   * {@link #getEarlyWorkRelease()} runs, or before the next request if that comes first.
+   */
+  public synchronized void endEarlyService() {
+    Assert.assertNotNull(this.gatedEntities);
+    this.gatedEntities = Collections.emptySet();
+    this.earlyServiceEnding = true;
+  }
+
+  /**
+   * @return an event which, run on the voltron message stage, handles what was held back for the entities which are no
+   * longer gated, and everything that was held once early service has ended
+   */
+  public SpecializedEventContext getEarlyWorkRelease() {
+    return this.earlyWorkRelease;
+  }
+
+  private final SpecializedEventContext earlyWorkRelease = new SpecializedEventContext() {
+    @Override
+    public void execute() {
+      releaseHeldWork();
+    }
+
+    @Override
+    public Object getSchedulingKey() {
+      return null;
+    }
+
+    @Override
+    public boolean flush() {
+      return false;
+    }
+  };
+
+  /**
+   * @return true if early service is still going on
+   */
+  private synchronized boolean releaseHeldWork() {
+    if (this.gatedEntities == null) {
+      return false;
+    }
+    releaseEarlyWork();
+    if (this.earlyServiceEnding) {
+      for (VoltronEntityMessage deferred : this.deferredUntilStart) {
+        handleMessage(deferred);
+      }
+      this.deferredUntilStart.clear();
+  //  remove tracking for any resent create journal entries
+      this.entityPersistor.removeTrackingForClient(ClientID.NULL_ID);
+      this.gatedEntities = null;
+      this.resendOrder = null;
+      this.earlyServiceEnding = false;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the message is held back since its entity is gated
+   */
+  private synchronized boolean serveEarly(VoltronEntityMessage message) {
+    // anything released since the last release event ran goes ahead of this message
+    if (!releaseHeldWork()) {
+      return false;
+    }
+    if (VoltronEntityMessage.Type.DISCONNECT_CLIENT == message.getVoltronType()) {
+      for (EntityDescriptor descriptor : ((ClientDisconnectMessage)message).getEntities()) {
+        if (this.gatedEntities.contains(descriptor.getEntityID())) {
+          this.deferredUntilStart.add(message);
+          return true;
+        }
+      }
+      return false;
+    }
+    EntityID entityID = message.getEntityDescriptor().getEntityID();
+    if (this.gatedEntities.contains(entityID)) {
+      earlyWorkFor(entityID).deferred.add(message);
+      return true;
+    }
+    return false;
+  }
+
+  private void releaseEarlyWork() {
+    Iterator<Map.Entry<EntityID, EarlyWork>> walk = this.earlyWork.entrySet().iterator();
+    while (walk.hasNext()) {
+      Map.Entry<EntityID, EarlyWork> next = walk.next();
+      if (!this.gatedEntities.contains(next.getKey())) {
+        walk.remove();
+        EarlyWork work = next.getValue();
+        for (ResendVoltronEntityMessage resend : work.orderedResends.values()) {
+          executeResend(resend);
+        }
+        for (ResendVoltronEntityMessage resend : work.newResends) {
+          executeResend(resend);
+        }
+        for (VoltronEntityMessage message : work.deferred) {
+          handleMessage(message);
+        }
+      }
+    }
+  }
+
+  private void holdResend(ResendVoltronEntityMessage resend) {
+    EarlyWork work = earlyWorkFor(resend.getEntityDescriptor().getEntityID());
+    int position = this.resendOrder.positionOf(resend.getSource(), resend.getTransactionID());
+    if (position >= 0) {
+      work.orderedResends.put(position, resend);
+    } else {
+      work.newResends.add(resend);
+    }
+  }
+
+  private EarlyWork earlyWorkFor(EntityID entityID) {
+    return this.earlyWork.computeIfAbsent(entityID, eid -> new EarlyWork());
+  }
+
   private static ServerEntityAction decodeMessageType(VoltronEntityMessage.Type type) {
     // Decode the appropriate server-internal action from this request type.
     ServerEntityAction action = null;
@@ -481,6 +745,9 @@ public class ProcessTransactionHandler {
       case NOOP:
         action = ServerEntityAction.NOOP;
         break;
+      case DISCONNECT_CLIENT:
+        action = ServerEntityAction.DISCONNECT_CLIENT;
+        break;
       default:
         // Unknown request type.
         Assert.fail();
@@ -489,6 +756,12 @@ public class ProcessTransactionHandler {
     return action;
   }
   
+  private static class EarlyWork {
+    private final SortedMap<Integer, ResendVoltronEntityMessage> orderedResends = new TreeMap<>();
+    private final List<ResendVoltronEntityMessage> newResends = new ArrayList<>();
+    private final List<VoltronEntityMessage> deferred = new ArrayList<>();
+  }
+
   private static class Result {
     ClientID client;
     TransactionID tid;
@@ -47,18 +47,23 @@ import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.entity.ClientDescriptorImpl;
 import com.tc.objectserver.entity.PlatformEntity;
 import com.tc.objectserver.entity.ServerEntityRequestResponse;
+import com.tc.objectserver.handshakemanager.ClientEntityHistory;
+import com.tc.objectserver.persistence.ClusterStatePersistor;
 import com.tc.objectserver.persistence.EntityPersistor;
+import com.tc.objectserver.persistence.PersistentRecordCodec;
 import com.tc.objectserver.persistence.TransactionOrderPersistor;
 import com.tc.util.Assert;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
 import org.terracotta.entity.ClientDescriptor;
 import org.terracotta.entity.ConcurrencyStrategy;
@@ -77,12 +82,16 @@ public class ReplicatedTransactionHandler {
   private final ManagedEntity platform;
   
   private Sink<ReplicationMessage> loopback;
+  // only set when early reconnect service is enabled
+  private ClientEntityHistory history;
   
   private final SyncState state = new SyncState();
+  private final ResyncPosition position;
   
   public ReplicatedTransactionHandler(StateManager state, TransactionOrderPersistor transactionOrderPersistor, 
-      EntityManager manager, EntityPersistor entityPersistor, GroupManager<AbstractGroupMessage> groupManager) {
+      EntityManager manager, EntityPersistor entityPersistor, ClusterStatePersistor clusterStatePersistor, GroupManager<AbstractGroupMessage> groupManager) {
     this.stateManager = state;
+    this.position = new ResyncPosition(clusterStatePersistor);
     this.entityManager = manager;
     this.entityPersistor = entityPersistor;
     this.groupManager = groupManager;
@@ -114,6 +123,9 @@ public class ReplicatedTransactionHandler {
       setLoopback(scxt.getStage(ServerConfigurationContext.PASSIVE_REPLICATION_STAGE, ReplicationMessage.class).getSink());
       if (stateManager.getCurrentState().equals(StateManager.PASSIVE_UNINITIALIZED)) {
         requestPassiveSync();
+      } else if (stateManager.getCurrentState().equals(StateManager.PASSIVE_STANDBY) && position.isRecorded()) {
+  //  restarted with persistent state intact, ask the active to replay what was missed
+        requestPassiveResync();
       }
     }
 
@@ -150,6 +162,11 @@ public class ReplicatedTransactionHandler {
         public Set<NodeID> replicateTo(Set<NodeID> passives) {
           return Collections.emptySet();
         }
+
+        @Override
+        public boolean requiresReplication() {
+          return false;
+        }
       };
   //    MGMT_KEY because the request processor needs to be flushed
       platform.addRequestMessage(req, new MessagePayload(new byte[0], null, ConcurrencyStrategy.MANAGEMENT_KEY), (result)->latch.countDown(), null);
@@ -158,6 +175,8 @@ public class ReplicatedTransactionHandler {
       } catch (InterruptedException ie) {
         throw new RuntimeException(ie);
       }
+//  everything handed to the request processor has run, record where this passive is
+      position.checkpoint();
     }    
   };
   
@@ -165,14 +184,24 @@ public class ReplicatedTransactionHandler {
     this.loopback = loop;
   }
   
+  public void setClientHistory(ClientEntityHistory history) {
+    this.history = history;
+  }
+
   public EventHandler<ReplicationMessage> getEventHandler() {
     return eventHorizon;
   }
 
   private void processMessage(ReplicationMessage rep) throws EntityException {
+    if (history != null) {
+      history.requestReplicated(rep.getSource(), rep.getEntityID());
+    }
     switch (rep.getType()) {
       case ReplicationMessage.REPLICATE:
-        if (state.ignore(rep)) {
+        if (position.received(rep)) {
+          LOGGER.debug("Already applied:" + rep);
+          acknowledge(rep);
+        } else if (state.ignore(rep)) {
           LOGGER.debug("Ignoring:" + rep);
           acknowledge(rep);
         } else if (state.defer(rep)) {
@@ -216,6 +245,9 @@ public class ReplicatedTransactionHandler {
         // This corresponds to a disconnect.
         this.orderedTransactions.removeTrackingForClient(sourceNodeID);
         this.entityPersistor.removeTrackingForClient(sourceNodeID);
+        if (history != null) {
+          history.clientRemoved(sourceNodeID);
+        }
       }
     }
 
@@ -317,6 +349,16 @@ public class ReplicatedTransactionHandler {
     }
   }  
   
+  private void requestPassiveResync() {
+    NodeID node = stateManager.getActiveNodeID();
+    try {
+      LOGGER.info("Requesting Passive Resync from " + node + " after " + position.getEpoch() + "/" + position.getApplied());
+      groupManager.sendTo(node, ReplicationMessageAck.createResyncRequestMessage(position.getEpoch(), position.getApplied()));
+    } catch (GroupException ge) {
+      LOGGER.warn("can't request passive resync", ge);
+    }
+  }
+  
   private void syncMessageReceived(ReplicationMessage sync) {
     EntityID eid = sync.getEntityDescriptor().getEntityID();
     long version = sync.getVersion();
@@ -367,7 +409,7 @@ public class ReplicatedTransactionHandler {
           platform.addRequestMessage(make(sync), payload, (result)-> {
             if (sync.getReplicationType() == ReplicationMessage.ReplicationType.SYNC_END) {
               try {
-                entityPersistor.layer(new ObjectInputStream(new ByteArrayInputStream(payload.getRawPayload())));
+                entityPersistor.layer(PersistentRecordCodec.fromBytes(payload.getRawPayload()));
               } catch (IOException ioe) {
                 throw new RuntimeException(ioe);
               }
@@ -488,6 +530,7 @@ public class ReplicatedTransactionHandler {
   }
 
   private void acknowledge(ReplicationMessage rep) {
+    position.completed(rep);
 //  when is the right time to send the ack?
     try {
       if (LOGGER.isDebugEnabled()) {
@@ -671,6 +714,101 @@ public class ReplicatedTransactionHandler {
     }
   }  
  
+/**
+ * Tracks the position in the active's replication log below which every replicated message has 
+ * completed on this passive, and the messages above it which have also completed.  The position is 
+ * only persisted at an orderly shutdown, once the request processor has been flushed, so that a 
+ * restarted passive can ask for only the messages it has not applied.  It is forgotten on disk as 
+ * soon as it is read so that a crash, which leaves no exact position, falls back to a full sync.
+ */
+  private static class ResyncPosition {
+    private final ClusterStatePersistor persistor;
+    private final SortedSet<Long> pending = new TreeSet<>();
+//  completed before the restart but above the recorded position, replays of these are skipped
+    private final Set<Long> skip;
+    private String epoch;
+    private long received;
+    private long applied;
+
+    private ResyncPosition(ClusterStatePersistor persistor) {
+      this.persistor = persistor;
+      this.epoch = persistor.getReplicationEpoch();
+      this.applied = persistor.getReplicationSequence();
+      this.skip = new HashSet<>(persistor.getReplicationCompleted());
+      this.received = this.applied;
+      persistor.clearReplicationPosition();
+    }
+    
+    private synchronized boolean isRecorded() {
+      return epoch != null;
+    }
+    
+    private synchronized String getEpoch() {
+      return epoch;
+    }
+    
+    private synchronized long getApplied() {
+      return applied;
+    }
+
+    /**
+     * @return true if the message was already applied before this passive restarted
+     */
+    private synchronized boolean received(ReplicationMessage rep) {
+      long sequence = rep.getLogSequence();
+      String source = epochOf(rep);
+      if (sequence == 0 || source == null) {
+//  the active is not logging
+        return false;
+      }
+      if (!source.equals(epoch)) {
+//  a new active, everything before the first message seen from it is covered by sync or failover
+        epoch = source;
+        pending.clear();
+        skip.clear();
+        applied = sequence - 1;
+      }
+      pending.add(sequence);
+      received = sequence;
+      return skip.remove(sequence);
+    }
+
+    private synchronized void completed(ReplicationMessage rep) {
+      long sequence = rep.getLogSequence();
+      String source = epochOf(rep);
+      if (sequence == 0 || source == null || !source.equals(epoch)) {
+        return;
+      }
+      if (pending.remove(sequence)) {
+        long next = pending.isEmpty() ? received : pending.first() - 1;
+        if (next > applied) {
+          applied = next;
+        }
+      }
+    }
+    
+    private synchronized void checkpoint() {
+      if (epoch == null) {
+        return;
+      }
+      List<Long> completed = new ArrayList<>();
+      for (long s = applied + 1; s <= received; s++) {
+        if (!pending.contains(s)) {
+          completed.add(s);
+        }
+      }
+      persistor.setReplicationPosition(epoch, applied, completed);
+    }
+    
+    private static String epochOf(ReplicationMessage rep) {
+      NodeID from = rep.messageFrom();
+      if (from instanceof ServerID && !from.isNull()) {
+        return new String(((ServerID)from).getUID());
+      }
+      return null;
+    }
+  }
+ 
   public static class BasicServerEntityRequest implements ServerEntityRequest {
     private final ServerEntityAction action;
     private final ClientID source;
@@ -715,5 +853,10 @@ public class ReplicatedTransactionHandler {
     public Set<NodeID> replicateTo(Set<NodeID> passives) {
       return Collections.emptySet();
     }
+
+    @Override
+    public boolean requiresReplication() {
+      return false;
+    }
   }
 }
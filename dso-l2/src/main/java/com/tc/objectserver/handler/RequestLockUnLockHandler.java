@@ -20,15 +20,18 @@ package com.tc.objectserver.handler;
 
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.Sink;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.ClientID;
-import com.tc.net.NodeID;
+import com.tc.object.locks.BatchedLockRequest;
 import com.tc.object.locks.ClientServerExchangeLockContext;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.RecallBatchContext;
+import com.tc.object.locks.ServerLockLevel;
 import com.tc.object.locks.ThreadID;
 import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessage.RequestType;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.locks.LockManager;
 
@@ -44,45 +47,66 @@ public class RequestLockUnLockHandler extends AbstractEventHandler<LockRequestMe
   private static final TCLogger logger = TCLogging.getLogger(RequestLockUnLockHandler.class);
   
   private LockManager lockManager;
+  private Sink<LockRequestMessage> requestSink;
 
   @Override
   public void handleEvent(LockRequestMessage lrm) {
-    LockID lid = lrm.getLockID();
-    NodeID cid = lrm.getSourceNodeID();
-    ThreadID tid = lrm.getThreadID();
+    ClientID cid = (ClientID) lrm.getSourceNodeID();
 
     switch (lrm.getRequestType()) {
+      case BATCHED_RECALL_COMMIT:
+        LinkedList<RecallBatchContext> recallContexts = lrm.getRecallBatchedContexts();
+        for (RecallBatchContext recallContext : recallContexts) {
+          Collection<ClientServerExchangeLockContext> lockState = recallContext.getContexts();
+          lockManager.recallCommit(recallContext.getLockID(), cid, lockState);
+        }
+        return;
+      case BATCH:
+        if (lrm.getLockID() == null) {
+          // as received, keyed by the client.  Split it so that each lock's requests are keyed by the lock again.
+          for (LockRequestMessage part : lrm.splitByLock()) {
+            requestSink.addMultiThreaded(part);
+          }
+          return;
+        }
+        // processed in the order the client issued them
+        for (BatchedLockRequest request : lrm.getBatchedRequests()) {
+          process(request.getRequestType(), request.getLockID(), cid, request.getThreadID(), request.getLockLevel(),
+                  request.getTimeout(), request.getContexts());
+        }
+        return;
+      default:
+        process(lrm.getRequestType(), lrm.getLockID(), cid, lrm.getThreadID(), lrm.getLockLevel(), lrm.getTimeout(),
+                lrm.getContexts());
+    }
+  }
+
+  private void process(RequestType type, LockID lid, ClientID cid, ThreadID tid, ServerLockLevel level, long timeout,
+                       Collection<ClientServerExchangeLockContext> contexts) {
+    switch (type) {
       case LOCK:
-        lockManager.lock(lid, (ClientID) cid, tid, lrm.getLockLevel());
+        lockManager.lock(lid, cid, tid, level);
         return;
       case TRY_LOCK:
-        lockManager.tryLock(lid, (ClientID) cid, tid, lrm.getLockLevel(), lrm.getTimeout());
+        lockManager.tryLock(lid, cid, tid, level, timeout);
         return;
       case UNLOCK:
-        lockManager.unlock(lid, (ClientID) cid, tid);
+        lockManager.unlock(lid, cid, tid);
         return;
       case WAIT:
-        lockManager.wait(lid, (ClientID) cid, tid, lrm.getTimeout());
+        lockManager.wait(lid, cid, tid, timeout);
         return;
       case RECALL_COMMIT:
-        Collection<ClientServerExchangeLockContext> contexts = lrm.getContexts();
-        lockManager.recallCommit(lid, (ClientID) cid, contexts);
+        lockManager.recallCommit(lid, cid, contexts);
         return;
       case QUERY:
-        lockManager.queryLock(lid, (ClientID) cid, tid);
+        lockManager.queryLock(lid, cid, tid);
         return;
       case INTERRUPT_WAIT:
-        lockManager.interrupt(lid, (ClientID) cid, tid);
-        return;
-      case BATCHED_RECALL_COMMIT:
-        LinkedList<RecallBatchContext> recallContexts = lrm.getRecallBatchedContexts();
-        for (RecallBatchContext recallContext : recallContexts) {
-          Collection<ClientServerExchangeLockContext> lockState = recallContext.getContexts();
-          lockManager.recallCommit(recallContext.getLockID(), (ClientID) cid, lockState);
-        }
+        lockManager.interrupt(lid, cid, tid);
         return;
       default:
-        logger.error("Unexpected lock request type: " + lrm.getRequestType());
+        logger.error("Unexpected lock request type: " + type);
         return;
     }
   }
@@ -92,5 +116,6 @@ public class RequestLockUnLockHandler extends AbstractEventHandler<LockRequestMe
     super.initialize(context);
     ServerConfigurationContext oscc = (ServerConfigurationContext) context;
     this.lockManager = oscc.getLockManager();
+    this.requestSink = oscc.getStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class).getSink();
   }
 }
@@ -0,0 +1,144 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.entity.ResendVoltronEntityMessage;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.net.NodeID;
+import com.tc.object.tx.TransactionID;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+
+/**
+ * The order in which resent messages are replayed after a restart or failover.  The order is built once, from the
+ * global order of the transactions which were in flight, so each resend is slotted into its position with a single
+ * lookup.  Resends which are not part of that order are replayed after all the ordered ones, in the order they arrived.
+ */
+public class ResendReplay {
+  private static final TCLogger LOGGER = TCLogging.getLogger(ResendReplay.class);
+  private static final int PROGRESS_INTERVAL = 10000;
+
+  private final Map<NodeID, Map<TransactionID, Integer>> positions = new HashMap<>();
+  private final ResendVoltronEntityMessage[] ordered;
+  private final List<ResendVoltronEntityMessage> unordered = new ArrayList<>();
+  private int placed = 0;
+
+  /**
+   * @param globalOrder the global position of every in-flight transaction, by client, see
+   * TransactionOrderPersistor.getGlobalOrder()
+   */
+  public ResendReplay(Map<NodeID, Map<TransactionID, Long>> globalOrder) {
+    int count = 0;
+    for (Map<TransactionID, Long> forClient : globalOrder.values()) {
+      count += forClient.size();
+    }
+    // Sort the global positions once so each transaction maps to a dense slot.
+    long[] sorted = new long[count];
+    int next = 0;
+    for (Map<TransactionID, Long> forClient : globalOrder.values()) {
+      for (Long globalID : forClient.values()) {
+        sorted[next++] = globalID;
+      }
+    }
+    Arrays.sort(sorted);
+    for (Map.Entry<NodeID, Map<TransactionID, Long>> client : globalOrder.entrySet()) {
+      Map<TransactionID, Integer> forClient = new HashMap<>();
+      for (Map.Entry<TransactionID, Long> transaction : client.getValue().entrySet()) {
+        forClient.put(transaction.getKey(), Arrays.binarySearch(sorted, transaction.getValue()));
+      }
+      this.positions.put(client.getKey(), forClient);
+    }
+    this.ordered = new ResendVoltronEntityMessage[count];
+  }
+
+  /**
+   * @return the position of the transaction in the replay order or -1 if it isn't part of the order
+   */
+  public int positionOf(NodeID source, TransactionID transactionID) {
+    Map<TransactionID, Integer> forClient = this.positions.get(source);
+    Integer position = (forClient != null) ? forClient.get(transactionID) : null;
+    return (position != null) ? position : -1;
+  }
+
+  /**
+   * Adds a resend which must be replayed in its original order, if it has one.
+   */
+  public void addOrdered(ResendVoltronEntityMessage resend) {
+    int position = positionOf(resend.getSource(), resend.getTransactionID());
+    if (position < 0) {
+      addUnordered(resend);
+    } else {
+      if (this.ordered[position] == null) {
+        this.placed += 1;
+      }
+      this.ordered[position] = resend;
+    }
+  }
+
+  /**
+   * Adds a resend which is replayed after all the ordered ones.
+   */
+  public void addUnordered(ResendVoltronEntityMessage resend) {
+    this.unordered.add(resend);
+  }
+
+  public int size() {
+    return this.placed + this.unordered.size();
+  }
+
+  /**
+   * Hands every resend to the consumer in replay order, logging the progress of long replays.  The replay holds no
+   * resends afterward.
+   */
+  public void replay(Consumer<ResendVoltronEntityMessage> consumer) {
+    int total = size();
+    int replayed = 0;
+    for (int x = 0; x < this.ordered.length; x++) {
+      ResendVoltronEntityMessage resend = this.ordered[x];
+      if (resend != null) {
+        this.ordered[x] = null;
+        consumer.accept(resend);
+        replayed = progress(replayed, total);
+      }
+    }
+    for (ResendVoltronEntityMessage resend : this.unordered) {
+      consumer.accept(resend);
+      replayed = progress(replayed, total);
+    }
+    this.unordered.clear();
+    this.placed = 0;
+    if (total > 0) {
+      LOGGER.info("Replayed " + total + " resent messages");
+    }
+  }
+
+  private static int progress(int replayed, int total) {
+    replayed += 1;
+    if (replayed % PROGRESS_INTERVAL == 0) {
+      LOGGER.info("Replayed " + replayed + " of " + total + " resent messages");
+    }
+    return replayed;
+  }
+}
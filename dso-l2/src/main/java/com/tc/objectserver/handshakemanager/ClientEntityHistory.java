@@ -0,0 +1,94 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handshakemanager;
+
+import com.tc.net.ClientID;
+import com.tc.net.protocol.transport.ConnectionID;
+import com.tc.net.protocol.transport.ConnectionIDFactoryListener;
+import com.tc.object.EntityID;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * The entities each client has sent requests for, as seen by a passive through replication.  After a failover, the new
+ * active uses the history to find the entities which might still be waiting for a client which has not yet reconnected.
+ *
+ * The history of a client is only complete if the passive saw the client connect after replication to the passive had
+ * started since requests made before that were never replicated to it.  Fetches and releases are only replicated when
+ * early reconnect service is enabled on the active, which is why both servers need the same setting.
+ */
+public class ClientEntityHistory implements ConnectionIDFactoryListener {
+  private final Set<ClientID> complete = ConcurrentHashMap.newKeySet();
+  private final ConcurrentMap<ClientID, Set<EntityID>> entities = new ConcurrentHashMap<>();
+  private volatile boolean replicating = false;
+
+  /**
+   * Called for each message replicated to this server, including the passive sync messages which have no source.
+   */
+  public void requestReplicated(ClientID client, EntityID entity) {
+    replicating = true;
+    if (client != null && !client.isNull() && !EntityID.NULL_ID.equals(entity)) {
+      entities.computeIfAbsent(client, c -> ConcurrentHashMap.newKeySet()).add(entity);
+    }
+  }
+
+  /**
+   * Called when replication of the client's requests is no longer needed, either because it disconnected or because the
+   * active told us that it is gone.
+   */
+  public void clientRemoved(ClientID client) {
+    complete.remove(client);
+    entities.remove(client);
+  }
+
+  @Override
+  public void connectionIDCreated(ConnectionID connectionID) {
+  //  only a client which connected after a replicated message was seen can have all its requests in the history
+    if (replicating) {
+      complete.add(new ClientID(connectionID.getChannelID()));
+    }
+  }
+
+  @Override
+  public void connectionIDDestroyed(ConnectionID connectionID) {
+    clientRemoved(new ClientID(connectionID.getChannelID()));
+  }
+
+  /**
+   * @param clients the clients which have not yet reconnected
+   * @return every entity the clients have sent requests for or null if the history of any of the clients is incomplete
+   */
+  public Set<EntityID> getEntitiesFor(Collection<ClientID> clients) {
+    Set<EntityID> referenced = new HashSet<>();
+    for (ClientID client : clients) {
+      if (!complete.contains(client)) {
+        return null;
+      }
+      Set<EntityID> forClient = entities.get(client);
+      if (forClient != null) {
+        referenced.addAll(forClient);
+      }
+    }
+    return referenced;
+  }
+}
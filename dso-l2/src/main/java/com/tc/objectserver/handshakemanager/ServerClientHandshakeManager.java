@@ -71,11 +71,16 @@ public class ServerClientHandshakeManager {
   private final Set<ClientID>            existingUnconnectedClients        = new HashSet<>();
   private final boolean                  persistent;
   private final TCLogger                 consoleLogger;
+  // only set when reconnected clients may be served before the reconnect window closes
+  private final ClientEntityHistory      history;
+  private final Set<ClientID>            reconnectedClients                = new HashSet<>();
+  private final Set<ClientID>            acknowledgedClients               = new HashSet<>();
+  private ProcessTransactionHandler      earlyService;
 
   public ServerClientHandshakeManager(TCLogger logger, DSOChannelManager channelManager,
                                       StageManager stageManager, 
                                       Timer timer, long reconnectTimeout,
-                                      boolean persistent, TCLogger consoleLogger) {
+                                      boolean persistent, TCLogger consoleLogger, ClientEntityHistory history) {
     this.logger = logger;
     this.channelManager = channelManager;
     this.stageManager = stageManager;
@@ -83,6 +88,7 @@ public class ServerClientHandshakeManager {
     this.timer = timer;
     this.persistent = persistent;
     this.consoleLogger = consoleLogger;
+    this.history = history;
     this.reconnectTimerTask = new ReconnectTimerTask(this, timer);
   }
 
@@ -154,10 +160,13 @@ public class ServerClientHandshakeManager {
         // Now that we have processed everything from this resend, see if it was the last one.
         this.logger.debug("Removing client " + clientID + " from set of existing unconnected clients.");
         this.existingUnconnectedClients.remove(clientID);
+        this.reconnectedClients.add(clientID);
         if (this.existingUnconnectedClients.isEmpty()) {
           this.logger.debug("Last existing unconnected client (" + clientID + ") now connected.  Cancelling timer");
           this.timer.cancel();
           start();
+        } else if (this.history != null) {
+          serveEarly(clientID, transactionHandler);
         }
       } else {
         // This is an unexpected state.  We should only be able to receive handshakes while STARTING (reconnect) or STARTED (new clients).
@@ -193,6 +202,31 @@ public class ServerClientHandshakeManager {
     }
   }
 
+  // Should be called from within the sync block
+  private void serveEarly(ClientID clientID, ProcessTransactionHandler transactionHandler) {
+    Set<EntityID> gated = this.history.getEntitiesFor(this.existingUnconnectedClients);
+    if (gated == null) {
+      // We don't know everything the missing clients use so nothing can be served until they reconnect.
+      return;
+    }
+    if (this.earlyService == null) {
+      this.logger.info("Serving reconnected clients while waiting for " + this.existingUnconnectedClients.size() + " clients.  Gated entities: " + gated.size());
+      this.earlyService = transactionHandler;
+      transactionHandler.startEarlyService(gated);
+      stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).unpause();
+      for (ClientID reconnected : this.reconnectedClients) {
+        sendAckMessageFor(reconnected);
+        this.acknowledgedClients.add(reconnected);
+      }
+    } else {
+      transactionHandler.updateEarlyService(gated);
+      sendAckMessageFor(clientID);
+      this.acknowledgedClients.add(clientID);
+    }
+    // Release the work held for entities which are no longer gated, in band with the requests already queued.
+    stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).getSink().addSpecialized(transactionHandler.getEarlyWorkRelease());
+  }
+
   // Should be called from within the sync block
   private void start() {
     this.logger.info("Starting TSA services...");
@@ -200,13 +234,23 @@ public class ServerClientHandshakeManager {
     // It is important to start all the managers before sending the ack to the clients
     for (NodeID nid : cids) {
       final ClientID clientID = (ClientID) nid;
-      sendAckMessageFor(clientID);
+      // clients served early have already been acknowledged
+      if (!this.acknowledgedClients.contains(clientID)) {
+        sendAckMessageFor(clientID);
+      }
     }
     this.state = State.STARTED;
-    stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).unpause();
-    // Tell the transaction handler the message to replay any resends we received.  Schedule a noop 
-    // in case all the clients are waiting on resends
-    stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class).getSink().addSingleThreaded(new NoopEntityMessage(EntityDescriptor.NULL_ID));
+    Stage<VoltronEntityMessage> voltronStage = stageManager.getStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class);
+    voltronStage.unpause();
+    if (this.earlyService != null) {
+      // Everything still held back is released right away, in band with the requests already queued.
+      this.earlyService.endEarlyService();
+      voltronStage.getSink().addSpecialized(this.earlyService.getEarlyWorkRelease());
+    } else {
+      // Tell the transaction handler the message to replay any resends we received.  Schedule a noop 
+      // in case all the clients are waiting on resends
+      voltronStage.getSink().addSingleThreaded(new NoopEntityMessage(EntityDescriptor.NULL_ID));
+    }
   }
 
   public synchronized void setStarting(Set<ConnectionID> existingConnections) {
@@ -135,4 +135,14 @@ public class ChannelStatsImpl implements ChannelStats, DSOChannelManagerEventLis
     }
   }
 
+  @Override
+  public int getOutboundQueueMessages(MessageChannel channel) {
+    return channel.getOutboundQueueMessages();
+  }
+
+  @Override
+  public long getOutboundQueueBytes(MessageChannel channel) {
+    return channel.getOutboundQueueBytes();
+  }
+
 }
@@ -20,6 +20,7 @@ package com.tc.objectserver.impl;
 
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.EventHandlerException;
+import com.tc.async.api.EventPriority;
 
 import com.tc.objectserver.api.EntityManager;
 import com.tc.services.LogBasedStateDumper;
@@ -68,6 +69,7 @@ import com.tc.l2.api.ReplicatedClusterStateManager;
 import com.tc.l2.context.StateChangedEvent;
 import com.tc.l2.ha.ChannelWeightGenerator;
 import com.tc.l2.ha.HASettingsChecker;
+import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.ha.RandomWeightGenerator;
 import com.tc.l2.ha.ServerUptimeWeightGenerator;
 import com.tc.l2.ha.StripeIDStateManagerImpl;
@@ -170,11 +172,13 @@ import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.core.impl.ManagementTopologyEventCollector;
 import com.tc.objectserver.core.impl.ServerManagementContext;
 import com.tc.objectserver.entity.ActiveToPassiveReplication;
+import com.tc.objectserver.entity.AdmissionController;
 import com.tc.objectserver.handler.ChannelLifeCycleHandler;
 import com.tc.objectserver.handler.ClientHandshakeHandler;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 import com.tc.objectserver.handler.RequestLockUnLockHandler;
 import com.tc.objectserver.handler.RespondToRequestLockHandler;
+import com.tc.objectserver.handshakemanager.ClientEntityHistory;
 import com.tc.objectserver.handshakemanager.ServerClientHandshakeManager;
 import com.tc.objectserver.locks.LockManagerImpl;
 import com.tc.objectserver.locks.LockResponseContext;
@@ -239,6 +243,7 @@ import com.tc.objectserver.entity.ClientEntityStateManagerImpl;
 import com.tc.objectserver.entity.EntityManagerImpl;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.entity.RequestProcessor;
+import com.tc.objectserver.entity.ReplicationLog;
 import com.tc.objectserver.entity.RequestProcessorHandler;
 import com.tc.objectserver.entity.ServerEntityFactory;
 import com.tc.objectserver.entity.VoltronMessageSink;
@@ -271,6 +276,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
   private CommunicationsManager                  communicationsManager;
   private ServerConfigurationContext             context;
   private CounterManager                         sampledCounterManager;
+  private ManagementTopologyEventCollector       eventCollector;
   private LockManagerImpl                        lockManager;
   private ServerManagementContext                managementContext;
   private StartupLock                            startupLock;
@@ -596,7 +602,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     final Stage<ServerEntityResponseMessage> communicatorResponseStage = stageManager.createStage(ServerConfigurationContext.SERVER_ENTITY_MESSAGE_RESPONSE_STAGE, ServerEntityResponseMessage.class,  new CommunicatorResponseHandler(communicatorService), 1, maxStageSize);
 
     // Creating a stage here so that the sink can be passed
-    final Stage<LockResponseContext> respondToLockStage = stageManager.createStage(ServerConfigurationContext.RESPOND_TO_LOCK_REQUEST_STAGE, LockResponseContext.class, new RespondToRequestLockHandler(), 1, maxStageSize);
+    // lock requests and responses are keyed by LockID so both stages keep per-lock ordering across worker threads
+    final Stage<LockResponseContext> respondToLockStage = stageManager.createStage(ServerConfigurationContext.RESPOND_TO_LOCK_REQUEST_STAGE, LockResponseContext.class, new RespondToRequestLockHandler(), stageWorkerThreadCount, maxStageSize);
     this.lockManager = new LockManagerImpl(respondToLockStage.getSink(), channelManager);
 
     final CallbackDumpAdapter lockDumpAdapter = new CallbackDumpAdapter(this.lockManager);
@@ -638,6 +645,9 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
         return IMonitoringProducer.class;
       }});
     
+//  the passive keeps a history of the entities each client uses so that, after a failover, clients can be served early
+    final ClientEntityHistory clientHistory = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_RECONNECT_EARLY_SERVICE_ENABLED, false)
+        ? new ClientEntityHistory() : null;
     long reconnectTimeout = l2DSOConfig.clientReconnectWindow();
     logger.debug("Client Reconnect Window: " + reconnectTimeout + " seconds");
     reconnectTimeout *= 1000;
@@ -651,10 +661,12 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
                                                                                                            true),
                                                                                                  reconnectTimeout,
                                                                                                  restartable,
-                                                                                                 consoleLogger);
+                                                                                                 consoleLogger,
+                                                                                                 clientHistory);
     
     
     ManagementTopologyEventCollector eventCollector = new ManagementTopologyEventCollector(this.getServerNodeID(), serviceInterface);
+    this.eventCollector = eventCollector;
     ClientEntityStateManager clientEntityStateManager = new ClientEntityStateManagerImpl(stageManager, eventCollector, 
       new DSOChannelManagerEventListener() {
         @Override
@@ -686,7 +698,11 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     entityManager = new EntityManagerImpl(this.serviceRegistry, clientEntityStateManager, eventCollector, processor, this::sendNoop);
     channelManager.addEventListener(clientEntityStateManager);
     // We need to set up a stage to point at the ProcessTransactionHandler and we also need to register it for events, below.
-    final ProcessTransactionHandler processTransactionHandler = new ProcessTransactionHandler(this.persistor.getEntityPersistor(), this.persistor.getTransactionOrderPersistor(), channelManager, entityManager);
+    // Sheds client invokes, rather than blocking the comms threads, once the voltron message stage is backed up.
+    final AdmissionController admissionController = new AdmissionController(tcProperties.getBoolean(TCPropertiesConsts.L2_ADMISSION_ENABLED, false),
+        tcProperties.getInt(TCPropertiesConsts.L2_ADMISSION_CLIENT_MAX_QUEUED, 0), tcProperties.getInt(TCPropertiesConsts.L2_ADMISSION_ENTITY_MAX_QUEUED, 0),
+        tcProperties.getLong(TCPropertiesConsts.L2_ADMISSION_QUEUE_DELAY_MAX_MILLIS, 0));
+    final ProcessTransactionHandler processTransactionHandler = new ProcessTransactionHandler(this.persistor.getEntityPersistor(), this.persistor.getTransactionOrderPersistor(), channelManager, entityManager, admissionController);
     final Stage<VoltronEntityMessage> processTransactionStage_voltron = stageManager.createStage(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE, VoltronEntityMessage.class, processTransactionHandler.getVoltronMessageHandler(), 1, maxStageSize);
     final Stage<TCMessage> multiRespond = stageManager.createStage(ServerConfigurationContext.RESPOND_TO_REQUEST_STAGE, TCMessage.class, processTransactionHandler.getMultiResponseSender(), 1, maxStageSize);
     final Sink<VoltronEntityMessage> voltronMessageSink = processTransactionStage_voltron.getSink();
@@ -699,7 +715,7 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
       processTransactionHandler.loadExistingEntities();
     }
 
-    final Stage<LockRequestMessage> requestLock = stageManager.createStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class, new RequestLockUnLockHandler(), 1, maxStageSize);
+    final Stage<LockRequestMessage> requestLock = stageManager.createStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class, new RequestLockUnLockHandler(), stageWorkerThreadCount, maxStageSize);
     final ChannelLifeCycleHandler channelLifeCycleHandler = new ChannelLifeCycleHandler(this.communicationsManager, channelManager, this.haConfig);
     stageManager.createStage(ServerConfigurationContext.CHANNEL_LIFE_CYCLE_STAGE, NodeStateEventContext.class, channelLifeCycleHandler, 1, maxStageSize);
     channelManager.addEventListener(channelLifeCycleHandler);
@@ -709,8 +725,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     
     final Sink<HydrateContext> hydrateSink = this.hydrateStage.getSink();
     messageRouter.routeMessageType(TCMessageType.NOOP_MESSAGE, requestLock.getSink(), hydrateSink);
-    messageRouter.routeMessageType(TCMessageType.CLIENT_HANDSHAKE_MESSAGE, clientHandshake.getSink(), hydrateSink);
-    messageRouter.routeMessageType(TCMessageType.VOLTRON_ENTITY_MESSAGE, new VoltronMessageSink(voltronMessageSink, hydrateSink, entityManager));
+    messageRouter.routeMessageType(TCMessageType.CLIENT_HANDSHAKE_MESSAGE, clientHandshake.getSink(), hydrateSink, EventPriority.LIFECYCLE);
+    messageRouter.routeMessageType(TCMessageType.VOLTRON_ENTITY_MESSAGE, new VoltronMessageSink(voltronMessageSink, hydrateSink, entityManager, admissionController));
     messageRouter.routeMessageType(TCMessageType.SERVER_ENTITY_RESPONSE_MESSAGE, communicatorResponseStage.getSink(), hydrateSink);
 
     HASettingsChecker haChecker = new HASettingsChecker(configSetupManager, TCPropertiesImpl.getProperties());
@@ -740,15 +756,25 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
                                                                   this.stripeIDStateManager);
 
     connectServerStateToReplicatedState(state, l2Coordinator.getReplicatedClusterStateManager());
+    if (clientHistory != null) {
+      l2Coordinator.getReplicatedClusterStateManager().registerForReplicatedConnectionEvents(clientHistory);
+    }
 // setup replication    
     final Stage<ReplicationEnvelope> replicationDriver = stageManager.createStage(ServerConfigurationContext.ACTIVE_TO_PASSIVE_DRIVER_STAGE, ReplicationEnvelope.class, new ReplicationSender(groupCommManager), 1, maxStageSize);
     
-    final ActiveToPassiveReplication passives = new ActiveToPassiveReplication(l2Coordinator.getReplicatedClusterStateManager().getPassives(), processTransactionHandler.getEntityList(), this.persistor.getEntityPersistor(), replicationDriver.getSink());
+    final boolean passiveResync = TCPropertiesImpl.getProperties().getBoolean(TCPropertiesConsts.L2_PASSIVE_RESYNC_ENABLED, false);
+//  the epoch of the replication log is the lifetime of this server process
+    final ReplicationLog replicationLog = new ReplicationLog(new String(this.thisServerNodeID.getUID()), 
+        passiveResync ? TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_PASSIVE_RESYNC_LOG_MAX_MESSAGES) : 0, 
+        TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_PASSIVE_RESYNC_LOG_MAX_BYTES));
+    final ActiveToPassiveReplication passives = new ActiveToPassiveReplication(l2Coordinator.getReplicatedClusterStateManager().getPassives(), processTransactionHandler.getEntityList(), this.persistor.getEntityPersistor(), replicationLog, replicationDriver.getSink());
     processor.setReplication(passives); 
 //  routing for passive to receive replication    
+    ReplicatedTransactionHandler replicatedTransactionHandler = new ReplicatedTransactionHandler(this.l2Coordinator.getStateManager(), this.persistor.getTransactionOrderPersistor(), entityManager, 
+            this.persistor.getEntityPersistor(), this.persistor.getClusterStatePersistor(), groupCommManager);
+    replicatedTransactionHandler.setClientHistory(clientHistory);
     Stage<ReplicationMessage> replicationStage = stageManager.createStage(ServerConfigurationContext.PASSIVE_REPLICATION_STAGE, ReplicationMessage.class, 
-        new ReplicatedTransactionHandler(this.l2Coordinator.getStateManager(), this.persistor.getTransactionOrderPersistor(), entityManager, 
-            this.persistor.getEntityPersistor(), groupCommManager).getEventHandler(), 1, maxStageSize);
+        replicatedTransactionHandler.getEventHandler(), 1, maxStageSize);
     Stage<ReplicationMessageAck> replicationStageAck = stageManager.createStage(ServerConfigurationContext.PASSIVE_REPLICATION_ACK_STAGE, ReplicationMessageAck.class, 
         new AbstractEventHandler<ReplicationMessageAck>() {
           @Override
@@ -763,6 +789,13 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
               case ReplicationMessageAck.START_SYNC:
                 passives.startPassiveSync(context.messageFrom());
                 break;
+              case ReplicationMessageAck.START_RESYNC:
+                if (!passives.startPassiveResync(context.messageFrom(), context.getReplicationEpoch(), context.getLastAppliedSequence())) {
+//  the replication log no longer covers the passive, restart it clean so that it requests a full sync
+                  groupCommManager.zapNode(context.messageFrom(), L2HAZapNodeRequestProcessor.NODE_JOINED_WITH_DIRTY_DB, 
+                      "Passive resync not possible from " + context.getReplicationEpoch() + "/" + context.getLastAppliedSequence());
+                }
+                break;
               default:
                 throw new AssertionError("bad message " + context);
           }
@@ -1123,6 +1156,14 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
 
     this.seda.getStageManager().stopAll();
 
+    if (this.eventCollector != null) {
+      try {
+        this.eventCollector.shutdown();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
     if (this.l1Listener != null) {
       try {
         this.l1Listener.stop(5000);
@@ -38,12 +38,12 @@ import com.tc.text.PrettyPrintable;
 import com.tc.text.PrettyPrinter;
 import com.tc.util.Assert;
 import com.tc.util.SinglyLinkedList;
+import com.tc.util.concurrent.HashedWheelTimer.Timeout;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.TimerTask;
 
 /**
  * This class extends SinglyLinkedList which stores ServerLockContext. The ServerLockContexts are placed in the order of
@@ -253,6 +253,14 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
     return isEmpty();
   }
 
+  @Override
+  public boolean hasContextsFor(ClientID cid) {
+    for (ServerLockContext context : this) {
+      if (context.getClientID().equals(cid)) { return true; }
+    }
+    return false;
+  }
+
   @Override
   public void timerTimeout(LockTimerContext lockTimerContext) {
     ClientID cid = lockTimerContext.getClientID();
@@ -295,7 +303,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
         .getThreadID(), cselc.getState(), cselc.timeout(), helper);
     if (cselc.timeout() > 0) {
       LockTimerContext ltc = new LockTimerContext(lockID, cselc.getThreadID(), (ClientID) cselc.getNodeID(), helper);
-      TimerTask task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), cselc.timeout(), ltc);
+      Timeout task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), cselc.timeout(), ltc);
       context.setTimerTask(task);
     }
     return context;
@@ -322,7 +330,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
     WaitServerLockContext waiter = createWaitOrTryPendingServerLockContext(cid, tid, State.WAITER, timeout, helper);
     if (timeout > 0) {
       LockTimerContext ltc = new LockTimerContext(lockID, tid, cid, helper);
-      TimerTask task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
+      Timeout task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
       waiter.setTimerTask(task);
     }
     addWaiter(waiter, helper);
@@ -344,7 +352,7 @@ public abstract class AbstractServerLock extends SinglyLinkedList<ServerLockCont
         WaitServerLockContext waitContext = createTryPendingServerLockContext(cid, tid, level, timeout, helper);
         if (timeout > 0) {
           LockTimerContext ltc = new LockTimerContext(lockID, tid, cid, helper);
-          TimerTask task;
+          Timeout task;
           try {
             task = helper.getLockTimer().scheduleTimer(helper.getTimerCallback(), timeout, ltc);
           } catch (IllegalArgumentException e) {
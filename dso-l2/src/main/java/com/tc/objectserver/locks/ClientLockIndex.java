@@ -0,0 +1,73 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.locks;
+
+import com.tc.net.ClientID;
+import com.tc.object.locks.LockID;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the locks each client has some state in (holder, pending, try pending or waiter). Entries are maintained by
+ * the {@link LockManagerImpl} while the lock in question is checked out, so for a given client and lock the index is
+ * updated in the same order as the lock itself.
+ * <p>
+ * The index may hold a few stale entries, e.g. when one client's request clears state of another, but never misses a
+ * lock a client has state in. That is enough for {@link LockManagerImpl#clearAllLocksFor(ClientID)} to visit only the
+ * locks of the departing client.
+ */
+public class ClientLockIndex {
+  private final ConcurrentHashMap<ClientID, Set<LockID>> locksByClient = new ConcurrentHashMap<>();
+
+  public void add(ClientID cid, LockID lid) {
+    Set<LockID> locks = locksByClient.get(cid);
+    if (locks != null && locks.contains(lid)) { return; }
+    locksByClient.compute(cid, (k, set) -> {
+      Set<LockID> rv = (set == null) ? ConcurrentHashMap.<LockID> newKeySet() : set;
+      rv.add(lid);
+      return rv;
+    });
+  }
+
+  public void remove(ClientID cid, LockID lid) {
+    locksByClient.computeIfPresent(cid, (k, set) -> {
+      set.remove(lid);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  /**
+   * Removes and returns all the locks indexed for the given client.
+   */
+  public Set<LockID> removeAll(ClientID cid) {
+    Set<LockID> locks = locksByClient.remove(cid);
+    return (locks == null) ? Collections.<LockID> emptySet() : locks;
+  }
+
+  public int getLockCount(ClientID cid) {
+    Set<LockID> locks = locksByClient.get(cid);
+    return (locks == null) ? 0 : locks.size();
+  }
+
+  public int getClientCount() {
+    return locksByClient.size();
+  }
+}
@@ -57,6 +57,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
   private final LockStore                               lockStore;
   private final DSOChannelManager                       channelManager;
   private final LockHelper                              lockHelper;
+  private final ClientLockIndex                         clientLockIndex  = new ClientLockIndex();
   private final ReentrantReadWriteLock                  statusLock       = new ReentrantReadWriteLock();
   private boolean                                       isStarted        = false;
   private final LinkedBlockingQueue<RequestLockContext> lockRequestQueue = new LinkedBlockingQueue<>();
@@ -91,6 +92,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.lock(cid, tid, level, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -104,6 +106,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.tryLock(cid, tid, level, timeout, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -120,6 +123,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.unlock(cid, tid, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -146,6 +150,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.interrupt(cid, tid, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -166,6 +171,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.recallCommit(cid, serverLockContexts, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -201,6 +207,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       if (!isClientAlive(cid)) { return; }
       lock.wait(cid, tid, timeout, lockHelper);
+      updateClientLockIndex(lock, cid);
     } finally {
       lockStore.checkIn(lock);
     }
@@ -221,6 +228,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
           ServerLock lock = lockStore.checkOut(lid);
           try {
             lock.reestablishState(cselc, lockHelper);
+            updateClientLockIndex(lock, (ClientID) cselc.getNodeID());
           } finally {
             lockStore.checkIn(lock);
           }
@@ -240,13 +248,16 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
 
   @Override
   public void clearAllLocksFor(ClientID cid) {
-    LockIterator iter = lockStore.iterator();
-    ServerLock lock = iter.getNextLock(null);
-    while (lock != null) {
-      if (lock.clearStateForNode(cid, lockHelper)) {
-        iter.remove();
+    // only visit the locks this client has state in, the rest of the store is left alone
+    for (LockID lid : clientLockIndex.removeAll(cid)) {
+      ServerLock lock = lockStore.checkOut(lid);
+      try {
+        if (lock.clearStateForNode(cid, lockHelper)) {
+          lockStore.remove(lid);
+        }
+      } finally {
+        lockStore.checkIn(lock);
       }
-      lock = iter.getNextLock(lock);
     }
   }
 
@@ -310,6 +321,7 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     try {
       // call timeout for the lock
       lock.timerTimeout(lockTimerContext);
+      updateClientLockIndex(lock, lockTimerContext.getClientID());
     } finally {
       lockStore.checkIn(lock);
     }
@@ -343,6 +355,15 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
     }
   }
 
+  // Must be called with the lock checked out
+  private void updateClientLockIndex(ServerLock lock, ClientID cid) {
+    if (lock.hasContextsFor(cid)) {
+      clientLockIndex.add(cid, lock.getLockID());
+    } else {
+      clientLockIndex.remove(cid, lock.getLockID());
+    }
+  }
+
   private boolean isClientAlive(ClientID cid) {
     if (!this.channelManager.isActiveID(cid)) {
       logger.warn("Lock Manager ignoring message received from dead client:" + cid);
@@ -384,6 +405,8 @@ public class LockManagerImpl implements LockManager, PrettyPrintable, LockManage
       lock = iter.getNextLock(lock);
     }
     out.indent().print("locks: " + size).println().flush();
+    out.indent().print("clients holding lock state: " + clientLockIndex.getClientCount()).println().flush();
+    out.indent().print("pending wait/tryLock timers: " + lockHelper.getLockTimer().getPendingCount()).println().flush();
     return out;
   }
 
@@ -154,12 +154,13 @@ public class LockResponseContext implements MultiThreadedEventContext {
 
   @Override
   public Object getSchedulingKey() {
-    return nodeID;
+    // same key as the request stage so responses for a lock leave in the order they were generated
+    return lockID;
   }
 
   @Override
   public boolean flush() {
 //  lock operations are independent, no flush needed
-    return true;
+    return false;
   }
 }
@@ -132,6 +132,13 @@ public interface ServerLock extends TimerCallback {
    */
   boolean clearStateForNode(ClientID cid, LockHelper helper);
 
+  /**
+   * Returns true if the client has any context (holder, pending, try pending or waiter) on this lock.
+   * 
+   * @param cid - Id of the client
+   */
+  boolean hasContextsFor(ClientID cid);
+
   /**
    * Returns the state of the lock in bean form.
    * 
@@ -20,18 +20,17 @@ package com.tc.objectserver.locks.context;
 
 import com.tc.net.ClientID;
 import com.tc.object.locks.ThreadID;
-
-import java.util.TimerTask;
+import com.tc.util.concurrent.HashedWheelTimer.Timeout;
 
 public class WaitServerLockContext extends LinkedServerLockContext {
-  private TimerTask  task;
+  private Timeout    task;
   private final long timeout;
 
   public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout) {
     this(clientID, threadID, timeout, null);
   }
 
-  public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout, TimerTask task) {
+  public WaitServerLockContext(ClientID clientID, ThreadID threadID, long timeout, Timeout task) {
     super(clientID, threadID);
     this.timeout = timeout;
     this.task = task;
@@ -41,11 +40,11 @@ public class WaitServerLockContext extends LinkedServerLockContext {
     return timeout;
   }
 
-  public void setTimerTask(TimerTask task) {
+  public void setTimerTask(Timeout task) {
     this.task = task;
   }
 
-  public TimerTask getTimerTask() {
+  public Timeout getTimerTask() {
     return task;
   }
 }
@@ -24,81 +24,64 @@ import com.tc.net.ClientID;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.ThreadID;
 import com.tc.objectserver.locks.LockHelper;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.tc.util.concurrent.HashedWheelTimer;
+import com.tc.util.concurrent.HashedWheelTimer.Timeout;
 
-import java.util.LinkedList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 public class LockTimer {
-  private static final TCLogger logger    = TCLogging.getLogger(LockTimer.class);
+  private static final TCLogger  logger   = TCLogging.getLogger(LockTimer.class);
 
-  private final Timer           timer     = new Timer("DSO Lock Object.wait() timer", true);
-  private boolean               started   = false;
-  private boolean               shutdown  = false;
-  private LinkedList<TaskImpl>  taskQueue = new LinkedList<>();
+  private final HashedWheelTimer timer;
+  private boolean                shutdown = false;
 
   public LockTimer() {
-    super();
+    TCProperties props = TCPropertiesImpl.getProperties();
+    this.timer = new HashedWheelTimer("DSO Lock Object.wait() timer",
+                                      props.getLong(TCPropertiesConsts.L2_TIMER_WHEEL_TICK_MILLIS),
+                                      TimeUnit.MILLISECONDS, props.getInt(TCPropertiesConsts.L2_TIMER_WHEEL_SIZE));
   }
 
-  public Timer getTimer() {
+  public HashedWheelTimer getTimer() {
     return timer;
   }
 
+  /**
+   * Timers scheduled before this is called are held and only fire once the timer is started.
+   */
   public synchronized void start() {
-    started = true;
-    scheduleQueuedTasks();
-    taskQueue = null;
+    timer.start();
   }
 
-  private void scheduleQueuedTasks() {
-    for (TaskImpl task : taskQueue) {
-      long timeDelay = task.getScheduleDelay() - (System.currentTimeMillis() - task.scheduledAt());
-      timeDelay = timeDelay < 0 ? 0 : timeDelay;
-      timer.schedule(task, timeDelay);
+  public Timeout scheduleTimer(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
+    // same contract as java.util.Timer, callers fall back to an untimed request on overflow
+    if (timeInMillis < 0 || timeInMillis + System.currentTimeMillis() < 0) {
+      throw new IllegalArgumentException("Illegal execution time: " + timeInMillis);
     }
+    return timer.newTimeout(new TaskImpl(callback, callbackObject), timeInMillis, TimeUnit.MILLISECONDS);
   }
 
-  public TimerTask scheduleTimer(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
-    final TaskImpl rv = new TaskImpl(callback, timeInMillis, callbackObject);
-
-    synchronized (this) {
-      if (!started) {
-        taskQueue.addLast(rv);
-        return rv;
-      }
-    }
-
-    timer.schedule(rv, timeInMillis);
-    return rv;
+  public long getPendingCount() {
+    return timer.getPendingCount();
   }
 
   public synchronized void shutdown() {
     if (shutdown) return;
     shutdown = true;
-    this.timer.cancel();
+    this.timer.stop();
   }
 
-  private static class TaskImpl extends TimerTask {
+  private static class TaskImpl implements Runnable {
 
     private final TimerCallback    callback;
     private final LockTimerContext callbackObject;
-    private final long             scheduleDelayInMillis;
-    private final long             scheduledAt;
 
-    TaskImpl(TimerCallback callback, long timeInMillis, LockTimerContext callbackObject) {
+    TaskImpl(TimerCallback callback, LockTimerContext callbackObject) {
       this.callback = callback;
       this.callbackObject = callbackObject;
-      this.scheduleDelayInMillis = timeInMillis;
-      this.scheduledAt = System.currentTimeMillis();
-    }
-
-    public long getScheduleDelay() {
-      return scheduleDelayInMillis;
-    }
-
-    public long scheduledAt() {
-      return scheduledAt;
     }
 
     @Override
@@ -109,11 +92,6 @@ public class LockTimer {
         logger.error("Error processing wait timeout for " + callbackObject, e);
       }
     }
-
-    @Override
-    public boolean cancel() {
-      return super.cancel();
-    }
   }
 
   public static class LockTimerContext {
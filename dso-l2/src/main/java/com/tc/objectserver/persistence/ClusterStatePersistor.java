@@ -25,7 +25,10 @@ import com.tc.util.State;
 import com.tc.util.version.Version;
 import java.io.IOException;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import org.terracotta.persistence.IPersistentStorage;
 
 /**
@@ -39,6 +42,8 @@ public class ClusterStatePersistor {
   private static final String STRIPE_ID_KEY = "stripeid";
   private static final String GROUP_STRIPE_ID_PREFIX = "stripeid-for-";
   private static final String VERSION_KEY = "version";
+  private static final String REPLICATION_POSITION_KEY = "replication-position";
+  private static final String REPLICATION_COMPLETED_KEY = "replication-completed";
 
   private final Map<String, String> map;
   private State initialState;
@@ -120,6 +125,52 @@ public class ClusterStatePersistor {
     map.put(DB_CLEAN_KEY, String.valueOf(dbClean));
   }
 
+  /**
+   * Records the last position applied from the replication log of the active, stored as a single
+   * value so that the epoch and the sequence are always written together, along with the sequences
+   * above it which had also completed.
+   */
+  public void setReplicationPosition(String epoch, long sequence, Collection<Long> completed) {
+    StringBuilder list = new StringBuilder();
+    for (Long c : completed) {
+      if (list.length() > 0) {
+        list.append(',');
+      }
+      list.append(c);
+    }
+    map.put(REPLICATION_COMPLETED_KEY, list.toString());
+    map.put(REPLICATION_POSITION_KEY, epoch + "/" + sequence);
+  }
+
+  /**
+   * Forgets the recorded position, the state on disk can no longer be matched against it.
+   */
+  public void clearReplicationPosition() {
+    map.remove(REPLICATION_POSITION_KEY);
+    map.remove(REPLICATION_COMPLETED_KEY);
+  }
+
+  public String getReplicationEpoch() {
+    String p = map.get(REPLICATION_POSITION_KEY);
+    return p == null ? null : p.substring(0, p.lastIndexOf('/'));
+  }
+
+  public long getReplicationSequence() {
+    String p = map.get(REPLICATION_POSITION_KEY);
+    return p == null ? 0 : Long.parseLong(p.substring(p.lastIndexOf('/') + 1));
+  }
+
+  public Set<Long> getReplicationCompleted() {
+    Set<Long> completed = new HashSet<>();
+    String list = map.get(REPLICATION_COMPLETED_KEY);
+    if (list != null && !list.isEmpty()) {
+      for (String c : list.split(",")) {
+        completed.add(Long.parseLong(c));
+      }
+    }
+    return completed;
+  }
+
   public void clear() {
     map.clear();
     initialState = null;
@@ -18,6 +18,8 @@
  */
 package com.tc.objectserver.persistence;
 
+import com.tc.io.TCByteBufferInput;
+import com.tc.io.TCByteBufferOutput;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.ClientID;
@@ -27,8 +29,6 @@ import com.tc.objectserver.persistence.EntityData.JournalEntry;
 import com.tc.util.Assert;
 import com.tc.util.State;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -304,43 +304,48 @@ public class EntityPersistor {
     }
   }
   
-  public synchronized void serialize(ObjectOutput bucket) throws IOException {
+  /**
+   * Writes the entity journals in the binary record format so that they can be layered on a passive.
+   */
+  public synchronized void serialize(TCByteBufferOutput bucket) throws IOException {
     Set<ClientID> locals = this.entityLifeJournal.keySet();
     int size = locals.size();
+    bucket.writeByte(PersistentRecordCodec.VERSION);
     bucket.writeInt(size);
     for (ClientID local : locals) {
-      bucket.writeObject(local);
-      bucket.writeObject(this.entityLifeJournal.get(local));
+      PersistentRecordCodec.writeObject(bucket, local);
+      PersistentRecordCodec.writeObject(bucket, this.entityLifeJournal.get(local));
     }
   }  
   
-  public synchronized void layer(ObjectInput bucket) throws IOException {
-    try {
-      int size = bucket.readInt();
-      LOGGER.debug("log size " + size);
-      for (int x=0;x<size;x++) {
-        ClientID key = (ClientID)bucket.readObject();
-        List<EntityData.JournalEntry> journal = (List<EntityData.JournalEntry>)bucket.readObject();
-        List<EntityData.JournalEntry> check = (List<EntityData.JournalEntry>)this.entityLifeJournal.get(key);
-        if (check == null) {
-          this.entityLifeJournal.put(key, journal);
-          LOGGER.debug(key + " putting " + journal);
-        } else {
-          int pos = 0;
-          for (JournalEntry je : journal) {
-            while (pos < check.size() && check.get(pos).transactionID < je.transactionID) {
-              pos += 1;
-            }
-            if (pos == check.size() || check.get(pos).transactionID != je.transactionID) {
-              check.add(pos, je);
-            }
+  @SuppressWarnings("unchecked")
+  public synchronized void layer(TCByteBufferInput bucket) throws IOException {
+    byte version = bucket.readByte();
+    if (version != PersistentRecordCodec.VERSION) {
+      throw new IOException("unsupported journal format version " + version);
+    }
+    int size = bucket.readInt();
+    LOGGER.debug("log size " + size);
+    for (int x=0;x<size;x++) {
+      ClientID key = (ClientID)PersistentRecordCodec.readObject(bucket);
+      List<EntityData.JournalEntry> journal = (List<EntityData.JournalEntry>)PersistentRecordCodec.readObject(bucket);
+      List<EntityData.JournalEntry> check = (List<EntityData.JournalEntry>)this.entityLifeJournal.get(key);
+      if (check == null) {
+        this.entityLifeJournal.put(key, journal);
+        LOGGER.debug(key + " putting " + journal);
+      } else {
+        int pos = 0;
+        for (JournalEntry je : journal) {
+          while (pos < check.size() && check.get(pos).transactionID < je.transactionID) {
+            pos += 1;
+          }
+          if (pos == check.size() || check.get(pos).transactionID != je.transactionID) {
+            check.add(pos, je);
           }
-          LOGGER.debug(key + " layering " + journal + " " + check);
-          this.entityLifeJournal.put(key, check);
         }
+        LOGGER.debug(key + " layering " + journal + " " + check);
+        this.entityLifeJournal.put(key, check);
       }
-    } catch (ClassNotFoundException cnf) {
-      throw new IOException(cnf);
     }
   }
 }
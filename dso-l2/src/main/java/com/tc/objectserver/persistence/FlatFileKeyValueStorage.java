@@ -23,6 +23,7 @@ import com.tc.util.Assert;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -55,6 +56,21 @@ public class FlatFileKeyValueStorage<K, V> implements KeyValueStorage<K, V>, Sta
     this.doFlush = doFlush;
   }
   
+  /**
+   * Used when loading the storage from the binary format on disk.
+   */
+  FlatFileKeyValueStorage(Map<K, V> data, FlatFileWrite doFlush) {
+    this.storage = new HashMap<>(data);
+    this.doFlush = doFlush;
+  }
+
+  /**
+   * The live contents of the storage, only to be used by the owning storage when writing it to disk.
+   */
+  Map<K, V> contents() {
+    return storage;
+  }
+
   /**
    * Provided for the deserialization case so that the flush method can be set after loading the object from disk.
    * Note that this will assert if called on an instance which already has a flush callback.
@@ -18,11 +18,13 @@
  */
 package com.tc.objectserver.persistence;
 
-import java.io.FileInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.terracotta.entity.StateDumpable;
@@ -30,6 +32,11 @@ import org.terracotta.entity.StateDumper;
 import org.terracotta.persistence.IPersistentStorage;
 import org.terracotta.persistence.KeyValueStorage;
 
+import com.tc.bytes.TCByteBuffer;
+import com.tc.io.TCByteBufferInput;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
 import com.tc.util.Assert;
 import java.io.File;
 import java.nio.file.Files;
@@ -45,6 +52,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * well as any key-value storage objects or properties maps it returns.
  */
 public class FlatFilePersistentStorage implements IPersistentStorage, StateDumpable {
+  private static final TCLogger LOGGER = TCLogging.getLogger(FlatFilePersistentStorage.class);
+  // "TCFF"
+  private static final int FORMAT_MAGIC = 0x54434646;
+
   private final File store;
   private FlatFileProperties properties;
   private Map<String, FlatFileKeyValueStorage<?, ?>> maps;
@@ -57,14 +68,18 @@ public class FlatFilePersistentStorage implements IPersistentStorage, StateDumpa
         synchronized (store) {
             result = r.call();
             File temp = new File(store.getParentFile(), "temp_" + store.getName());
-            FileOutputStream file = new FileOutputStream(temp);
-            ObjectOutputStream out = new ObjectOutputStream(file);
-            out.writeObject(properties);
-            out.writeObject(maps);
-            out.flush();
-            out.close();
-            file.flush();
-            file.close();
+            TCByteBufferOutputStream out = new TCByteBufferOutputStream(4096, 64 * 1024, false);
+            writeStore(out);
+            try (FileOutputStream file = new FileOutputStream(temp)) {
+              FileChannel channel = file.getChannel();
+              for (TCByteBuffer buffer : out.toArray()) {
+                ByteBuffer nio = buffer.getNioBuffer();
+                while (nio.hasRemaining()) {
+                  channel.write(nio);
+                }
+              }
+              file.flush();
+            }
             Files.move(temp.toPath(), store.toPath(), 
                 StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         }
@@ -81,17 +96,18 @@ public class FlatFilePersistentStorage implements IPersistentStorage, StateDumpa
   }
   
   @Override
-  @SuppressWarnings("unchecked")
   public void open() throws IOException {
     // Note that we will fail out for FileNotFound and other IOExceptions since those are the checked kinds of failure to open.
     if (!store.exists()) {
       throw new IOException("not found");
     }
+    byte[] data = Files.readAllBytes(store.toPath());
     try {
-      ObjectInputStream in = new ObjectInputStream(new FileInputStream(store));
-      this.properties = (FlatFileProperties)in.readObject();
-      this.maps = (Map<String, FlatFileKeyValueStorage<?, ?>>) in.readObject();
-      in.close();
+      if (isLegacyFormat(data)) {
+        readLegacyStore(data);
+      } else {
+        readStore(PersistentRecordCodec.fromBytes(data));
+      }
       for (Map.Entry<String, FlatFileKeyValueStorage<?, ?>> entry : maps.entrySet()) {
         entry.getValue().setFlushCallback(doFlush);
       }
@@ -102,6 +118,57 @@ public class FlatFilePersistentStorage implements IPersistentStorage, StateDumpa
     } catch (IOException ioe) {
       throw new RuntimeException(ioe);
     }
+    if (isLegacyFormat(data)) {
+      // One-time migration:  rewrite the store in the binary format so that it is never read through serialization again.
+      LOGGER.info("migrating " + store.getAbsolutePath() + " from the serialized format to format version " + PersistentRecordCodec.VERSION);
+      doFlush.run(()->null);
+    }
+  }
+
+  private void writeStore(TCByteBufferOutputStream out) throws IOException {
+    out.writeInt(FORMAT_MAGIC);
+    out.writeByte(PersistentRecordCodec.VERSION);
+    PersistentRecordCodec.writeMap(out, properties);
+    out.writeInt(maps.size());
+    for (Map.Entry<String, FlatFileKeyValueStorage<?, ?>> entry : maps.entrySet()) {
+      out.writeString(entry.getKey());
+      PersistentRecordCodec.writeMap(out, entry.getValue().contents());
+    }
+  }
+
+  private void readStore(TCByteBufferInput in) throws IOException {
+    if (in.readInt() != FORMAT_MAGIC) {
+      throw new IOException("not a storage file " + store.getAbsolutePath());
+    }
+    byte version = in.readByte();
+    if (version != PersistentRecordCodec.VERSION) {
+      throw new IOException("unsupported storage format version " + version);
+    }
+    this.properties = new FlatFileProperties(null);
+    Map<String, String> props = new HashMap<>();
+    PersistentRecordCodec.readMap(in, props);
+    this.properties.putAll(props);
+    this.maps = new ConcurrentHashMap<>();
+    int count = in.readInt();
+    for (int x = 0; x < count; x++) {
+      String name = in.readString();
+      Map<Object, Object> contents = new HashMap<>();
+      PersistentRecordCodec.readMap(in, contents);
+      this.maps.put(name, new FlatFileKeyValueStorage<>(contents, null));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readLegacyStore(byte[] data) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      this.properties = (FlatFileProperties)in.readObject();
+      this.maps = (Map<String, FlatFileKeyValueStorage<?, ?>>) in.readObject();
+    }
+  }
+
+  private static boolean isLegacyFormat(byte[] data) {
+    // files written before the binary format are a single Java serialization stream
+    return data.length >= 2 && (data[0] & 0xff) == 0xac && (data[1] & 0xff) == 0xed;
   }
 
   @Override
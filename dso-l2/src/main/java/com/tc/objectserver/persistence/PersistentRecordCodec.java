@@ -0,0 +1,281 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.io.TCByteBufferInput;
+import com.tc.io.TCByteBufferInputStream;
+import com.tc.io.TCByteBufferOutput;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.NodeID;
+import com.tc.net.groups.NodeIDSerializer;
+import com.tc.net.protocol.tcm.ChannelID;
+import com.tc.object.tx.TransactionID;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.terracotta.exception.EntityException;
+
+
+/**
+ * The binary encoding of the records the platform keeps in persistent storage.  Every value is written with a one byte
+ * tag describing its type so that the platform records (entity data, journals, transaction orders and their keys) are
+ * encoded field by field.  Values of any other type, such as those stored by services, fall back to Java serialization.
+ *
+ * The tags are part of the on-disk format so they can be added to but never renumbered.
+ */
+public class PersistentRecordCodec {
+  public static final byte VERSION = 1;
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte LONG = 2;
+  private static final byte INTEGER = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte BYTES = 5;
+  private static final byte NODE_ID = 6;
+  private static final byte CHANNEL_ID = 7;
+  private static final byte ENTITY_KEY = 8;
+  private static final byte ENTITY_VALUE = 9;
+  private static final byte JOURNAL_ENTRY = 10;
+  private static final byte LIST = 11;
+  private static final byte LINKED_LIST = 12;
+  private static final byte CLIENT_TRANSACTION = 13;
+  private static final byte SERIALIZED = 127;
+
+  private PersistentRecordCodec() {}
+
+  public static void writeObject(TCByteBufferOutput out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      out.writeString((String)value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long)value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer)value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean)value);
+    } else if (value instanceof byte[]) {
+      out.writeByte(BYTES);
+      writeBytes(out, (byte[])value);
+    } else if (value instanceof NodeID) {
+      out.writeByte(NODE_ID);
+      new NodeIDSerializer((NodeID)value).serializeTo(out);
+    } else if (value instanceof ChannelID) {
+      out.writeByte(CHANNEL_ID);
+      out.writeLong(((ChannelID)value).toLong());
+    } else if (value instanceof EntityData.Key) {
+      EntityData.Key key = (EntityData.Key)value;
+      out.writeByte(ENTITY_KEY);
+      out.writeString(key.className);
+      out.writeString(key.entityName);
+    } else if (value instanceof EntityData.Value) {
+      EntityData.Value data = (EntityData.Value)value;
+      out.writeByte(ENTITY_VALUE);
+      out.writeString(data.className);
+      out.writeString(data.entityName);
+      out.writeLong(data.version);
+      out.writeLong(data.consumerID);
+      out.writeBoolean(data.canDelete);
+      writeBytes(out, data.configuration);
+    } else if (value instanceof EntityData.JournalEntry) {
+      EntityData.JournalEntry entry = (EntityData.JournalEntry)value;
+      out.writeByte(JOURNAL_ENTRY);
+      out.writeByte(entry.operation.ordinal());
+      out.writeLong(entry.transactionID);
+      writeBytes(out, entry.reconfigureResponse);
+  //  failures are rare and can be any exception type so they are left to serialization
+      writeSerialized(out, entry.failure);
+    } else if (value instanceof TransactionOrderPersistor.ClientTransaction) {
+      TransactionOrderPersistor.ClientTransaction transaction = (TransactionOrderPersistor.ClientTransaction)value;
+      out.writeByte(CLIENT_TRANSACTION);
+      out.writeLong(transaction.id.toLong());
+      out.writeLong(transaction.globalID);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>)value;
+      out.writeByte(value instanceof LinkedList ? LINKED_LIST : LIST);
+      out.writeInt(list.size());
+      for (Object o : list) {
+        writeObject(out, o);
+      }
+    } else {
+      out.writeByte(SERIALIZED);
+      writeSerialized(out, value);
+    }
+  }
+
+  public static Object readObject(TCByteBufferInput in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING:
+        return in.readString();
+      case LONG:
+        return in.readLong();
+      case INTEGER:
+        return in.readInt();
+      case BOOLEAN:
+        return in.readBoolean();
+      case BYTES:
+        return readBytes(in);
+      case NODE_ID:
+        return new NodeIDSerializer().deserializeFrom(in).getNodeID();
+      case CHANNEL_ID:
+        return new ChannelID(in.readLong());
+      case ENTITY_KEY: {
+        EntityData.Key key = new EntityData.Key();
+        key.className = in.readString();
+        key.entityName = in.readString();
+        return key;
+      }
+      case ENTITY_VALUE: {
+        EntityData.Value data = new EntityData.Value();
+        data.className = in.readString();
+        data.entityName = in.readString();
+        data.version = in.readLong();
+        data.consumerID = in.readLong();
+        data.canDelete = in.readBoolean();
+        data.configuration = readBytes(in);
+        return data;
+      }
+      case JOURNAL_ENTRY: {
+        EntityData.JournalEntry entry = new EntityData.JournalEntry();
+        entry.operation = EntityData.Operation.values()[in.readByte()];
+        entry.transactionID = in.readLong();
+        entry.reconfigureResponse = readBytes(in);
+        entry.failure = (EntityException)readSerialized(in);
+        return entry;
+      }
+      case CLIENT_TRANSACTION: {
+        TransactionOrderPersistor.ClientTransaction transaction = new TransactionOrderPersistor.ClientTransaction();
+        transaction.id = new TransactionID(in.readLong());
+        transaction.globalID = in.readLong();
+        return transaction;
+      }
+      case LIST:
+      case LINKED_LIST: {
+        int size = in.readInt();
+        List<Object> list = (tag == LIST) ? new ArrayList<>(size) : new LinkedList<>();
+        for (int x = 0; x < size; x++) {
+          list.add(readObject(in));
+        }
+        return list;
+      }
+      case SERIALIZED:
+        return readSerialized(in);
+      default:
+        throw new IOException("unknown record type " + tag);
+    }
+  }
+
+  /**
+   * Writes the entries of the map as a count followed by alternating keys and values.
+   */
+  public static void writeMap(TCByteBufferOutput out, Map<?, ?> map) throws IOException {
+    out.writeInt(map.size());
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      writeObject(out, entry.getKey());
+      writeObject(out, entry.getValue());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> void readMap(TCByteBufferInput in, Map<K, V> map) throws IOException {
+    int size = in.readInt();
+    for (int x = 0; x < size; x++) {
+      K key = (K)readObject(in);
+      V value = (V)readObject(in);
+      map.put(key, value);
+    }
+  }
+
+  public static byte[] toBytes(TCByteBufferOutputStream out) {
+    out.close();
+    byte[] data = new byte[out.getBytesWritten()];
+    int idx = 0;
+    for (TCByteBuffer buf : out.toArray()) {
+      int length = buf.limit();
+      buf.get(data, idx, length);
+      idx += length;
+    }
+    return data;
+  }
+
+  public static TCByteBufferInputStream fromBytes(byte[] data) {
+    return new TCByteBufferInputStream(TCByteBufferFactory.wrap(data));
+  }
+
+  private static void writeBytes(TCByteBufferOutput out, byte[] data) {
+    if (data == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(data.length);
+      out.write(data);
+    }
+  }
+
+  private static byte[] readBytes(TCByteBufferInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] data = new byte[length];
+    in.readFully(data);
+    return data;
+  }
+
+  private static void writeSerialized(TCByteBufferOutput out, Object value) throws IOException {
+    if (value == null) {
+      writeBytes(out, null);
+    } else {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+        oos.writeObject((Serializable)value);
+      }
+      writeBytes(out, bytes.toByteArray());
+    }
+  }
+
+  private static Object readSerialized(TCByteBufferInput in) throws IOException {
+    byte[] data = readBytes(in);
+    if (data == null) {
+      return null;
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+      return ois.readObject();
+    } catch (ClassNotFoundException cnf) {
+      throw new IOException(cnf);
+    }
+  }
+}
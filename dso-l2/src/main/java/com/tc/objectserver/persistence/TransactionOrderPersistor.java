@@ -28,10 +28,12 @@ import com.tc.object.tx.TransactionID;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
 
 
@@ -115,7 +117,7 @@ public class TransactionOrderPersistor {
     clientLocals.remove(source);
   }
 
-  private static class ClientTransaction implements Serializable {
+  static class ClientTransaction implements Serializable {
     private static final long serialVersionUID = 1L;
     public transient NodeID client;
     public TransactionID id;
@@ -171,6 +173,22 @@ public class TransactionOrderPersistor {
     return index;
   }
 
+  /**
+   * Captures the global position of every transaction currently known.  Unlike the index returned by getIndexToReplay,
+   * these positions don't move as new messages are recorded so they can still order resends once the records change.
+   */
+  public synchronized Map<NodeID, Map<TransactionID, Long>> getGlobalOrder() {
+    Map<NodeID, Map<TransactionID, Long>> order = new HashMap<>();
+    for (NodeID client : clientLocals.keySet()) {
+      Map<TransactionID, Long> forClient = new HashMap<>();
+      for (ClientTransaction ct : clientLocals.get(client)) {
+        forClient.put(ct.id, ct.globalID);
+      }
+      order.put(client, forClient);
+    }
+    return order;
+  }
+
   /**
    * Clears all internal state.
    */
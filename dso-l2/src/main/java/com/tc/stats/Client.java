@@ -62,6 +62,7 @@ public class Client extends AbstractTerracottaMBean implements ClientMBean, Noti
   private final SampledCounter                 writeRate;
   private final SampledCounter                 readRate;
   private final Counter                        pendingTransactions;
+  private final ChannelStats                   channelStats;
   private final AtomicLong                     sequenceNumber          = new AtomicLong(0L);
   private final ClientID                       clientID;
 
@@ -83,6 +84,7 @@ public class Client extends AbstractTerracottaMBean implements ClientMBean, Noti
     this.mbeanServer = mbeanServer;
     this.channel = channel;
     this.clientID = clientID;
+    this.channelStats = channelStats;
     this.txnRate = (SampledCounter) channelStats.getCounter(channel, ChannelStats.TXN_RATE);
     this.writeRate = (SampledCounter) channelStats.getCounter(channel, ChannelStats.WRITE_RATE);
     this.readRate = (SampledCounter) channelStats.getCounter(channel, ChannelStats.READ_RATE);
@@ -164,6 +166,16 @@ public class Client extends AbstractTerracottaMBean implements ClientMBean, Noti
     return pendingTransactions.getValue();
   }
 
+  @Override
+  public int getOutboundQueueMessages() {
+    return channelStats.getOutboundQueueMessages(channel);
+  }
+
+  @Override
+  public long getOutboundQueueBytes() {
+    return channelStats.getOutboundQueueBytes(channel);
+  }
+
   @Override
   public Number[] getStatistics(String[] names) {
     int count = names.length;
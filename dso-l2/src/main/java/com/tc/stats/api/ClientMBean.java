@@ -55,6 +55,10 @@ public interface ClientMBean extends TerracottaMBean {
 
   long getPendingTransactionsCount();
 
+  int getOutboundQueueMessages();
+
+  long getOutboundQueueBytes();
+
   Number[] getStatistics(String[] names);
 
   int getLiveObjectCount();
@@ -0,0 +1,139 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.l2.logging;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class AsyncRingBufferAppenderTest {
+
+  @Test
+  public void testEventsAreWrittenInOrderAndDrainedOnClose() throws Exception {
+    CollectingAppender target = new CollectingAppender(null);
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(target, 16, AsyncRingBufferAppender.OverflowPolicy.BLOCK);
+    for (int x = 0; x < 1000; x++) {
+      async.doAppend(event(Level.INFO, "message " + x));
+    }
+    async.close();
+    assertTrue(target.closed);
+    assertEquals(1000, target.messages.size());
+    for (int x = 0; x < 1000; x++) {
+      assertEquals("message " + x, target.messages.get(x));
+    }
+  }
+
+  @Test
+  public void testCapacityIsRoundedToPowerOfTwo() throws Exception {
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(new CollectingAppender(null), 1000, AsyncRingBufferAppender.OverflowPolicy.BLOCK);
+    assertEquals(1024, async.getCapacity());
+    async.close();
+  }
+
+  @Test
+  public void testThreadNameIsCapturedByTheLoggingThread() throws Exception {
+    CollectingAppender target = new CollectingAppender(null);
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(target, 16, AsyncRingBufferAppender.OverflowPolicy.BLOCK);
+    LoggingEvent event = event(Level.INFO, "from here");
+    async.doAppend(event);
+    async.close();
+    assertEquals(Thread.currentThread().getName(), target.threads.get(0));
+  }
+
+  @Test
+  public void testDiscardWhenFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CollectingAppender target = new CollectingAppender(release);
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(target, 4, AsyncRingBufferAppender.OverflowPolicy.DISCARD);
+    for (int x = 0; x < 100; x++) {
+      async.doAppend(event(Level.INFO, "message " + x));
+    }
+    // the writer holds at most one event while blocked so everything beyond that and the buffer is dropped
+    assertTrue(async.getDiscardedCount() >= 100 - 4 - 1);
+    release.countDown();
+    async.close();
+    String last = target.messages.get(target.messages.size() - 1);
+    assertTrue(last, last.endsWith("log messages were discarded because the logging buffer was full"));
+  }
+
+  @Test
+  public void testDiscardBelowWarnKeepsWarnings() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CollectingAppender target = new CollectingAppender(release);
+    AsyncRingBufferAppender async = new AsyncRingBufferAppender(target, 4, AsyncRingBufferAppender.OverflowPolicy.DISCARD_BELOW_WARN);
+    for (int x = 0; x < 20; x++) {
+      async.doAppend(event(Level.INFO, "info " + x));
+    }
+    Thread warner = new Thread(() -> async.doAppend(event(Level.WARN, "warning")));
+    warner.start();
+    release.countDown();
+    warner.join();
+    async.close();
+    assertTrue(target.messages.contains("warning"));
+  }
+
+  private static LoggingEvent event(Level level, String message) {
+    return new LoggingEvent(AsyncRingBufferAppenderTest.class.getName(), Logger.getLogger(AsyncRingBufferAppenderTest.class), level, message, null);
+  }
+
+  private static class CollectingAppender extends AppenderSkeleton {
+    private final CountDownLatch release;
+    private final List<String> messages = new ArrayList<String>();
+    private final List<String> threads = new ArrayList<String>();
+    private volatile boolean closed = false;
+
+    CollectingAppender(CountDownLatch release) {
+      this.release = release;
+      setName("collecting");
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+      if (release != null) {
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      }
+      messages.add(event.getRenderedMessage());
+      threads.add(event.getThreadName());
+    }
+
+    @Override
+    public boolean requiresLayout() {
+      return false;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.core.impl;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.terracotta.monitoring.IMonitoringProducer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+public class MonitoringEventPublisherTest {
+  private static final String[] PATH = new String[] {"platform", "fetched"};
+
+  @Test
+  public void testSynchronousUpdates() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, false, 0, 100);
+    publisher.addNode(PATH, "node", "value");
+    verify(producer).addNode(PATH, "node", "value");
+    publisher.removeNode(PATH, "node");
+    verify(producer).removeNode(PATH, "node");
+  }
+
+  @Test
+  public void testAddThenRemoveIsCoalesced() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    // a long delay so that every update lands in the same batch
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, true, 500, 100);
+    publisher.addNode(PATH, "node", "first");
+    publisher.addNode(PATH, "node", "second");
+    publisher.removeNode(PATH, "node");
+    publisher.addNode(PATH, "other", "value");
+    publisher.flush();
+
+    verify(producer, never()).addNode(eq(PATH), eq("node"), any());
+    verify(producer).removeNode(PATH, "node");
+    verify(producer).addNode(PATH, "other", "value");
+  }
+
+  @Test
+  public void testRemoveThenAddIsReplaced() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, true, 500, 100);
+    publisher.addNode(PATH, "parent", "value");
+    publisher.removeNode(PATH, "node");
+    publisher.addNode(PATH, "node", "first");
+    publisher.addNode(PATH, "node", "second");
+    publisher.flush();
+
+    InOrder inOrder = inOrder(producer);
+    inOrder.verify(producer).addNode(PATH, "parent", "value");
+    inOrder.verify(producer).removeNode(PATH, "node");
+    inOrder.verify(producer).addNode(PATH, "node", "second");
+    verify(producer, never()).addNode(PATH, "node", "first");
+  }
+
+  @Test
+  public void testParentReaddedAfterChildrenKeepsTreeOrder() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    String[] childPath = new String[] {"platform", "fetched", "parent"};
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, true, 500, 100);
+    publisher.addNode(PATH, "parent", "first");
+    publisher.addNode(childPath, "child", "value");
+    publisher.removeNode(PATH, "parent");
+    publisher.addNode(PATH, "parent", "second");
+    publisher.addNode(childPath, "child", "again");
+    publisher.flush();
+
+    // the parent can't be merged across its child so every change is applied in order
+    InOrder inOrder = inOrder(producer);
+    inOrder.verify(producer).addNode(PATH, "parent", "first");
+    inOrder.verify(producer).addNode(childPath, "child", "value");
+    inOrder.verify(producer).removeNode(PATH, "parent");
+    inOrder.verify(producer).addNode(PATH, "parent", "second");
+    inOrder.verify(producer).addNode(childPath, "child", "again");
+  }
+
+  @Test
+  public void testShutdownAppliesQueued() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, true, 500, 100);
+    publisher.addNode(PATH, "node", "value");
+    publisher.shutdown();
+    verify(producer).addNode(PATH, "node", "value");
+    // once stopped, the caller applies its own changes
+    publisher.removeNode(PATH, "node");
+    verify(producer).removeNode(PATH, "node");
+  }
+
+  @Test
+  public void testFullQueueIsAppliedByCaller() throws Exception {
+    IMonitoringProducer producer = mock(IMonitoringProducer.class);
+    MonitoringEventPublisher publisher = new MonitoringEventPublisher(producer, true, 5000, 2);
+    publisher.addNode(PATH, "a", "value");
+    publisher.addNode(PATH, "b", "value");
+    // the third change is over the limit so the caller applies all three without waiting out the delay
+    publisher.addNode(PATH, "c", "value");
+    InOrder inOrder = inOrder(producer);
+    inOrder.verify(producer).addNode(PATH, "a", "value");
+    inOrder.verify(producer).addNode(PATH, "b", "value");
+    inOrder.verify(producer).addNode(PATH, "c", "value");
+    publisher.shutdown();
+  }
+}
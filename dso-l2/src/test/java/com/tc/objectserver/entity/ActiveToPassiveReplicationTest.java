@@ -71,7 +71,7 @@ public class ActiveToPassiveReplicationTest {
         return null;
       }
     }).when(replicate).addSingleThreaded(Matchers.any());
-    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, mock(EntityPersistor.class), replicate);
+    replication = new ActiveToPassiveReplication(Collections.singleton(passive), entities, mock(EntityPersistor.class), new ReplicationLog("test", 0, 0), replicate);
   }
   
   @Test
@@ -83,7 +83,7 @@ public class ActiveToPassiveReplicationTest {
     when(msg.getMessageID()).thenReturn(id);
     ReplicationEnvelope env = mock(ReplicationEnvelope.class);
     when(msg.target(Matchers.any(), Matchers.any())).thenReturn(env);
-    ActivePassiveAckWaiter ack = replication.replicateMessage(msg, Collections.singleton(passive));
+    ActivePassiveAckWaiter ack = replication.replicateMessage(msg, current -> Collections.singleton(passive));
     Thread it = new Thread(()->{
       try {
         TimeUnit.MILLISECONDS.sleep(100);
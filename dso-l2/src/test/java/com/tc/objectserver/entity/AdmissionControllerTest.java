@@ -0,0 +1,164 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.entity.VoltronEntityMessage;
+import com.tc.exception.ServerBusyException;
+import com.tc.net.ClientID;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class AdmissionControllerTest {
+  private static final EntityID ENTITY = new EntityID("TestEntity", "test");
+  private static final EntityID OTHER_ENTITY = new EntityID("TestEntity", "other");
+
+  @Test
+  public void testUnlimitedAdmitsEverything() throws Exception {
+    AdmissionController admission = AdmissionController.UNLIMITED;
+    for (int i = 0; i < 100; i++) {
+      assertNull(admission.admit(invoke(new ClientID(1), ENTITY)));
+    }
+    assertEquals(0, admission.getQueued());
+  }
+
+  @Test
+  public void testClientLimit() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 2, 0, 0);
+    ClientID bulk = new ClientID(1);
+    VoltronEntityMessage first = invoke(bulk, ENTITY);
+    assertNull(admission.admit(first));
+    assertNull(admission.admit(invoke(bulk, OTHER_ENTITY)));
+    ServerBusyException busy = admission.admit(invoke(bulk, ENTITY));
+    assertNotNull(busy);
+    assertTrue(busy.getRetryAfterMillis() > 0);
+    // other clients are not held back by the first one's limit
+    assertNull(admission.admit(invoke(new ClientID(2), ENTITY)));
+    // and the first one gets back in once the stage picks up its work
+    admission.dequeued(first);
+    assertNull(admission.admit(invoke(bulk, ENTITY)));
+    assertEquals(1, admission.getRejectedCount());
+  }
+
+  @Test
+  public void testEntityLimit() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 0, 2, 0);
+    assertNull(admission.admit(invoke(new ClientID(1), ENTITY)));
+    assertNull(admission.admit(invoke(new ClientID(2), ENTITY)));
+    assertNotNull(admission.admit(invoke(new ClientID(3), ENTITY)));
+    assertNull(admission.admit(invoke(new ClientID(3), OTHER_ENTITY)));
+  }
+
+  @Test
+  public void testOnlyClientInvokesAreShed() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 1, 1, 0);
+    ClientID client = new ClientID(1);
+    assertNull(admission.admit(invoke(client, ENTITY)));
+    VoltronEntityMessage fetch = message(client, ENTITY, VoltronEntityMessage.Type.FETCH_ENTITY);
+    assertNull(admission.admit(fetch));
+    assertNull(admission.admit(invoke(ClientID.NULL_ID, ENTITY)));
+    // messages which never went through admission are ignored by the stage side
+    admission.dequeued(fetch);
+    assertEquals(1, admission.getQueued());
+  }
+
+  @Test
+  public void testQueueDelayShedsHeavyClients() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 0, 0, 1);
+    ClientID bulk = new ClientID(1);
+    ClientID light = new ClientID(2);
+    List<VoltronEntityMessage> queued = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      VoltronEntityMessage message = invoke(bulk, ENTITY);
+      assertNull(admission.admit(message));
+      queued.add(message);
+    }
+    VoltronEntityMessage lightMessage = invoke(light, ENTITY);
+    assertNull(admission.admit(lightMessage));
+    // let the queued work wait well past the limit before the stage picks up half of it
+    Thread.sleep(50);
+    for (int i = 0; i < 10; i++) {
+      admission.dequeued(queued.remove(0));
+    }
+    assertTrue(admission.getQueueDelayMillis() > 1);
+    // the bulk client has more than its share of the queue and is shed, the light one is not
+    assertNotNull(admission.admit(invoke(bulk, ENTITY)));
+    assertNull(admission.admit(invoke(light, ENTITY)));
+    assertNull(admission.admit(invoke(new ClientID(3), ENTITY)));
+  }
+
+  @Test
+  public void testClientDisconnectForgetsItsInvokes() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 1, 2, 0);
+    ClientID gone = new ClientID(1);
+    assertNull(admission.admit(invoke(gone, ENTITY)));
+    assertNotNull(admission.admit(invoke(gone, OTHER_ENTITY)));
+    assertNull(admission.admit(invoke(new ClientID(2), ENTITY)));
+    assertNotNull(admission.admit(invoke(new ClientID(3), ENTITY)));
+
+    admission.clientDisconnected(gone);
+    assertEquals(1, admission.getQueued());
+    // the departed client's invoke no longer counts against the entity, and a reused ID starts from nothing
+    assertNull(admission.admit(invoke(new ClientID(3), ENTITY)));
+    assertNull(admission.admit(invoke(gone, OTHER_ENTITY)));
+  }
+
+  @Test
+  public void testClearForgetsEverything() throws Exception {
+    AdmissionController admission = new AdmissionController(true, 1, 1, 0);
+    ClientID client = new ClientID(1);
+    VoltronEntityMessage dropped = invoke(client, ENTITY);
+    assertNull(admission.admit(dropped));
+    assertNotNull(admission.admit(invoke(client, ENTITY)));
+
+    admission.clear();
+    assertEquals(0, admission.getQueued());
+    assertNull(admission.admit(invoke(client, ENTITY)));
+    // a stray pickup of something that was cleared changes nothing
+    admission.dequeued(dropped);
+    assertEquals(1, admission.getQueued());
+  }
+
+  private static VoltronEntityMessage invoke(ClientID client, EntityID entity) {
+    return message(client, entity, VoltronEntityMessage.Type.INVOKE_ACTION);
+  }
+
+  private static VoltronEntityMessage message(ClientID client, EntityID entity, VoltronEntityMessage.Type type) {
+    VoltronEntityMessage message = mock(VoltronEntityMessage.class);
+    when(message.getSource()).thenReturn(client);
+    when(message.getVoltronType()).thenReturn(type);
+    when(message.getEntityDescriptor()).thenReturn(new EntityDescriptor(entity, new ClientInstanceID(1), 1));
+    when(message.getTransactionID()).thenReturn(new TransactionID(1));
+    return message;
+  }
+}
@@ -37,12 +37,16 @@ import com.tc.object.net.DSOChannelManagerEventListener;
 import com.tc.objectserver.core.impl.ManagementTopologyEventCollector;
 import java.util.Arrays;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -98,6 +102,36 @@ public class ClientEntityStateManagerImplTest {
     verify(collector).expectedReleases(Matchers.eq(clientID), Matchers.eq(Arrays.asList(new EntityDescriptor(entityID, clientInstanceID, version))));
   }
 
+  @Test
+  public void testChannelRemovedQueuesOneDisconnect() throws Exception {
+    EntityID foo = new EntityID("foo", "bar");
+    EntityID baz = new EntityID("baz", "bar");
+    ClientID clientID = new ClientID(1);
+    MessageChannel messageChannel = mock(MessageChannel.class);
+    when(messageChannel.getRemoteNodeID()).thenReturn(clientID);
+
+    clientEntityStateManager.addReference(clientID, new EntityDescriptor(foo, new ClientInstanceID(1), 1));
+    clientEntityStateManager.addReference(clientID, new EntityDescriptor(foo, new ClientInstanceID(2), 1));
+    clientEntityStateManager.addReference(clientID, new EntityDescriptor(baz, new ClientInstanceID(3), 1));
+    clientEntityStateManager.channelRemoved(messageChannel);
+
+    ArgumentCaptor<VoltronEntityMessage> captor = ArgumentCaptor.forClass(VoltronEntityMessage.class);
+    verify(requestSink, times(1)).addSingleThreaded(captor.capture());
+    ClientDisconnectMessage disconnect = (ClientDisconnectMessage) captor.getValue();
+    // one release per entity
+    assertEquals(2, disconnect.getEntities().size());
+    assertEquals(2, clientEntityStateManager.getReferences(clientID, foo).size());
+    assertEquals(1, clientEntityStateManager.getReferences(clientID, baz).size());
+  }
+
+  @Test
+  public void testChannelRemovedWithoutReferences() throws Exception {
+    MessageChannel messageChannel = mock(MessageChannel.class);
+    when(messageChannel.getRemoteNodeID()).thenReturn(new ClientID(1));
+    clientEntityStateManager.channelRemoved(messageChannel);
+    verify(requestSink, never()).addSingleThreaded(any());
+  }
+
   @Test
   public void testVerifyNoReferences() throws Exception {
     // Verify that there are no references.
@@ -112,6 +146,27 @@ public class ClientEntityStateManagerImplTest {
     assertTrue(verifyNoReferences(new EntityID("foo", "bar")));
   }
 
+  @Test
+  public void testReferencesCountedAcrossClients() throws Exception {
+    EntityID entityID = new EntityID("foo", "bar");
+    EntityDescriptor first = new EntityDescriptor(entityID, new ClientInstanceID(1), 1);
+    EntityDescriptor second = new EntityDescriptor(entityID, new ClientInstanceID(2), 1);
+    assertTrue(addReference(new ClientID(1), first));
+    assertTrue(addReference(new ClientID(1), second));
+    assertTrue(addReference(new ClientID(2), first));
+
+    assertTrue(removeReference(new ClientID(1), first));
+    assertTrue(removeReference(new ClientID(1), second));
+    // the other client still holds a reference
+    assertFalse(verifyNoReferences(entityID));
+    assertEquals(0, clientEntityStateManager.getReferences(new ClientID(1), entityID).size());
+    // a reference can't be removed twice
+    assertFalse(removeReference(new ClientID(1), first));
+
+    assertTrue(removeReference(new ClientID(2), first));
+    assertTrue(verifyNoReferences(entityID));
+  }
+
   private boolean addReference(ClientID clientID, EntityDescriptor descriptor) {
     // This only fails by asserting.
     boolean didSucceed = false;
@@ -146,7 +201,8 @@ public class ClientEntityStateManagerImplTest {
       public boolean matches(Object o) {
         if (o instanceof VoltronEntityMessage) {
           VoltronEntityMessage message = (VoltronEntityMessage) o;
-          return message.getEntityDescriptor().getEntityID().equals(entityID) && message.getSource().equals(clientID);
+          return message.getVoltronType() == VoltronEntityMessage.Type.DISCONNECT_CLIENT && message.getSource().equals(clientID)
+              && ((ClientDisconnectMessage) message).getEntities().stream().anyMatch(d -> d.getEntityID().equals(entityID));
         }
         return false;
       }
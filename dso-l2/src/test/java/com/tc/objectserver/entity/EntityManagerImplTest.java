@@ -147,6 +147,11 @@ public class EntityManagerImplTest {
       public Set<NodeID> replicateTo(Set<NodeID> passives) {
         return Collections.emptySet();
       }
+
+      @Override
+      public boolean requiresReplication() {
+        return false;
+      }
     };
     //  set the destroyed flag in the entity
     entity.addRequestMessage(req, MessagePayload.EMPTY, null, null);
@@ -190,6 +190,54 @@ public class ManagedEntityImplTest {
     verify(serverEntityService).createActiveEntity(Matchers.eq(serviceRegistry), Matchers.eq(arg.getRawPayload()));
   }
   
+  @Test
+  public void testLazyLoadPromotesWithoutPassive() throws Exception {
+    byte[] config = new byte[] {1};
+    managedEntity.loadEntityLazily(config);
+    verify(serverEntityService, never()).createPassiveEntity(Matchers.any(), Matchers.any());
+    managedEntity.promoteEntity();
+    verify(serverEntityService, never()).createActiveEntity(Matchers.any(), Matchers.any());
+    // warm-up only asks the PTH for a noop, it doesn't construct anything itself
+    managedEntity.warmUp();
+    verify(loopback).accept(entityID, version);
+    verify(serverEntityService, never()).createActiveEntity(Matchers.any(), Matchers.any());
+    // the first request constructs the active entity directly
+    Thread.currentThread().setName(ServerConfigurationContext.VOLTRON_MESSAGE_STAGE);
+    TestingResponse response = mockResponse();
+    managedEntity.addRequestMessage(mockNoopRequest(), MessagePayload.EMPTY, response::complete, response::failure);
+    response.waitFor();
+    verify(serverEntityService).createActiveEntity(Matchers.eq(serviceRegistry), Matchers.eq(config));
+    verify(serverEntityService, never()).createPassiveEntity(Matchers.any(), Matchers.any());
+    verify(activeServerEntity).loadExisting();
+    // only ever constructed once
+    response = mockResponse();
+    managedEntity.addRequestMessage(mockNoopRequest(), MessagePayload.EMPTY, response::complete, response::failure);
+    response.waitFor();
+    managedEntity.warmUp();
+    verify(loopback).accept(entityID, version);
+    verify(serverEntityService).createActiveEntity(Matchers.any(), Matchers.any());
+  }
+
+  @Test
+  public void testLazyLoadConstructsOnManagementKey() throws Exception {
+    Thread caller = Thread.currentThread();
+    Thread[] constructedOn = new Thread[1];
+    doAnswer((invoke)->{
+      constructedOn[0] = Thread.currentThread();
+      return passiveServerEntity;
+    }).when(serverEntityService).createPassiveEntity(any(ServiceRegistry.class), any(byte[].class));
+    managedEntity.loadEntityLazily(new byte[0]);
+    TestingResponse response = mockResponse();
+    managedEntity.addRequestMessage(mockNoopRequest(), MessagePayload.EMPTY, response::complete, response::failure);
+    response.waitFor();
+    verify(serverEntityService).createPassiveEntity(Matchers.eq(serviceRegistry), Matchers.any());
+    verify(passiveServerEntity).loadExisting();
+    // constructed by the request processor, ahead of the noop, never on the thread adding the request
+    verify(requestMulti).scheduleRequest(any(), any(), any(), any(), eq(ConcurrencyStrategy.MANAGEMENT_KEY));
+    Assert.assertNotNull(constructedOn[0]);
+    Assert.assertTrue(caller != constructedOn[0]);
+  }
+
   @Test
   public void testNoop() throws Exception {
     TestingResponse response = mockResponse();
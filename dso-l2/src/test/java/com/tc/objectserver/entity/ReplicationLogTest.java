@@ -0,0 +1,118 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.l2.msg.PassiveSyncMessage;
+import com.tc.l2.msg.ReplicationMessage;
+import com.tc.net.ClientID;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+public class ReplicationLogTest {
+
+  @Test
+  public void testTailFromPosition() {
+    ReplicationLog log = new ReplicationLog("epoch", 10, Long.MAX_VALUE);
+    for (int x = 0; x < 5; x++) {
+      ReplicationMessage msg = invoke(x);
+      log.append(msg);
+      assertEquals(x + 1, msg.getLogSequence());
+    }
+    List<ReplicationMessage> tail = log.tailFrom("epoch", 2);
+    assertNotNull(tail);
+    assertEquals(3, tail.size());
+    assertEquals(3, tail.get(0).getLogSequence());
+    assertEquals(5, tail.get(2).getLogSequence());
+//  fully caught up
+    assertEquals(0, log.tailFrom("epoch", 5).size());
+  }
+
+  @Test
+  public void testWrongEpochRequiresFullSync() {
+    ReplicationLog log = new ReplicationLog("epoch", 10, Long.MAX_VALUE);
+    log.append(invoke(1));
+    assertNull(log.tailFrom("other", 0));
+  }
+
+  @Test
+  public void testTruncatedLogRequiresFullSync() {
+    ReplicationLog log = new ReplicationLog("epoch", 3, Long.MAX_VALUE);
+    for (int x = 0; x < 10; x++) {
+      log.append(invoke(x));
+    }
+    assertEquals(3, log.size());
+    assertNull(log.tailFrom("epoch", 6));
+    assertEquals(3, log.tailFrom("epoch", 7).size());
+//  a position the log has never reached
+    assertNull(log.tailFrom("epoch", 11));
+    assertFalse(log.covers("epoch", 6));
+    assertTrue(log.covers("epoch", 7));
+    assertFalse(log.covers("epoch", 11));
+  }
+
+  @Test
+  public void testBoundedByBytes() {
+    ReplicationLog log = new ReplicationLog("epoch", Integer.MAX_VALUE, 4096);
+    for (int x = 0; x < 10; x++) {
+      ReplicationMessage msg = ReplicationMessage.createReplicatedMessage(descriptor(), new ClientID(1), new TransactionID(x), TransactionID.NULL_ID,
+          ReplicationMessage.ReplicationType.INVOKE_ACTION, new byte[1024], 1);
+      log.append(msg);
+    }
+    assertEquals(3, log.size());
+    assertEquals(10, log.getLastSequence());
+  }
+
+  @Test
+  public void testOnlyReplicatedMessagesAreLogged() {
+    ReplicationLog log = new ReplicationLog("epoch", 10, Long.MAX_VALUE);
+    log.append(PassiveSyncMessage.createStartSyncMessage());
+    log.append(ReplicationMessage.createNoOpMessage(new EntityID("foo", "bar"), 1));
+    assertEquals(0, log.size());
+    assertEquals(0, log.getLastSequence());
+  }
+
+  @Test
+  public void testDisabledLog() {
+    ReplicationLog log = new ReplicationLog("epoch", 0, 0);
+    ReplicationMessage msg = invoke(1);
+    log.append(msg);
+    assertEquals(0, msg.getLogSequence());
+    assertNull(log.tailFrom("epoch", 0));
+  }
+
+  private static ReplicationMessage invoke(int tid) {
+    return ReplicationMessage.createReplicatedMessage(descriptor(), new ClientID(1), new TransactionID(tid), TransactionID.NULL_ID,
+        ReplicationMessage.ReplicationType.INVOKE_ACTION, new byte[0], 1);
+  }
+
+  private static EntityDescriptor descriptor() {
+    return new EntityDescriptor(new EntityID("foo", "bar"), ClientInstanceID.NULL_ID, 1);
+  }
+}
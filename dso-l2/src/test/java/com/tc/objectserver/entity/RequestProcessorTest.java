@@ -20,15 +20,23 @@ package com.tc.objectserver.entity;
 
 import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.async.api.Sink;
+import com.tc.l2.msg.ReplicationEnvelope;
+import com.tc.l2.msg.ReplicationMessage;
 import com.tc.net.ClientID;
 import com.tc.net.NodeID;
+import com.tc.net.ServerID;
 import com.tc.object.ClientInstanceID;
 import com.tc.object.EntityDescriptor;
 import com.tc.object.EntityID;
 import com.tc.object.tx.TransactionID;
 import com.tc.objectserver.api.ServerEntityAction;
 import com.tc.objectserver.api.ServerEntityRequest;
+import com.tc.objectserver.persistence.EntityPersistor;
+import com.tc.util.Assert;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -38,6 +46,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.mockito.Matchers;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -195,6 +204,60 @@ public class RequestProcessorTest {
 //    verify(broker).replicateMessage(Matchers.any(), Matchers.any(), Matchers.any(), Matchers.any(), Matchers.any(), Matchers.any(),Matchers.any(), Matchers.any());
   }
   
+  @Test
+  public void testResyncedPassiveGetsRequestScheduledDuringResync() throws Exception {
+    NodeID attached = mock(ServerID.class);
+    NodeID resynced = mock(ServerID.class);
+    List<ReplicationEnvelope> sent = new ArrayList<>();
+    Sink<ReplicationEnvelope> replicate = mock(Sink.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        ReplicationEnvelope envelope = (ReplicationEnvelope)invocation.getArguments()[0];
+        sent.add(envelope);
+        envelope.release();
+        return null;
+      }
+    }).when(replicate).addSingleThreaded(Matchers.any());
+    ActiveToPassiveReplication broker = new ActiveToPassiveReplication(Collections.singleton(attached), mock(Iterable.class),
+        mock(EntityPersistor.class), new ReplicationLog("test", 16, 1024 * 1024), replicate);
+    RequestProcessor instance = new RequestProcessor(mock(Sink.class));
+    instance.setReplication(broker);
+    instance.enterActiveState();
+
+    ServerEntityRequest request = mock(ServerEntityRequest.class);
+    when(request.getAction()).thenReturn(ServerEntityAction.INVOKE_ACTION);
+    when(request.requiresReplication()).thenReturn(true);
+    when(request.getOldestTransactionOnClient()).thenReturn(TransactionID.NULL_ID);
+    when(request.getTransaction()).thenReturn(new TransactionID(1));
+    when(request.getNodeID()).thenReturn(new ClientID(1));
+    when(request.replicateTo(Matchers.anySet())).thenAnswer(new Answer<Set<NodeID>>() {
+      private boolean started;
+      @Override
+      public Set<NodeID> answer(InvocationOnMock invocation) throws Throwable {
+        Set<NodeID> targets = new HashSet<>((Set<NodeID>)invocation.getArguments()[0]);
+        // the passive is resynced once the request has chosen its passives but before it is replicated
+        if (!this.started) {
+          this.started = true;
+          Assert.assertTrue(broker.startPassiveResync(resynced, "test", 0));
+        }
+        return targets;
+      }
+    });
+    EntityDescriptor descriptor = new EntityDescriptor(new EntityID("TEST", "test"), ClientInstanceID.NULL_ID, 1);
+    instance.scheduleRequest(descriptor, request, MessagePayload.EMPTY, ()->{}, ConcurrencyStrategy.UNIVERSAL_KEY);
+
+    boolean received = false;
+    for (ReplicationEnvelope envelope : sent) {
+      ReplicationMessage msg = envelope.getMessage();
+      if (resynced == envelope.getDestination() && msg != null && msg.getType() == ReplicationMessage.REPLICATE
+          && msg.getReplicationType() == ReplicationMessage.ReplicationType.INVOKE_ACTION) {
+        received = true;
+      }
+    }
+    Assert.assertTrue(received);
+  }
+  
   private static byte[] intToArray(int val) {
     byte[] four = new byte[4];
     for (int x=0;x<four.length;x++) {
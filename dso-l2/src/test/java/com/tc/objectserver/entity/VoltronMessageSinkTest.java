@@ -0,0 +1,142 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.entity;
+
+import com.tc.async.api.Sink;
+import com.tc.entity.MessageCodecSupplier;
+import com.tc.entity.NetworkVoltronEntityMessage;
+import com.tc.entity.VoltronEntityAppliedResponse;
+import com.tc.entity.VoltronEntityMessage;
+import com.tc.entity.VoltronEntityReceivedResponse;
+import com.tc.exception.ServerBusyException;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.HydrateContext;
+import com.tc.net.protocol.tcm.HydrateHandler;
+import com.tc.net.protocol.tcm.MessageChannel;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class VoltronMessageSinkTest {
+  private static final EntityID ENTITY = new EntityID("TestEntity", "test");
+
+  private Sink<VoltronEntityMessage> destSink;
+  private Sink<HydrateContext> hydrateSink;
+  private AdmissionController admission;
+  private VoltronMessageSink sink;
+  private MessageChannel channel;
+  private VoltronEntityReceivedResponse received;
+  private VoltronEntityAppliedResponse applied;
+  private int putCount;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() throws Exception {
+    destSink = mock(Sink.class);
+    hydrateSink = mock(Sink.class);
+    admission = new AdmissionController(true, 1, 0, 0);
+    sink = new VoltronMessageSink(destSink, hydrateSink, mock(MessageCodecSupplier.class), admission);
+    channel = mock(MessageChannel.class);
+    received = mock(VoltronEntityReceivedResponse.class);
+    applied = mock(VoltronEntityAppliedResponse.class);
+    when(channel.createMessage(TCMessageType.VOLTRON_ENTITY_RECEIVED_RESPONSE)).thenReturn(received);
+    when(channel.createMessage(TCMessageType.VOLTRON_ENTITY_APPLIED_RESPONSE)).thenReturn(applied);
+  }
+
+  @Test
+  public void testShedInvokeIsFailedAndRetired() throws Exception {
+    ClientID client = new ClientID(1);
+    NetworkVoltronEntityMessage first = invoke(client, 1);
+    NetworkVoltronEntityMessage second = invoke(client, 2);
+    hydrate(first, second);
+
+    verify(destSink).addSingleThreaded(first);
+    verify(destSink, never()).addSingleThreaded(second);
+    // the shed invoke is acked, failed and retired in place without reaching the stage
+    verify(received).setTransactionID(new TransactionID(2));
+    verify(received).send();
+    verify(applied).setFailure(eq(new TransactionID(2)), any(ServerBusyException.class), eq(true));
+    verify(applied).send();
+    assertEquals(1, admission.getRejectedCount());
+    assertEquals(1, admission.getQueued());
+  }
+
+  @Test
+  public void testClearForgetsAdmittedInvokes() throws Exception {
+    ClientID client = new ClientID(1);
+    hydrate(invoke(client, 1));
+    assertEquals(1, admission.getQueued());
+
+    HydrateContext<VoltronEntityMessage> context = hydrated().get(0);
+    context.getDestSink().clear();
+    verify(destSink).clear();
+    assertEquals(0, admission.getQueued());
+
+    NetworkVoltronEntityMessage next = invoke(client, 2);
+    hydrate(next);
+    verify(destSink).addSingleThreaded(next);
+  }
+
+  private void hydrate(NetworkVoltronEntityMessage... messages) {
+    for (NetworkVoltronEntityMessage message : messages) {
+      sink.putMessage(message);
+    }
+    putCount += messages.length;
+    HydrateHandler handler = new HydrateHandler();
+    List<HydrateContext<VoltronEntityMessage>> contexts = hydrated();
+    for (HydrateContext<VoltronEntityMessage> context : contexts.subList(contexts.size() - messages.length, contexts.size())) {
+      handler.handleEvent(context);
+    }
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private List<HydrateContext<VoltronEntityMessage>> hydrated() {
+    ArgumentCaptor<HydrateContext> captor = ArgumentCaptor.forClass(HydrateContext.class);
+    verify(hydrateSink, times(putCount)).addMultiThreaded(captor.capture());
+    return (List) captor.getAllValues();
+  }
+
+  private NetworkVoltronEntityMessage invoke(ClientID client, long transaction) {
+    NetworkVoltronEntityMessage message = mock(NetworkVoltronEntityMessage.class);
+    when(message.getSource()).thenReturn(client);
+    when(message.getVoltronType()).thenReturn(VoltronEntityMessage.Type.INVOKE_ACTION);
+    when(message.getEntityDescriptor()).thenReturn(new EntityDescriptor(ENTITY, new ClientInstanceID(1), 1));
+    when(message.getTransactionID()).thenReturn(new TransactionID(transaction));
+    when(message.getChannel()).thenReturn(channel);
+    return message;
+  }
+}
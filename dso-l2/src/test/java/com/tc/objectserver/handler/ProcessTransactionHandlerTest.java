@@ -19,7 +19,13 @@
 package com.tc.objectserver.handler;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.After;
@@ -37,7 +43,9 @@ import com.tc.entity.VoltronEntityAppliedResponse;
 import com.tc.entity.VoltronEntityMessage;
 import com.tc.entity.VoltronEntityReceivedResponse;
 import com.tc.entity.VoltronEntityRetiredResponse;
+import com.tc.l2.msg.ReplicationMessage;
 import com.tc.net.ClientID;
+import com.tc.net.ServerID;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.TCMessageType;
 import com.tc.object.ClientInstanceID;
@@ -51,9 +59,11 @@ import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.core.api.ITopologyEventCollector;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.core.impl.ManagementTopologyEventCollector;
+import com.tc.objectserver.entity.ClientDisconnectMessage;
 import com.tc.objectserver.entity.ClientEntityStateManager;
 import com.tc.objectserver.entity.ClientEntityStateManagerImpl;
 import com.tc.objectserver.entity.EntityManagerImpl;
+import com.tc.objectserver.entity.NoReplicationBroker;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.entity.PassiveReplicationBroker;
 import com.tc.objectserver.entity.RequestProcessor;
@@ -66,10 +76,14 @@ import com.tc.services.TerracottaServiceProviderRegistry;
 import com.tc.stats.Stats;
 import com.tc.util.Assert;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Queue;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
+import org.terracotta.exception.EntityException;
 
 
 public class ProcessTransactionHandlerTest {
@@ -82,6 +96,8 @@ public class ProcessTransactionHandlerTest {
   private RunnableSink requestProcessorSink;
   private ClientEntityStateManager clientEntityStateManager;
   private ITopologyEventCollector eventCollector;
+  private VoltronEntityAppliedResponse appliedResponse;
+  private PassiveReplicationBroker broker;
   
   
   @Before
@@ -93,7 +109,8 @@ public class ProcessTransactionHandlerTest {
     this.source = mock(ClientID.class);
     
     MessageChannel messageChannel = mock(MessageChannel.class);
-    when(messageChannel.createMessage(TCMessageType.VOLTRON_ENTITY_APPLIED_RESPONSE)).thenReturn(mock(VoltronEntityAppliedResponse.class));
+    this.appliedResponse = mock(VoltronEntityAppliedResponse.class);
+    when(messageChannel.createMessage(TCMessageType.VOLTRON_ENTITY_APPLIED_RESPONSE)).thenReturn(this.appliedResponse);
     when(messageChannel.createMessage(TCMessageType.VOLTRON_ENTITY_RECEIVED_RESPONSE)).thenReturn(mock(VoltronEntityReceivedResponse.class));
     when(messageChannel.createMessage(TCMessageType.VOLTRON_ENTITY_RETIRED_RESPONSE)).thenReturn(mock(VoltronEntityRetiredResponse.class));
     
@@ -107,9 +124,9 @@ public class ProcessTransactionHandlerTest {
     this.clientEntityStateManager = new ClientEntityStateManagerImpl(stageManager, mock(ManagementTopologyEventCollector.class), mock(DSOChannelManagerEventListener.class));
     this.eventCollector = mock(ITopologyEventCollector.class);
     RequestProcessor processor = new RequestProcessor(this.requestProcessorSink);
-    PassiveReplicationBroker broker = mock(PassiveReplicationBroker.class);
-    when(broker.passives()).thenReturn(Collections.emptySet());
-    processor.setReplication(broker);
+    this.broker = mock(PassiveReplicationBroker.class);
+    when(this.broker.passives()).thenReturn(Collections.emptySet());
+    processor.setReplication(this.broker);
     EntityManagerImpl entityManager = new EntityManagerImpl(this.terracottaServiceProviderRegistry, clientEntityStateManager, eventCollector, processor, this::sendNoop);
     entityManager.enterActiveState();
     channelManager.addEventListener(clientEntityStateManager);
@@ -194,9 +211,88 @@ public class ProcessTransactionHandlerTest {
     this.requestProcessorSink.runUntilEmpty();
     this.clientEntityStateManager.channelRemoved(channel);
     this.requestProcessorSink.runUntilEmpty();
+    // the disconnect released the fetch
+    Assert.assertTrue(this.clientEntityStateManager.verifyNoReferences(entityID));
+    verify(this.eventCollector).clientDidReleaseAllReferences(this.source, entityID);
   }
 
 
+  @Test
+  public void testEarlyServiceHoldsGatedEntities() throws Exception {
+    when(this.transactionOrderPersistor.getGlobalOrder()).thenReturn(Collections.emptyMap());
+    EntityID gated = createMockEntity("gated");
+    EntityID open = createMockEntity("open");
+    this.processTransactionHandler.startEarlyService(Collections.singleton(gated));
+
+    AbstractEventHandler<VoltronEntityMessage> handler = this.processTransactionHandler.getVoltronMessageHandler();
+    handler.handleEvent(createMockRequest(VoltronEntityMessage.Type.INVOKE_ACTION, gated, new TransactionID(1)));
+    handler.handleEvent(createMockRequest(VoltronEntityMessage.Type.INVOKE_ACTION, open, new TransactionID(2)));
+    handler.handleEvent(createMockRequest(VoltronEntityMessage.Type.INVOKE_ACTION, gated, new TransactionID(3)));
+    // only the open entity is served while the gated one may still be waiting for a client
+    verify(this.transactionOrderPersistor).updateWithNewMessage(this.source, new TransactionID(2), new TransactionID(0));
+    verify(this.transactionOrderPersistor, never()).updateWithNewMessage(this.source, new TransactionID(1), new TransactionID(0));
+    verify(this.transactionOrderPersistor, never()).updateWithNewMessage(this.source, new TransactionID(3), new TransactionID(0));
+
+    // once nothing is gated the release event handles what was held, in the order it arrived
+    this.processTransactionHandler.updateEarlyService(Collections.emptySet());
+    verify(this.transactionOrderPersistor, never()).updateWithNewMessage(this.source, new TransactionID(1), new TransactionID(0));
+    this.processTransactionHandler.getEarlyWorkRelease().execute();
+    InOrder order = inOrder(this.transactionOrderPersistor);
+    order.verify(this.transactionOrderPersistor).updateWithNewMessage(this.source, new TransactionID(1), new TransactionID(0));
+    order.verify(this.transactionOrderPersistor).updateWithNewMessage(this.source, new TransactionID(3), new TransactionID(0));
+  }
+
+  @Test
+  public void testEarlyServiceKeepsClientOrderAcrossEntities() throws Exception {
+    when(this.transactionOrderPersistor.getGlobalOrder()).thenReturn(Collections.emptyMap());
+    EntityID gated = createMockEntity("gated");
+    EntityID open = createMockEntity("open");
+    this.processTransactionHandler.startEarlyService(Collections.singleton(gated));
+
+    AbstractEventHandler<VoltronEntityMessage> handler = this.processTransactionHandler.getVoltronMessageHandler();
+    handler.handleEvent(createMockRequest(VoltronEntityMessage.Type.INVOKE_ACTION, gated, new TransactionID(1)));
+    handler.handleEvent(createMockRequest(VoltronEntityMessage.Type.INVOKE_ACTION, open, new TransactionID(2)));
+    // the disconnect covers both entities so it must not overtake the invoke held for the gated one
+    handler.handleEvent(new ClientDisconnectMessage(this.source, Arrays.asList(
+        new EntityDescriptor(gated, ClientInstanceID.NULL_ID, 1), new EntityDescriptor(open, ClientInstanceID.NULL_ID, 1))));
+    verify(this.transactionOrderPersistor, never()).removeTrackingForClient(this.source);
+
+    this.processTransactionHandler.updateEarlyService(Collections.emptySet());
+    this.processTransactionHandler.getEarlyWorkRelease().execute();
+    verify(this.transactionOrderPersistor, never()).removeTrackingForClient(this.source);
+
+    // the window closing releases the disconnect without waiting for another request
+    this.processTransactionHandler.endEarlyService();
+    this.processTransactionHandler.getEarlyWorkRelease().execute();
+    InOrder order = inOrder(this.transactionOrderPersistor);
+    order.verify(this.transactionOrderPersistor).updateWithNewMessage(this.source, new TransactionID(2), new TransactionID(0));
+    order.verify(this.transactionOrderPersistor).updateWithNewMessage(this.source, new TransactionID(1), new TransactionID(0));
+    order.verify(this.transactionOrderPersistor).removeTrackingForClient(this.source);
+  }
+
+  @Test
+  public void testClientCannotSendDisconnect() throws Exception {
+    EntityID entityID = createMockEntity("foo");
+    this.processTransactionHandler.getVoltronMessageHandler().handleEvent(createMockRequest(VoltronEntityMessage.Type.DISCONNECT_CLIENT, entityID, new TransactionID(1)));
+    verify(this.appliedResponse).setFailure(eq(new TransactionID(1)), any(EntityException.class), anyBoolean());
+    verify(this.transactionOrderPersistor, never()).removeTrackingForClient(this.source);
+  }
+
+  @Test
+  public void testDisconnectReplicatedWithoutEntities() throws Exception {
+    when(this.broker.passives()).thenReturn(Collections.singleton(mock(ServerID.class)));
+    when(this.broker.replicateMessage(any(ReplicationMessage.class), any())).thenReturn(NoReplicationBroker.NOOP_WAITER);
+    // none of the client's entities exist any more but the passive must still drop the client's tracking
+    this.processTransactionHandler.getVoltronMessageHandler().handleEvent(new ClientDisconnectMessage(this.source, Arrays.asList(
+        new EntityDescriptor(createMockEntity("gone"), ClientInstanceID.NULL_ID, 1), new EntityDescriptor(createMockEntity("also-gone"), ClientInstanceID.NULL_ID, 1))));
+    this.requestProcessorSink.runUntilEmpty();
+    verify(this.transactionOrderPersistor).removeTrackingForClient(this.source);
+    ArgumentCaptor<ReplicationMessage> replicated = ArgumentCaptor.forClass(ReplicationMessage.class);
+    verify(this.broker, times(1)).replicateMessage(replicated.capture(), any());
+    Assert.assertEquals(this.source, replicated.getValue().getSource());
+    Assert.assertEquals(ReplicationMessage.ReplicationType.NOOP, replicated.getValue().getReplicationType());
+  }
+
   /**
    * This is pulled out as its own helper since the mocked EntityIDs aren't .equals() each other so using the same
    * instance gives convenient de facto equality.
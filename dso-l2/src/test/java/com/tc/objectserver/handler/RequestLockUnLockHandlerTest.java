@@ -0,0 +1,126 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.async.api.Sink;
+import com.tc.async.api.Stage;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.MessageChannel;
+import com.tc.net.protocol.tcm.MessageMonitor;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockRequest;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.msg.LockRequestMessage;
+import com.tc.object.msg.LockRequestMessage.RequestType;
+import com.tc.object.session.SessionID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.locks.LockManager;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class RequestLockUnLockHandlerTest {
+  private final ClientID client = new ClientID(1);
+  private final LockID a = new StringLockID("a");
+  private final LockID b = new StringLockID("b");
+  private final ThreadID t1 = new ThreadID(1);
+  private final ThreadID t2 = new ThreadID(2);
+
+  private RequestLockUnLockHandler handler;
+  private LockManager lockManager;
+  private Sink<LockRequestMessage> sink;
+  private MessageChannel channel;
+
+  @SuppressWarnings("unchecked")
+  @Before
+  public void setUp() throws Exception {
+    lockManager = mock(LockManager.class);
+    sink = mock(Sink.class);
+    Stage<LockRequestMessage> stage = mock(Stage.class);
+    when(stage.getSink()).thenReturn(sink);
+    ServerConfigurationContext context = mock(ServerConfigurationContext.class);
+    when(context.getLockManager()).thenReturn(lockManager);
+    when(context.getStage(ServerConfigurationContext.REQUEST_LOCK_STAGE, LockRequestMessage.class)).thenReturn(stage);
+    channel = mock(MessageChannel.class);
+    when(channel.getLocalNodeID()).thenReturn(client);
+    when(channel.getRemoteNodeID()).thenReturn(client);
+    handler = new RequestLockUnLockHandler();
+    handler.initialize(context);
+  }
+
+  @Test
+  public void testReceivedBatchIsSplitByLock() throws Exception {
+    LockRequestMessage batch = createBatch();
+    handler.handleEvent(batch);
+
+    // nothing is processed on the client's key, each lock's part is scheduled by its lock
+    verify(lockManager, never()).lock(any(), any(), any(), any());
+    ArgumentCaptor<LockRequestMessage> parts = ArgumentCaptor.forClass(LockRequestMessage.class);
+    verify(sink, times(2)).addMultiThreaded(parts.capture());
+    List<LockRequestMessage> split = parts.getAllValues();
+    Assert.assertEquals(a, split.get(0).getSchedulingKey());
+    Assert.assertEquals(b, split.get(1).getSchedulingKey());
+  }
+
+  @Test
+  public void testEachLockKeepsClientOrder() throws Exception {
+    LockRequestMessage batch = createBatch();
+    handler.handleEvent(batch);
+    ArgumentCaptor<LockRequestMessage> parts = ArgumentCaptor.forClass(LockRequestMessage.class);
+    verify(sink, times(2)).addMultiThreaded(parts.capture());
+    for (LockRequestMessage part : parts.getAllValues()) {
+      handler.handleEvent(part);
+    }
+
+    InOrder forA = inOrder(lockManager);
+    forA.verify(lockManager).lock(a, client, t1, ServerLockLevel.WRITE);
+    forA.verify(lockManager).unlock(a, client, t1);
+    forA.verify(lockManager).wait(a, client, t2, 500);
+    verify(lockManager).lock(b, client, t2, ServerLockLevel.READ);
+    // the parts are processed where they land, they are not split again
+    verify(sink, times(2)).addMultiThreaded(any());
+  }
+
+  private LockRequestMessage createBatch() {
+    LockRequestMessage batch = new LockRequestMessage(new SessionID(0), mock(MessageMonitor.class),
+        new TCByteBufferOutputStream(4, 4096, false), channel, TCMessageType.NOOP_MESSAGE);
+    batch.initializeBatch();
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.LOCK, a, t1, ServerLockLevel.WRITE, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.LOCK, b, t2, ServerLockLevel.READ, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.UNLOCK, a, t1, ServerLockLevel.WRITE, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.WAIT, a, t2, null, 500));
+    return batch;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handler;
+
+import com.tc.entity.ResendVoltronEntityMessage;
+import com.tc.entity.VoltronEntityMessage;
+import com.tc.net.ClientID;
+import com.tc.net.NodeID;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+
+public class ResendReplayTest {
+  private final ClientID client1 = new ClientID(1);
+  private final ClientID client2 = new ClientID(2);
+
+  @Test
+  public void testReplayFollowsGlobalOrder() {
+    Map<NodeID, Map<TransactionID, Long>> order = new HashMap<>();
+    order.put(client1, transactions(1, 10, 2, 30, 3, 50));
+    order.put(client2, transactions(1, 20, 2, 40));
+    ResendReplay replay = new ResendReplay(order);
+    assertEquals(0, replay.positionOf(client1, new TransactionID(1)));
+    assertEquals(3, replay.positionOf(client2, new TransactionID(2)));
+    assertEquals(-1, replay.positionOf(client2, new TransactionID(3)));
+    assertEquals(-1, replay.positionOf(new ClientID(3), new TransactionID(1)));
+
+    // Resends arrive client by client and one of the ordered transactions is never resent.
+    ResendVoltronEntityMessage c1t1 = resend(client1, 1);
+    ResendVoltronEntityMessage c1t3 = resend(client1, 3);
+    ResendVoltronEntityMessage c1t4 = resend(client1, 4);
+    ResendVoltronEntityMessage c2t1 = resend(client2, 1);
+    ResendVoltronEntityMessage c2t2 = resend(client2, 2);
+    ResendVoltronEntityMessage create = resend(client2, 3);
+    replay.addOrdered(c1t1);
+    replay.addOrdered(c1t3);
+    replay.addOrdered(c1t4);
+    replay.addOrdered(c2t1);
+    replay.addUnordered(create);
+    replay.addOrdered(c2t2);
+    assertEquals(6, replay.size());
+
+    List<ResendVoltronEntityMessage> replayed = new ArrayList<>();
+    replay.replay(replayed::add);
+    assertEquals(6, replayed.size());
+    assertSame(c1t1, replayed.get(0));
+    assertSame(c2t1, replayed.get(1));
+    assertSame(c2t2, replayed.get(2));
+    assertSame(c1t3, replayed.get(3));
+    // Resends outside the order follow in arrival order.
+    assertSame(c1t4, replayed.get(4));
+    assertSame(create, replayed.get(5));
+
+    assertEquals(0, replay.size());
+    replayed.clear();
+    replay.replay(replayed::add);
+    assertEquals(0, replayed.size());
+  }
+
+  @Test
+  public void testEmptyOrder() {
+    ResendReplay replay = new ResendReplay(new HashMap<>());
+    ResendVoltronEntityMessage resend = resend(client1, 1);
+    replay.addOrdered(resend);
+    List<ResendVoltronEntityMessage> replayed = new ArrayList<>();
+    replay.replay(replayed::add);
+    assertEquals(1, replayed.size());
+    assertSame(resend, replayed.get(0));
+  }
+
+  private static Map<TransactionID, Long> transactions(long... idAndOrder) {
+    Map<TransactionID, Long> transactions = new HashMap<>();
+    for (int x = 0; x < idAndOrder.length; x += 2) {
+      transactions.put(new TransactionID(idAndOrder[x]), idAndOrder[x + 1]);
+    }
+    return transactions;
+  }
+
+  private static ResendVoltronEntityMessage resend(ClientID source, long transaction) {
+    EntityDescriptor descriptor = new EntityDescriptor(new EntityID("foo", "bar"), ClientInstanceID.NULL_ID, 1);
+    return new ResendVoltronEntityMessage(source, new TransactionID(transaction), descriptor, VoltronEntityMessage.Type.INVOKE_ACTION,
+        false, new byte[0], new TransactionID(0));
+  }
+}
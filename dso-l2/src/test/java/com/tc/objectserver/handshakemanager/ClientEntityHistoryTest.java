@@ -0,0 +1,83 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.handshakemanager;
+
+import com.tc.net.ClientID;
+import com.tc.net.protocol.transport.ConnectionID;
+import com.tc.object.EntityID;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class ClientEntityHistoryTest {
+
+  @Test
+  public void testConnectionBeforeReplicationIsIncomplete() {
+    ClientEntityHistory history = new ClientEntityHistory();
+    history.connectionIDCreated(connection(1));
+    history.requestReplicated(new ClientID(1), new EntityID("foo", "bar"));
+    assertNull(history.getEntitiesFor(Collections.singleton(new ClientID(1))));
+  }
+
+  @Test
+  public void testEntitiesOfCompleteClients() {
+    ClientEntityHistory history = new ClientEntityHistory();
+//  passive sync messages have no source but still mark the start of replication
+    history.requestReplicated(ClientID.NULL_ID, EntityID.NULL_ID);
+    history.connectionIDCreated(connection(1));
+    history.connectionIDCreated(connection(2));
+    EntityID one = new EntityID("foo", "one");
+    EntityID two = new EntityID("foo", "two");
+    history.requestReplicated(new ClientID(1), one);
+    history.requestReplicated(new ClientID(2), two);
+    history.requestReplicated(new ClientID(2), one);
+
+    Set<EntityID> entities = history.getEntitiesFor(Arrays.asList(new ClientID(1), new ClientID(2)));
+    assertEquals(2, entities.size());
+    assertTrue(entities.contains(one));
+    assertTrue(entities.contains(two));
+    assertEquals(Collections.singleton(one), history.getEntitiesFor(Collections.singleton(new ClientID(1))));
+  }
+
+  @Test
+  public void testRemovedClientIsForgotten() {
+    ClientEntityHistory history = new ClientEntityHistory();
+    history.requestReplicated(ClientID.NULL_ID, EntityID.NULL_ID);
+    history.connectionIDCreated(connection(1));
+    history.requestReplicated(new ClientID(1), new EntityID("foo", "bar"));
+    history.connectionIDDestroyed(connection(1));
+//  a client which is gone and comes back with the same id was not seen connecting
+    assertNull(history.getEntitiesFor(Collections.singleton(new ClientID(1))));
+    assertTrue(history.getEntitiesFor(Collections.<ClientID>emptySet()).isEmpty());
+  }
+
+  private static ConnectionID connection(long channel) {
+    ConnectionID connection = mock(ConnectionID.class);
+    when(connection.getChannelID()).thenReturn(channel);
+    return connection;
+  }
+}
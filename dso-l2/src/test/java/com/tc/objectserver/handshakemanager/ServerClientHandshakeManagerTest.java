@@ -20,6 +20,7 @@
 package com.tc.objectserver.handshakemanager;
 
 import com.tc.async.api.Sink;
+import com.tc.async.api.SpecializedEventContext;
 import com.tc.async.api.Stage;
 import com.tc.async.api.StageManager;
 import org.junit.Before;
@@ -31,12 +32,14 @@ import com.tc.net.ClientID;
 import com.tc.net.protocol.tcm.ChannelID;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.transport.ConnectionID;
+import com.tc.object.EntityID;
 import com.tc.object.msg.ClientHandshakeMessage;
 import com.tc.object.net.DSOChannelManager;
 import com.tc.objectserver.api.EntityManager;
 import com.tc.objectserver.entity.NoopEntityMessage;
 import com.tc.objectserver.handler.ProcessTransactionHandler;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -47,6 +50,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -73,7 +77,7 @@ public class ServerClientHandshakeManagerTest {
     voltronSink = mock(Sink.class);
     when(voltronStage.getSink()).thenReturn(voltronSink);
     when(stageManager.getStage(any(), any())).thenReturn(voltronStage);
-    this.manager = new ServerClientHandshakeManager(logger, this.channelManager, stageManager, timer, reconnectTimeout, persistent, consoleLogger);
+    this.manager = new ServerClientHandshakeManager(logger, this.channelManager, stageManager, timer, reconnectTimeout, persistent, consoleLogger, null);
   }
 
   @Test
@@ -177,4 +181,99 @@ public class ServerClientHandshakeManagerTest {
     this.manager.notifyTimeout();
     assertTrue(this.manager.getUnconnectedClients().isEmpty());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testEarlyServiceOfReconnectedClients() throws Exception {
+    SpecializedEventContext release = mock(SpecializedEventContext.class);
+    when(this.transactionHandler.getEarlyWorkRelease()).thenReturn(release);
+    ClientEntityHistory history = new ClientEntityHistory();
+    StageManager stageManager = mock(StageManager.class);
+    when(stageManager.getStage(any(), any())).thenReturn(voltronStage);
+    ServerClientHandshakeManager early = new ServerClientHandshakeManager(mock(TCLogger.class), this.channelManager, stageManager,
+        mock(Timer.class), 1000, true, mock(TCLogger.class), history);
+
+    ClientID client1 = new ClientID(1);
+    ConnectionID connection1 = mock(ConnectionID.class);
+    when(connection1.getChannelID()).thenReturn(1L);
+    when(this.channelManager.getClientIDFor(new ChannelID(1))).thenReturn(client1);
+    ClientID client2 = new ClientID(2);
+    ConnectionID connection2 = mock(ConnectionID.class);
+    when(connection2.getChannelID()).thenReturn(2L);
+    when(this.channelManager.getClientIDFor(new ChannelID(2))).thenReturn(client2);
+    when(this.channelManager.getAllClientIDs()).thenReturn(new HashSet<>(Arrays.asList(client1, client2)));
+
+    // Both clients connected while this server was a passive so it knows everything they have used.
+    EntityID entity = new EntityID("foo", "bar");
+    history.requestReplicated(ClientID.NULL_ID, EntityID.NULL_ID);
+    history.connectionIDCreated(connection1);
+    history.connectionIDCreated(connection2);
+    history.requestReplicated(client2, entity);
+
+    Set<ConnectionID> existingConnections = new HashSet<>();
+    existingConnections.add(connection1);
+    existingConnections.add(connection2);
+    early.setStarting(existingConnections);
+    early.startReconnectWindow();
+
+    // The first client is served right away with the entity of the missing client held back.
+    ClientHandshakeMessage message1 = mock(ClientHandshakeMessage.class);
+    when(message1.getChannel()).thenReturn(mock(MessageChannel.class));
+    when(message1.getSourceNodeID()).thenReturn(client1);
+    early.notifyClientConnect(message1, entityManager, transactionHandler);
+    assertFalse(early.isStarted());
+    verify(this.transactionHandler).startEarlyService(Collections.singleton(entity));
+    verify(this.voltronStage).unpause();
+    verify(this.channelManager).makeChannelActive(client1, true);
+    verify(this.voltronSink).addSpecialized(release);
+    verify(this.voltronSink, never()).addSingleThreaded(any(NoopEntityMessage.class));
+
+    // The last client starts the server, ending the early service without acknowledging the first client again.
+    ClientHandshakeMessage message2 = mock(ClientHandshakeMessage.class);
+    when(message2.getChannel()).thenReturn(mock(MessageChannel.class));
+    when(message2.getSourceNodeID()).thenReturn(client2);
+    early.notifyClientConnect(message2, entityManager, transactionHandler);
+    assertTrue(early.isStarted());
+    verify(this.transactionHandler).endEarlyService();
+    // what is still held is released by its own event rather than waiting for a noop or the next request
+    verify(this.voltronSink, times(2)).addSpecialized(release);
+    verify(this.voltronSink, never()).addSingleThreaded(any(NoopEntityMessage.class));
+    verify(this.channelManager, times(1)).makeChannelActive(client1, true);
+    verify(this.channelManager).makeChannelActive(client2, true);
+  }
+
+  @Test
+  public void testNoEarlyServiceWithIncompleteHistory() throws Exception {
+    ClientEntityHistory history = new ClientEntityHistory();
+    StageManager stageManager = mock(StageManager.class);
+    when(stageManager.getStage(any(), any())).thenReturn(voltronStage);
+    ServerClientHandshakeManager early = new ServerClientHandshakeManager(mock(TCLogger.class), this.channelManager, stageManager,
+        mock(Timer.class), 1000, true, mock(TCLogger.class), history);
+
+    ClientID client1 = new ClientID(1);
+    ConnectionID connection1 = mock(ConnectionID.class);
+    when(connection1.getChannelID()).thenReturn(1L);
+    when(this.channelManager.getClientIDFor(new ChannelID(1))).thenReturn(client1);
+    ConnectionID connection2 = mock(ConnectionID.class);
+    when(connection2.getChannelID()).thenReturn(2L);
+    when(this.channelManager.getClientIDFor(new ChannelID(2))).thenReturn(new ClientID(2));
+
+    // The second client connected before anything was replicated so what it uses is unknown.
+    history.connectionIDCreated(connection2);
+    history.requestReplicated(ClientID.NULL_ID, EntityID.NULL_ID);
+    history.connectionIDCreated(connection1);
+
+    Set<ConnectionID> existingConnections = new HashSet<>();
+    existingConnections.add(connection1);
+    existingConnections.add(connection2);
+    early.setStarting(existingConnections);
+    early.startReconnectWindow();
+
+    ClientHandshakeMessage message1 = mock(ClientHandshakeMessage.class);
+    when(message1.getChannel()).thenReturn(mock(MessageChannel.class));
+    when(message1.getSourceNodeID()).thenReturn(client1);
+    early.notifyClientConnect(message1, entityManager, transactionHandler);
+    verify(this.transactionHandler, never()).startEarlyService(any());
+    verify(this.channelManager, never()).makeChannelActive(client1, true);
+    verify(this.voltronSink, never()).addSingleThreaded(any(NoopEntityMessage.class));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.objectserver.locks;
+
+import org.junit.Test;
+
+import com.tc.async.api.Sink;
+import com.tc.net.ClientID;
+import com.tc.object.locks.LockID;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.net.DSOChannelManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClientLockIndexTest {
+
+  private final ClientID c1 = new ClientID(1);
+  private final ClientID c2 = new ClientID(2);
+
+  @Test
+  public void testAddRemove() {
+    ClientLockIndex index = new ClientLockIndex();
+    LockID a = new StringLockID("a");
+    LockID b = new StringLockID("b");
+
+    index.add(c1, a);
+    index.add(c1, a);
+    index.add(c1, b);
+    index.add(c2, a);
+    assertEquals(2, index.getLockCount(c1));
+    assertEquals(2, index.getClientCount());
+
+    index.remove(c2, a);
+    assertEquals(0, index.getLockCount(c2));
+    assertEquals(1, index.getClientCount());
+
+    assertEquals(2, index.removeAll(c1).size());
+    assertTrue(index.removeAll(c1).isEmpty());
+    assertEquals(0, index.getClientCount());
+  }
+
+  @Test
+  public void testClearAllLocksForOnlyTouchesClientLocks() {
+    DSOChannelManager channelManager = mock(DSOChannelManager.class);
+    when(channelManager.isActiveID(any(ClientID.class))).thenReturn(true);
+    LockManagerImpl lockManager = new LockManagerImpl(mock(Sink.class), channelManager);
+    lockManager.start();
+    try {
+      LockID shared = new StringLockID("shared");
+      LockID own = new StringLockID("own");
+      ThreadID tid = new ThreadID(1);
+
+      lockManager.lock(shared, c1, tid, ServerLockLevel.WRITE);
+      lockManager.lock(shared, c2, tid, ServerLockLevel.WRITE);
+      lockManager.lock(own, c2, tid, ServerLockLevel.WRITE);
+      assertEquals(2, lockManager.getLockCount());
+
+      // c2's pending request on the shared lock is awarded once c1 is gone
+      lockManager.clearAllLocksFor(c1);
+      assertEquals(2, lockManager.getLockCount());
+
+      lockManager.unlock(shared, c2, tid);
+      assertEquals(1, lockManager.getLockCount());
+
+      lockManager.clearAllLocksFor(c2);
+      assertEquals(0, lockManager.getLockCount());
+    } finally {
+      lockManager.getHelper().getLockTimer().shutdown();
+    }
+  }
+}
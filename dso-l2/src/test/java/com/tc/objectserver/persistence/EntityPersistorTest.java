@@ -18,11 +18,19 @@
  */
 package com.tc.objectserver.persistence;
 
+import com.tc.io.TCByteBufferOutputStream;
 import com.tc.net.ClientID;
 import com.tc.object.EntityID;
 import com.tc.test.TCTestCase;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.junit.Assert;
 import org.terracotta.exception.EntityException;
@@ -230,4 +238,90 @@ public class EntityPersistorTest extends TCTestCase {
       // Expected.
     }
   }
+
+  /**
+   * Test that entities and journals, including failures, survive a re-open of the storage from disk.
+   */
+  public void testReopenFromDisk() throws Exception {
+    EntityID id = new EntityID("class name", "entity name");
+    byte[] configuration = new byte[] {1, 2, 3};
+    this.entityPersistor.entityCreated(this.client, 1, 1, id, 1, 1, true, configuration);
+    this.entityPersistor.entityCreateFailed(this.client, 2, 1, new EntityNotFoundException("class", "name"));
+    this.persistentStorage.close();
+
+    FlatFilePersistentStorage reopened = new FlatFilePersistentStorage(getTempFile(TEMP_FILE));
+    reopened.open();
+    EntityPersistor persistor = new EntityPersistor(reopened);
+    Assert.assertEquals(1, persistor.loadEntityData().size());
+    Assert.assertArrayEquals(configuration, persistor.loadEntityData().iterator().next().configuration);
+    Assert.assertTrue(persistor.wasEntityCreatedInJournal(this.client, 1));
+    try {
+      persistor.wasEntityCreatedInJournal(this.client, 2);
+      fail();
+    } catch (EntityNotFoundException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Test that a store written with Java serialization is migrated to the binary format when opened.
+   */
+  public void testMigrateSerializedStore() throws Exception {
+    FlatFileWrite direct = new FlatFileWrite() {
+      @Override
+      public <T> T run(Callable<T> r) {
+        try {
+          return r.call();
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    FlatFileProperties properties = new FlatFileProperties(direct);
+    properties.put("key", "value");
+    FlatFileKeyValueStorage<String, Long> counters = new FlatFileKeyValueStorage<>(direct);
+    counters.put("counters:consumerID", 7L);
+    Map<String, FlatFileKeyValueStorage<?, ?>> maps = new HashMap<>();
+    maps.put("counters", counters);
+    File legacy = getTempFile("legacy_file");
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacy))) {
+      out.writeObject(properties);
+      out.writeObject(maps);
+    }
+
+    FlatFilePersistentStorage storage = new FlatFilePersistentStorage(legacy);
+    storage.open();
+    Assert.assertEquals("value", storage.getProperties().get("key"));
+    Assert.assertEquals(7L, new EntityPersistor(storage).getNextConsumerID());
+    // the file has been rewritten so it is no longer a serialization stream
+    byte[] data = Files.readAllBytes(legacy.toPath());
+    Assert.assertFalse((data[0] & 0xff) == 0xac && (data[1] & 0xff) == 0xed);
+
+    FlatFilePersistentStorage reopened = new FlatFilePersistentStorage(legacy);
+    reopened.open();
+    Assert.assertEquals("value", reopened.getProperties().get("key"));
+    Assert.assertEquals(8L, new EntityPersistor(reopened).getNextConsumerID());
+  }
+
+  /**
+   * Test that the journals written for passive sync can be layered onto another persistor.
+   */
+  public void testSerializeAndLayerJournal() throws Exception {
+    this.entityPersistor.entityCreated(this.client, 1, 1, new EntityID("class name", "entity name"), 1, 1, true, new byte[0]);
+    this.entityPersistor.entityCreateFailed(this.client, 2, 1, new EntityNotFoundException("class", "name"));
+    TCByteBufferOutputStream out = new TCByteBufferOutputStream();
+    this.entityPersistor.serialize(out);
+
+    FlatFilePersistentStorage other = new FlatFilePersistentStorage(getTempFile("other_file"));
+    other.create();
+    EntityPersistor passive = new EntityPersistor(other);
+    passive.layer(PersistentRecordCodec.fromBytes(PersistentRecordCodec.toBytes(out)));
+    Assert.assertTrue(passive.wasEntityCreatedInJournal(this.client, 1));
+    try {
+      passive.wasEntityCreatedInJournal(this.client, 2);
+      fail();
+    } catch (EntityNotFoundException e) {
+      // Expected.
+    }
+  }
 }
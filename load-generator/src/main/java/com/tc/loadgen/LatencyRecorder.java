@@ -0,0 +1,54 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Recorder;
+
+
+/**
+ * Records the latency of every read and write made by the load threads.  The recording is cut into phases: each
+ * call to {@link #endPhase(String)} returns what was recorded since the previous one.
+ */
+public class LatencyRecorder {
+  private final Recorder reads = new Recorder(3);
+  private final Recorder writes = new Recorder(3);
+  private final AtomicLong errors = new AtomicLong();
+  private long phaseStart = System.nanoTime();
+
+  public void recordRead(long nanos) {
+    reads.recordValue(nanos);
+  }
+
+  public void recordWrite(long nanos) {
+    writes.recordValue(nanos);
+  }
+
+  public void recordError() {
+    errors.incrementAndGet();
+  }
+
+  public synchronized PhaseResult endPhase(String name) {
+    long now = System.nanoTime();
+    PhaseResult result = new PhaseResult(name, now - phaseStart, reads.getIntervalHistogram(), writes.getIntervalHistogram(), errors.getAndSet(0));
+    phaseStart = now;
+    return result;
+  }
+}
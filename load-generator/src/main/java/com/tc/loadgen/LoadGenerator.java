@@ -0,0 +1,204 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import com.tc.loadgen.entity.LoadEntity;
+import com.tc.loadgen.entity.LoadEntityConfig;
+import com.terracotta.connection.api.TerracottaConnectionService;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.terracotta.connection.Connection;
+import org.terracotta.connection.entity.EntityRef;
+import org.terracotta.exception.EntityException;
+
+
+/**
+ * Boots an active and a passive server on the loopback interface, connects a number of clients to them and drives
+ * a synthetic entity from every client, reporting the throughput and the latency distributions of the reads and
+ * writes.  Depending on the scenario the passive is restarted or the active is killed part way through the run, and
+ * the time taken to recover is reported as a phase of its own.
+ *
+ * The clients run in this JVM, each with its own connection.  The servers are child JVMs.
+ */
+public class LoadGenerator {
+  private static final String ENTITY_NAME = "load";
+  private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+  private final LoadOptions options;
+  private final PrintStream out;
+  private final LatencyRecorder recorder = new LatencyRecorder();
+  private final List<PhaseResult> results = new ArrayList<>();
+  private volatile boolean running = true;
+
+  public LoadGenerator(LoadOptions options, PrintStream out) {
+    this.options = options;
+    this.out = out;
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadOptions options;
+    try {
+      options = LoadOptions.parse(args);
+    } catch (IllegalArgumentException bad) {
+      System.err.println(bad.getMessage());
+      System.err.println("usage: LoadGenerator [--clients n] [--threads n] [--warmup s] [--duration s] [--payload bytes] [--keys n]"
+          + " [--replicate true|false] [--reads 0..1] [--scenario steady|passive-restart|failover] [--base-port port]"
+          + " [--reconnect-window s] [--timeout s] [--dir path] [--server-jvm-args \"args\"]");
+      System.exit(1);
+      return;
+    }
+    new LoadGenerator(options, System.out).run();
+//  the client infrastructure leaves non-daemon threads behind
+    System.exit(0);
+  }
+
+  public List<PhaseResult> run() throws Exception {
+    out.println("running " + options + " in " + options.directory.getAbsolutePath());
+    try (Stripe stripe = new Stripe(options.directory, options.basePort, options.reconnectWindow, options.serverJvmArgs, options.timeout)) {
+      stripe.start();
+      out.println("stripe started at " + stripe.getURI());
+      List<Connection> connections = new ArrayList<>();
+      List<Thread> threads = new ArrayList<>();
+      try {
+        for (int x = 0; x < options.clients; x++) {
+          connections.add(new TerracottaConnectionService().connect(stripe.getURI(), new Properties()));
+        }
+        EntityRef<LoadEntity, LoadEntityConfig> ref = connections.get(0).getEntityRef(LoadEntity.class, LoadEntity.VERSION, ENTITY_NAME);
+        ref.create(new LoadEntityConfig(options.keys));
+        populate(ref.fetchEntity());
+        for (int c = 0; c < connections.size(); c++) {
+          EntityRef<LoadEntity, LoadEntityConfig> clientRef = connections.get(c).getEntityRef(LoadEntity.class, LoadEntity.VERSION, ENTITY_NAME);
+          LoadEntity entity = clientRef.fetchEntity();
+          for (int t = 0; t < options.threads; t++) {
+            Thread thread = new Thread(new Driver(entity), "load client " + c + " thread " + t);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+          }
+        }
+        runScenario(stripe);
+      } finally {
+        running = false;
+        for (Thread thread : threads) {
+          thread.join(STOP_TIMEOUT);
+        }
+        for (Connection connection : connections) {
+          connection.close();
+        }
+      }
+    }
+    return results;
+  }
+
+  private void runScenario(Stripe stripe) throws Exception {
+    if (options.warmup > 0) {
+      TimeUnit.SECONDS.sleep(options.warmup);
+      recorder.endPhase("warmup");
+    }
+    switch (options.scenario) {
+      case STEADY:
+        measure("steady");
+        break;
+      case PASSIVE_RESTART:
+        measure("before restart");
+        out.println("restarting passive " + stripe.getPassive().getName());
+        stripe.restartPassive();
+        report(recorder.endPhase("passive restart"));
+        measure("after restart");
+        break;
+      case FAILOVER:
+        measure("before failover");
+        out.println("killing active " + stripe.getActive().getName());
+        stripe.failover();
+        report(recorder.endPhase("failover"));
+        measure("after failover");
+        break;
+      default:
+        throw new AssertionError("unknown scenario " + options.scenario);
+    }
+  }
+
+  private void measure(String phase) throws Exception {
+    TimeUnit.SECONDS.sleep(options.duration);
+    report(recorder.endPhase(phase));
+  }
+
+  private void report(PhaseResult result) throws Exception {
+    results.add(result);
+    result.print(out);
+    result.writeDistributions(options.directory);
+  }
+
+  /**
+   * Writes every key once so that reads return a payload of the configured size.
+   */
+  private void populate(LoadEntity entity) throws EntityException, InterruptedException {
+    byte[] payload = payload(new Random());
+    for (int key = 0; key < options.keys; key++) {
+      entity.write(key, payload, options.replicate);
+    }
+    entity.close();
+  }
+
+  private byte[] payload(Random random) {
+    byte[] payload = new byte[options.payload];
+    random.nextBytes(payload);
+    return payload;
+  }
+
+  private class Driver implements Runnable {
+    private final LoadEntity entity;
+
+    Driver(LoadEntity entity) {
+      this.entity = entity;
+    }
+
+    @Override
+    public void run() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      byte[] payload = payload(random);
+      while (running) {
+        int key = random.nextInt(options.keys);
+        boolean read = random.nextDouble() < options.reads;
+        long start = System.nanoTime();
+        try {
+          if (read) {
+            entity.read(key);
+            recorder.recordRead(System.nanoTime() - start);
+          } else {
+            entity.write(key, payload, options.replicate);
+            recorder.recordWrite(System.nanoTime() - start);
+          }
+        } catch (InterruptedException ie) {
+          return;
+        } catch (EntityException | RuntimeException e) {
+//  the request was not completed, most likely because the server it was sent to has been killed
+          recorder.recordError();
+        }
+      }
+    }
+  }
+}
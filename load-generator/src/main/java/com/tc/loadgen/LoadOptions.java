@@ -0,0 +1,127 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * The command line options of the {@link LoadGenerator}, given as <code>--name value</code> pairs.
+ */
+public class LoadOptions {
+  public enum Scenario {
+    STEADY,
+    PASSIVE_RESTART,
+    FAILOVER
+  }
+
+  int clients = 4;
+  int threads = 4;
+  int warmup = 10;
+  int duration = 30;
+  int payload = 1024;
+  int keys = 64;
+  boolean replicate = true;
+  double reads = 0.5;
+  Scenario scenario = Scenario.STEADY;
+  int basePort = 29510;
+  int reconnectWindow = 10;
+  int timeout = 120;
+  File directory = new File("load-generator-" + System.currentTimeMillis());
+  List<String> serverJvmArgs = new ArrayList<>(Arrays.asList("-Xmx1g"));
+
+  public static LoadOptions parse(String[] args) {
+    LoadOptions options = new LoadOptions();
+    if (args.length % 2 != 0) {
+      throw new IllegalArgumentException("options are given as --name value pairs");
+    }
+    for (int x = 0; x < args.length; x += 2) {
+      String name = args[x];
+      String value = args[x + 1];
+      switch (name) {
+        case "--clients":
+          options.clients = positive(name, value);
+          break;
+        case "--threads":
+          options.threads = positive(name, value);
+          break;
+        case "--warmup":
+          options.warmup = Integer.parseInt(value);
+          break;
+        case "--duration":
+          options.duration = positive(name, value);
+          break;
+        case "--payload":
+          options.payload = Integer.parseInt(value);
+          break;
+        case "--keys":
+          options.keys = positive(name, value);
+          break;
+        case "--replicate":
+          options.replicate = Boolean.parseBoolean(value);
+          break;
+        case "--reads":
+          options.reads = Double.parseDouble(value);
+          if (options.reads < 0 || options.reads > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+          }
+          break;
+        case "--scenario":
+          options.scenario = Scenario.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+          break;
+        case "--base-port":
+          options.basePort = positive(name, value);
+          break;
+        case "--reconnect-window":
+          options.reconnectWindow = positive(name, value);
+          break;
+        case "--timeout":
+          options.timeout = positive(name, value);
+          break;
+        case "--dir":
+          options.directory = new File(value);
+          break;
+        case "--server-jvm-args":
+          options.serverJvmArgs = new ArrayList<>(Arrays.asList(value.trim().split("\\s+")));
+          break;
+        default:
+          throw new IllegalArgumentException("unknown option " + name);
+      }
+    }
+    return options;
+  }
+
+  @Override
+  public String toString() {
+    return "clients=" + clients + " threads=" + threads + " warmup=" + warmup + "s duration=" + duration + "s payload=" + payload
+        + " keys=" + keys + " replicate=" + replicate + " reads=" + reads + " scenario=" + scenario.name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+
+  private static int positive(String name, String value) {
+    int parsed = Integer.parseInt(value);
+    if (parsed < 1) {
+      throw new IllegalArgumentException(name + " must be positive: " + value);
+    }
+    return parsed;
+  }
+}
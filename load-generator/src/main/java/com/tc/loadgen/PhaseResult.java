@@ -0,0 +1,99 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+
+/**
+ * The throughput and the latency distributions of the reads and writes made during one phase of a run.
+ */
+public class PhaseResult {
+//  latencies are recorded in nanoseconds and reported in microseconds
+  private static final double SCALE = 1000.0;
+  private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+  private final String name;
+  private final long nanos;
+  private final Histogram reads;
+  private final Histogram writes;
+  private final long errors;
+
+  PhaseResult(String name, long nanos, Histogram reads, Histogram writes, long errors) {
+    this.name = name;
+    this.nanos = nanos;
+    this.reads = reads;
+    this.writes = writes;
+    this.errors = errors;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getOperations() {
+    return reads.getTotalCount() + writes.getTotalCount();
+  }
+
+  public double getThroughput() {
+    return getOperations() / (nanos / (double)TimeUnit.SECONDS.toNanos(1));
+  }
+
+  public void print(PrintStream out) {
+    out.printf("%s: %.1f s, %d ops, %.0f ops/s, %d errors%n", name, nanos / (double)TimeUnit.SECONDS.toNanos(1),
+        getOperations(), getThroughput(), errors);
+    StringBuilder header = new StringBuilder(String.format("  %-6s %10s", "", "count"));
+    for (double percentile : PERCENTILES) {
+      header.append(String.format(" %10s", "p" + percentile));
+    }
+    header.append(String.format(" %10s", "max (us)"));
+    out.println(header);
+    printLine(out, "reads", reads);
+    printLine(out, "writes", writes);
+  }
+
+  /**
+   * Writes the full percentile distributions of the phase in the HdrHistogram text format.
+   */
+  public void writeDistributions(File directory) throws FileNotFoundException {
+    String prefix = name.replaceAll("[^A-Za-z0-9]+", "-");
+    writeDistribution(new File(directory, prefix + "-reads.hgrm"), reads);
+    writeDistribution(new File(directory, prefix + "-writes.hgrm"), writes);
+  }
+
+  private static void printLine(PrintStream out, String label, Histogram histogram) {
+    StringBuilder line = new StringBuilder(String.format("  %-6s %10d", label, histogram.getTotalCount()));
+    for (double percentile : PERCENTILES) {
+      line.append(String.format(" %10.1f", histogram.getValueAtPercentile(percentile) / SCALE));
+    }
+    line.append(String.format(" %10.1f", histogram.getMaxValue() / SCALE));
+    out.println(line);
+  }
+
+  private static void writeDistribution(File file, Histogram histogram) throws FileNotFoundException {
+    try (PrintStream out = new PrintStream(file)) {
+      histogram.outputPercentileDistribution(out, SCALE);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * One server of the stripe, run as a child JVM with the classpath of the load generator.  The servers can not share
+ * the load generator's JVM since the server is held statically by {@link com.tc.server.TCServerMain}.
+ *
+ * The state of the server is followed from its console output, which is also copied to a file in its directory.
+ */
+public class ServerProcess {
+  public static final String ACTIVE = "ACTIVE-COORDINATOR";
+  public static final String PASSIVE = "PASSIVE-STANDBY";
+
+  private final String name;
+  private final File config;
+  private final File directory;
+  private final List<String> jvmArgs;
+  private Process process;
+  private String state;
+  private int starts = 0;
+
+  public ServerProcess(String name, File config, File directory, List<String> jvmArgs) {
+    this.name = name;
+    this.config = config;
+    this.directory = directory;
+    this.jvmArgs = jvmArgs;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  public synchronized String getState() {
+    return state;
+  }
+
+  public synchronized boolean isRunning() {
+    return process != null && process.isAlive();
+  }
+
+  public synchronized void start() throws IOException {
+    if (isRunning()) {
+      throw new IllegalStateException(name + " is already running");
+    }
+    List<String> command = new ArrayList<>();
+    command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+    command.addAll(jvmArgs);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+//  keep the server from picking up plugins from the working directory, everything it needs is on the classpath
+    command.add("-Dtc.install-root=" + directory.getAbsolutePath());
+    command.add("com.tc.server.TCServerMain");
+    command.add("-f");
+    command.add(config.getAbsolutePath());
+    command.add("-n");
+    command.add(name);
+    ProcessBuilder builder = new ProcessBuilder(command);
+    builder.directory(directory);
+    builder.redirectErrorStream(true);
+    starts += 1;
+    state = null;
+    process = builder.start();
+    Thread pump = new Thread(new ConsolePump(process, new File(directory, "console-" + starts + ".log")), name + " console");
+    pump.setDaemon(true);
+    pump.start();
+  }
+
+  /**
+   * Kills the server without giving it a chance to shut down.
+   */
+  public void kill() throws InterruptedException {
+    Process current;
+    synchronized (this) {
+      current = process;
+    }
+    if (current != null) {
+      current.destroyForcibly().waitFor();
+    }
+    synchronized (this) {
+      state = null;
+      notifyAll();
+    }
+  }
+
+  public synchronized void waitForState(String expected, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    long end = System.nanoTime() + unit.toNanos(timeout);
+    while (!expected.equals(state)) {
+      if (process == null || !process.isAlive()) {
+        throw new IllegalStateException(name + " is not running, see the console log in " + directory);
+      }
+      long left = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+      if (left <= 0) {
+        throw new TimeoutException(name + " did not reach " + expected + ", last state " + state);
+      }
+      wait(Math.min(left, 500));
+    }
+  }
+
+  private synchronized void consoleLine(Process source, String line) {
+//  a line from a process which has since been killed must not change the state
+    if (source != process) {
+      return;
+    }
+    if (line.contains("Becoming") || line.contains("Moved to")) {
+      if (line.contains(ACTIVE)) {
+        state = ACTIVE;
+      } else if (line.contains(PASSIVE)) {
+        state = PASSIVE;
+      }
+      notifyAll();
+    }
+  }
+
+  private class ConsolePump implements Runnable {
+    private final Process source;
+    private final File log;
+
+    ConsolePump(Process source, File log) {
+      this.source = source;
+      this.log = log;
+    }
+
+    @Override
+    public void run() {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8));
+           PrintStream out = new PrintStream(new FileOutputStream(log), true, "UTF-8")) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          out.println(line);
+          consoleLine(source, line);
+        }
+      } catch (IOException ioe) {
+//  the process has gone away
+      }
+      synchronized (ServerProcess.this) {
+        ServerProcess.this.notifyAll();
+      }
+    }
+  }
+}
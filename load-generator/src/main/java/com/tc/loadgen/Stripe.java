@@ -0,0 +1,167 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+/**
+ * An active and a passive server on the loopback interface, sharing one generated tc-config.
+ */
+public class Stripe implements AutoCloseable {
+  private static final String HOST = "localhost";
+
+  private final List<ServerProcess> servers = new ArrayList<>();
+  private final int[] ports;
+  private final long timeoutSeconds;
+
+  public Stripe(File directory, int basePort, int reconnectWindow, List<String> jvmArgs, long timeoutSeconds) throws IOException {
+    this.ports = new int[] { basePort, basePort + 2 };
+    this.timeoutSeconds = timeoutSeconds;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("unable to create " + directory);
+    }
+    File config = new File(directory, "tc-config.xml");
+    StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+    xml.append("<tc-config xmlns=\"http://www.terracotta.org/config\">\n");
+    xml.append("  <servers>\n");
+    for (int x = 0; x < ports.length; x++) {
+      String name = "server" + x;
+      File serverDir = new File(directory, name);
+      if (!serverDir.isDirectory() && !serverDir.mkdirs()) {
+        throw new IOException("unable to create " + serverDir);
+      }
+      xml.append("    <server host=\"").append(HOST).append("\" name=\"").append(name).append("\">\n");
+      xml.append("      <data>").append(new File(serverDir, "data").getAbsolutePath()).append("</data>\n");
+      xml.append("      <logs>").append(new File(serverDir, "logs").getAbsolutePath()).append("</logs>\n");
+      xml.append("      <tsa-port>").append(ports[x]).append("</tsa-port>\n");
+      xml.append("      <tsa-group-port>").append(ports[x] + 1).append("</tsa-group-port>\n");
+      xml.append("    </server>\n");
+      servers.add(new ServerProcess(name, config, serverDir, jvmArgs));
+    }
+    xml.append("    <client-reconnect-window>").append(reconnectWindow).append("</client-reconnect-window>\n");
+    xml.append("  </servers>\n");
+    xml.append("</tc-config>\n");
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(config), StandardCharsets.UTF_8)) {
+      out.write(xml.toString());
+    }
+  }
+
+  /**
+   * The connection URI listing every server of the stripe.
+   */
+  public URI getURI() {
+    StringBuilder uri = new StringBuilder("terracotta://");
+    for (int x = 0; x < ports.length; x++) {
+      if (x > 0) {
+        uri.append(',');
+      }
+      uri.append(HOST).append(':').append(ports[x]);
+    }
+    return URI.create(uri.toString());
+  }
+
+  /**
+   * Starts the first server and waits for it to become active, then starts the second and waits for it to be
+   * synced as a passive.
+   */
+  public void start() throws IOException, InterruptedException, TimeoutException {
+    servers.get(0).start();
+    servers.get(0).waitForState(ServerProcess.ACTIVE, timeoutSeconds, TimeUnit.SECONDS);
+    servers.get(1).start();
+    servers.get(1).waitForState(ServerProcess.PASSIVE, timeoutSeconds, TimeUnit.SECONDS);
+  }
+
+  public ServerProcess getActive() {
+    return inState(ServerProcess.ACTIVE);
+  }
+
+  public ServerProcess getPassive() {
+    return inState(ServerProcess.PASSIVE);
+  }
+
+  /**
+   * Kills the passive, restarts it and waits for it to be synced again.
+   */
+  public void restartPassive() throws IOException, InterruptedException, TimeoutException {
+    ServerProcess passive = required(getPassive(), ServerProcess.PASSIVE);
+    passive.kill();
+    passive.start();
+    passive.waitForState(ServerProcess.PASSIVE, timeoutSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Kills the active and waits for the passive to take over.  The old active is then restarted and waits to be
+   * synced as the new passive.
+   */
+  public void failover() throws IOException, InterruptedException, TimeoutException {
+    ServerProcess active = required(getActive(), ServerProcess.ACTIVE);
+    ServerProcess passive = required(getPassive(), ServerProcess.PASSIVE);
+    active.kill();
+    passive.waitForState(ServerProcess.ACTIVE, timeoutSeconds, TimeUnit.SECONDS);
+//  the old active's data is from before the failover and can not be used to rejoin the stripe
+    delete(new File(active.getDirectory(), "data"));
+    active.start();
+    active.waitForState(ServerProcess.PASSIVE, timeoutSeconds, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    for (ServerProcess server : servers) {
+      server.kill();
+    }
+  }
+
+  private ServerProcess inState(String state) {
+    for (ServerProcess server : servers) {
+      if (state.equals(server.getState())) {
+        return server;
+      }
+    }
+    return null;
+  }
+
+  private static ServerProcess required(ServerProcess server, String state) {
+    if (server == null) {
+      throw new IllegalStateException("no server is " + state);
+    }
+    return server;
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.terracotta.entity.ActiveServerEntity;
+import org.terracotta.entity.ClientDescriptor;
+import org.terracotta.entity.PassiveSynchronizationChannel;
+
+
+public class ActiveLoadEntity implements ActiveServerEntity<LoadMessage, LoadResponse> {
+  private static final LoadResponse EMPTY = new LoadResponse(new byte[0]);
+
+//  keys are invoked concurrently
+  private final ConcurrentMap<Integer, byte[]> values = new ConcurrentHashMap<>();
+
+  @Override
+  public void connected(ClientDescriptor clientDescriptor) {
+  }
+
+  @Override
+  public void handleReconnect(ClientDescriptor clientDescriptor, byte[] extendedReconnectData) {
+  }
+
+  @Override
+  public void disconnected(ClientDescriptor clientDescriptor) {
+  }
+
+  @Override
+  public LoadResponse invoke(ClientDescriptor clientDescriptor, LoadMessage message) {
+    switch (message.getType()) {
+      case WRITE:
+        values.put(message.getKey(), message.getPayload());
+        return EMPTY;
+      case READ:
+        byte[] value = values.get(message.getKey());
+        return (value == null) ? EMPTY : new LoadResponse(value);
+      default:
+        throw new AssertionError("unknown message type " + message.getType());
+    }
+  }
+
+  @Override
+  public void createNew() {
+  }
+
+  @Override
+  public void loadExisting() {
+  }
+
+  @Override
+  public void destroy() {
+    values.clear();
+  }
+
+  @Override
+  public void synchronizeKeyToPassive(PassiveSynchronizationChannel<LoadMessage> syncChannel, int concurrencyKey) {
+    int key = concurrencyKey - 1;
+    byte[] value = values.get(key);
+    if (value != null) {
+      syncChannel.synchronizeToPassive(new LoadMessage(LoadMessage.Type.WRITE, key, value));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import java.nio.ByteBuffer;
+
+import org.terracotta.entity.MessageCodec;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.entity.SyncMessageCodec;
+
+
+/**
+ * Encodes a message as its type, its key and its payload.  Responses are the bare payload.  Synchronization to
+ * a passive sends each key's payload as a write.
+ */
+public class LoadCodec implements MessageCodec<LoadMessage, LoadResponse>, SyncMessageCodec<LoadMessage> {
+  private static final LoadMessage.Type[] TYPES = LoadMessage.Type.values();
+
+  @Override
+  public byte[] encodeMessage(LoadMessage message) throws MessageCodecException {
+    byte[] payload = message.getPayload();
+    int length = (payload == null) ? 0 : payload.length;
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + length);
+    buffer.put((byte)message.getType().ordinal());
+    buffer.putInt(message.getKey());
+    if (payload != null) {
+      buffer.put(payload);
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public LoadMessage decodeMessage(byte[] payload) throws MessageCodecException {
+    if (payload.length < 5) {
+      throw new MessageCodecException("truncated message of " + payload.length + " bytes", null);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(payload);
+    LoadMessage.Type type = TYPES[buffer.get()];
+    int key = buffer.getInt();
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return new LoadMessage(type, key, data);
+  }
+
+  @Override
+  public byte[] encodeResponse(LoadResponse response) throws MessageCodecException {
+    return (response.getPayload() == null) ? new byte[0] : response.getPayload();
+  }
+
+  @Override
+  public LoadResponse decodeResponse(byte[] payload) throws MessageCodecException {
+    return new LoadResponse(payload);
+  }
+
+  @Override
+  public byte[] encode(int concurrencyKey, LoadMessage message) throws MessageCodecException {
+    return encodeMessage(message);
+  }
+
+  @Override
+  public LoadMessage decode(int concurrencyKey, byte[] payload) throws MessageCodecException {
+    return decodeMessage(payload);
+  }
+}
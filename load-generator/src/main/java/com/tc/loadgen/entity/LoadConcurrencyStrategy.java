@@ -0,0 +1,52 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.terracotta.entity.ConcurrencyStrategy;
+
+
+/**
+ * Runs each key of the entity on its own concurrency key so the spread of keys used by the clients controls how
+ * much of the work the server can run in parallel.
+ */
+public class LoadConcurrencyStrategy implements ConcurrencyStrategy<LoadMessage> {
+  private final int keys;
+
+  public LoadConcurrencyStrategy(int keys) {
+    this.keys = keys;
+  }
+
+  @Override
+  public int concurrencyKey(LoadMessage message) {
+//  concurrency keys below 1 are reserved by the platform
+    return message.getKey() + 1;
+  }
+
+  @Override
+  public Set<Integer> getKeysForSynchronization() {
+    Set<Integer> set = new LinkedHashSet<>();
+    for (int x = 1; x <= keys; x++) {
+      set.add(x);
+    }
+    return set;
+  }
+}
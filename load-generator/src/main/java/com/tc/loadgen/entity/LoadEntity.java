@@ -0,0 +1,42 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import org.terracotta.connection.entity.Entity;
+import org.terracotta.exception.EntityException;
+
+
+/**
+ * A synthetic entity which holds one payload per key.  Its only purpose is to put a controlled load on the server.
+ */
+public interface LoadEntity extends Entity {
+  long VERSION = 1;
+
+  /**
+   * Replaces the payload held under the key, waiting until the write is retired by the server.
+   *
+   * @param replicate whether the write is replicated to the passives
+   */
+  void write(int key, byte[] payload, boolean replicate) throws EntityException, InterruptedException;
+
+  /**
+   * Reads the payload held under the key.  Reads are never replicated.
+   */
+  byte[] read(int key) throws EntityException, InterruptedException;
+}
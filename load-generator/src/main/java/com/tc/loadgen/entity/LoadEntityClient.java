@@ -0,0 +1,55 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.MessageCodecException;
+import org.terracotta.exception.EntityException;
+
+
+public class LoadEntityClient implements LoadEntity {
+  private final EntityClientEndpoint<LoadMessage, LoadResponse> endpoint;
+
+  public LoadEntityClient(EntityClientEndpoint<LoadMessage, LoadResponse> endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  @Override
+  public void write(int key, byte[] payload, boolean replicate) throws EntityException, InterruptedException {
+    invoke(new LoadMessage(LoadMessage.Type.WRITE, key, payload), replicate);
+  }
+
+  @Override
+  public byte[] read(int key) throws EntityException, InterruptedException {
+    return invoke(new LoadMessage(LoadMessage.Type.READ, key, null), false).getPayload();
+  }
+
+  private LoadResponse invoke(LoadMessage message, boolean replicate) throws EntityException, InterruptedException {
+    try {
+      return endpoint.beginInvoke().message(message).replicate(replicate).invoke().get();
+    } catch (MessageCodecException codec) {
+      throw new RuntimeException(codec);
+    }
+  }
+
+  @Override
+  public void close() {
+    endpoint.close();
+  }
+}
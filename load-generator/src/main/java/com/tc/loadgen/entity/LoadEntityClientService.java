@@ -0,0 +1,53 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import org.terracotta.entity.EntityClientEndpoint;
+import org.terracotta.entity.EntityClientService;
+import org.terracotta.entity.MessageCodec;
+
+
+public class LoadEntityClientService implements EntityClientService<LoadEntity, LoadEntityConfig, LoadMessage, LoadResponse> {
+  private final LoadCodec codec = new LoadCodec();
+
+  @Override
+  public boolean handlesEntityType(Class<LoadEntity> cls) {
+    return LoadEntity.class.equals(cls);
+  }
+
+  @Override
+  public byte[] serializeConfiguration(LoadEntityConfig configuration) {
+    return configuration.serialize();
+  }
+
+  @Override
+  public LoadEntityConfig deserializeConfiguration(byte[] configuration) {
+    return LoadEntityConfig.deserialize(configuration);
+  }
+
+  @Override
+  public LoadEntity create(EntityClientEndpoint<LoadMessage, LoadResponse> endpoint) {
+    return new LoadEntityClient(endpoint);
+  }
+
+  @Override
+  public MessageCodec<LoadMessage, LoadResponse> getMessageCodec() {
+    return codec;
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * The configuration of a {@link LoadEntity}: the number of keys its data is spread over.  Each key is run on its
+ * own concurrency key on the server.
+ */
+public class LoadEntityConfig {
+  private final int keys;
+
+  public LoadEntityConfig(int keys) {
+    if (keys < 1) {
+      throw new IllegalArgumentException("keys must be positive: " + keys);
+    }
+    this.keys = keys;
+  }
+
+  public int getKeys() {
+    return keys;
+  }
+
+  public byte[] serialize() {
+    return ByteBuffer.allocate(4).putInt(keys).array();
+  }
+
+  public static LoadEntityConfig deserialize(byte[] configuration) {
+    return new LoadEntityConfig(ByteBuffer.wrap(configuration).getInt());
+  }
+}
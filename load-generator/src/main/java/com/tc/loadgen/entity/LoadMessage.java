@@ -0,0 +1,54 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import org.terracotta.entity.EntityMessage;
+
+
+/**
+ * A read or a write of the payload held under one of the keys of a {@link LoadEntity}.
+ */
+public class LoadMessage implements EntityMessage {
+  public enum Type {
+    READ,
+    WRITE
+  }
+
+  private final Type type;
+  private final int key;
+  private final byte[] payload;
+
+  public LoadMessage(Type type, int key, byte[] payload) {
+    this.type = type;
+    this.key = key;
+    this.payload = payload;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int getKey() {
+    return key;
+  }
+
+  public byte[] getPayload() {
+    return payload;
+  }
+}
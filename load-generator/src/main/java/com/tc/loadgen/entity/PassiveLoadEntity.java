@@ -0,0 +1,66 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.terracotta.entity.PassiveServerEntity;
+
+
+public class PassiveLoadEntity implements PassiveServerEntity<LoadMessage, LoadResponse> {
+  private final ConcurrentMap<Integer, byte[]> values = new ConcurrentHashMap<>();
+
+  @Override
+  public void invoke(LoadMessage message) {
+//  only writes are replicated, reads carry nothing to apply
+    if (message.getType() == LoadMessage.Type.WRITE) {
+      values.put(message.getKey(), message.getPayload());
+    }
+  }
+
+  @Override
+  public void startSyncEntity() {
+  }
+
+  @Override
+  public void endSyncEntity() {
+  }
+
+  @Override
+  public void startSyncConcurrencyKey(int concurrencyKey) {
+  }
+
+  @Override
+  public void endSyncConcurrencyKey(int concurrencyKey) {
+  }
+
+  @Override
+  public void createNew() {
+  }
+
+  @Override
+  public void loadExisting() {
+  }
+
+  @Override
+  public void destroy() {
+    values.clear();
+  }
+}
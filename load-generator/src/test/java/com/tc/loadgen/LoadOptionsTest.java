@@ -0,0 +1,49 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+
+public class LoadOptionsTest {
+
+  @Test
+  public void testParse() {
+    LoadOptions options = LoadOptions.parse(new String[] { "--clients", "8", "--keys", "1", "--replicate", "false",
+        "--reads", "0.9", "--scenario", "passive-restart" });
+    assertEquals(8, options.clients);
+    assertEquals(1, options.keys);
+    assertFalse(options.replicate);
+    assertEquals(0.9, options.reads, 0.0);
+    assertEquals(LoadOptions.Scenario.PASSIVE_RESTART, options.scenario);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownOption() {
+    LoadOptions.parse(new String[] { "--nope", "1" });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadRatioOutOfRange() {
+    LoadOptions.parse(new String[] { "--reads", "2" });
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.loadgen.entity;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+
+public class LoadCodecTest {
+  private final LoadCodec codec = new LoadCodec();
+
+  @Test
+  public void testWriteRoundTrip() throws Exception {
+    byte[] payload = new byte[] { 1, 2, 3, 4 };
+    LoadMessage decoded = codec.decodeMessage(codec.encodeMessage(new LoadMessage(LoadMessage.Type.WRITE, 7, payload)));
+    assertEquals(LoadMessage.Type.WRITE, decoded.getType());
+    assertEquals(7, decoded.getKey());
+    assertArrayEquals(payload, decoded.getPayload());
+  }
+
+  @Test
+  public void testReadHasNoPayload() throws Exception {
+    LoadMessage decoded = codec.decodeMessage(codec.encodeMessage(new LoadMessage(LoadMessage.Type.READ, 3, null)));
+    assertEquals(LoadMessage.Type.READ, decoded.getType());
+    assertEquals(3, decoded.getKey());
+    assertEquals(0, decoded.getPayload().length);
+  }
+
+  @Test
+  public void testKeysSpreadOverConcurrencyKeys() {
+    LoadConcurrencyStrategy strategy = new LoadConcurrencyStrategy(4);
+    assertEquals(1, strategy.concurrencyKey(new LoadMessage(LoadMessage.Type.READ, 0, null)));
+    assertEquals(4, strategy.concurrencyKey(new LoadMessage(LoadMessage.Type.READ, 3, null)));
+    assertEquals(4, strategy.getKeysForSynchronization().size());
+  }
+
+  @Test
+  public void testConfigRoundTrip() {
+    assertEquals(64, LoadEntityConfig.deserialize(new LoadEntityConfig(64).serialize()).getKeys());
+  }
+}
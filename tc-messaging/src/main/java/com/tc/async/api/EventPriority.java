@@ -0,0 +1,38 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.api;
+
+/**
+ * The classes of work a stage can tell apart, highest priority first.  A stage serves its higher lanes ahead of its
+ * lower ones but never passes over a waiting lane indefinitely.
+ */
+public enum EventPriority {
+  /**
+   * Cluster health and state, such as elections and zaps, which time out when held up.
+   */
+  CONTROL,
+  /**
+   * Connection lifecycle, such as handshakes.
+   */
+  LIFECYCLE,
+  /**
+   * Everything else.  This is the priority of any context which doesn't say otherwise.
+   */
+  DATA
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.async.api;
+
+/**
+ * This interface is implemented by events which should not wait behind ordinary work queued on the same stage.  Events
+ * of one priority are handled in the order they arrive but may be handled ahead of events of a lower priority queued
+ * before them, as long as those have a different scheduling key.  Events which flush a multi-threaded stage are always
+ * queued as {@link EventPriority#DATA}.
+ */
+public interface PrioritizedEventContext {
+  EventPriority getEventPriority();
+
+  /**
+   * The key this event is ordered by, with the same meaning as {@link MultiThreadedEventContext#getSchedulingKey()}.
+   * The event is never handled ahead of an event with an equal key queued before it.
+   *
+   * @return The key for ordering (null if the event has no ordering dependency on the stage's other work).
+   */
+  Object getSchedulingKey();
+}
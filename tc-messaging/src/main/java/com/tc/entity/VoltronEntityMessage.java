@@ -55,7 +55,12 @@ public interface VoltronEntityMessage {
     /**
      * noop for pipeline flushes
      */
-    NOOP
+    NOOP,
+    /**
+     * Created by the server when a client disconnects to release every reference the client still holds.  Never sent
+     * by a client.
+     */
+    DISCONNECT_CLIENT
   }
   
   enum Acks {
@@ -0,0 +1,49 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.exception;
+
+import org.terracotta.exception.EntityException;
+
+
+/**
+ * This specific EntityException type is returned for an invoke which the server shed, without running it, because it
+ * was too busy.  The invoke can be retried once the given delay has passed.
+ */
+public class ServerBusyException extends EntityException {
+  private static final long serialVersionUID = 1L;
+
+  private final long retryAfterMillis;
+
+  /**
+   * Creates the exception instance describing why the invoke on the given type-name pair was shed.
+   * 
+   * @param className The name of the entity type
+   * @param entityName The name of the entity instance
+   * @param reason The limit which the server was over
+   * @param retryAfterMillis How long the client should wait before retrying
+   */
+  public ServerBusyException(String className, String entityName, String reason, long retryAfterMillis) {
+    super(className, entityName, "server busy, retry after " + retryAfterMillis + "ms: " + reason, null);
+    this.retryAfterMillis = retryAfterMillis;
+  }
+
+  public long getRetryAfterMillis() {
+    return retryAfterMillis;
+  }
+}
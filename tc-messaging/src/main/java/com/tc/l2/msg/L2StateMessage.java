@@ -18,6 +18,8 @@
  */
 package com.tc.l2.msg;
 
+import com.tc.async.api.EventPriority;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.io.TCByteBufferInput;
 import com.tc.io.TCByteBufferOutput;
 import com.tc.l2.state.Enrollment;
@@ -26,7 +28,7 @@ import com.tc.net.groups.MessageID;
 
 import java.io.IOException;
 
-public class L2StateMessage extends AbstractGroupMessage {
+public class L2StateMessage extends AbstractGroupMessage implements PrioritizedEventContext {
 
   public static final int START_ELECTION          = 0; // Sent during the start of an election by the initiator
   public static final int ELECTION_RESULT         = 1; // Sent at the end of an election by the initiator
@@ -127,4 +129,14 @@ public class L2StateMessage extends AbstractGroupMessage {
   public static L2StateMessage createElectionWonAlreadyMessage(Enrollment e) {
     return new L2StateMessage(L2StateMessage.ELECTION_WON_ALREADY, e);
   }
+
+  @Override
+  public EventPriority getEventPriority() {
+    return EventPriority.CONTROL;
+  }
+
+  @Override
+  public Object getSchedulingKey() {
+    return messageFrom();
+  }
 }
@@ -84,6 +84,8 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
   int concurrency;
   
   long rid = 0;
+//  position of this message in the active's replication log, 0 when the active is not logging
+  long logSequence = 0;
   
   public ReplicationMessage() {
     super(INVALID);
@@ -130,6 +132,14 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
     this.rid = rid;
   }
   
+  public void setLogSequence(long logSequence) {
+    this.logSequence = logSequence;
+  }
+  
+  public long getLogSequence() {
+    return logSequence;
+  }
+  
   public void setNoop() {
     this.action = ReplicationType.NOOP;
   }
@@ -203,6 +213,10 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
         this.payload = new byte[length];
         in.readFully(this.payload);
         this.concurrency = in.readInt();
+//  trails the message so that servers which do not log replication skip it, absent means not logged
+        if (messageType == REPLICATE && in.available() >= 8) {
+          this.logSequence = in.readLong();
+        }
         break;
     }
   }
@@ -234,12 +248,15 @@ public class ReplicationMessage extends AbstractGroupMessage implements OrderedE
           out.writeInt(0);
         }
         out.writeInt(concurrency);
+        if (messageType == REPLICATE) {
+          out.writeLong(logSequence);
+        }
         break;
     }
   }
 
   @Override
   public String toString() {
-    return "ReplicationMessage{rid=" + rid + ", id=" + descriptor.getEntityID() + ", src=" + src + ", tid=" + tid + ", oldest=" + oldest + ", action=" + action + ", concurrency=" + concurrency +'}';
+    return "ReplicationMessage{rid=" + rid + ", log=" + logSequence + ", id=" + descriptor.getEntityID() + ", src=" + src + ", tid=" + tid + ", oldest=" + oldest + ", action=" + action + ", concurrency=" + concurrency +'}';
   }
 }
@@ -33,12 +33,20 @@ public class ReplicationMessageAck extends AbstractGroupMessage {
   public static final int RECEIVED                = 2; // Means that the replicated action has been received by the passive
   public static final int COMPLETED                = 3; // response that the replicated action completed
   public static final int START_SYNC                = 4; // Sent from the passive when it wants the active to start passive sync.
+  public static final int START_RESYNC                = 5; // Sent from a restarted passive which wants the active to replay the replication log from its last applied position.
 
   // Factory methods.
   public static ReplicationMessageAck createSyncRequestMessage() {
     return new ReplicationMessageAck(START_SYNC);
   }
 
+  public static ReplicationMessageAck createResyncRequestMessage(String epoch, long lastApplied) {
+    ReplicationMessageAck msg = new ReplicationMessageAck(START_RESYNC);
+    msg.epoch = epoch;
+    msg.lastApplied = lastApplied;
+    return msg;
+  }
+
   public static ReplicationMessageAck createReceivedAck(MessageID requestToAck) {
     return new ReplicationMessageAck(RECEIVED, requestToAck);
   }
@@ -47,6 +55,8 @@ public class ReplicationMessageAck extends AbstractGroupMessage {
     return new ReplicationMessageAck(COMPLETED, requestToAck);
   }
 
+  private String epoch;
+  private long lastApplied;
 
   public ReplicationMessageAck() {
     super(INVALID);
@@ -61,13 +71,29 @@ public class ReplicationMessageAck extends AbstractGroupMessage {
     super(type, requestID);
   }
 
+  public String getReplicationEpoch() {
+    return epoch;
+  }
+
+  public long getLastAppliedSequence() {
+    return lastApplied;
+  }
+
   @Override
   protected void basicDeserializeFrom(TCByteBufferInput in) throws IOException {
-    // Do nothing - no instance variables.
+    // Only the resync request carries instance variables.
+    if (getType() == START_RESYNC) {
+      this.epoch = in.readString();
+      this.lastApplied = in.readLong();
+    }
   }
 
   @Override
   protected void basicSerializeTo(TCByteBufferOutput out) {
-    // Do nothing - no instance variables.
+    // Only the resync request carries instance variables.
+    if (getType() == START_RESYNC) {
+      out.writeString(this.epoch);
+      out.writeLong(this.lastApplied);
+    }
   }
 }
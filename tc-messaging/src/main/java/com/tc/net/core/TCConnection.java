@@ -132,6 +132,25 @@ public interface TCConnection extends NetworkMessageSink {
    */
   public TCSocketAddress getRemoteAddress();
 
+  /**
+   * Number of messages queued on this connection and not yet written to the socket
+   */
+  public int getOutboundQueueMessages();
+
+  /**
+   * Number of bytes queued on this connection and not yet written to the socket
+   */
+  public long getOutboundQueueBytes();
+
+  /**
+   * Waits while the outbound queue is full under the BLOCK policy, closing the connection if it does not drain within
+   * the block timeout. Returns at once on comm threads and under the other policies. Callers must not hold locks the
+   * comm threads need.
+   *
+   * @return false if the connection is closed
+   */
+  public boolean waitForOutboundSpace();
+
   /**
    * Fair distribution of worker comm threads
    */
@@ -144,6 +163,12 @@ public interface TCConnection extends NetworkMessageSink {
 
   public boolean isTransportEstablished();
 
+  /**
+   * Whether messages written from now on carry a checksum of their payload as well as of their header, as agreed in
+   * the transport handshake
+   */
+  public void setPayloadChecksums(boolean enabled);
+
   /**
    *
    * @return true iff the connection as been marked for close but hasn't been closed yet
@@ -18,13 +18,15 @@
  */
 package com.tc.net.groups;
 
+import com.tc.async.api.EventPriority;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.io.TCByteBufferInput;
 import com.tc.io.TCByteBufferOutput;
 import com.tc.util.Assert;
 
 import java.io.IOException;
 
-public class GroupZapNodeMessage extends AbstractGroupMessage {
+public class GroupZapNodeMessage extends AbstractGroupMessage implements PrioritizedEventContext {
 
   public static final int ZAP_NODE_REQUEST = 0;
 
@@ -93,4 +95,14 @@ public class GroupZapNodeMessage extends AbstractGroupMessage {
   public long[] getWeights() {
     return weights;
   }
+
+  @Override
+  public EventPriority getEventPriority() {
+    return EventPriority.CONTROL;
+  }
+
+  @Override
+  public Object getSchedulingKey() {
+    return messageFrom();
+  }
 }
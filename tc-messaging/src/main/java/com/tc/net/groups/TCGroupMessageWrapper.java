@@ -18,6 +18,8 @@
  */
 package com.tc.net.groups;
 
+import com.tc.async.api.EventPriority;
+import com.tc.async.api.PrioritizedEventContext;
 import com.tc.bytes.TCByteBuffer;
 import com.tc.io.TCByteBufferInputStream;
 import com.tc.io.TCByteBufferOutputStream;
@@ -33,7 +35,7 @@ import java.io.IOException;
 /**
  * @author EY
  */
-public class TCGroupMessageWrapper extends DSOMessageBase {
+public class TCGroupMessageWrapper extends DSOMessageBase implements PrioritizedEventContext {
   private final static byte GROUP_MESSAGE_ID = 1;
   private AbstractGroupMessage      message;
 
@@ -55,6 +57,19 @@ public class TCGroupMessageWrapper extends DSOMessageBase {
     return this.message;
   }
 
+  @Override
+  public EventPriority getEventPriority() {
+    // the wrapped message decides, once hydrated
+    return (this.message instanceof PrioritizedEventContext) ? ((PrioritizedEventContext) this.message).getEventPriority()
+        : EventPriority.DATA;
+  }
+
+  @Override
+  public Object getSchedulingKey() {
+    // messages from one server stay in order
+    return getSourceNodeID();
+  }
+
   @Override
   protected void dehydrateValues() {
     putNVPair(GROUP_MESSAGE_ID, this.message.getClass().getName());
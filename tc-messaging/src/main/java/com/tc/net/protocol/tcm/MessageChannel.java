@@ -42,6 +42,13 @@ public interface MessageChannel extends ChannelIDProvider {
 
   public TCSocketAddress getRemoteAddress();
 
+  /**
+   * Messages sent on this channel which are still waiting to be written to the network
+   */
+  public int getOutboundQueueMessages();
+
+  public long getOutboundQueueBytes();
+
   public void addListener(ChannelEventListener listener);
   
   public boolean isOpen();
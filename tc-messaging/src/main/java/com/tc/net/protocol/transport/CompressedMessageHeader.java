@@ -0,0 +1,86 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.net.protocol.AbstractTCNetworkHeader;
+import com.tc.net.protocol.TCProtocolException;
+
+/**
+ * Header for compressed transport payloads: the codec used and the length of the message it inflates back to.
+ */
+class CompressedMessageHeader extends AbstractTCNetworkHeader {
+  static final int         HEADER_LENGTH          = 8;
+
+  private static final int CODEC_OFFSET           = 0;
+  private static final int ORIGINAL_LENGTH_OFFSET = 4;
+
+  CompressedMessageHeader(PayloadCodec codec, int originalLength) {
+    super(HEADER_LENGTH, HEADER_LENGTH);
+    data.putUbyte(CODEC_OFFSET, codec.getId());
+    data.putInt(ORIGINAL_LENGTH_OFFSET, originalLength);
+  }
+
+  CompressedMessageHeader(TCByteBuffer buffer) {
+    super(buffer, HEADER_LENGTH, HEADER_LENGTH);
+  }
+
+  @Override
+  public int getHeaderByteLength() {
+    return HEADER_LENGTH;
+  }
+
+  @Override
+  protected void setHeaderLength(short headerLength) {
+    throw new UnsupportedOperationException("These messages are fixed length.");
+  }
+
+  PayloadCodec getCodec() {
+    return PayloadCodec.fromId(data.getUbyte(CODEC_OFFSET));
+  }
+
+  int getOriginalLength() {
+    return data.getInt(ORIGINAL_LENGTH_OFFSET);
+  }
+
+  @Override
+  public void validate() throws TCProtocolException {
+    final PayloadCodec codec = getCodec();
+    if (codec == null || codec == PayloadCodec.NONE) { throw new TCProtocolException("Unknown payload codec: "
+                                                                                      + data.getUbyte(CODEC_OFFSET)); }
+    if (getOriginalLength() < 0) { throw new TCProtocolException("Negative original length: " + getOriginalLength()); }
+  }
+
+  /**
+   * Also checks the original length is one the compressed body could really inflate to, before anything is allocated
+   * for it.
+   */
+  void validate(int compressedLength) throws TCProtocolException {
+    validate();
+    if (getOriginalLength() > getCodec().maxDecompressedLength(compressedLength)) {
+      throw new TCProtocolException("Original length " + getOriginalLength() + " is not possible for " + compressedLength
+                                    + " bytes of " + getCodec());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "codec=" + getCodec() + " originalLength=" + getOriginalLength();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.net.protocol.AbstractTCNetworkMessage;
+import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.net.protocol.TCProtocolException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A transport payload (header and body of the upper layer message) compressed with the codec negotiated for the
+ * connection. It stands in for the original message on the wire and hands sent callbacks and recycling back to it.
+ */
+public class CompressedNetworkMessage extends AbstractTCNetworkMessage {
+  private final TCNetworkMessage original;
+
+  private CompressedNetworkMessage(CompressedMessageHeader header, byte[] compressed, TCNetworkMessage original) {
+    super(header, new TCByteBuffer[] { TCByteBufferFactory.wrap(compressed) });
+    this.original = original;
+    setSentCallback(original.getSentCallback());
+  }
+
+  @Override
+  public void doRecycleOnWrite() {
+    ((AbstractTCNetworkMessage) original).doRecycleOnWrite();
+  }
+
+  /**
+   * @return the compressed stand-in for {@code message}, or {@code message} itself if the codec could not shrink it
+   */
+  public static TCNetworkMessage compress(TCNetworkMessage message, PayloadCodec codec, CompressionStats stats) {
+    if (!message.isSealed()) {
+      message.seal();
+    }
+    final long start = System.nanoTime();
+    final byte[] raw = toBytes(message.getEntireMessageData(), message.getTotalLength());
+    final byte[] compressed = codec.compress(raw, raw.length);
+    if (compressed == null) {
+      stats.skipped(System.nanoTime() - start);
+      return message;
+    }
+    stats.compressed(raw.length, compressed.length + CompressedMessageHeader.HEADER_LENGTH, System.nanoTime() - start);
+    return new CompressedNetworkMessage(new CompressedMessageHeader(codec, raw.length), compressed, message);
+  }
+
+  /**
+   * Inflates the payload of a received compressed message back into the bytes the sender's upper layer produced.
+   */
+  public static TCByteBuffer[] decompress(TCByteBuffer[] payload, CompressionStats stats) throws TCProtocolException {
+    final long start = System.nanoTime();
+    int length = 0;
+    for (TCByteBuffer buffer : payload) {
+      length += buffer.limit();
+    }
+    if (length < CompressedMessageHeader.HEADER_LENGTH) { throw new TCProtocolException("Compressed payload too short: "
+                                                                                        + length); }
+    final byte[] raw = toBytes(payload, length);
+    final byte[] headerBytes = Arrays.copyOf(raw, CompressedMessageHeader.HEADER_LENGTH);
+    final CompressedMessageHeader header = new CompressedMessageHeader(TCByteBufferFactory.wrap(headerBytes));
+    header.validate(length - CompressedMessageHeader.HEADER_LENGTH);
+
+    final byte[] inflated = new byte[header.getOriginalLength()];
+    try {
+      header.getCodec().decompress(raw, CompressedMessageHeader.HEADER_LENGTH,
+                                   length - CompressedMessageHeader.HEADER_LENGTH, inflated);
+    } catch (IOException e) {
+      throw new TCProtocolException("Corrupt " + header.getCodec() + " payload", e);
+    }
+    stats.decompressed(System.nanoTime() - start);
+    return new TCByteBuffer[] { TCByteBufferFactory.wrap(inflated) };
+  }
+
+  private static byte[] toBytes(TCByteBuffer[] buffers, int length) {
+    final byte[] raw = new byte[length];
+    int offset = 0;
+    for (TCByteBuffer buffer : buffers) {
+      final int limit = buffer.limit();
+      buffer.duplicate().get(0, raw, offset, limit);
+      offset += limit;
+    }
+    return raw;
+  }
+}
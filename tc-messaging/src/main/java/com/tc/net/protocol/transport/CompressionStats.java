@@ -0,0 +1,98 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for transport payload compression, shared by all the transports of a comms manager.
+ */
+public class CompressionStats {
+  private final AtomicLong compressedMessages   = new AtomicLong();
+  private final AtomicLong skippedMessages      = new AtomicLong();
+  private final AtomicLong decompressedMessages = new AtomicLong();
+  private final AtomicLong bytesIn              = new AtomicLong();
+  private final AtomicLong bytesOut             = new AtomicLong();
+  private final AtomicLong compressNanos        = new AtomicLong();
+  private final AtomicLong decompressNanos      = new AtomicLong();
+
+  void compressed(int originalLength, int compressedLength, long nanos) {
+    compressedMessages.incrementAndGet();
+    bytesIn.addAndGet(originalLength);
+    bytesOut.addAndGet(compressedLength);
+    compressNanos.addAndGet(nanos);
+  }
+
+  /**
+   * A message went through the codec but did not shrink and was sent as is.
+   */
+  void skipped(long nanos) {
+    skippedMessages.incrementAndGet();
+    compressNanos.addAndGet(nanos);
+  }
+
+  void decompressed(long nanos) {
+    decompressedMessages.incrementAndGet();
+    decompressNanos.addAndGet(nanos);
+  }
+
+  public long getCompressedMessages() {
+    return compressedMessages.get();
+  }
+
+  public long getSkippedMessages() {
+    return skippedMessages.get();
+  }
+
+  public long getDecompressedMessages() {
+    return decompressedMessages.get();
+  }
+
+  public long getUncompressedBytes() {
+    return bytesIn.get();
+  }
+
+  public long getCompressedBytes() {
+    return bytesOut.get();
+  }
+
+  /**
+   * @return compressed size over original size of everything sent compressed, 1.0 if nothing was
+   */
+  public double getCompressionRatio() {
+    final long in = bytesIn.get();
+    return in == 0 ? 1.0 : (double) bytesOut.get() / in;
+  }
+
+  public long getCompressTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(compressNanos.get());
+  }
+
+  public long getDecompressTimeMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(decompressNanos.get());
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionStats[compressed=" + getCompressedMessages() + ", skipped=" + getSkippedMessages()
+           + ", decompressed=" + getDecompressedMessages() + ", ratio=" + String.format("%.3f", getCompressionRatio())
+           + ", compressTime=" + getCompressTimeMillis() + "ms, decompressTime=" + getDecompressTimeMillis() + "ms]";
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import com.tc.bytes.TCByteBuffer;
+
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) for wire checksums. Uses the JDK's intrinsified {@code java.util.zip.CRC32C} when the runtime
+ * has it and an equivalent table driven implementation otherwise, so nodes on different JVMs agree on the value.
+ */
+final class Crc32c {
+  private static final Class<? extends Checksum> JDK_CRC32C = findJdkCrc32c();
+
+  private static final ThreadLocal<Checksum>     CHECKSUMS  = new ThreadLocal<Checksum>() {
+                                                              @Override
+                                                              protected Checksum initialValue() {
+                                                                return newChecksum();
+                                                              }
+                                                            };
+
+  private Crc32c() {
+    // static methods only
+  }
+
+  static long checksum(byte[] data, int offset, int length) {
+    final Checksum crc = CHECKSUMS.get();
+    crc.reset();
+    crc.update(data, offset, length);
+    return crc.getValue();
+  }
+
+  /**
+   * Checksum of the bytes between zero and the limit of each buffer, in order.
+   */
+  static long checksum(TCByteBuffer[] buffers) {
+    final Checksum crc = CHECKSUMS.get();
+    crc.reset();
+    byte[] scratch = null;
+    for (TCByteBuffer buffer : buffers) {
+      final int length = buffer.limit();
+      if (!buffer.isDirect()) {
+        crc.update(buffer.array(), buffer.arrayOffset(), length);
+      } else {
+        if (scratch == null || scratch.length < length) {
+          scratch = new byte[length];
+        }
+        buffer.duplicate().get(0, scratch, 0, length);
+        crc.update(scratch, 0, length);
+      }
+    }
+    return crc.getValue();
+  }
+
+  static Checksum newChecksum() {
+    if (JDK_CRC32C != null) {
+      try {
+        return JDK_CRC32C.newInstance();
+      } catch (Exception e) {
+        // fall through to the portable version
+      }
+    }
+    return new PureJava();
+  }
+
+  private static Class<? extends Checksum> findJdkCrc32c() {
+    try {
+      return Class.forName("java.util.zip.CRC32C").asSubclass(Checksum.class);
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Slicing-by-4 over the reflected Castagnoli polynomial.
+   */
+  static final class PureJava implements Checksum {
+    private static final int[][] TABLES = new int[4][256];
+
+    static {
+      for (int n = 0; n < 256; n++) {
+        int c = n;
+        for (int k = 0; k < 8; k++) {
+          c = (c & 1) != 0 ? (c >>> 1) ^ 0x82F63B78 : c >>> 1;
+        }
+        TABLES[0][n] = c;
+      }
+      for (int n = 0; n < 256; n++) {
+        int c = TABLES[0][n];
+        for (int t = 1; t < 4; t++) {
+          c = TABLES[0][c & 0xFF] ^ (c >>> 8);
+          TABLES[t][n] = c;
+        }
+      }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    @Override
+    public void update(int b) {
+      crc = TABLES[0][(crc ^ b) & 0xFF] ^ (crc >>> 8);
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+      final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+      int c = crc;
+      final int end4 = off + (len & ~3);
+      for (; off < end4; off += 4) {
+        c ^= (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+        c = t3[c & 0xFF] ^ t2[(c >>> 8) & 0xFF] ^ t1[(c >>> 16) & 0xFF] ^ t0[c >>> 24];
+      }
+      final int end = off + (len & 3);
+      for (; off < end; off++) {
+        c = t0[(c ^ b[off]) & 0xFF] ^ (c >>> 8);
+      }
+      crc = c;
+    }
+
+    @Override
+    public long getValue() {
+      return (~crc) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+      crc = 0xFFFFFFFF;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pure Java LZ77 block codec using the LZ4 block layout: each sequence is a token, its literals, a two byte offset and
+ * an optional match length extension. Favours speed over ratio, which suits already-serialized message payloads.
+ */
+final class LZCodec {
+  private static final int MIN_MATCH     = 4;
+  private static final int MF_LIMIT      = 12;
+  private static final int LAST_LITERALS = 5;
+  private static final int MAX_DISTANCE  = 0xFFFF;
+  private static final int HASH_LOG      = 12;
+  private static final int SKIP_TRIGGER  = 6;
+
+  private static final ThreadLocal<int[]> HASH_TABLES = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[1 << HASH_LOG];
+    }
+  };
+
+  private LZCodec() {
+    // static methods only
+  }
+
+  static int maxCompressedLength(int length) {
+    return length + (length / 255) + 16;
+  }
+
+  /**
+   * Compress {@code src[0, length)} into {@code dst}, which must hold at least {@link #maxCompressedLength(int)} bytes.
+   * 
+   * @return the number of bytes written to {@code dst}
+   */
+  static int compress(byte[] src, int length, byte[] dst) {
+    int anchor = 0;
+    int op = 0;
+
+    if (length > MF_LIMIT) {
+      final int[] table = HASH_TABLES.get();
+      Arrays.fill(table, -1);
+
+      final int matchLimit = length - MF_LIMIT;
+      final int matchEnd = length - LAST_LITERALS;
+      int ip = 0;
+      while (ip < matchLimit) {
+        final int sequence = readInt(src, ip);
+        final int h = hash(sequence);
+        int ref = table[h];
+        table[h] = ip;
+
+        if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+          // step further the longer we go without a match so incompressible data is skipped quickly
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+
+        while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+          ip--;
+          ref--;
+        }
+
+        int matchLength = MIN_MATCH;
+        while (ip + matchLength < matchEnd && src[ip + matchLength] == src[ref + matchLength]) {
+          matchLength++;
+        }
+
+        op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+        ip += matchLength;
+        anchor = ip;
+      }
+    }
+
+    final int literals = length - anchor;
+    final int tokenPos = op++;
+    dst[tokenPos] = (byte) (Math.min(literals, 15) << 4);
+    if (literals >= 15) {
+      op = writeLength(literals - 15, dst, op);
+    }
+    System.arraycopy(src, anchor, dst, op, literals);
+    return op + literals;
+  }
+
+  /**
+   * Decompress {@code src[offset, offset + length)} into {@code dst}, which must be exactly the original length.
+   */
+  static void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException {
+    final int end = offset + length;
+    int ip = offset;
+    int op = 0;
+
+    while (true) {
+      if (ip >= end) { throw new IOException("Truncated LZ block"); }
+      final int token = src[ip++] & 0xFF;
+
+      int literals = token >>> 4;
+      if (literals == 15) {
+        int b;
+        do {
+          if (ip >= end) { throw new IOException("Truncated LZ literal length"); }
+          b = src[ip++] & 0xFF;
+          literals += b;
+        } while (b == 255);
+      }
+      if (literals > end - ip || literals > dst.length - op) { throw new IOException("LZ literals overrun"); }
+      System.arraycopy(src, ip, dst, op, literals);
+      ip += literals;
+      op += literals;
+
+      if (ip == end) {
+        break;
+      }
+
+      if (end - ip < 2) { throw new IOException("Truncated LZ offset"); }
+      final int distance = (src[ip++] & 0xFF) | ((src[ip++] & 0xFF) << 8);
+      if (distance == 0 || distance > op) { throw new IOException("Bad LZ offset " + distance + " at " + op); }
+
+      int matchLength = token & 0x0F;
+      if (matchLength == 15) {
+        int b;
+        do {
+          if (ip >= end) { throw new IOException("Truncated LZ match length"); }
+          b = src[ip++] & 0xFF;
+          matchLength += b;
+        } while (b == 255);
+      }
+      matchLength += MIN_MATCH;
+      if (matchLength > dst.length - op) { throw new IOException("LZ match overrun"); }
+
+      final int ref = op - distance;
+      if (distance >= matchLength) {
+        System.arraycopy(dst, ref, dst, op, matchLength);
+      } else {
+        // overlapping copy repeats the last distance bytes
+        for (int i = 0; i < matchLength; i++) {
+          dst[op + i] = dst[ref + i];
+        }
+      }
+      op += matchLength;
+    }
+
+    if (op != dst.length) { throw new IOException("LZ block decoded to " + op + " bytes, expected " + dst.length); }
+  }
+
+  private static int writeSequence(byte[] src, int literalStart, int literals, int distance, int matchLength,
+                                   byte[] dst, int op) {
+    final int extraMatch = matchLength - MIN_MATCH;
+    final int tokenPos = op++;
+    dst[tokenPos] = (byte) ((Math.min(literals, 15) << 4) | Math.min(extraMatch, 15));
+    if (literals >= 15) {
+      op = writeLength(literals - 15, dst, op);
+    }
+    System.arraycopy(src, literalStart, dst, op, literals);
+    op += literals;
+    dst[op++] = (byte) distance;
+    dst[op++] = (byte) (distance >>> 8);
+    if (extraMatch >= 15) {
+      op = writeLength(extraMatch - 15, dst, op);
+    }
+    return op;
+  }
+
+  private static int writeLength(int length, byte[] dst, int op) {
+    while (length >= 255) {
+      dst[op++] = (byte) 255;
+      length -= 255;
+    }
+    dst[op++] = (byte) length;
+    return op;
+  }
+
+  private static int readInt(byte[] b, int i) {
+    return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | ((b[i + 3] & 0xFF) << 24);
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+}
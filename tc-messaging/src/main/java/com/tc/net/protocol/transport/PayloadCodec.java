@@ -0,0 +1,159 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs a transport can negotiate for compressing the payload of large messages. The id is what goes on the wire, in
+ * the transport handshake and in the header of each compressed message.
+ */
+public enum PayloadCodec {
+  NONE((byte) 0, 1) {
+    @Override
+    byte[] compress(byte[] src, int length) {
+      return null;
+    }
+
+    @Override
+    void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException {
+      throw new IOException("Payload is not compressed");
+    }
+  },
+
+  // a deflate stream cannot inflate by more than 1032:1
+  DEFLATE((byte) 1, 1032) {
+    @Override
+    byte[] compress(byte[] src, int length) {
+      if (length < 2) { return null; }
+      final Deflater deflater = Zip.DEFLATERS.get();
+      try {
+        deflater.setInput(src, 0, length);
+        deflater.finish();
+        // only worth sending if it shrinks
+        final byte[] out = new byte[length - 1];
+        final int written = deflater.deflate(out);
+        return deflater.finished() ? trim(out, written) : null;
+      } finally {
+        deflater.reset();
+      }
+    }
+
+    @Override
+    void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException {
+      final Inflater inflater = Zip.INFLATERS.get();
+      try {
+        inflater.setInput(src, offset, length);
+        final int read = inflater.inflate(dst);
+        if (read != dst.length || !inflater.finished()) { throw new IOException("Deflate block decoded to " + read
+                                                                                 + " bytes, expected " + dst.length); }
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      } finally {
+        inflater.reset();
+      }
+    }
+  },
+
+  // each byte of a match length extension adds at most 255 bytes
+  LZ((byte) 2, 255) {
+    @Override
+    byte[] compress(byte[] src, int length) {
+      final byte[] out = new byte[LZCodec.maxCompressedLength(length)];
+      final int written = LZCodec.compress(src, length, out);
+      return written < length ? trim(out, written) : null;
+    }
+
+    @Override
+    void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException {
+      LZCodec.decompress(src, offset, length, dst);
+    }
+  };
+
+  private final byte id;
+  private final int  maxExpansion;
+
+  private PayloadCodec(byte id, int maxExpansion) {
+    this.id = id;
+    this.maxExpansion = maxExpansion;
+  }
+
+  public byte getId() {
+    return id;
+  }
+
+  /**
+   * Largest length {@code compressedLength} bytes of this codec can decompress to. Anything claiming more is corrupt.
+   */
+  long maxDecompressedLength(int compressedLength) {
+    return (long) compressedLength * maxExpansion;
+  }
+
+  /**
+   * Bit for this codec in the set of codecs a node advertises during the transport handshake.
+   */
+  public int mask() {
+    return 1 << id;
+  }
+
+  /**
+   * @return the compressed form of {@code src[0, length)}, or null if it would not be smaller
+   */
+  abstract byte[] compress(byte[] src, int length);
+
+  /**
+   * Decompress {@code src[offset, offset + length)} into {@code dst}, which must be exactly the original length.
+   */
+  abstract void decompress(byte[] src, int offset, int length, byte[] dst) throws IOException;
+
+  public static PayloadCodec fromId(int id) {
+    for (PayloadCodec codec : values()) {
+      if (codec.id == id) { return codec; }
+    }
+    return null;
+  }
+
+  private static byte[] trim(byte[] data, int length) {
+    final byte[] trimmed = new byte[length];
+    System.arraycopy(data, 0, trimmed, 0, length);
+    return trimmed;
+  }
+
+  /*
+   * Deflaters hold native memory so they are kept per thread rather than created per message.
+   */
+  private static final class Zip {
+    static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+      @Override
+      protected Deflater initialValue() {
+        return new Deflater(Deflater.BEST_SPEED);
+      }
+    };
+
+    static final ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+      @Override
+      protected Inflater initialValue() {
+        return new Inflater();
+      }
+    };
+  }
+}
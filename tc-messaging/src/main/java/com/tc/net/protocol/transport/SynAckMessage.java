@@ -31,6 +31,16 @@ public interface SynAckMessage extends TransportHandshakeMessage {
 
   int getCallbackPort();
 
+  /**
+   * The codec the server picked for this connection's payloads, in both directions.
+   */
+  PayloadCodec getPayloadCodec();
+
+  /**
+   * True if both sides are to send payload checksums on this connection.
+   */
+  boolean isPayloadChecksumEnabled();
+
   @Override
   public int getMaxConnections();
 
@@ -20,4 +20,14 @@ package com.tc.net.protocol.transport;
 
 public interface SynMessage extends TransportHandshakeMessage {
   int getCallbackPort();
+
+  /**
+   * Mask of the {@link PayloadCodec}s the connecting side can decode.
+   */
+  int getCompressionCodecs();
+
+  /**
+   * True if the connecting side wants every message on the connection to carry a payload checksum.
+   */
+  boolean isPayloadChecksumRequested();
 }
@@ -23,12 +23,13 @@ import com.tc.net.core.TCConnection;
 public interface TransportHandshakeMessageFactory {
 
   public TransportHandshakeMessage createSyn(ConnectionID connectionId, TCConnection source, short stackLayerFlags,
-                                             int callbackPort);
+                                             int callbackPort, int compressionCodecs, boolean payloadChecksum);
 
   public TransportHandshakeMessage createAck(ConnectionID connectionId, TCConnection source);
 
   public TransportHandshakeMessage createSynAck(ConnectionID connectionId, TCConnection source,
-                                                boolean isMaxConnectionsExceeded, int maxConnections, int callbackPort);
+                                                boolean isMaxConnectionsExceeded, int maxConnections, int callbackPort,
+                                                PayloadCodec payloadCodec, boolean payloadChecksum);
 
   public TransportHandshakeMessage createSynAck(ConnectionID connectionId, TransportHandshakeError error,
                                                 TCConnection source, boolean isMaxConnectionsExceeded,
@@ -44,9 +44,10 @@ public class TransportMessageFactoryImpl implements TransportHandshakeMessageFac
 
   @Override
   public TransportHandshakeMessage createSyn(ConnectionID connectionId, TCConnection source, short stackLayerFlags,
-                                             int callbackPort) {
+                                             int callbackPort, int compressionCodecs, boolean payloadChecksum) {
     return createNewMessage(TransportMessageImpl.SYN, connectionId, null, source, false, 0,
-                            WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE, stackLayerFlags, callbackPort);
+                            WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE, stackLayerFlags, callbackPort,
+                            (byte) compressionCodecs, payloadChecksum);
   }
 
   @Override
@@ -57,9 +58,11 @@ public class TransportMessageFactoryImpl implements TransportHandshakeMessageFac
 
   @Override
   public TransportHandshakeMessage createSynAck(ConnectionID connectionId, TCConnection source,
-                                                boolean isMaxConnectionsExceeded, int maxConnections, int callbackPort) {
+                                                boolean isMaxConnectionsExceeded, int maxConnections, int callbackPort,
+                                                PayloadCodec payloadCodec, boolean payloadChecksum) {
     return createNewMessage(TransportMessageImpl.SYN_ACK, connectionId, null, source, isMaxConnectionsExceeded,
-                            maxConnections, callbackPort);
+                            maxConnections, WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE, (short) -1, callbackPort,
+                            payloadCodec.getId(), payloadChecksum);
   }
 
   @Override
@@ -74,26 +77,30 @@ public class TransportMessageFactoryImpl implements TransportHandshakeMessageFac
                                                        TransportHandshakeError errorContext, TCConnection source,
                                                        boolean isMaxConnectionsExceeded, int maxConnections, short protocol) {
     return createNewMessage(type, connectionId, errorContext, source, isMaxConnectionsExceeded, maxConnections,
-                            protocol, (short) -1, TransportHandshakeMessage.NO_CALLBACK_PORT);
+                            protocol, (short) -1, TransportHandshakeMessage.NO_CALLBACK_PORT, PayloadCodec.NONE.getId(),
+                            false);
   }
 
   private static TransportMessageImpl createNewMessage(byte type, ConnectionID connectionId,
                                                        TransportHandshakeError errorContext, TCConnection source,
                                                        boolean isMaxConnectionsExceeded, int maxConnections, int callbackPort) {
     return createNewMessage(type, connectionId, errorContext, source, isMaxConnectionsExceeded, maxConnections,
-                            WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE, (short) -1, callbackPort);
+                            WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE, (short) -1, callbackPort,
+                            PayloadCodec.NONE.getId(), false);
   }
 
   /**
    * One more parameter is added in createNewMessage so that the syn message that clients send to the server can have
    * the flags set for the present layers in the communication stack All other kinds of packet will have it as -1 and
-   * this wouldn't be send to the server
+   * this wouldn't be send to the server. The compression byte is the codec mask on a SYN and the chosen codec id on a
+   * SYN_ACK; the payload checksum flag is the request on a SYN and the outcome on a SYN_ACK.
    */
   @SuppressWarnings("resource")
   private static TransportMessageImpl createNewMessage(byte type, ConnectionID connectionId,
                                                        TransportHandshakeError errorContext, TCConnection source,
                                                        boolean isMaxConnectionsExceeded, int maxConnections, short protocol,
-                                                       short stackLayerFlags, int callbackPort) {
+                                                       short stackLayerFlags, int callbackPort, byte compression,
+                                                       boolean payloadChecksum) {
     TCByteBufferOutputStream bbos = new TCByteBufferOutputStream();
 
     bbos.write(TransportMessageImpl.VERSION);
@@ -103,6 +110,8 @@ public class TransportMessageFactoryImpl implements TransportHandshakeMessageFac
     bbos.writeInt(maxConnections);
     bbos.writeShort(stackLayerFlags);
     bbos.writeInt(callbackPort);
+    bbos.writeByte(compression);
+    bbos.writeBoolean(payloadChecksum);
     bbos.writeBoolean(errorContext != null);
     if (errorContext != null) {
       short errorType = errorContext.getErrorType();
@@ -34,6 +34,8 @@ class TransportMessageImpl extends WireProtocolMessageImpl implements SynMessage
    * VERSION_3: Transport Handshake Message Version for Terracotta = 3.6 (Ulloa)
    * VERSION_4: Transport Handshake Message Version for Terracotta = 3.7 (Gladstone)
    * VERSION_5: Transport Handshake Message Version for Terracotta = 4.1 (Wawona)
+   * VERSION_6: Adds payload compression negotiation
+   * VERSION_7: Adds payload checksum negotiation
    * VERSION: Current Version for Transport Handshake Messages
    */
   static final byte          VERSION_1  = 1;
@@ -41,7 +43,9 @@ class TransportMessageImpl extends WireProtocolMessageImpl implements SynMessage
   static final byte          VERSION_3  = 3;
   static final byte          VERSION_4  = 4;
   static final byte          VERSION_5  = 5;
-  static final byte          VERSION    = VERSION_5;
+  static final byte          VERSION_6  = 6;
+  static final byte          VERSION_7  = 7;
+  static final byte          VERSION    = VERSION_7;
 
 
   static final byte          SYN        = 1;
@@ -61,6 +65,8 @@ class TransportMessageImpl extends WireProtocolMessageImpl implements SynMessage
   private final short        stackLayerFlags;
   private final short        errorType;
   private final int          callbackPort;
+  private final byte         compression;
+  private final boolean      payloadChecksum;
   private final long         timestamp;
 
   @SuppressWarnings("resource")
@@ -81,6 +87,8 @@ class TransportMessageImpl extends WireProtocolMessageImpl implements SynMessage
       this.maxConnections = in.readInt();
       this.stackLayerFlags = in.readShort();
       this.callbackPort = in.readInt();
+      this.compression = in.readByte();
+      this.payloadChecksum = in.readBoolean();
       this.hasErrorContext = in.readBoolean();
 
       if (this.hasErrorContext) {
@@ -205,4 +213,25 @@ class TransportMessageImpl extends WireProtocolMessageImpl implements SynMessage
     return this.callbackPort;
   }
 
+  @Override
+  public int getCompressionCodecs() {
+    return this.compression & 0xFF;
+  }
+
+  @Override
+  public boolean isPayloadChecksumRequested() {
+    return this.payloadChecksum;
+  }
+
+  @Override
+  public boolean isPayloadChecksumEnabled() {
+    return this.payloadChecksum;
+  }
+
+  @Override
+  public PayloadCodec getPayloadCodec() {
+    final PayloadCodec codec = PayloadCodec.fromId(this.compression);
+    return codec == null ? PayloadCodec.NONE : codec;
+  }
+
 }
@@ -95,6 +95,8 @@ public class WireProtocolAdaptorImpl extends AbstractTCProtocolAdaptor implement
     WireProtocolHeader wph = (WireProtocolHeader) hdr;
     final WireProtocolMessage rv;
 
+    if (!wph.isPayloadChecksumValid(data)) { throw new TCProtocolException("Payload checksum mismatch from " + source); }
+
     if (wph.isHandshakeOrHealthCheckMessage()) {
       rv = new TransportMessageImpl(source, wph, data);
     } else {
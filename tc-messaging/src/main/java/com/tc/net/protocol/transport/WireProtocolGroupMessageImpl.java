@@ -59,14 +59,20 @@ import java.util.Iterator;
 
 public class WireProtocolGroupMessageImpl extends AbstractTCNetworkMessage implements WireProtocolGroupMessage {
 
+  // the length (int) and protocol (short) written ahead of each grouped message
+  public static final int                   GROUP_PREFIX_LENGTH = (Integer.SIZE + Short.SIZE) / 8;
+
   private final TCConnection                sourceConnection;
   private final ArrayList<TCNetworkMessage> messagePayloads;
 
   public static WireProtocolGroupMessageImpl wrapMessages(ArrayList<TCNetworkMessage> msgPayloads,
-                                                          TCConnection source) {
+                                                          TCConnection source, boolean payloadChecksum) {
     WireProtocolHeader header = new WireProtocolHeader();
     header.setProtocol(WireProtocolHeader.PROTOCOL_MSGGROUP);
     header.setMessageCount(msgPayloads.size());
+    if (payloadChecksum) {
+      header.reservePayloadChecksum();
+    }
 
     int totalByteBuffers = 0;
     for (int i = 0; i < msgPayloads.size(); i++) {
@@ -74,10 +80,14 @@ public class WireProtocolGroupMessageImpl extends AbstractTCNetworkMessage imple
     }
 
     TCByteBuffer[] msgs = new TCByteBuffer[msgPayloads.size() + totalByteBuffers];
+    // every prefix is a slice of one small heap buffer rather than an allocation per message
+    TCByteBuffer prefixes = TCByteBufferFactory.wrap(new byte[msgPayloads.size() * GROUP_PREFIX_LENGTH]);
     int i = 0;
     int copyPos = 0;
     while (i < msgPayloads.size()) {
-      TCByteBuffer tcb = TCByteBufferFactory.getInstance(false, (Integer.SIZE + Short.SIZE) / 8);
+      prefixes.limit((i + 1) * GROUP_PREFIX_LENGTH);
+      prefixes.position(i * GROUP_PREFIX_LENGTH);
+      TCByteBuffer tcb = prefixes.slice();
       tcb.putInt(msgPayloads.get(i).getTotalLength());
       tcb.putShort(WireProtocolHeader.getProtocolForMessageClass(msgPayloads.get(i)));
       tcb.flip();
@@ -40,7 +40,7 @@ import com.tc.util.Conversion;
  *        +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
  *        |                    32 Bit Total Length                        |
  *        +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
- *        |                Alder32 Header Checksum                        |
+ *        |        Header Checksum (Adler32 in V2, CRC32C in V3)          |
  *        +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
  *        |                       Source Address                          |
  *        +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
@@ -53,6 +53,8 @@ import com.tc.util.Conversion;
  *        |     Options                                |    Padding       |
  *        +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
  * </pre>
+ *
+ * In a V3 header the first option word, when present, is the CRC32C of the payload.
  * 
  * @author teck
  */
@@ -60,7 +62,8 @@ import com.tc.util.Conversion;
 public class WireProtocolHeader extends AbstractTCNetworkHeader implements Cloneable {
   public static final byte     VERSION_1                    = 1;
   public static final byte     VERSION_2                    = 2;
-  private static final byte[]  VALID_VERSIONS               = new byte[] { VERSION_1, VERSION_2 };
+  public static final byte     VERSION_3                    = 3;
+  private static final byte[]  VALID_VERSIONS               = new byte[] { VERSION_1, VERSION_2, VERSION_3 };
 
   public static final short    DEFAULT_TTL                  = 64;
   public static final int      MAX_MESSAGE_COUNT            = 0xFFFF;
@@ -71,11 +74,12 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
   public static final short    PROTOCOL_OOOP                = 3;
   public static final short    PROTOCOL_HEALTHCHECK_PROBES  = 4;
   public static final short    PROTOCOL_MSGGROUP            = 5;
+  public static final short    PROTOCOL_COMPRESSED          = 6;
 
   private static final int     MAGIC_NUM                    = 0xAAAAAAAA;
 
   private static final short[] VALID_PROTOCOLS              = new short[] { PROTOCOL_TCM, PROTOCOL_TRANSPORT_HANDSHAKE,
-      PROTOCOL_OOOP, PROTOCOL_HEALTHCHECK_PROBES, PROTOCOL_MSGGROUP };
+      PROTOCOL_OOOP, PROTOCOL_HEALTHCHECK_PROBES, PROTOCOL_MSGGROUP, PROTOCOL_COMPRESSED };
 
   // 15 32-bit words max
   static final short           MAX_LENGTH                   = 15 * 4;
@@ -83,11 +87,17 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
   // 8 32-bit words min
   static final short           MIN_LENGTH                   = 8 * 4;
 
+  private static final int     CHECKSUM_OFFSET              = 12;
+  private static final int     PAYLOAD_CHECKSUM_OFFSET      = MIN_LENGTH;
+  private static final byte[]  FOUR_ZERO_BYTES              = new byte[4];
+
   public static short getProtocolForMessageClass(TCNetworkMessage msg) {
     // TODO: is there a better way to do this (ie. not using instanceof)?
     if (msg instanceof TCMessage) {
       return PROTOCOL_TCM;
-    } else if (msg instanceof OOOProtocolMessage) { return PROTOCOL_OOOP; }
+    } else if (msg instanceof OOOProtocolMessage) {
+      return PROTOCOL_OOOP;
+    } else if (msg instanceof CompressedNetworkMessage) { return PROTOCOL_COMPRESSED; }
 
     return PROTOCOL_UNKNOWN;
   }
@@ -96,7 +106,7 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
     super(MIN_LENGTH, MAX_LENGTH);
 
     setMagicNum(MAGIC_NUM);
-    setVersion(VERSION_2);
+    setVersion(VERSION_3);
     setHeaderLength((byte) (MIN_LENGTH / 4));
     setTimeToLive(DEFAULT_TTL);
     setTypeOfService(TypeOfService.DEFAULT_TOS.getByteValue());
@@ -213,11 +223,54 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
   }
 
   public void computeChecksum() {
-    computeAdler32Checksum(12, true);
+    if (getVersion() >= VERSION_3) {
+      computeCrc32cChecksum(true);
+    } else {
+      computeAdler32Checksum(CHECKSUM_OFFSET, true);
+    }
   }
 
   public boolean isChecksumValid() {
-    return getChecksum() == computeAdler32Checksum(12, false);
+    if (getVersion() >= VERSION_3) { return getChecksum() == computeCrc32cChecksum(false); }
+    return getChecksum() == computeAdler32Checksum(CHECKSUM_OFFSET, false);
+  }
+
+  private long computeCrc32cChecksum(boolean set) {
+    final byte[] saved = getBytes(CHECKSUM_OFFSET, 4);
+    data.put(CHECKSUM_OFFSET, FOUR_ZERO_BYTES, 0, 4);
+    final long rv = Crc32c.checksum(data.array(), data.arrayOffset(), getHeaderByteLength());
+    if (set) {
+      data.putUint(CHECKSUM_OFFSET, rv);
+    } else {
+      data.put(CHECKSUM_OFFSET, saved, 0, 4);
+    }
+    return rv;
+  }
+
+  /**
+   * Make room for a payload checksum. Must be called before the message carrying this header is sealed.
+   */
+  public void reservePayloadChecksum() {
+    Assert.eval(getVersion() >= VERSION_3);
+    setOptions(FOUR_ZERO_BYTES);
+  }
+
+  public boolean hasPayloadChecksum() {
+    return getVersion() >= VERSION_3 && getHeaderByteLength() >= PAYLOAD_CHECKSUM_OFFSET + 4;
+  }
+
+  public void computePayloadChecksum(TCByteBuffer[] payload) {
+    Assert.eval(hasPayloadChecksum());
+    data.putUint(PAYLOAD_CHECKSUM_OFFSET, Crc32c.checksum(payload));
+  }
+
+  public boolean isPayloadChecksumValid(TCByteBuffer[] payload) {
+    return !hasPayloadChecksum() || getPayloadChecksum() == Crc32c.checksum(payload);
+  }
+
+  public long getPayloadChecksum() {
+    Assert.eval(hasPayloadChecksum());
+    return data.getUint(PAYLOAD_CHECKSUM_OFFSET);
   }
 
   @Override
@@ -301,7 +354,11 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
     buf.append("Protocol: ").append(getProtocolString());
     buf.append("\n");
     buf.append("Total Packet Length: ").append(getTotalPacketLength()).append("\n");
-    buf.append("Adler32 Checksum: ").append(getChecksum()).append(" (valid: ").append(isChecksumValid()).append(")\n");
+    buf.append(getVersion() >= VERSION_3 ? "CRC32C" : "Adler32").append(" Checksum: ").append(getChecksum())
+        .append(" (valid: ").append(isChecksumValid()).append(")\n");
+    if (hasPayloadChecksum()) {
+      buf.append("Payload Checksum: ").append(getPayloadChecksum()).append("\n");
+    }
     buf.append("Source Addresss: ");
 
     byte src[] = getSourceAddress();
@@ -364,6 +421,9 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
       case PROTOCOL_MSGGROUP: {
         return "TRANSPORT MSGGROUP";
       }
+      case PROTOCOL_COMPRESSED: {
+        return "COMPRESSED";
+      }
       default: {
         return "UNKNOWN (" + protocol + ")";
       }
@@ -397,7 +457,7 @@ public class WireProtocolHeader extends AbstractTCNetworkHeader implements Clone
   protected Object clone() {
     WireProtocolHeader rv = new WireProtocolHeader();
     rv.setVersion(this.getVersion());
-    rv.setHeaderLength(this.getHeaderLength());
+    rv.setOptions(this.getOptions());
     rv.setTypeOfService(this.getTypeOfService());
     rv.setTimeToLive(this.getTimeToLive());
     rv.setProtocol(this.getProtocol());
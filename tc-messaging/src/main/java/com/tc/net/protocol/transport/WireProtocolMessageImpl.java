@@ -41,9 +41,13 @@ public class WireProtocolMessageImpl extends AbstractTCNetworkMessage implements
    * @param msgPayload the network message to wrap
    * @return a new wire protocol message instance that contains the given message as it's payload.
    */
-  public static WireProtocolMessage wrapMessage(TCNetworkMessage msgPayload, TCConnection source) {
+  public static WireProtocolMessage wrapMessage(TCNetworkMessage msgPayload, TCConnection source,
+                                                boolean payloadChecksum) {
     WireProtocolHeader header = new WireProtocolHeader();
     header.setProtocol(WireProtocolHeader.getProtocolForMessageClass(msgPayload));
+    if (payloadChecksum) {
+      header.reservePayloadChecksum();
+    }
 
     // seal the message if necessary
     if (!msgPayload.isSealed()) {
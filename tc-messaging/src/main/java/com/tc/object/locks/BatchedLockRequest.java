@@ -0,0 +1,131 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.locks;
+
+import com.tc.io.TCByteBufferInput;
+import com.tc.io.TCByteBufferOutput;
+import com.tc.io.TCSerializable;
+import com.tc.object.msg.LockRequestMessage.RequestType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A single lock, unlock, try lock, wait, query, interrupt or recall commit request carried inside a batched
+ * {@link com.tc.object.msg.LockRequestMessage}.
+ */
+public class BatchedLockRequest implements TCSerializable<BatchedLockRequest> {
+  private static final RequestType[]                  REQUEST_TYPE_VALUES      = RequestType.values();
+  private static final ServerLockLevel[]              SERVER_LOCK_LEVEL_VALUES = ServerLockLevel.values();
+  private static final byte                           NO_LEVEL                 = -1;
+
+  private RequestType                                 requestType;
+  private LockID                                      lockID;
+  private ThreadID                                    threadID;
+  private ServerLockLevel                             lockLevel;
+  private long                                        timeout;
+  private Collection<ClientServerExchangeLockContext> contexts;
+
+  public BatchedLockRequest() {
+    // To make TCSerializable happy
+  }
+
+  public BatchedLockRequest(RequestType requestType, LockID lockID, ThreadID threadID, ServerLockLevel lockLevel,
+                            long timeout) {
+    this(requestType, lockID, threadID, lockLevel, timeout,
+         Collections.<ClientServerExchangeLockContext> emptyList());
+  }
+
+  public BatchedLockRequest(RequestType requestType, LockID lockID, ThreadID threadID, ServerLockLevel lockLevel,
+                            long timeout, Collection<ClientServerExchangeLockContext> contexts) {
+    this.requestType = requestType;
+    this.lockID = lockID;
+    this.threadID = threadID;
+    this.lockLevel = lockLevel;
+    this.timeout = timeout;
+    this.contexts = contexts;
+  }
+
+  @Override
+  public BatchedLockRequest deserializeFrom(TCByteBufferInput in) throws IOException {
+    try {
+      this.requestType = REQUEST_TYPE_VALUES[in.readByte()];
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Unknown lock request type", e);
+    }
+    LockIDSerializer ls = new LockIDSerializer();
+    ls.deserializeFrom(in);
+    this.lockID = ls.getLockID();
+    this.threadID = new ThreadID(in.readLong());
+    byte level = in.readByte();
+    this.lockLevel = (level == NO_LEVEL) ? null : SERVER_LOCK_LEVEL_VALUES[level];
+    this.timeout = in.readLong();
+    int length = in.readInt();
+    this.contexts = new ArrayList<ClientServerExchangeLockContext>(length);
+    for (int i = 0; i < length; i++) {
+      contexts.add(new ClientServerExchangeLockContext().deserializeFrom(in));
+    }
+    return this;
+  }
+
+  @Override
+  public void serializeTo(TCByteBufferOutput out) {
+    out.writeByte(requestType.ordinal());
+    new LockIDSerializer(lockID).serializeTo(out);
+    out.writeLong(threadID.toLong());
+    out.writeByte(lockLevel == null ? NO_LEVEL : lockLevel.ordinal());
+    out.writeLong(timeout);
+    out.writeInt(contexts.size());
+    for (ClientServerExchangeLockContext context : contexts) {
+      context.serializeTo(out);
+    }
+  }
+
+  public RequestType getRequestType() {
+    return requestType;
+  }
+
+  public LockID getLockID() {
+    return lockID;
+  }
+
+  public ThreadID getThreadID() {
+    return threadID;
+  }
+
+  public ServerLockLevel getLockLevel() {
+    return lockLevel;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  public Collection<ClientServerExchangeLockContext> getContexts() {
+    return contexts;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchedLockRequest [" + requestType + ", " + lockID + ", " + threadID + ", " + lockLevel + ", " + timeout
+           + "ms, contexts=" + contexts.size() + "]";
+  }
+}
@@ -25,6 +25,7 @@ import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.tcm.MessageMonitor;
 import com.tc.net.protocol.tcm.TCMessageHeader;
 import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockRequest;
 import com.tc.object.locks.ClientServerExchangeLockContext;
 import com.tc.object.locks.LockID;
 import com.tc.object.locks.RecallBatchContext;
@@ -35,8 +36,10 @@ import com.tc.util.Assert;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -56,14 +59,16 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
   private final static byte WAIT_MILLIS            = 5;
   private final static byte CONTEXT                = 6;
   private final static byte BATCHED_RECALL_CONTEXT = 7;
+  private final static byte BATCHED_REQUEST        = 8;
 
   // request types
   public static enum RequestType {
-    LOCK, UNLOCK, WAIT, RECALL_COMMIT, QUERY, TRY_LOCK, INTERRUPT_WAIT, BATCHED_RECALL_COMMIT;
+    LOCK, UNLOCK, WAIT, RECALL_COMMIT, QUERY, TRY_LOCK, INTERRUPT_WAIT, BATCHED_RECALL_COMMIT, BATCH;
   }
 
   private final Set<ClientServerExchangeLockContext> contexts        = new LinkedHashSet<ClientServerExchangeLockContext>();
   private final LinkedList<RecallBatchContext>       recallContexts  = new LinkedList<RecallBatchContext>();
+  private final LinkedList<BatchedLockRequest>       batchedRequests = new LinkedList<BatchedLockRequest>();
 
   private LockID                                     lockID          = null;
   private ServerLockLevel                            lockLevel       = null;
@@ -128,6 +133,11 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
           putNVPair(BATCHED_RECALL_CONTEXT, batchContext);
         }
         break;
+      case BATCH:
+        for (BatchedLockRequest request : batchedRequests) {
+          putNVPair(BATCHED_REQUEST, request);
+        }
+        break;
       default:
         throw new AssertionError("unexpected type: " + requestType);
     }
@@ -149,6 +159,9 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     if (recallContexts.size() > 0) {
       rv.append("RecallCommits contexts size = ").append(recallContexts.size()).append('\n');
     }
+    if (batchedRequests.size() > 0) {
+      rv.append("Batched requests size = ").append(batchedRequests.size()).append('\n');
+    }
 
     return rv.toString();
   }
@@ -186,6 +199,9 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
       case BATCHED_RECALL_CONTEXT:
         recallContexts.add(getObject(new RecallBatchContext()));
         return true;
+      case BATCHED_REQUEST:
+        batchedRequests.add(getObject(new BatchedLockRequest()));
+        return true;
       default:
         return false;
     }
@@ -223,6 +239,36 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     return recallContexts;
   }
 
+  public void addBatchedRequest(BatchedLockRequest request) {
+    this.batchedRequests.add(request);
+  }
+
+  /**
+   * Requests in a batch are in the order they were issued on the client and must be processed in that order.
+   */
+  public LinkedList<BatchedLockRequest> getBatchedRequests() {
+    return batchedRequests;
+  }
+
+  /**
+   * Splits a received batch into one batch per lock, each holding that lock's requests in the order the client issued
+   * them.  Each part is scheduled by its lock so that different locks are processed in parallel.
+   */
+  public Collection<LockRequestMessage> splitByLock() {
+    Assert.assertTrue(requestType == RequestType.BATCH);
+    Map<LockID, LockRequestMessage> parts = new LinkedHashMap<LockID, LockRequestMessage>();
+    for (BatchedLockRequest request : batchedRequests) {
+      LockRequestMessage part = parts.get(request.getLockID());
+      if (part == null) {
+        part = new LockRequestMessage(getLocalSessionID(), null, getChannel(), (TCMessageHeader) getHeader(), new TCByteBuffer[0]);
+        part.initialize(request.getLockID(), ThreadID.VM_ID, null, RequestType.BATCH, -1);
+        parts.put(request.getLockID(), part);
+      }
+      part.batchedRequests.add(request);
+    }
+    return parts.values();
+  }
+
   public long getTimeout() {
     return waitMillis;
   }
@@ -259,6 +305,10 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
     initialize(null, ThreadID.VM_ID, null, RequestType.BATCHED_RECALL_COMMIT, -1);
   }
 
+  public void initializeBatch() {
+    initialize(null, ThreadID.VM_ID, null, RequestType.BATCH, -1);
+  }
+
   private void initialize(LockID lid, ThreadID id, ServerLockLevel level, RequestType reqType, long millis) {
     this.lockID = lid;
     this.lockLevel = level;
@@ -269,11 +319,14 @@ public class LockRequestMessage extends DSOMessageBase implements MultiThreadedE
 
   @Override
   public Object getSchedulingKey() {
-    return this.getSourceNodeID();
+    // requests for the same lock are processed in order, different locks in parallel. A batch spans many locks and
+    // is kept in order with the other batches from the same client until it is split by lock.
+    return (lockID != null) ? lockID : this.getSourceNodeID();
   }
 
   @Override
   public boolean flush() {
-    return false;
+    // a batched recall commit spans many locks, so let everything queued ahead of it finish first
+    return requestType == RequestType.BATCHED_RECALL_COMMIT;
   }
 }
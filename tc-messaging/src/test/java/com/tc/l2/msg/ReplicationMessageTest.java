@@ -0,0 +1,92 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.l2.msg;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.io.TCByteBufferInputStream;
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.ClientID;
+import com.tc.object.ClientInstanceID;
+import com.tc.object.EntityDescriptor;
+import com.tc.object.EntityID;
+import com.tc.object.tx.TransactionID;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ReplicationMessageTest {
+
+  private ReplicationMessage createMessage() {
+    EntityDescriptor descriptor = new EntityDescriptor(new EntityID("type", "name"), new ClientInstanceID(1), 1);
+    ReplicationMessage msg = ReplicationMessage.createReplicatedMessage(descriptor, new ClientID(1), new TransactionID(2),
+        new TransactionID(1), ReplicationMessage.ReplicationType.INVOKE_ACTION, new byte[] { 1, 2, 3 }, 4);
+    msg.setLogSequence(42);
+    return msg;
+  }
+
+  @SuppressWarnings("resource")
+  private byte[] write(ReplicationMessage msg) {
+    TCByteBufferOutputStream bo = new TCByteBufferOutputStream();
+    msg.serializeTo(bo);
+    bo.close();
+    byte[] bytes = new byte[bo.getBytesWritten()];
+    int offset = 0;
+    for (TCByteBuffer buffer : bo.toArray()) {
+      int length = buffer.remaining();
+      buffer.get(bytes, offset, length);
+      offset += length;
+    }
+    return bytes;
+  }
+
+  @SuppressWarnings("resource")
+  private ReplicationMessage read(byte[] bytes) throws Exception {
+    ReplicationMessage msg = new ReplicationMessage();
+    msg.deserializeFrom(new TCByteBufferInputStream(TCByteBufferFactory.wrap(bytes)));
+    return msg;
+  }
+
+  @Test
+  public void testLogSequenceSerialization() throws Exception {
+    ReplicationMessage msg = createMessage();
+    ReplicationMessage read = read(write(msg));
+    assertEquals(42, read.getLogSequence());
+    assertEquals(msg.getEntityDescriptor(), read.getEntityDescriptor());
+    assertEquals(msg.getTransactionID(), read.getTransactionID());
+    assertEquals(msg.getReplicationType(), read.getReplicationType());
+    assertArrayEquals(msg.getExtendedData(), read.getExtendedData());
+    assertEquals(msg.getConcurrency(), read.getConcurrency());
+  }
+
+  @Test
+  public void testMissingLogSequenceReadsAsNotLogged() throws Exception {
+    ReplicationMessage msg = createMessage();
+    byte[] bytes = write(msg);
+    // a server that does not log replication writes everything but the trailing sequence
+    ReplicationMessage read = read(Arrays.copyOf(bytes, bytes.length - 8));
+    assertEquals(0, read.getLogSequence());
+    assertEquals(msg.getConcurrency(), read.getConcurrency());
+    assertArrayEquals(msg.getExtendedData(), read.getExtendedData());
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.net.protocol.TCNetworkMessage;
+import com.tc.net.protocol.TCProtocolException;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressedNetworkMessageTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    for (PayloadCodec codec : new PayloadCodec[] { PayloadCodec.DEFLATE, PayloadCodec.LZ }) {
+      CompressionStats stats = new CompressionStats();
+      TCNetworkMessage original = message(compressible(64 * 1024));
+      byte[] expected = bytes(original.getEntireMessageData());
+
+      TCNetworkMessage compressed = CompressedNetworkMessage.compress(original, codec, stats);
+      assertTrue(compressed instanceof CompressedNetworkMessage);
+      assertEquals(WireProtocolHeader.PROTOCOL_COMPRESSED, WireProtocolHeader.getProtocolForMessageClass(compressed));
+      assertTrue(compressed.getTotalLength() < original.getTotalLength());
+
+      TCByteBuffer[] inflated = CompressedNetworkMessage.decompress(compressed.getEntireMessageData(), stats);
+      assertArrayEquals(codec.name(), expected, bytes(inflated));
+      assertEquals(1, stats.getCompressedMessages());
+      assertEquals(1, stats.getDecompressedMessages());
+      assertTrue(stats.getCompressionRatio() < 1.0);
+    }
+  }
+
+  @Test
+  public void testIncompressibleIsSentAsIs() throws Exception {
+    byte[] random = new byte[8 * 1024];
+    new Random(7).nextBytes(random);
+    for (PayloadCodec codec : new PayloadCodec[] { PayloadCodec.DEFLATE, PayloadCodec.LZ }) {
+      CompressionStats stats = new CompressionStats();
+      TCNetworkMessage original = message(random);
+      assertSame(original, CompressedNetworkMessage.compress(original, codec, stats));
+      assertEquals(1, stats.getSkippedMessages());
+    }
+  }
+
+  @Test
+  public void testCorruptPayloadIsRejected() throws Exception {
+    for (PayloadCodec codec : new PayloadCodec[] { PayloadCodec.DEFLATE, PayloadCodec.LZ }) {
+      TCNetworkMessage compressed = CompressedNetworkMessage.compress(message(compressible(4096)), codec,
+                                                                      new CompressionStats());
+      byte[] wire = bytes(compressed.getEntireMessageData());
+      // claim a longer original than the data decodes to
+      wire[7]++;
+      try {
+        CompressedNetworkMessage.decompress(new TCByteBuffer[] { TCByteBufferFactory.wrap(wire) },
+                                            new CompressionStats());
+        fail(codec.name());
+      } catch (TCProtocolException e) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testImpossibleOriginalLengthIsRejected() throws Exception {
+    for (PayloadCodec codec : new PayloadCodec[] { PayloadCodec.DEFLATE, PayloadCodec.LZ }) {
+      TCNetworkMessage compressed = CompressedNetworkMessage.compress(message(compressible(4096)), codec,
+                                                                      new CompressionStats());
+      byte[] wire = bytes(compressed.getEntireMessageData());
+      // an original length no body this size could inflate to must not be allocated
+      wire[4] = 0x7F;
+      wire[5] = wire[6] = wire[7] = (byte) 0xFF;
+      try {
+        CompressedNetworkMessage.decompress(new TCByteBuffer[] { TCByteBufferFactory.wrap(wire) },
+                                            new CompressionStats());
+        fail(codec.name());
+      } catch (TCProtocolException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("not possible"));
+      }
+    }
+  }
+
+  @Test
+  public void testHighlyCompressibleIsAccepted() throws Exception {
+    for (PayloadCodec codec : new PayloadCodec[] { PayloadCodec.DEFLATE, PayloadCodec.LZ }) {
+      CompressionStats stats = new CompressionStats();
+      TCNetworkMessage original = message(new byte[1024 * 1024]);
+      byte[] expected = bytes(original.getEntireMessageData());
+      TCNetworkMessage compressed = CompressedNetworkMessage.compress(original, codec, stats);
+      assertArrayEquals(codec.name(), expected,
+                        bytes(CompressedNetworkMessage.decompress(compressed.getEntireMessageData(), stats)));
+    }
+  }
+
+  private static TCNetworkMessage message(byte[] data) {
+    return new WireProtocolMessageImpl(null, new WireProtocolHeader(),
+                                       new TCByteBuffer[] { TCByteBufferFactory.wrap(data) });
+  }
+
+  private static byte[] compressible(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ("object-" + (i % 97)).charAt(i % 7);
+    }
+    return data;
+  }
+
+  private static byte[] bytes(TCByteBuffer[] buffers) {
+    int length = 0;
+    for (TCByteBuffer buffer : buffers) {
+      length += buffer.limit();
+    }
+    byte[] out = new byte[length];
+    int offset = 0;
+    for (TCByteBuffer buffer : buffers) {
+      buffer.duplicate().get(0, out, offset, buffer.limit());
+      offset += buffer.limit();
+    }
+    return out;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.net.protocol.transport;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import static org.junit.Assert.assertEquals;
+
+public class Crc32cTest {
+
+  @Test
+  public void testCheckValue() {
+    byte[] data = "123456789".getBytes();
+    assertEquals(0xE3069283L, Crc32c.checksum(data, 0, data.length));
+
+    Checksum pure = new Crc32c.PureJava();
+    pure.update(data, 0, data.length);
+    assertEquals(0xE3069283L, pure.getValue());
+  }
+
+  @Test
+  public void testPureJavaMatchesRuntime() {
+    Random random = new Random(11);
+    for (int i = 0; i < 200; i++) {
+      byte[] data = new byte[random.nextInt(300)];
+      random.nextBytes(data);
+      int offset = data.length == 0 ? 0 : random.nextInt(data.length);
+
+      Checksum pure = new Crc32c.PureJava();
+      pure.update(data, offset, data.length - offset);
+      assertEquals(Crc32c.checksum(data, offset, data.length - offset), pure.getValue());
+    }
+  }
+}
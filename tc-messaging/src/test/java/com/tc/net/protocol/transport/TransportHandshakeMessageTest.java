@@ -19,11 +19,15 @@
 package com.tc.net.protocol.transport;
 
 import com.tc.bytes.TCByteBuffer;
+import com.tc.net.protocol.TCProtocolException;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TransportHandshakeMessageTest {
 
@@ -40,7 +44,7 @@ public class TransportHandshakeMessageTest {
     boolean isMaxConnectionsExceeded = true;
     int maxConnections = 13;
     ConnectionID connectionId = new ConnectionID("abc", 1L);
-    message = factory.createSynAck(connectionId, null, isMaxConnectionsExceeded, maxConnections, 43);
+    message = factory.createSynAck(connectionId, null, isMaxConnectionsExceeded, maxConnections, 43, PayloadCodec.LZ, true);
     TCByteBuffer payload[] = message.getPayload();
 
     WireProtocolHeader header = new WireProtocolHeader();
@@ -48,5 +52,39 @@ public class TransportHandshakeMessageTest {
     message = new TransportMessageImpl(null, header, payload);
     assertEquals(isMaxConnectionsExceeded, message.isMaxConnectionsExceeded());
     assertEquals(maxConnections, message.getMaxConnections());
+    assertEquals(PayloadCodec.LZ, ((SynAckMessage) message).getPayloadCodec());
+    assertTrue(((SynAckMessage) message).isPayloadChecksumEnabled());
+  }
+
+  @Test
+  public void testSynCarriesCodecMask() throws Exception {
+    int codecs = PayloadCodec.DEFLATE.mask() | PayloadCodec.LZ.mask();
+    ConnectionID connectionId = new ConnectionID("abc", 1L);
+    message = factory.createSyn(connectionId, null, (short) 0, 43, codecs, false);
+    TCByteBuffer payload[] = message.getPayload();
+
+    WireProtocolHeader header = new WireProtocolHeader();
+    header.setProtocol(WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE);
+    message = new TransportMessageImpl(null, header, payload);
+    assertEquals(codecs, ((SynMessage) message).getCompressionCodecs());
+    assertFalse(((SynMessage) message).isPayloadChecksumRequested());
+  }
+
+  @Test
+  public void testOlderLayoutIsRejected() throws Exception {
+    message = factory.createSyn(new ConnectionID("abc", 1L), null, (short) 0, 43, 0, true);
+    TCByteBuffer payload[] = message.getPayload();
+    assertEquals(TransportMessageImpl.VERSION_7, payload[0].get(0));
+    // a version 6 peer has no payload checksum flag in its handshake
+    payload[0].put(0, TransportMessageImpl.VERSION_6);
+
+    WireProtocolHeader header = new WireProtocolHeader();
+    header.setProtocol(WireProtocolHeader.PROTOCOL_TRANSPORT_HANDSHAKE);
+    try {
+      new TransportMessageImpl(null, header, payload);
+      fail();
+    } catch (TCProtocolException e) {
+      // expected
+    }
   }
 }
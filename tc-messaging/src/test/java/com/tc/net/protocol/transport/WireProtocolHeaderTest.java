@@ -163,4 +163,37 @@ public class WireProtocolHeaderTest {
     assertTrue(header.isChecksumValid());
   }
 
+  @Test
+  public void testCrc32cHeaderChecksum() {
+    WireProtocolHeader header = new WireProtocolHeader();
+    assertTrue(header.getVersion() == WireProtocolHeader.VERSION_3);
+    header.setTotalPacketLength(1024);
+    header.computeChecksum();
+    assertTrue(header.isChecksumValid());
+
+    header.setTotalPacketLength(1025);
+    assertFalse(header.isChecksumValid());
+  }
+
+  @Test
+  public void testPayloadChecksum() {
+    TCByteBuffer[] payload = new TCByteBuffer[] { TCByteBufferFactory.wrap("hello ".getBytes()),
+        TCByteBufferFactory.wrap("world".getBytes()) };
+
+    WireProtocolHeader header = new WireProtocolHeader();
+    assertFalse(header.hasPayloadChecksum());
+    assertTrue(header.isPayloadChecksumValid(payload));
+
+    header.reservePayloadChecksum();
+    assertTrue(header.hasPayloadChecksum());
+    assertTrue(header.getHeaderByteLength() == WireProtocolHeader.MIN_LENGTH + 4);
+    header.computePayloadChecksum(payload);
+    header.computeChecksum();
+    assertTrue(header.isChecksumValid());
+    assertTrue(header.isPayloadChecksumValid(payload));
+
+    payload[1].put(0, (byte) 'W');
+    assertFalse(header.isPayloadChecksumValid(payload));
+  }
+
 }
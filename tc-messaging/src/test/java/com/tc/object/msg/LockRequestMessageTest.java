@@ -0,0 +1,137 @@
+/*
+ *
+ *  The contents of this file are subject to the Terracotta Public License Version
+ *  2.0 (the "License"); You may not use this file except in compliance with the
+ *  License. You may obtain a copy of the License at
+ *
+ *  http://terracotta.org/legal/terracotta-public-license.
+ *
+ *  Software distributed under the License is distributed on an "AS IS" basis,
+ *  WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for
+ *  the specific language governing rights and limitations under the License.
+ *
+ *  The Covered Software is Terracotta Core.
+ *
+ *  The Initial Developer of the Covered Software is
+ *  Terracotta, Inc., a Software AG company
+ *
+ */
+package com.tc.object.msg;
+
+import com.tc.io.TCByteBufferOutputStream;
+import com.tc.net.ClientID;
+import com.tc.net.protocol.tcm.MessageChannel;
+import com.tc.net.protocol.tcm.MessageMonitor;
+import com.tc.net.protocol.tcm.TCMessageHeader;
+import com.tc.net.protocol.tcm.TCMessageType;
+import com.tc.object.locks.BatchedLockRequest;
+import com.tc.object.locks.ClientServerExchangeLockContext;
+import com.tc.object.locks.ServerLockContext.State;
+import com.tc.object.locks.ServerLockLevel;
+import com.tc.object.locks.StringLockID;
+import com.tc.object.locks.ThreadID;
+import com.tc.object.msg.LockRequestMessage.RequestType;
+import com.tc.object.session.SessionID;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class LockRequestMessageTest {
+  @Test
+  public void testRequestsAreScheduledByLock() throws Exception {
+    LockRequestMessage lock = createMessage(null);
+    lock.initializeLock(new StringLockID("a"), new ThreadID(1), ServerLockLevel.WRITE);
+    LockRequestMessage unlock = createMessage(null);
+    unlock.initializeUnlock(new StringLockID("a"), new ThreadID(2), ServerLockLevel.WRITE);
+    LockRequestMessage other = createMessage(null);
+    other.initializeLock(new StringLockID("b"), new ThreadID(1), ServerLockLevel.READ);
+
+    Assert.assertEquals(new StringLockID("a"), lock.getSchedulingKey());
+    Assert.assertEquals(lock.getSchedulingKey(), unlock.getSchedulingKey());
+    Assert.assertNotEquals(lock.getSchedulingKey(), other.getSchedulingKey());
+    Assert.assertFalse(lock.flush());
+  }
+
+  @Test
+  public void testBatchedRecallCommitFlushes() throws Exception {
+    MessageChannel channel = mock(MessageChannel.class);
+    when(channel.getLocalNodeID()).thenReturn(new ClientID(1));
+    LockRequestMessage batch = createMessage(channel);
+    batch.initializeBatchedRecallCommit();
+
+    Assert.assertEquals(new ClientID(1), batch.getSchedulingKey());
+    Assert.assertTrue(batch.flush());
+  }
+
+  @Test
+  public void testBatchRoundTrip() throws Exception {
+    StringLockID a = new StringLockID("a");
+    StringLockID b = new StringLockID("b");
+    ClientServerExchangeLockContext held = new ClientServerExchangeLockContext(b, new ClientID(1), new ThreadID(3),
+                                                                               State.GREEDY_HOLDER_WRITE);
+    LockRequestMessage batch = createMessage(null);
+    batch.initializeBatch();
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.LOCK, a, new ThreadID(1), ServerLockLevel.WRITE, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.WAIT, a, new ThreadID(1), null, 500));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.RECALL_COMMIT, b, ThreadID.VM_ID, null, -1,
+                                                   Collections.singletonList(held)));
+    batch.dehydrate();
+
+    LockRequestMessage received = new LockRequestMessage(SessionID.NULL_ID, mock(MessageMonitor.class), null,
+                                                         (TCMessageHeader) batch.getHeader(), batch.getPayload());
+    received.hydrate();
+
+    Assert.assertEquals(RequestType.BATCH, received.getRequestType());
+    List<BatchedLockRequest> requests = received.getBatchedRequests();
+    Assert.assertEquals(3, requests.size());
+    Assert.assertEquals(RequestType.LOCK, requests.get(0).getRequestType());
+    Assert.assertEquals(a, requests.get(0).getLockID());
+    Assert.assertEquals(ServerLockLevel.WRITE, requests.get(0).getLockLevel());
+    Assert.assertEquals(RequestType.WAIT, requests.get(1).getRequestType());
+    Assert.assertNull(requests.get(1).getLockLevel());
+    Assert.assertEquals(500, requests.get(1).getTimeout());
+    Assert.assertEquals(RequestType.RECALL_COMMIT, requests.get(2).getRequestType());
+    Assert.assertEquals(Collections.singletonList(held), requests.get(2).getContexts());
+  }
+
+  @Test
+  public void testBatchSplitsByLock() throws Exception {
+    StringLockID a = new StringLockID("a");
+    StringLockID b = new StringLockID("b");
+    MessageChannel channel = mock(MessageChannel.class);
+    when(channel.getLocalNodeID()).thenReturn(new ClientID(1));
+    when(channel.getRemoteNodeID()).thenReturn(new ClientID(1));
+    LockRequestMessage batch = createMessage(channel);
+    batch.initializeBatch();
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.LOCK, a, new ThreadID(1), ServerLockLevel.WRITE, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.LOCK, b, new ThreadID(2), ServerLockLevel.READ, -1));
+    batch.addBatchedRequest(new BatchedLockRequest(RequestType.UNLOCK, a, new ThreadID(1), ServerLockLevel.WRITE, -1));
+    Assert.assertEquals(new ClientID(1), batch.getSchedulingKey());
+    Assert.assertFalse(batch.flush());
+
+    List<LockRequestMessage> parts = new ArrayList<LockRequestMessage>(batch.splitByLock());
+    Assert.assertEquals(2, parts.size());
+    LockRequestMessage forA = parts.get(0);
+    Assert.assertEquals(RequestType.BATCH, forA.getRequestType());
+    Assert.assertEquals(a, forA.getSchedulingKey());
+    Assert.assertEquals(new ClientID(1), forA.getSourceNodeID());
+    Assert.assertEquals(2, forA.getBatchedRequests().size());
+    Assert.assertEquals(RequestType.LOCK, forA.getBatchedRequests().get(0).getRequestType());
+    Assert.assertEquals(RequestType.UNLOCK, forA.getBatchedRequests().get(1).getRequestType());
+    LockRequestMessage forB = parts.get(1);
+    Assert.assertEquals(b, forB.getSchedulingKey());
+    Assert.assertEquals(1, forB.getBatchedRequests().size());
+    Assert.assertEquals(new ThreadID(2), forB.getBatchedRequests().get(0).getThreadID());
+  }
+
+  private static LockRequestMessage createMessage(MessageChannel channel) {
+    return new LockRequestMessage(new SessionID(0), mock(MessageMonitor.class),
+                                  new TCByteBufferOutputStream(4, 4096, false), channel, TCMessageType.NOOP_MESSAGE);
+  }
+}